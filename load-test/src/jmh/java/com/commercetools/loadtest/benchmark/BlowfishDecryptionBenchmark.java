@@ -0,0 +1,81 @@
+package com.commercetools.loadtest.benchmark;
+
+import com.commercetools.pspadapter.payone.util.BlowfishDecryptor;
+import com.commercetools.pspadapter.payone.util.BlowfishUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Decryption of a Sofort IBAN and BIC: the static {@link BlowfishUtil} against the per-tenant
+ * {@link BlowfishDecryptor}. Runs with 4 threads, since the provider lookup of the static method is synchronized.
+ * <p>
+ * Run with {@code ./gradlew :load-test:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class BlowfishDecryptionBenchmark {
+
+    private static final String KEY = "benchmark-secure-key";
+
+    private BlowfishDecryptor decryptor;
+    private String encryptedIban;
+    private String encryptedBic;
+
+    @Setup
+    public void setUp() throws Exception {
+        decryptor = new BlowfishDecryptor(KEY);
+        encryptedIban = encryptToHex("DE89370400440532013000");
+        encryptedBic = encryptToHex("COBADEFFXXX");
+    }
+
+    @Benchmark
+    public String staticUtil() {
+        return BlowfishUtil.decryptHexToString(KEY, encryptedIban);
+    }
+
+    @Benchmark
+    public String tenantDecryptor() {
+        return decryptor.decryptHexToString(encryptedIban);
+    }
+
+    @Benchmark
+    public List<String> tenantDecryptorBatch() {
+        return decryptor.decryptHexToStrings(asList(encryptedIban, encryptedBic));
+    }
+
+    private static String encryptToHex(final String value) throws Exception {
+        final StringBuilder padded = new StringBuilder(value);
+        while (padded.length() % 8 != 0) {
+            padded.append(' ');
+        }
+        final Cipher cipher = Cipher.getInstance("Blowfish/ECB/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "Blowfish"));
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : cipher.doFinal(padded.toString().getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02X", b));
+        }
+        return hex.toString();
+    }
+}
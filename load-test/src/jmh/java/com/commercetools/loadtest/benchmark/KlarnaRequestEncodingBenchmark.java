@@ -0,0 +1,168 @@
+package com.commercetools.loadtest.benchmark;
+
+import com.commercetools.pspadapter.payone.config.PayoneConfig;
+import com.commercetools.pspadapter.payone.config.PropertyProvider;
+import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
+import com.commercetools.pspadapter.payone.domain.payone.model.klarna.KlarnaPreauthorizationRequest;
+import com.commercetools.pspadapter.payone.mapping.CustomFieldKeys;
+import com.commercetools.pspadapter.tenant.TenantPropertyProvider;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sphere.sdk.carts.Cart;
+import io.sphere.sdk.json.SphereJsonUtils;
+import io.sphere.sdk.payments.Payment;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and encodes a Klarna preauthorization request of a large B2B cart: the form body written directly from the
+ * line item columns against the former way over the parameters map and a name-value pair per list element.
+ * <p>
+ * Run with {@code ./gradlew :load-test:jmh}, the allocation rate is reported with {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KlarnaRequestEncodingBenchmark {
+
+    private static final String TENANT = "BENCHMARK";
+
+    @Param({"1000", "5000"})
+    public int lineItems;
+
+    private PayoneConfig payoneConfig;
+    private PaymentWithCartLike paymentWithCart;
+
+    @Setup
+    public void setUp() {
+        payoneConfig = new PayoneConfig(new TenantPropertyProvider(TENANT, createPropertyProvider()));
+        paymentWithCart = new PaymentWithCartLike(
+                SphereJsonUtils.readObject(createPayment(), Payment.class),
+                SphereJsonUtils.readObject(createCart(lineItems), Cart.class));
+    }
+
+    @Benchmark
+    public String directFormBody() {
+        return new KlarnaPreauthorizationRequest(payoneConfig, "KLV", paymentWithCart).toFormBody();
+    }
+
+    @Benchmark
+    public String expandedNameValuePairs() {
+        final KlarnaPreauthorizationRequest request =
+                new KlarnaPreauthorizationRequest(payoneConfig, "KLV", paymentWithCart);
+        return URLEncodedUtils.format(expandLists(request.toStringMap(false)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The encoding of the requests before the line item columns: a new {@code key[i]} name per list element.
+     */
+    private static List<NameValuePair> expandLists(final Map<String, Object> parameters) {
+        final List<NameValuePair> pairs = new ArrayList<>();
+        parameters.forEach((key, value) -> {
+            if (value instanceof List) {
+                final List<?> list = (List<?>) value;
+                if (list.isEmpty()) {
+                    pairs.add(new BasicNameValuePair(key + "[]", ""));
+                }
+                for (int i = 0; i < list.size(); i++) {
+                    pairs.add(new BasicNameValuePair(key + "[" + (i + 1) + "]", Objects.toString(list.get(i), null)));
+                }
+            } else {
+                pairs.add(new BasicNameValuePair(key, Objects.toString(value, null)));
+            }
+        });
+        return pairs;
+    }
+
+    private static PropertyProvider createPropertyProvider() {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(PropertyProvider.TENANTS, TENANT);
+        properties.put(PropertyProvider.PAYONE_API_VERSION, "3.9");
+        properties.put(PropertyProvider.PAYONE_SOLUTION_NAME, "benchmark");
+        properties.put(PropertyProvider.PAYONE_SOLUTION_VERSION, "1");
+        properties.put(PropertyProvider.PAYONE_INTEGRATOR_NAME, "benchmark");
+        properties.put(PropertyProvider.PAYONE_INTEGRATOR_VERSION, "1");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_KEY, "benchmark-key");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_MERCHANT_ID, "10000");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_PORTAL_ID, "2000000");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_SUBACC_ID, "30000");
+
+        final PropertyProvider propertyProvider = new PropertyProvider();
+        propertyProvider.getPropertiesGetters().add(0, properties::get);
+        return propertyProvider;
+    }
+
+    private static String createPayment() {
+        final ObjectNode payment = JsonNodeFactory.instance.objectNode();
+        payment.put("id", "benchmark-payment");
+        payment.put("version", 1);
+        payment.set("amountPlanned", money(1_000));
+        payment.putObject("paymentMethodInfo").put("paymentInterface", "PAYONE").put("method", "INVOICE-KLARNA");
+        payment.putArray("transactions");
+        final ObjectNode custom = payment.putObject("custom");
+        custom.putObject("type").put("typeId", "type").put("id", "benchmark-type");
+        custom.putObject("fields")
+                .put(CustomFieldKeys.REFERENCE_FIELD, "benchmark-reference")
+                .put(CustomFieldKeys.LANGUAGE_CODE_FIELD, "de");
+        return SphereJsonUtils.toJsonString(payment);
+    }
+
+    /**
+     * Line items with mixed prices, quantities and names with umlauts and spaces, so some of the values need encoding.
+     */
+    private static String createCart(final int size) {
+        final ObjectNode cart = JsonNodeFactory.instance.objectNode();
+        cart.put("id", "benchmark-cart");
+        cart.put("version", 1);
+        cart.put("cartState", "Active");
+        cart.put("taxMode", "Platform");
+        cart.put("locale", "de");
+        cart.set("totalPrice", money(1_000));
+        cart.putArray("customLineItems");
+        final ArrayNode lineItems = cart.putArray("lineItems");
+        for (int i = 0; i < size; i++) {
+            final int quantity = 1 + i % 5;
+            final long centAmount = 99 + (i * 37L) % 10_000;
+            final ObjectNode lineItem = lineItems.addObject();
+            lineItem.put("id", "line-item-" + i);
+            lineItem.put("productId", "product-" + i);
+            lineItem.putObject("name").put("de", "Schraube M" + (i % 12) + " Edelstahl, " + quantity + " Stück");
+            lineItem.putObject("variant").put("id", 1).put("sku", "SKU-" + i);
+            lineItem.putObject("price").put("id", "price-" + i).set("value", money(centAmount));
+            lineItem.put("quantity", quantity);
+            lineItem.set("totalPrice", money(centAmount * quantity));
+            lineItem.putObject("taxRate").put("name", "MwSt").put("amount", 0.19).put("includedInPrice", true)
+                    .put("country", "DE");
+            lineItem.putArray("discountedPricePerQuantity");
+        }
+        return SphereJsonUtils.toJsonString(cart);
+    }
+
+    private static ObjectNode money(final long centAmount) {
+        return JsonNodeFactory.instance.objectNode().put("currencyCode", "EUR").put("centAmount", centAmount);
+    }
+}
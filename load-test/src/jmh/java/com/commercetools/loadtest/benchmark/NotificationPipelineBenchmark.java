@@ -0,0 +1,178 @@
+package com.commercetools.loadtest.benchmark;
+
+import com.commercetools.loadtest.LatencyDistribution;
+import com.commercetools.loadtest.ctp.InMemoryProject;
+import com.commercetools.loadtest.ctp.InMemorySphereClient;
+import com.commercetools.pspadapter.payone.config.PayoneConfig;
+import com.commercetools.pspadapter.payone.config.PropertyProvider;
+import com.commercetools.pspadapter.payone.domain.ctp.paymentmethods.MethodKeys;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ClearingType;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction;
+import com.commercetools.pspadapter.tenant.TenantConfig;
+import com.commercetools.pspadapter.tenant.TenantFactory;
+import com.commercetools.pspadapter.tenant.TenantPropertyProvider;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.json.SphereJsonUtils;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.PaymentDraftBuilder;
+import io.sphere.sdk.payments.PaymentMethodInfoBuilder;
+import io.sphere.sdk.payments.commands.PaymentCreateCommand;
+import io.sphere.sdk.utils.MoneyImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.commercetools.pspadapter.payone.util.PayoneConstants.PAYONE;
+
+/**
+ * End-to-end latency of one notification against a commercetools project which answers every request after
+ * {@value #CTP_LATENCY_MILLIS} ms: the payment lookup, the payment update and, with
+ * {@code UPDATE_ORDER_PAYMENT_STATE}, the order lookup. The order lookup runs while the payment update is in flight,
+ * so both settings should take about two round trips; one after another they took three with the order update
+ * enabled. The order payment state changes on the first notification only.
+ * <p>
+ * Run with {@code ./gradlew :load-test:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationPipelineBenchmark {
+
+    private static final String TENANT = "BENCHMARK";
+
+    private static final long CTP_LATENCY_MILLIS = 20;
+
+    private static final String TXID = "benchmark-txid";
+
+    private static final InMemoryProject PROJECT = new InMemoryProject("benchmark-project");
+
+    /**
+     * Static, because {@link TenantFactory} calls {@link PipelineTenantFactory#createBlockingSphereClient} from its
+     * constructor.
+     */
+    private static final BlockingSphereClient CLIENT = BlockingSphereClient.of(
+            new InMemorySphereClient(PROJECT, LatencyDistribution.fixed(CTP_LATENCY_MILLIS)), Duration.ofSeconds(10));
+
+    @Param({"true", "false"})
+    public boolean updateOrderPaymentState;
+
+    private TenantFactory tenantFactory;
+
+    private Notification notification;
+
+    @Setup
+    public void setUp() {
+        final TenantPropertyProvider tenantPropertyProvider =
+                new TenantPropertyProvider(TENANT, createPropertyProvider(updateOrderPaymentState));
+        final TenantConfig tenantConfig = new TenantConfig(tenantPropertyProvider, new PayoneConfig(tenantPropertyProvider));
+        tenantFactory = new PipelineTenantFactory(tenantConfig);
+        tenantFactory.getCustomTypeBuilder().run();
+
+        final Payment payment = CLIENT.executeBlocking(PaymentCreateCommand.of(
+                PaymentDraftBuilder.of(MoneyImpl.ofCents(1_000, "EUR"))
+                        .interfaceId(TXID)
+                        .paymentMethodInfo(PaymentMethodInfoBuilder.of()
+                                .paymentInterface(PAYONE)
+                                .method(MethodKeys.CREDIT_CARD)
+                                .build())
+                        .build()));
+        PROJECT.seed(InMemoryProject.ORDERS, createOrder(payment.getId()));
+
+        notification = createNotification(tenantConfig.getPayoneConfig());
+    }
+
+    @Benchmark
+    public Notification dispatchNotification() {
+        tenantFactory.getNotificationDispatcher().dispatchNotification(notification);
+        return notification;
+    }
+
+    private static PropertyProvider createPropertyProvider(final boolean updateOrderPaymentState) {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(PropertyProvider.TENANTS, TENANT);
+        properties.put(TENANT + "_" + TenantPropertyProvider.CT_PROJECT_KEY, PROJECT.getProjectKey());
+        properties.put(TENANT + "_" + TenantPropertyProvider.CT_CLIENT_ID, "benchmark");
+        properties.put(TENANT + "_" + TenantPropertyProvider.CT_CLIENT_SECRET, "benchmark");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_KEY, "benchmark-key");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_MERCHANT_ID, "10000");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_PORTAL_ID, "2000000");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_SUBACC_ID, "30000");
+        properties.put(TENANT + "_" + TenantPropertyProvider.UPDATE_ORDER_PAYMENT_STATE,
+                String.valueOf(updateOrderPaymentState));
+
+        final PropertyProvider propertyProvider = new PropertyProvider();
+        propertyProvider.getPropertiesGetters().add(0, properties::get);
+        return propertyProvider;
+    }
+
+    private static Notification createNotification(@Nonnull final PayoneConfig payoneConfig) {
+        final Notification notification = new Notification();
+        notification.setKey(payoneConfig.getKeyAsHash());
+        notification.setPortalid(payoneConfig.getPortalId());
+        notification.setAid(payoneConfig.getSubAccountId());
+        notification.setMode(payoneConfig.getMode());
+        // handled by the default processor, which only adds the notification to the payment
+        notification.setTxaction(NotificationAction.TRANSFER);
+        notification.setTxid(TXID);
+        notification.setSequencenumber("1");
+        notification.setTxtime(String.valueOf(System.currentTimeMillis() / 1000));
+        notification.setPrice("10.00");
+        notification.setCurrency("EUR");
+        notification.setClearingtype(ClearingType.PAYONE_CC.getPayoneCode());
+        return notification;
+    }
+
+    private static String createOrder(@Nonnull final String paymentId) {
+        final ObjectNode order = JsonNodeFactory.instance.objectNode();
+        order.put("orderState", "Open");
+        order.put("paymentState", "Pending");
+        order.put("taxMode", "Platform");
+        order.put("inventoryMode", "None");
+        order.put("taxRoundingMode", "HalfEven");
+        order.put("origin", "Customer");
+        order.put("country", "DE");
+        order.putArray("lineItems");
+        order.putArray("customLineItems");
+        order.putArray("discountCodes");
+        order.putArray("syncInfo");
+        order.putArray("returnInfo");
+        order.set("totalPrice", SphereJsonUtils.toJsonNode(MoneyImpl.ofCents(1_000, "EUR")));
+        final ObjectNode payment = order.putObject("paymentInfo").putArray("payments").addObject();
+        payment.put("typeId", "payment");
+        payment.put("id", paymentId);
+        return SphereJsonUtils.toJsonString(order);
+    }
+
+    private static final class PipelineTenantFactory extends TenantFactory {
+
+        private PipelineTenantFactory(@Nonnull final TenantConfig tenantConfig) {
+            super(PAYONE, tenantConfig);
+        }
+
+        @Nonnull
+        @Override
+        protected BlockingSphereClient createBlockingSphereClient(final TenantConfig tenantConfig) {
+            return CLIENT;
+        }
+    }
+}
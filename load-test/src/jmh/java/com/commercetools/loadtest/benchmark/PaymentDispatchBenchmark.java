@@ -0,0 +1,106 @@
+package com.commercetools.loadtest.benchmark;
+
+import com.commercetools.payments.TransactionStateResolverImpl;
+import com.commercetools.pspadapter.payone.PaymentDispatcher;
+import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
+import com.commercetools.pspadapter.payone.domain.ctp.paymentmethods.MethodKeys;
+import com.commercetools.pspadapter.payone.domain.ctp.paymentmethods.PaymentMethod;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ClearingType;
+import com.commercetools.pspadapter.payone.mapping.CustomFieldKeys;
+import com.commercetools.pspadapter.payone.transaction.PaymentMethodDispatcher;
+import com.commercetools.pspadapter.payone.transaction.TransactionExecutor;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sphere.sdk.json.SphereJsonUtils;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one dispatch of a handle request: the method and transaction type lookups up to the executor, which is a
+ * no-op here, and the clearing type lookups of the request factories and the notification dispatcher.
+ * <p>
+ * Run with {@code ./gradlew :load-test:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentDispatchBenchmark {
+
+    private static final String PAYONE = "PAYONE";
+
+    private PaymentDispatcher paymentDispatcher;
+    private PaymentWithCartLike paymentWithCart;
+
+    @Setup
+    public void setUp() {
+        // the transaction stays Initial, so the method dispatcher stops after one execution
+        final TransactionExecutor noOpExecutor = (paymentWithCartLike, transaction) -> paymentWithCartLike;
+        final Map<TransactionType, TransactionExecutor> executors = new EnumMap<>(TransactionType.class);
+        PaymentMethod.supportedTransactionTypes.forEach(type -> executors.put(type, noOpExecutor));
+
+        final Map<PaymentMethod, PaymentMethodDispatcher> methodDispatchers = new EnumMap<>(PaymentMethod.class);
+        PaymentMethod.supportedPaymentMethods.forEach(method -> methodDispatchers.put(method,
+                new PaymentMethodDispatcher(noOpExecutor, executors, new TransactionStateResolverImpl())));
+
+        paymentDispatcher = new PaymentDispatcher(methodDispatchers, PAYONE);
+        paymentWithCart = new PaymentWithCartLike(SphereJsonUtils.readObject(createPayment(), Payment.class), null);
+    }
+
+    @Benchmark
+    public PaymentWithCartLike dispatchPayment() {
+        return paymentDispatcher.dispatchPayment(paymentWithCart);
+    }
+
+    @Benchmark
+    public PaymentMethod paymentMethodByKey() {
+        return PaymentMethod.fromMethodKey(MethodKeys.INVOICE_KLARNA);
+    }
+
+    @Benchmark
+    public ClearingType clearingTypeByKey() {
+        return ClearingType.getClearingTypeByKey(MethodKeys.BANK_TRANSFER_POSTFINANCE_EFINANCE);
+    }
+
+    @Benchmark
+    public ClearingType clearingTypeByCode() {
+        return ClearingType.getClearingTypeByCode("fnc");
+    }
+
+    private static String createPayment() {
+        final ObjectNode payment = JsonNodeFactory.instance.objectNode();
+        payment.put("id", "benchmark-payment");
+        payment.put("version", 1);
+        payment.set("amountPlanned", money());
+        payment.putObject("paymentMethodInfo").put("paymentInterface", PAYONE).put("method", MethodKeys.CREDIT_CARD);
+        final ObjectNode transaction = payment.putArray("transactions").addObject();
+        transaction.put("id", "benchmark-transaction");
+        transaction.put("type", TransactionType.CHARGE.toSphereName());
+        transaction.put("state", "Initial");
+        transaction.set("amount", money());
+        final ObjectNode custom = payment.putObject("custom");
+        custom.putObject("type").put("typeId", "type").put("id", "benchmark-type");
+        custom.putObject("fields").put(CustomFieldKeys.REFERENCE_FIELD, "benchmark-reference");
+        return SphereJsonUtils.toJsonString(payment);
+    }
+
+    private static ObjectNode money() {
+        return JsonNodeFactory.instance.objectNode().put("currencyCode", "EUR").put("centAmount", 1_000);
+    }
+}
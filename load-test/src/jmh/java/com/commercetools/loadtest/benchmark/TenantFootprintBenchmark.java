@@ -0,0 +1,137 @@
+package com.commercetools.loadtest.benchmark;
+
+import com.commercetools.loadtest.ctp.InMemoryProject;
+import com.commercetools.loadtest.ctp.InMemorySphereClient;
+import com.commercetools.pspadapter.payone.config.PayoneConfig;
+import com.commercetools.pspadapter.payone.config.PropertyProvider;
+import com.commercetools.pspadapter.payone.domain.ctp.paymentmethods.PaymentMethod;
+import com.commercetools.pspadapter.payone.mapping.PayoneRequestFactory;
+import com.commercetools.pspadapter.payone.transaction.TransactionExecutor;
+import com.commercetools.pspadapter.tenant.TenantConfig;
+import com.commercetools.pspadapter.tenant.TenantFactory;
+import com.commercetools.pspadapter.tenant.TenantPropertyProvider;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.payments.TransactionType;
+import io.sphere.sdk.types.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap allocated per tenant: a {@link TenantFactory} as created at startup, against the same tenant with all the
+ * per-tenant components created, as every tenant had them before they were created lazily. The
+ * {@code gc.alloc.rate.norm} value of the GC profiler is the number of bytes per tenant.
+ * <p>
+ * All tenants share one in-memory commercetools client, the HTTP client of the SDK is not included.
+ * <p>
+ * Run with {@code ./gradlew :load-test:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TenantFootprintBenchmark {
+
+    private static final String TENANT = "BENCHMARK";
+
+    /**
+     * Static, because {@link TenantFactory} calls {@link FootprintTenantFactory#createBlockingSphereClient} from its
+     * constructor.
+     */
+    private static final BlockingSphereClient CLIENT = BlockingSphereClient.of(
+            new InMemorySphereClient(new InMemoryProject("benchmark-project")), Duration.ofSeconds(10));
+
+    private TenantConfig tenantConfig;
+
+    @Setup
+    public void setUp() {
+        final TenantPropertyProvider tenantPropertyProvider = new TenantPropertyProvider(TENANT, createPropertyProvider());
+        tenantConfig = new TenantConfig(tenantPropertyProvider, new PayoneConfig(tenantPropertyProvider));
+    }
+
+    @Benchmark
+    public TenantFactory tenant() {
+        return new FootprintTenantFactory(tenantConfig);
+    }
+
+    @Benchmark
+    public List<Object> tenantWithAllComponents() {
+        final FootprintTenantFactory tenantFactory = new FootprintTenantFactory(tenantConfig);
+        final List<Object> components = tenantFactory.createAllMethodComponents();
+        components.add(tenantFactory.getPaymentHandler());
+        components.add(tenantFactory.getNotificationDispatcher());
+        return components;
+    }
+
+    private static PropertyProvider createPropertyProvider() {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(PropertyProvider.TENANTS, TENANT);
+        properties.put(PropertyProvider.PAYONE_API_VERSION, "3.9");
+        properties.put(PropertyProvider.PAYONE_SOLUTION_NAME, "benchmark");
+        properties.put(PropertyProvider.PAYONE_SOLUTION_VERSION, "1");
+        properties.put(PropertyProvider.PAYONE_INTEGRATOR_NAME, "benchmark");
+        properties.put(PropertyProvider.PAYONE_INTEGRATOR_VERSION, "1");
+        properties.put(TENANT + "_" + TenantPropertyProvider.CT_PROJECT_KEY, "benchmark-project");
+        properties.put(TENANT + "_" + TenantPropertyProvider.CT_CLIENT_ID, "benchmark");
+        properties.put(TENANT + "_" + TenantPropertyProvider.CT_CLIENT_SECRET, "benchmark");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_KEY, "benchmark-key");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_MERCHANT_ID, "10000");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_PORTAL_ID, "2000000");
+        properties.put(TENANT + "_" + TenantPropertyProvider.PAYONE_SUBACC_ID, "30000");
+
+        final PropertyProvider propertyProvider = new PropertyProvider();
+        propertyProvider.getPropertiesGetters().add(0, properties::get);
+        return propertyProvider;
+    }
+
+    private static final class FootprintTenantFactory extends TenantFactory {
+
+        private FootprintTenantFactory(@Nonnull final TenantConfig tenantConfig) {
+            super("PAYONE", tenantConfig);
+        }
+
+        @Nonnull
+        @Override
+        protected BlockingSphereClient createBlockingSphereClient(final TenantConfig tenantConfig) {
+            return CLIENT;
+        }
+
+        /**
+         * @return the type cache, and the request factory and the executors of every supported payment method
+         */
+        private List<Object> createAllMethodComponents() {
+            final List<Object> components = new ArrayList<>();
+            final LoadingCache<String, Type> typeCache = createTypeCache(getBlockingSphereClient());
+            components.add(typeCache);
+            for (final PaymentMethod paymentMethod : PaymentMethod.supportedPaymentMethods) {
+                final PayoneRequestFactory requestFactory = createRequestFactory(paymentMethod, getTenantConfig());
+                components.add(requestFactory);
+                for (final TransactionType transactionType : PaymentMethod.supportedTransactionTypes) {
+                    final TransactionExecutor executor = createTransactionExecutor(transactionType, typeCache,
+                            getBlockingSphereClient(), requestFactory, getPayonePostService(getTenantConfig()),
+                            paymentMethod);
+                    components.add(executor);
+                }
+            }
+            return components;
+        }
+    }
+}
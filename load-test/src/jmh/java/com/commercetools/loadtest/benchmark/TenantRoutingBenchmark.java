@@ -0,0 +1,83 @@
+package com.commercetools.loadtest.benchmark;
+
+import com.commercetools.pspadapter.tenant.TenantRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spark.RouteImpl;
+import spark.route.HttpMethod;
+import spark.route.Routes;
+import spark.routematch.RouteMatch;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Cost of matching a handle URL in Spark's route table: one route per tenant, as registered before, against the single
+ * parameterized route of {@link TenantRouter} plus the hash lookup of the tenant. The request goes to the last
+ * registered tenant, the worst case of the linear matcher.
+ * <p>
+ * Run with {@code ./gradlew :load-test:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TenantRoutingBenchmark {
+
+    private static final String ACCEPT_TYPE = "*/*";
+
+    @Param({"1", "50", "500"})
+    public int tenants;
+
+    private Routes perTenantRoutes;
+    private Routes parameterizedRoutes;
+    private Map<String, String> tenantsByName;
+    private String path;
+
+    @Setup
+    public void setUp() {
+        perTenantRoutes = Routes.create();
+        parameterizedRoutes = Routes.create();
+        tenantsByName = new HashMap<>();
+
+        for (int i = 0; i < tenants; i++) {
+            final String tenant = "tenant" + i;
+            perTenantRoutes.add(HttpMethod.get, RouteImpl.create(
+                    format("/%s/commercetools/handle/payments/:id", tenant), (req, res) -> tenant));
+            perTenantRoutes.add(HttpMethod.post, RouteImpl.create(
+                    format("/%s/payone/notification", tenant), (req, res) -> tenant));
+            tenantsByName.put(tenant, tenant);
+        }
+        parameterizedRoutes.add(HttpMethod.get, RouteImpl.create(TenantRouter.PAYMENT_HANDLER_ROUTE, (req, res) -> ""));
+        parameterizedRoutes.add(HttpMethod.post, RouteImpl.create(TenantRouter.NOTIFICATION_ROUTE, (req, res) -> ""));
+
+        path = format("/tenant%d/commercetools/handle/payments/0a1b2c3d-payment", tenants - 1);
+    }
+
+    @Benchmark
+    public Object perTenantRoutes() {
+        return perTenantRoutes.find(HttpMethod.get, path, ACCEPT_TYPE).getTarget();
+    }
+
+    @Benchmark
+    public Object parameterizedRoute() {
+        final RouteMatch match = parameterizedRoutes.find(HttpMethod.get, path, ACCEPT_TYPE);
+        // what TenantRouter does with the :tenant parameter
+        final int end = path.indexOf('/', 1);
+        return tenantsByName.get(path.substring(1, end)) != null ? match.getTarget() : null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.commercetools.loadtest.benchmark;
+
+import com.commercetools.pspadapter.payone.notification.TransactionIndex;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sphere.sdk.json.SphereJsonUtils;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.Transaction;
+import io.sphere.sdk.payments.TransactionType;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction lookups of notifications on a payment with many charges, like a subscription or installment payment.
+ * <ul>
+ * <li>An {@code appointed} notification looks up the charge of its sequence number, the charge without interaction
+ * id and the first authorization. {@code linearScans} searches the transactions for each lookup,
+ * {@code indexedLookups} builds a {@link TransactionIndex} once per notification and uses it.</li>
+ * <li>A {@code paid}, {@code capture} or {@code underpaid} notification looks up only the charge of its sequence
+ * number. {@code singleLinearScan} stops at the match, {@code singleIndexedLookup} builds the index for it.</li>
+ * </ul>
+ * <p>
+ * Run with {@code ./gradlew :load-test:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionLookupBenchmark {
+
+    @Param({"10", "500", "2000"})
+    public int transactions;
+
+    private Payment payment;
+
+    private String sequenceNumber;
+
+    @Setup
+    public void setUp() {
+        payment = createPayment(transactions);
+        // the newest charge, the worst case of the linear search
+        sequenceNumber = String.valueOf(transactions);
+    }
+
+    @Benchmark
+    public void linearScans(final Blackhole blackhole) {
+        blackhole.consume(findMatchingTransaction(TransactionType.CHARGE, sequenceNumber));
+        blackhole.consume(findMatchingTransaction(TransactionType.CHARGE, "0"));
+        blackhole.consume(payment.getTransactions().stream()
+                .filter(transaction -> transaction.getType().equals(TransactionType.AUTHORIZATION))
+                .findFirst());
+    }
+
+    @Benchmark
+    public void indexedLookups(final Blackhole blackhole) {
+        final TransactionIndex transactionIndex = TransactionIndex.of(payment);
+        blackhole.consume(transactionIndex.findByTypeAndInteractionId(TransactionType.CHARGE, sequenceNumber));
+        blackhole.consume(transactionIndex.findByTypeAndInteractionId(TransactionType.CHARGE, "0"));
+        blackhole.consume(transactionIndex.findFirstByType(TransactionType.AUTHORIZATION));
+    }
+
+    @Benchmark
+    public Optional<Transaction> singleLinearScan() {
+        return findMatchingTransaction(TransactionType.CHARGE, sequenceNumber);
+    }
+
+    @Benchmark
+    public Optional<Transaction> singleIndexedLookup() {
+        return TransactionIndex.of(payment).findByTypeAndInteractionId(TransactionType.CHARGE, sequenceNumber);
+    }
+
+    private Optional<Transaction> findMatchingTransaction(final TransactionType transactionType,
+                                                          final String interactionId) {
+        return payment.getTransactions().stream()
+                .filter(transaction -> transaction.getType().equals(transactionType)
+                        && toSequenceNumber(transaction.getInteractionId()).equals(interactionId))
+                .findFirst();
+    }
+
+    private static String toSequenceNumber(final String sequenceNumber) {
+        return StringUtils.isBlank(sequenceNumber) ? "0" : sequenceNumber;
+    }
+
+    /**
+     * @return payment with {@code count} charges with the interaction ids 1 to {@code count}, followed by one
+     * authorization
+     */
+    private static Payment createPayment(final int count) {
+        final ObjectNode payment = JsonNodeFactory.instance.objectNode();
+        payment.put("id", "benchmark-payment");
+        payment.put("version", 1);
+        payment.set("amountPlanned", money());
+        final ArrayNode transactionArray = payment.putArray("transactions");
+        for (int i = 1; i <= count; i++) {
+            addTransaction(transactionArray, i, TransactionType.CHARGE);
+        }
+        addTransaction(transactionArray, count + 1, TransactionType.AUTHORIZATION);
+        return SphereJsonUtils.readObject(SphereJsonUtils.toJsonString(payment), Payment.typeReference());
+    }
+
+    private static void addTransaction(final ArrayNode transactions, final int sequenceNumber,
+                                       final TransactionType type) {
+        final ObjectNode transaction = transactions.addObject();
+        transaction.put("id", "benchmark-transaction-" + sequenceNumber);
+        transaction.put("type", type.toSphereName());
+        transaction.put("state", "Success");
+        transaction.put("interactionId", String.valueOf(sequenceNumber));
+        transaction.set("amount", money());
+    }
+
+    private static ObjectNode money() {
+        return JsonNodeFactory.instance.objectNode().put("currencyCode", "EUR").put("centAmount", 1_000);
+    }
+}
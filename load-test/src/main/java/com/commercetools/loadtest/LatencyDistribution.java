@@ -0,0 +1,50 @@
+package com.commercetools.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Source of artificial response delays of the local stand-ins for Payone and the commercetools platform.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * Standard normal quantile of 0.99, used to fit a log-normal distribution to a median and a p99 value.
+     */
+    double Z_99 = 2.3263;
+
+    /**
+     * @return next delay in milliseconds, never negative
+     */
+    long nextMillis();
+
+    static LatencyDistribution none() {
+        return () -> 0;
+    }
+
+    static LatencyDistribution fixed(final long millis) {
+        return () -> millis;
+    }
+
+    static LatencyDistribution uniform(final long minMillis, final long maxMillis) {
+        if (maxMillis < minMillis) {
+            throw new IllegalArgumentException("maxMillis must not be less than minMillis");
+        }
+        return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+    }
+
+    /**
+     * Long-tailed distribution which resembles the latency of a remote API much better than a uniform one.
+     *
+     * @param medianMillis 50th percentile of the delays
+     * @param p99Millis    99th percentile of the delays, must be greater than {@code medianMillis}
+     */
+    static LatencyDistribution logNormal(final long medianMillis, final long p99Millis) {
+        if (medianMillis <= 0 || p99Millis <= medianMillis) {
+            throw new IllegalArgumentException("0 < medianMillis < p99Millis is expected");
+        }
+        final double mu = Math.log(medianMillis);
+        final double sigma = (Math.log(p99Millis) - mu) / Z_99;
+        return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+}
@@ -0,0 +1,432 @@
+package com.commercetools.loadtest;
+
+import com.commercetools.loadtest.ctp.InMemoryProject;
+import com.commercetools.loadtest.ctp.InMemorySphereClient;
+import com.commercetools.loadtest.payone.PayoneStubServer;
+import com.commercetools.metrics.Counter;
+import com.commercetools.metrics.ServiceMetrics;
+import com.commercetools.pspadapter.payone.IntegrationService;
+import com.commercetools.pspadapter.payone.config.PayoneConfig;
+import com.commercetools.pspadapter.payone.config.PropertyProvider;
+import com.commercetools.pspadapter.payone.config.ServiceConfig;
+import com.commercetools.pspadapter.tenant.TenantConfig;
+import com.commercetools.pspadapter.tenant.TenantFactory;
+import com.commercetools.pspadapter.tenant.TenantPropertyProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.neovisionaries.i18n.CountryCode;
+import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.json.SphereJsonUtils;
+import io.sphere.sdk.models.Address;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.PaymentDraftBuilder;
+import io.sphere.sdk.payments.PaymentMethodInfoBuilder;
+import io.sphere.sdk.payments.TransactionDraftBuilder;
+import io.sphere.sdk.payments.TransactionState;
+import io.sphere.sdk.payments.commands.PaymentCreateCommand;
+import io.sphere.sdk.types.CustomFieldsDraft;
+import io.sphere.sdk.utils.MoneyImpl;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.money.MonetaryAmount;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.commercetools.pspadapter.payone.util.PayoneConstants.PAYONE;
+import static java.lang.String.format;
+import static java.util.Collections.singletonList;
+
+/**
+ * Starts the {@link IntegrationService} against an {@link InMemoryProject} per tenant and a {@link PayoneStubServer},
+ * and sends handle requests for the configured {@link LoadScenario}s at a constant rate. The Payone stub answers
+ * every payment with the transaction status notifications of its scenario, so the notification URL is loaded too.
+ * Nothing leaves the machine.
+ * <p>
+ * The requests are sent open loop: a request is due at a fixed time, whether the previous ones are answered or not,
+ * and its latency is measured from that time. A slow service thus shows up in the percentiles instead of silently
+ * lowering the rate. Requests which would exceed {@link LoadTestConfig#getMaxInFlight()} are not sent but reported
+ * as dropped.
+ * <p>
+ * The payments and carts are created before the run starts, so only the service is measured. The service listens on
+ * its usual port ({@code PORT}, default 8080). Since Spark is a singleton, only one driver can run per JVM.
+ * <p>
+ * Run it with {@code ./gradlew :load-test:run -Dloadtest.rate=100 -Dloadtest.durationSeconds=120}, see
+ * {@link LoadTestConfig#fromSystemProperties()} for all the settings.
+ */
+public class LoadDriver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadDriver.class);
+
+    private static final String CTP_CREDENTIAL = "load-test";
+    private static final String PAYONE_KEY = "load-test-key";
+    private static final Duration CTP_TIMEOUT = Duration.ofSeconds(30);
+    private static final int HTTP_TIMEOUT_MILLIS = 60_000;
+    private static final long NOTIFICATION_DRAIN_MILLIS = 30_000;
+
+    private final LoadTestConfig config;
+    private final LoadReport report = new LoadReport();
+
+    private final Map<String, InMemoryProject> projects = new LinkedHashMap<>();
+    private final Map<String, SphereClient> ctpClients = new HashMap<>();
+    private final Map<String, String> handleUrls = new HashMap<>();
+    private final LongAdder expectedNotifications = new LongAdder();
+
+    private PayoneStubServer payone;
+    private IntegrationService integrationService;
+    private CloseableHttpClient httpClient;
+
+    public LoadDriver(@Nonnull final LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final LoadReport report = new LoadDriver(LoadTestConfig.fromSystemProperties()).run();
+        System.out.println(report.render());
+    }
+
+    /**
+     * Starts the service and the stand-ins, runs the configured load and stops everything again.
+     */
+    @Nonnull
+    public LoadReport run() throws Exception {
+        start();
+        try {
+            drive(prepare());
+        } finally {
+            stop();
+        }
+        return report;
+    }
+
+    private void start() throws Exception {
+        payone = new PayoneStubServer(0);
+        config.getScenarioWeights().keySet().forEach(scenario ->
+                payone.rule(scenario.payoneRule(config.getPayoneLatency(), config.getNotificationDelayMillis())));
+        payone.notificationListener((clearingType, txaction, durationNanos, accepted) ->
+                LoadScenario.ofClearingType(clearingType)
+                        .ifPresent(scenario -> report.recordNotification(scenario, durationNanos, accepted)));
+        payone.start();
+
+        final PropertyProvider propertyProvider = createPropertyProvider(payone.getApiUrl());
+        final List<TenantFactory> tenantFactories = new ArrayList<>();
+        for (final String tenant : config.getTenants()) {
+            final TenantPropertyProvider tenantPropertyProvider = new TenantPropertyProvider(tenant, propertyProvider);
+            final TenantConfig tenantConfig = new TenantConfig(tenantPropertyProvider,
+                    new PayoneConfig(tenantPropertyProvider));
+
+            final InMemoryProject project = new InMemoryProject(tenantConfig.getSphereClientConfig().getProjectKey());
+            project.setConcurrentModificationListener(this::onConcurrentModification);
+            projects.put(tenant, project);
+            ctpClients.put(tenant, new InMemorySphereClient(project, config.getCtpLatency()));
+            tenantFactories.add(new InMemoryTenantFactory(tenantConfig));
+        }
+
+        integrationService = new IntegrationService(new ServiceConfig(propertyProvider), tenantFactories);
+        integrationService.start();
+
+        final String serviceUrl = format("http://localhost:%d", integrationService.port());
+        for (final TenantFactory tenantFactory : tenantFactories) {
+            final PayoneConfig payoneConfig = tenantFactory.getTenantConfig().getPayoneConfig();
+            payone.notificationUrl(payoneConfig.getPortalId(), payoneConfig.getSubAccountId(),
+                    serviceUrl + tenantFactory.getPayoneNotificationUrl());
+            handleUrls.put(tenantFactory.getTenantName(), serviceUrl + tenantFactory.getPaymentHandlerUrl());
+        }
+
+        httpClient = HttpClients.custom()
+                .setMaxConnTotal(config.getMaxInFlight())
+                .setMaxConnPerRoute(config.getMaxInFlight())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(HTTP_TIMEOUT_MILLIS)
+                        .setSocketTimeout(HTTP_TIMEOUT_MILLIS)
+                        .build())
+                .build();
+    }
+
+    /**
+     * The load test properties come first, so the environment of a developer machine can't point the service to a
+     * real commercetools project or Payone account.
+     */
+    private PropertyProvider createPropertyProvider(@Nonnull final String payoneApiUrl) {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(PropertyProvider.TENANTS, String.join(",", config.getTenants()));
+        properties.put(PropertyProvider.PAYONE_API_URL, payoneApiUrl);
+        for (int i = 0; i < config.getTenants().size(); i++) {
+            final String prefix = config.getTenants().get(i) + "_";
+            properties.put(prefix + TenantPropertyProvider.CT_PROJECT_KEY,
+                    "load-test-" + config.getTenants().get(i).toLowerCase(Locale.ENGLISH).replace('_', '-'));
+            properties.put(prefix + TenantPropertyProvider.CT_CLIENT_ID, CTP_CREDENTIAL);
+            properties.put(prefix + TenantPropertyProvider.CT_CLIENT_SECRET, CTP_CREDENTIAL);
+            properties.put(prefix + TenantPropertyProvider.PAYONE_KEY, PAYONE_KEY);
+            properties.put(prefix + TenantPropertyProvider.PAYONE_MERCHANT_ID, String.valueOf(10_000 + i));
+            properties.put(prefix + TenantPropertyProvider.PAYONE_PORTAL_ID, String.valueOf(2_000_000 + i));
+            properties.put(prefix + TenantPropertyProvider.PAYONE_SUBACC_ID, String.valueOf(30_000 + i));
+        }
+
+        final PropertyProvider propertyProvider = new PropertyProvider();
+        propertyProvider.getPropertiesGetters().add(0, properties::get);
+        return propertyProvider;
+    }
+
+    /**
+     * Creates the payments and carts of all requests. Scenarios alternate by their weight, tenants after every
+     * round of scenarios.
+     */
+    private List<PlannedRequest> prepare() {
+        final List<LoadScenario> mix = new ArrayList<>();
+        config.getScenarioWeights().forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                mix.add(scenario);
+            }
+        });
+        final long warmupRequests = Math.round(config.getWarmupSeconds() * config.getRate());
+        final long totalRequests = warmupRequests + Math.round(config.getDurationSeconds() * config.getRate());
+
+        final Map<String, BlockingSphereClient> setupClients = new HashMap<>();
+        projects.forEach((tenant, project) ->
+                setupClients.put(tenant, BlockingSphereClient.of(new InMemorySphereClient(project), CTP_TIMEOUT)));
+
+        LOG.info("Prepare {} payments", totalRequests);
+        final List<PlannedRequest> plan = new ArrayList<>();
+        try {
+            for (int i = 0; i < totalRequests; i++) {
+                final LoadScenario scenario = mix.get(i % mix.size());
+                final String tenant = config.getTenants().get((i / mix.size()) % config.getTenants().size());
+                final String paymentId = createPayment(setupClients.get(tenant), projects.get(tenant), scenario, i);
+                plan.add(new PlannedRequest(scenario, tenant, paymentId, i >= warmupRequests));
+            }
+        } finally {
+            setupClients.values().forEach(BlockingSphereClient::close);
+        }
+        return plan;
+    }
+
+    private static String createPayment(@Nonnull final BlockingSphereClient client,
+                                        @Nonnull final InMemoryProject project,
+                                        @Nonnull final LoadScenario scenario,
+                                        final int sequence) {
+        final MonetaryAmount amount = MoneyImpl.ofCents(1_000 + sequence % 10_000, "EUR");
+        final Payment payment = client.executeBlocking(PaymentCreateCommand.of(PaymentDraftBuilder.of(amount)
+                .paymentMethodInfo(PaymentMethodInfoBuilder.of()
+                        .paymentInterface(PAYONE)
+                        .method(scenario.getMethodKey())
+                        .build())
+                .custom(CustomFieldsDraft.ofTypeKeyAndObjects(scenario.getCustomTypeKey(),
+                        scenario.customFields("LT-" + sequence)))
+                .transactions(singletonList(TransactionDraftBuilder
+                        .of(scenario.getTransactionType(), amount, ZonedDateTime.now())
+                        .state(TransactionState.INITIAL)
+                        .build()))
+                .build()));
+
+        project.seed(InMemoryProject.CARTS, createCart(payment.getId(), amount));
+        return payment.getId();
+    }
+
+    private static String createCart(@Nonnull final String paymentId, @Nonnull final MonetaryAmount amount) {
+        final JsonNode address = SphereJsonUtils.toJsonNode(Address.of(CountryCode.DE)
+                .withFirstName("Load")
+                .withLastName("Test")
+                .withStreetName("Teststrasse")
+                .withStreetNumber("1")
+                .withPostalCode("10115")
+                .withCity("Berlin")
+                .withEmail("load-test@example.com")
+                .withPhone("+4930123456"));
+
+        final ObjectNode cart = JsonNodeFactory.instance.objectNode();
+        cart.put("cartState", "Active");
+        cart.put("taxMode", "Platform");
+        cart.put("inventoryMode", "None");
+        cart.put("taxRoundingMode", "HalfEven");
+        cart.put("taxCalculationMode", "LineItemLevel");
+        cart.put("origin", "Customer");
+        cart.put("country", "DE");
+        cart.put("locale", "de");
+        cart.put("customerEmail", "load-test@example.com");
+        cart.putArray("lineItems");
+        cart.putArray("customLineItems");
+        cart.putArray("discountCodes");
+        cart.putArray("itemShippingAddresses");
+        cart.set("totalPrice", SphereJsonUtils.toJsonNode(amount));
+        cart.set("billingAddress", address);
+        cart.set("shippingAddress", address);
+        final ObjectNode payment = cart.putObject("paymentInfo").putArray("payments").addObject();
+        payment.put("typeId", "payment");
+        payment.put("id", paymentId);
+        return SphereJsonUtils.toJsonString(cart);
+    }
+
+    private void drive(@Nonnull final List<PlannedRequest> plan) throws InterruptedException {
+        final long intervalNanos = Math.round(TimeUnit.SECONDS.toNanos(1) / config.getRate());
+        final Semaphore inFlight = new Semaphore(config.getMaxInFlight());
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ExecutorService workers = Executors.newFixedThreadPool(config.getMaxInFlight(), runnable -> {
+            final Thread thread = new Thread(runnable, "load-driver-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        LOG.info("Send {} handle requests at {}/s", plan.size(), config.getRate());
+        final long start = System.nanoTime();
+        long measureStart = 0;
+        try {
+            for (int i = 0; i < plan.size(); i++) {
+                final PlannedRequest request = plan.get(i);
+                final long due = start + i * intervalNanos;
+                parkUntil(due);
+                if (request.measured && measureStart == 0) {
+                    measureStart = due;
+                    report.startRecording();
+                }
+
+                if (!inFlight.tryAcquire()) {
+                    if (request.measured) {
+                        report.recordDropped(request.scenario);
+                    }
+                    continue;
+                }
+                workers.execute(() -> {
+                    try {
+                        final boolean success = sendHandleRequest(request);
+                        if (request.measured) {
+                            report.recordHandle(request.scenario, System.nanoTime() - due, success);
+                        }
+                        if (success) {
+                            expectedNotifications.add(request.scenario.getNotifications().size());
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            inFlight.acquire(config.getMaxInFlight());
+            report.setMeasuredNanos(measureStart > 0 ? System.nanoTime() - measureStart : 0);
+            awaitNotifications();
+        } finally {
+            report.stopRecording();
+            workers.shutdownNow();
+        }
+
+        report.setServiceRetries(ServiceMetrics.CONCURRENT_MODIFICATION_RETRIES.getChildren().values().stream()
+                .mapToLong(Counter::get)
+                .sum());
+    }
+
+    private static void parkUntil(final long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private boolean sendHandleRequest(@Nonnull final PlannedRequest request) {
+        final HttpGet get = new HttpGet(handleUrls.get(request.tenant).replace(":id", request.paymentId));
+        try (CloseableHttpResponse response = httpClient.execute(get)) {
+            EntityUtils.consume(response.getEntity());
+            final int status = response.getStatusLine().getStatusCode();
+            return status >= 200 && status < 300;
+        } catch (final IOException e) {
+            LOG.debug("Handle request of payment [{}] failed", request.paymentId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Waits until the Payone stub sent the notifications of all successfully handled payments.
+     */
+    private void awaitNotifications() throws InterruptedException {
+        final int maxNotifications = config.getScenarioWeights().keySet().stream()
+                .mapToInt(scenario -> scenario.getNotifications().size())
+                .max()
+                .orElse(0);
+        final long deadline = System.currentTimeMillis()
+                + maxNotifications * config.getNotificationDelayMillis() + NOTIFICATION_DRAIN_MILLIS;
+        while (payone.getNotificationsSent() + payone.getNotificationsFailed() < expectedNotifications.sum()) {
+            if (System.currentTimeMillis() > deadline) {
+                LOG.warn("Gave up waiting for {} notifications, {} sent", expectedNotifications.sum(),
+                        payone.getNotificationsSent() + payone.getNotificationsFailed());
+                return;
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    private void onConcurrentModification(@Nonnull final String resource, @Nonnull final JsonNode document) {
+        if (InMemoryProject.PAYMENTS.equals(resource)) {
+            LoadScenario.ofMethodKey(document.path("paymentMethodInfo").path("method").asText())
+                    .ifPresent(report::recordConcurrentModification);
+        }
+    }
+
+    private void stop() throws Exception {
+        if (integrationService != null) {
+            integrationService.stop();
+            integrationService.getTenantFactories().forEach(factory -> factory.getBlockingSphereClient().close());
+        }
+        if (payone != null) {
+            payone.stop();
+        }
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+
+    /**
+     * Tenant factory which uses the in-memory project of the tenant instead of the commercetools platform.
+     * <p>
+     * Not static on purpose: {@link TenantFactory} calls {@link #createBlockingSphereClient(TenantConfig)} from its
+     * constructor, when only the enclosing driver is initialized yet.
+     */
+    private final class InMemoryTenantFactory extends TenantFactory {
+
+        private InMemoryTenantFactory(@Nonnull final TenantConfig tenantConfig) {
+            super(PAYONE, tenantConfig);
+        }
+
+        @Nonnull
+        @Override
+        protected BlockingSphereClient createBlockingSphereClient(final TenantConfig tenantConfig) {
+            return BlockingSphereClient.of(ctpClients.get(tenantConfig.getName()), CTP_TIMEOUT);
+        }
+    }
+
+    private static final class PlannedRequest {
+        private final LoadScenario scenario;
+        private final String tenant;
+        private final String paymentId;
+        private final boolean measured;
+
+        private PlannedRequest(@Nonnull final LoadScenario scenario, @Nonnull final String tenant,
+                               @Nonnull final String paymentId, final boolean measured) {
+            this.scenario = scenario;
+            this.tenant = tenant;
+            this.paymentId = paymentId;
+            this.measured = measured;
+        }
+    }
+}
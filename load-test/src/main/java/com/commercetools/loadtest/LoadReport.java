@@ -0,0 +1,220 @@
+package com.commercetools.loadtest;
+
+import com.commercetools.metrics.LatencyHistogram;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+
+/**
+ * Per scenario results of a {@link LoadDriver} run: throughput, latency percentiles and error rates of the handle and
+ * the notification URL, and the concurrent modifications of the scenario payments.
+ * <p>
+ * Recording is thread safe and lock free. Notifications and concurrent modifications are only recorded between
+ * {@link #startRecording()} and {@link #stopRecording()}, the handle requests are filtered by the driver, which knows
+ * when a request was due.
+ */
+public class LoadReport {
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private static final String HEADER_FORMAT =
+            "%-22s %8s %8s %8s %8s %8s %8s %8s %7s | %8s %8s %8s %8s %7s | %6s%n";
+    private static final String ROW_FORMAT =
+            "%-22s %8d %8.1f %8.1f %8.1f %8.1f %8.1f %8d %6.2f%% | %8d %8.1f %8.1f %8.1f %6.2f%% | %6d%n";
+
+    private final Map<LoadScenario, ScenarioStats> scenarios = new EnumMap<>(LoadScenario.class);
+
+    private volatile boolean recording;
+    private volatile long measuredNanos;
+    private volatile long serviceRetries;
+
+    public LoadReport() {
+        for (final LoadScenario scenario : LoadScenario.values()) {
+            scenarios.put(scenario, new ScenarioStats());
+        }
+    }
+
+    void startRecording() {
+        recording = true;
+    }
+
+    void stopRecording() {
+        recording = false;
+    }
+
+    void recordHandle(@Nonnull final LoadScenario scenario, final long durationNanos, final boolean success) {
+        final ScenarioStats stats = scenarios.get(scenario);
+        stats.handleLatency.recordNanos(durationNanos);
+        if (!success) {
+            stats.handleErrors.increment();
+        }
+    }
+
+    void recordDropped(@Nonnull final LoadScenario scenario) {
+        scenarios.get(scenario).dropped.increment();
+    }
+
+    void recordNotification(@Nonnull final LoadScenario scenario, final long durationNanos, final boolean accepted) {
+        if (!recording) {
+            return;
+        }
+        final ScenarioStats stats = scenarios.get(scenario);
+        stats.notificationLatency.recordNanos(durationNanos);
+        if (!accepted) {
+            stats.notificationErrors.increment();
+        }
+    }
+
+    void recordConcurrentModification(@Nonnull final LoadScenario scenario) {
+        if (recording) {
+            scenarios.get(scenario).concurrentModifications.increment();
+        }
+    }
+
+    void setMeasuredNanos(final long measuredNanos) {
+        this.measuredNanos = measuredNanos;
+    }
+
+    /**
+     * @param serviceRetries retries of the service after concurrent modifications, over all tenants and scenarios
+     */
+    void setServiceRetries(final long serviceRetries) {
+        this.serviceRetries = serviceRetries;
+    }
+
+    @Nonnull
+    public ScenarioStats get(@Nonnull final LoadScenario scenario) {
+        return scenarios.get(scenario);
+    }
+
+    @Nonnull
+    public Map<LoadScenario, ScenarioStats> getScenarios() {
+        return Collections.unmodifiableMap(scenarios);
+    }
+
+    public long getServiceRetries() {
+        return serviceRetries;
+    }
+
+    /**
+     * @return successful handle requests per second of the measured duration
+     */
+    public double getThroughput(@Nonnull final LoadScenario scenario) {
+        final ScenarioStats stats = scenarios.get(scenario);
+        return measuredNanos > 0
+                ? (stats.getRequests() - stats.getHandleErrors()) * (double) TimeUnit.SECONDS.toNanos(1) / measuredNanos
+                : 0;
+    }
+
+    /**
+     * @return the report as a plain text table, latencies in milliseconds
+     */
+    @Nonnull
+    public String render() {
+        final StringBuilder table = new StringBuilder(1024);
+        table.append(format("Measured %.1f s, service retries after concurrent modifications: %d%n",
+                measuredNanos / (double) TimeUnit.SECONDS.toNanos(1), serviceRetries));
+        table.append(format(HEADER_FORMAT,
+                "scenario", "requests", "req/s", "p50", "p99", "p99.9", "max", "dropped", "errors",
+                "notified", "p50", "p99", "p99.9", "errors", "CME"));
+        scenarios.forEach((scenario, stats) -> {
+            if (stats.getRequests() == 0 && stats.getDropped() == 0) {
+                return;
+            }
+            final LatencyHistogram.Snapshot handle = stats.handleLatency.snapshot();
+            final LatencyHistogram.Snapshot notification = stats.notificationLatency.snapshot();
+            table.append(format(ROW_FORMAT,
+                    scenario, stats.getRequests(), getThroughput(scenario),
+                    millis(handle.getValueAtQuantile(QUANTILES[0])),
+                    millis(handle.getValueAtQuantile(QUANTILES[1])),
+                    millis(handle.getValueAtQuantile(QUANTILES[2])),
+                    millis(handle.getMax()),
+                    stats.getDropped(),
+                    percent(stats.getHandleErrors(), stats.getRequests()),
+                    notification.getCount(),
+                    millis(notification.getValueAtQuantile(QUANTILES[0])),
+                    millis(notification.getValueAtQuantile(QUANTILES[1])),
+                    millis(notification.getValueAtQuantile(QUANTILES[2])),
+                    percent(stats.getNotificationErrors(), notification.getCount()),
+                    stats.getConcurrentModifications()));
+        });
+        return table.toString();
+    }
+
+    private static double millis(final long micros) {
+        return micros / 1000.0;
+    }
+
+    private static double percent(final long part, final long total) {
+        return total > 0 ? 100.0 * part / total : 0;
+    }
+
+    /**
+     * Counters of one {@link LoadScenario}.
+     */
+    public static final class ScenarioStats {
+        private final LatencyHistogram handleLatency = new LatencyHistogram();
+        private final LongAdder handleErrors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LatencyHistogram notificationLatency = new LatencyHistogram();
+        private final LongAdder notificationErrors = new LongAdder();
+        private final LongAdder concurrentModifications = new LongAdder();
+
+        /**
+         * @return measured handle requests, including the failed ones
+         */
+        public long getRequests() {
+            return handleLatency.snapshot().getCount();
+        }
+
+        /**
+         * @return handle requests which failed or were answered with a non 2xx status
+         */
+        public long getHandleErrors() {
+            return handleErrors.sum();
+        }
+
+        /**
+         * @return handle requests which were not sent because too many requests were in flight
+         */
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        /**
+         * @return latency of the handle requests in microseconds, from the time the request was due
+         */
+        @Nonnull
+        public LatencyHistogram.Snapshot getHandleLatency() {
+            return handleLatency.snapshot();
+        }
+
+        /**
+         * @return latency of the notification requests in microseconds
+         */
+        @Nonnull
+        public LatencyHistogram.Snapshot getNotificationLatency() {
+            return notificationLatency.snapshot();
+        }
+
+        /**
+         * @return notifications which the service didn't answer with {@code TSOK}
+         */
+        public long getNotificationErrors() {
+            return notificationErrors.sum();
+        }
+
+        /**
+         * @return updates of the scenario payments which were rejected because of a stale version
+         */
+        public long getConcurrentModifications() {
+            return concurrentModifications.sum();
+        }
+    }
+}
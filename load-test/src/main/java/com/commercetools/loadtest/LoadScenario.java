@@ -0,0 +1,166 @@
+package com.commercetools.loadtest;
+
+import com.commercetools.loadtest.payone.PayoneStubRule;
+import com.commercetools.pspadapter.payone.domain.ctp.CustomTypeBuilder;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ClearingType;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ResponseStatus;
+import com.commercetools.pspadapter.payone.mapping.CustomFieldKeys;
+import io.sphere.sdk.payments.TransactionType;
+
+import javax.annotation.Nonnull;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction.APPOINTED;
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction.PAID;
+
+/**
+ * Payment flows the {@link LoadDriver} runs against the service. Every scenario is one payment method with the
+ * Payone answer and the transaction status notifications which usually follow for it.
+ */
+public enum LoadScenario {
+
+    /**
+     * Preauthorization which is approved immediately, followed by {@code appointed}.
+     */
+    CREDIT_CARD(ClearingType.PAYONE_CC, CustomTypeBuilder.PAYMENT_CREDIT_CARD, TransactionType.AUTHORIZATION,
+            ResponseStatus.APPROVED, APPOINTED),
+
+    /**
+     * Preauthorization which redirects the buyer to PayPal, {@code appointed} once the buyer returned.
+     */
+    PAYPAL(ClearingType.PAYONE_PPE, CustomTypeBuilder.PAYMENT_WALLET, TransactionType.AUTHORIZATION,
+            ResponseStatus.REDIRECT, APPOINTED),
+
+    /**
+     * Charge which redirects the buyer to Sofort, {@code appointed} and {@code paid} once the buyer returned.
+     */
+    SOFORT(ClearingType.PAYONE_PNT, CustomTypeBuilder.PAYMENT_BANK_TRANSFER, TransactionType.CHARGE,
+            ResponseStatus.REDIRECT, APPOINTED, PAID),
+
+    /**
+     * Preauthorization which is approved with the bank account to transfer to, {@code paid} after the transfer.
+     */
+    BANK_TRANSFER_ADVANCE(ClearingType.PAYONE_VOR, CustomTypeBuilder.PAYMENT_CASH_ADVANCE,
+            TransactionType.AUTHORIZATION, ResponseStatus.APPROVED, APPOINTED, PAID),
+
+    /**
+     * Preauthorization of a Klarna invoice, which reads the cart of the payment, followed by {@code appointed}.
+     */
+    KLARNA(ClearingType.PAYONE_KLV, CustomTypeBuilder.PAYMENT_INVOICE_KLARNA, TransactionType.AUTHORIZATION,
+            ResponseStatus.APPROVED, APPOINTED);
+
+    private final ClearingType clearingType;
+    private final String customTypeKey;
+    private final TransactionType transactionType;
+    private final ResponseStatus payoneStatus;
+    private final List<NotificationAction> notifications;
+
+    LoadScenario(@Nonnull final ClearingType clearingType, @Nonnull final String customTypeKey,
+                 @Nonnull final TransactionType transactionType, @Nonnull final ResponseStatus payoneStatus,
+                 @Nonnull final NotificationAction... notifications) {
+        this.clearingType = clearingType;
+        this.customTypeKey = customTypeKey;
+        this.transactionType = transactionType;
+        this.payoneStatus = payoneStatus;
+        this.notifications = Collections.unmodifiableList(Arrays.asList(notifications));
+    }
+
+    @Nonnull
+    public String getMethodKey() {
+        return clearingType.getKey();
+    }
+
+    @Nonnull
+    public ClearingType getClearingType() {
+        return clearingType;
+    }
+
+    @Nonnull
+    public String getCustomTypeKey() {
+        return customTypeKey;
+    }
+
+    @Nonnull
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    /**
+     * @return notifications the Payone stub sends for every handled payment, in this order
+     */
+    @Nonnull
+    public List<NotificationAction> getNotifications() {
+        return notifications;
+    }
+
+    /**
+     * @param latency                 delay of the Payone response
+     * @param notificationDelayMillis delay between the response and the first notification, and between subsequent
+     *                                notifications
+     * @return rule which answers the requests of this scenario on the Payone stub
+     */
+    @Nonnull
+    public PayoneStubRule payoneRule(@Nonnull final LatencyDistribution latency, final long notificationDelayMillis) {
+        final PayoneStubRule rule = PayoneStubRule.any()
+                .clearingType(clearingType)
+                .respond(payoneStatus)
+                .latency(latency);
+        for (int i = 0; i < notifications.size(); i++) {
+            rule.notify(notifications.get(i), notificationDelayMillis * (i + 1));
+        }
+        return rule;
+    }
+
+    /**
+     * @param reference unique payment reference, like an order number
+     * @return values of the payment custom fields the service needs for this payment method
+     */
+    @Nonnull
+    public Map<String, Object> customFields(@Nonnull final String reference) {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put(CustomFieldKeys.LANGUAGE_CODE_FIELD, "de");
+        fields.put(CustomFieldKeys.REFERENCE_FIELD, reference);
+        switch (this) {
+            case CREDIT_CARD:
+                fields.put(CustomFieldKeys.CARD_DATA_PLACEHOLDER_FIELD, "9410010000000000001");
+                fields.put(CustomFieldKeys.SUCCESS_URL_FIELD, "https://example.com/success");
+                fields.put(CustomFieldKeys.ERROR_URL_FIELD, "https://example.com/error");
+                break;
+            case PAYPAL:
+            case SOFORT:
+                fields.put(CustomFieldKeys.SUCCESS_URL_FIELD, "https://example.com/success");
+                fields.put(CustomFieldKeys.ERROR_URL_FIELD, "https://example.com/error");
+                fields.put(CustomFieldKeys.CANCEL_URL_FIELD, "https://example.com/cancel");
+                break;
+            case KLARNA:
+                fields.put(CustomFieldKeys.GENDER_FIELD, "f");
+                fields.put(CustomFieldKeys.IP_FIELD, "127.0.0.1");
+                fields.put(CustomFieldKeys.BIRTHDAY_FIELD, LocalDate.of(1980, 1, 1));
+                fields.put(CustomFieldKeys.TELEPHONENUMBER_FIELD, "+4930123456");
+                break;
+            default:
+        }
+        return fields;
+    }
+
+    @Nonnull
+    public static Optional<LoadScenario> ofMethodKey(final String methodKey) {
+        return Arrays.stream(values())
+                .filter(scenario -> scenario.getMethodKey().equals(methodKey))
+                .findFirst();
+    }
+
+    @Nonnull
+    public static Optional<LoadScenario> ofClearingType(final ClearingType clearingType) {
+        return Arrays.stream(values())
+                .filter(scenario -> scenario.clearingType == clearingType)
+                .findFirst();
+    }
+}
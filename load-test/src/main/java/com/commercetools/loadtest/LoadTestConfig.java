@@ -0,0 +1,220 @@
+package com.commercetools.loadtest;
+
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+/**
+ * Settings of a {@link LoadDriver} run. {@link #fromSystemProperties()} reads them from {@code -Dloadtest.*}
+ * arguments, the fluent setters are meant for tests.
+ */
+public class LoadTestConfig {
+
+    public static final String TENANTS = "loadtest.tenants";
+    public static final String RATE = "loadtest.rate";
+    public static final String DURATION_SECONDS = "loadtest.durationSeconds";
+    public static final String WARMUP_SECONDS = "loadtest.warmupSeconds";
+    public static final String MAX_IN_FLIGHT = "loadtest.maxInFlight";
+    public static final String SCENARIOS = "loadtest.scenarios";
+    public static final String CTP_LATENCY = "loadtest.ctpLatencyMillis";
+    public static final String PAYONE_LATENCY = "loadtest.payoneLatencyMillis";
+    public static final String NOTIFICATION_DELAY_MILLIS = "loadtest.notificationDelayMillis";
+
+    private List<String> tenants = Collections.singletonList("LOAD_TEST");
+    private double rate = 50;
+    private long durationSeconds = 60;
+    private long warmupSeconds = 10;
+    private int maxInFlight = 200;
+    private Map<LoadScenario, Integer> scenarioWeights = allScenarios();
+    private LatencyDistribution ctpLatency = LatencyDistribution.logNormal(15, 120);
+    private LatencyDistribution payoneLatency = LatencyDistribution.logNormal(150, 900);
+    private long notificationDelayMillis = 500;
+
+    /**
+     * Reads the settings from system properties, missing ones keep their defaults:
+     * <ul>
+     * <li>{@value #TENANTS}: comma separated tenant names, default {@code LOAD_TEST}</li>
+     * <li>{@value #RATE}: handle requests per second, default 50</li>
+     * <li>{@value #DURATION_SECONDS}: measured duration, default 60</li>
+     * <li>{@value #WARMUP_SECONDS}: unmeasured duration before, default 10</li>
+     * <li>{@value #MAX_IN_FLIGHT}: concurrent handle requests, default 200</li>
+     * <li>{@value #SCENARIOS}: weighted scenarios like {@code CREDIT_CARD:3,PAYPAL:1}, default all with weight 1</li>
+     * <li>{@value #CTP_LATENCY}, {@value #PAYONE_LATENCY}: {@code median:p99} of a log-normal latency in
+     * milliseconds, a single value for a fixed latency, default {@code 15:120} and {@code 150:900}</li>
+     * <li>{@value #NOTIFICATION_DELAY_MILLIS}: delay of the Payone notifications, default 500</li>
+     * </ul>
+     */
+    @Nonnull
+    public static LoadTestConfig fromSystemProperties() {
+        final LoadTestConfig config = new LoadTestConfig();
+        readProperty(TENANTS, value -> Arrays.asList(value.trim().split("\\s*,\\s*"))).ifPresent(config::tenants);
+        readProperty(RATE, Double::valueOf).ifPresent(config::rate);
+        readProperty(DURATION_SECONDS, Long::valueOf).ifPresent(config::durationSeconds);
+        readProperty(WARMUP_SECONDS, Long::valueOf).ifPresent(config::warmupSeconds);
+        readProperty(MAX_IN_FLIGHT, Integer::valueOf).ifPresent(config::maxInFlight);
+        readProperty(SCENARIOS, LoadTestConfig::parseScenarioWeights).ifPresent(config::scenarioWeights);
+        readProperty(CTP_LATENCY, LoadTestConfig::parseLatency).ifPresent(config::ctpLatency);
+        readProperty(PAYONE_LATENCY, LoadTestConfig::parseLatency).ifPresent(config::payoneLatency);
+        readProperty(NOTIFICATION_DELAY_MILLIS, Long::valueOf).ifPresent(config::notificationDelayMillis);
+        return config;
+    }
+
+    private static <T> Optional<T> readProperty(@Nonnull final String name,
+                                                @Nonnull final Function<String, T> parser) {
+        final String value = System.getProperty(name);
+        if (StringUtils.isBlank(value)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(parser.apply(value.trim()));
+        } catch (final RuntimeException e) {
+            throw new IllegalArgumentException(format("Invalid value [%s] of %s", value, name), e);
+        }
+    }
+
+    static Map<LoadScenario, Integer> parseScenarioWeights(@Nonnull final String value) {
+        final Map<LoadScenario, Integer> weights = new EnumMap<>(LoadScenario.class);
+        for (final String entry : value.split("\\s*,\\s*")) {
+            final String[] nameAndWeight = entry.split("\\s*:\\s*");
+            weights.put(LoadScenario.valueOf(nameAndWeight[0]),
+                    nameAndWeight.length > 1 ? Integer.valueOf(nameAndWeight[1]) : 1);
+        }
+        return weights;
+    }
+
+    static LatencyDistribution parseLatency(@Nonnull final String value) {
+        final String[] medianAndP99 = value.split("\\s*:\\s*");
+        return medianAndP99.length > 1
+                ? LatencyDistribution.logNormal(Long.parseLong(medianAndP99[0]), Long.parseLong(medianAndP99[1]))
+                : LatencyDistribution.fixed(Long.parseLong(medianAndP99[0]));
+    }
+
+    private static Map<LoadScenario, Integer> allScenarios() {
+        final Map<LoadScenario, Integer> weights = new EnumMap<>(LoadScenario.class);
+        for (final LoadScenario scenario : LoadScenario.values()) {
+            weights.put(scenario, 1);
+        }
+        return weights;
+    }
+
+    @Nonnull
+    public LoadTestConfig tenants(@Nonnull final List<String> tenants) {
+        if (tenants.isEmpty()) {
+            throw new IllegalArgumentException("At least one tenant is expected");
+        }
+        this.tenants = tenants;
+        return this;
+    }
+
+    /**
+     * @param rate handle requests per second, sent at a constant rate regardless of the response times
+     */
+    @Nonnull
+    public LoadTestConfig rate(final double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        this.rate = rate;
+        return this;
+    }
+
+    @Nonnull
+    public LoadTestConfig durationSeconds(final long durationSeconds) {
+        this.durationSeconds = durationSeconds;
+        return this;
+    }
+
+    /**
+     * @param warmupSeconds duration before the measured one, to let the JIT compile and the pools fill
+     */
+    @Nonnull
+    public LoadTestConfig warmupSeconds(final long warmupSeconds) {
+        this.warmupSeconds = warmupSeconds;
+        return this;
+    }
+
+    /**
+     * @param maxInFlight concurrent handle requests. Requests which would exceed it are not sent and reported as
+     *                    dropped, instead of silently lowering the rate.
+     */
+    @Nonnull
+    public LoadTestConfig maxInFlight(final int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * @param scenarioWeights relative share of every scenario in the sent requests
+     */
+    @Nonnull
+    public LoadTestConfig scenarioWeights(@Nonnull final Map<LoadScenario, Integer> scenarioWeights) {
+        if (scenarioWeights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("At least one scenario with a positive weight is expected");
+        }
+        this.scenarioWeights = new EnumMap<>(scenarioWeights);
+        return this;
+    }
+
+    @Nonnull
+    public LoadTestConfig ctpLatency(@Nonnull final LatencyDistribution ctpLatency) {
+        this.ctpLatency = ctpLatency;
+        return this;
+    }
+
+    @Nonnull
+    public LoadTestConfig payoneLatency(@Nonnull final LatencyDistribution payoneLatency) {
+        this.payoneLatency = payoneLatency;
+        return this;
+    }
+
+    @Nonnull
+    public LoadTestConfig notificationDelayMillis(final long notificationDelayMillis) {
+        this.notificationDelayMillis = notificationDelayMillis;
+        return this;
+    }
+
+    public List<String> getTenants() {
+        return tenants;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public long getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public Map<LoadScenario, Integer> getScenarioWeights() {
+        return Collections.unmodifiableMap(scenarioWeights);
+    }
+
+    public LatencyDistribution getCtpLatency() {
+        return ctpLatency;
+    }
+
+    public LatencyDistribution getPayoneLatency() {
+        return payoneLatency;
+    }
+
+    public long getNotificationDelayMillis() {
+        return notificationDelayMillis;
+    }
+}
@@ -0,0 +1,60 @@
+package com.commercetools.loadtest.ctp;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sphere.sdk.json.SphereJsonUtils;
+
+import javax.annotation.Nonnull;
+
+import static java.lang.String.format;
+
+/**
+ * Error response of the {@link InMemoryProject}, rendered like the platform renders errors.
+ */
+final class CtpError extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    final int statusCode;
+    private final String code;
+    private final Long currentVersion;
+
+    private CtpError(final int statusCode, @Nonnull final String code, @Nonnull final String message,
+                     final Long currentVersion) {
+        super(message, null, false, false);
+        this.statusCode = statusCode;
+        this.code = code;
+        this.currentVersion = currentVersion;
+    }
+
+    static CtpError badRequest(@Nonnull final String code, @Nonnull final String message) {
+        return new CtpError(400, code, message, null);
+    }
+
+    static CtpError notFound(@Nonnull final String resource, @Nonnull final String idOrKey) {
+        return new CtpError(404, "ResourceNotFound",
+                format("The Resource with ID '%s' was not found in %s.", idOrKey, resource), null);
+    }
+
+    static CtpError concurrentModification(final long expectedVersion, final long currentVersion) {
+        return new CtpError(409, "ConcurrentModification",
+                format("Object has a different version than expected. Expected: %d - Actual: %d.", expectedVersion,
+                        currentVersion),
+                currentVersion);
+    }
+
+    String toJson() {
+        final ObjectNode error = JsonNodeFactory.instance.objectNode();
+        error.put("code", code);
+        error.put("message", getMessage());
+        if (currentVersion != null) {
+            error.put("currentVersion", currentVersion);
+        }
+
+        final ObjectNode response = JsonNodeFactory.instance.objectNode();
+        response.put("statusCode", statusCode);
+        response.put("message", getMessage());
+        response.putArray("errors").add(error);
+        return SphereJsonUtils.toJsonString(response);
+    }
+}
@@ -0,0 +1,565 @@
+package com.commercetools.loadtest.ctp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sphere.sdk.client.HttpRequestIntent;
+import io.sphere.sdk.http.HttpMethod;
+import io.sphere.sdk.http.HttpRequestBody;
+import io.sphere.sdk.http.HttpResponse;
+import io.sphere.sdk.http.StringHttpRequestBody;
+import io.sphere.sdk.json.SphereJsonUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * In-memory commercetools project which answers the HTTP intents of the JVM SDK requests, see
+ * {@link InMemorySphereClient}.
+ * <p>
+ * Resources are kept as JSON documents, so the real SDK request serialization and response deserialization is used.
+ * Supported are:
+ * <ul>
+ * <li>get by id or key, queries with {@code where} ({@link QueryPredicate}), {@code sort}, {@code limit},
+ * {@code offset} and {@code expand} of top level references</li>
+ * <li>create and delete of any resource. Payments, types and messages are created like the platform does, carts and
+ * orders are stored as posted - use {@link #seed(String, String)} to store complete ones.</li>
+ * <li>the update actions the service uses, see {@link UpdateActions}</li>
+ * <li>optimistic concurrency control: updates and deletes with a stale version fail with 409
+ * {@code ConcurrentModification}, exactly like on the platform</li>
+ * <li>{@code PaymentCreated}, {@code PaymentTransactionAdded} and {@code PaymentTransactionStateChanged}
+ * messages</li>
+ * </ul>
+ * Unsupported requests fail with 400, so a missing feature of the fake can't go unnoticed.
+ */
+public class InMemoryProject {
+
+    public static final String PAYMENTS = "payments";
+    public static final String ORDERS = "orders";
+    public static final String CARTS = "carts";
+    public static final String TYPES = "types";
+    public static final String MESSAGES = "messages";
+
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 500;
+
+    private static final Map<String, String> TYPE_IDS;
+
+    static {
+        final Map<String, String> typeIds = new HashMap<>();
+        typeIds.put(PAYMENTS, "payment");
+        typeIds.put(ORDERS, "order");
+        typeIds.put(CARTS, "cart");
+        typeIds.put(TYPES, "type");
+        typeIds.put(MESSAGES, "message");
+        typeIds.put("customers", "customer");
+        TYPE_IDS = Collections.unmodifiableMap(typeIds);
+    }
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS'Z'").withZone(ZoneOffset.UTC);
+
+    private final String projectKey;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, ObjectNode>> resources = new ConcurrentHashMap<>();
+
+    /**
+     * Messages by their unique creation time in microseconds, thus in creation order.
+     */
+    private final ConcurrentSkipListMap<Long, ObjectNode> messages = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, AtomicLong> messageSequenceNumbers = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastTimestampMicros = new AtomicLong();
+
+    private final LongAdder concurrentModifications = new LongAdder();
+    private volatile BiConsumer<String, JsonNode> concurrentModificationListener = (resource, document) -> {
+    };
+
+    public InMemoryProject(@Nonnull final String projectKey) {
+        this.projectKey = projectKey;
+    }
+
+    @Nonnull
+    public String getProjectKey() {
+        return projectKey;
+    }
+
+    /**
+     * Stores a complete resource as it is, for example a cart or an order loaded from a JSON file. Missing
+     * {@code id}, {@code version}, {@code createdAt} and {@code lastModifiedAt} are generated.
+     *
+     * @param resource resource endpoint, like {@link #CARTS}
+     * @param json     the resource as returned by the platform
+     * @return id of the stored resource
+     */
+    @Nonnull
+    public String seed(@Nonnull final String resource, @Nonnull final String json) {
+        final ObjectNode document = (ObjectNode) SphereJsonUtils.parse(json);
+        if (!document.hasNonNull("id")) {
+            document.put("id", UUID.randomUUID().toString());
+        }
+        if (!document.hasNonNull("version")) {
+            document.put("version", 1L);
+        }
+        final String now = nextTimestamp();
+        if (!document.hasNonNull("createdAt")) {
+            document.put("createdAt", now);
+        }
+        if (!document.hasNonNull("lastModifiedAt")) {
+            document.put("lastModifiedAt", now);
+        }
+        store(resource).put(document.get("id").asText(), document);
+        return document.get("id").asText();
+    }
+
+    /**
+     * @return copy of the current state of the resource
+     */
+    @Nonnull
+    public Optional<JsonNode> get(@Nonnull final String resource, @Nonnull final String id) {
+        return Optional.ofNullable(store(resource).get(id)).map(ObjectNode::deepCopy);
+    }
+
+    public int count(@Nonnull final String resource) {
+        return MESSAGES.equals(resource) ? messages.size() : store(resource).size();
+    }
+
+    /**
+     * @return number of updates and deletes which failed because of a stale version
+     */
+    public long getConcurrentModificationCount() {
+        return concurrentModifications.sum();
+    }
+
+    /**
+     * @param listener called with the resource endpoint and the current state of the document, whenever an update or
+     *                 delete fails because of a stale version. Called while the document is locked, so it must not
+     *                 access the project.
+     */
+    public void setConcurrentModificationListener(@Nonnull final BiConsumer<String, JsonNode> listener) {
+        this.concurrentModificationListener = listener;
+    }
+
+    /**
+     * Executes the request and returns the response like the platform would do.
+     */
+    @Nonnull
+    HttpResponse handle(@Nonnull final HttpRequestIntent intent) {
+        try {
+            final String path = StringUtils.substringBefore(intent.getPath(), "?");
+            final Map<String, List<String>> parameters = parseQuery(StringUtils.substringAfter(intent.getPath(), "?"));
+            final String[] segments = StringUtils.split(path, '/');
+            final HttpMethod method = intent.getHttpMethod();
+
+            if (segments.length == 0 && method == HttpMethod.GET) {
+                return ok(project());
+            }
+            if (segments.length == 1 && method == HttpMethod.GET) {
+                return ok(query(segments[0], parameters));
+            }
+            if (segments.length == 1 && method == HttpMethod.POST) {
+                return HttpResponse.of(201, SphereJsonUtils.toJsonString(create(segments[0], body(intent))));
+            }
+            if (segments.length == 2 && method == HttpMethod.GET) {
+                return ok(expand(segments[0], find(segments[0], segments[1]), parameters.get("expand")));
+            }
+            if (segments.length == 2 && method == HttpMethod.POST) {
+                return ok(update(segments[0], find(segments[0], segments[1]), body(intent)));
+            }
+            if (segments.length == 2 && method == HttpMethod.DELETE) {
+                return ok(delete(segments[0], find(segments[0], segments[1]), parameters));
+            }
+            throw CtpError.badRequest("InvalidOperation",
+                    format("%s %s is not supported by the in-memory project", method, intent.getPath()));
+        } catch (final CtpError e) {
+            return HttpResponse.of(e.statusCode, e.toJson());
+        }
+    }
+
+    private ObjectNode project() {
+        final ObjectNode project = JsonNodeFactory.instance.objectNode();
+        project.put("key", projectKey);
+        project.put("name", projectKey);
+        project.put("version", 1L);
+        project.put("createdAt", formatTimestamp(0));
+        project.putArray("countries").add("DE");
+        project.putArray("currencies").add("EUR");
+        project.putArray("languages").add("de").add("en");
+        return project;
+    }
+
+    private ObjectNode query(@Nonnull final String resource, @Nonnull final Map<String, List<String>> parameters) {
+        Stream<ObjectNode> documents = MESSAGES.equals(resource)
+                ? messages.values().stream()
+                : store(resource).values().stream();
+
+        for (final String where : parameters.getOrDefault("where", Collections.emptyList())) {
+            final Predicate<JsonNode> predicate;
+            try {
+                predicate = QueryPredicate.parse(where);
+            } catch (final IllegalArgumentException e) {
+                throw CtpError.badRequest("InvalidInput", "Malformed predicate: " + e.getMessage());
+            }
+            documents = documents.filter(predicate);
+        }
+
+        final List<String> sort = parameters.getOrDefault("sort", Collections.emptyList());
+        if (!sort.isEmpty()) {
+            documents = documents.sorted(sortComparator(sort));
+        } else if (!MESSAGES.equals(resource)) {
+            documents = documents.sorted(Comparator.comparing(document -> document.get("id").asText()));
+        }
+
+        final List<ObjectNode> matching = documents.collect(toList());
+        final long offset = parseLong(parameters.get("offset"), 0);
+        final long limit = Math.min(parseLong(parameters.get("limit"), DEFAULT_LIMIT), MAX_LIMIT);
+
+        final ObjectNode result = JsonNodeFactory.instance.objectNode();
+        final ArrayNode results = JsonNodeFactory.instance.arrayNode();
+        matching.stream()
+                .skip(offset)
+                .limit(limit)
+                .forEach(document -> results.add(expand(resource, document, parameters.get("expand"))));
+        result.put("offset", offset);
+        result.put("limit", limit);
+        result.put("count", results.size());
+        result.put("total", matching.size());
+        result.set("results", results);
+        return result;
+    }
+
+    private ObjectNode create(@Nonnull final String resource, @Nonnull final ObjectNode draft) {
+        final ObjectNode document = draft.deepCopy();
+        final String now = nextTimestamp();
+        document.put("id", UUID.randomUUID().toString());
+        document.put("version", 1L);
+        document.put("createdAt", now);
+        document.put("lastModifiedAt", now);
+
+        final List<ObjectNode> createdMessages = new ArrayList<>();
+        if (TYPES.equals(resource)) {
+            final String key = document.path("key").asText();
+            if (store(TYPES).values().stream().anyMatch(type -> key.equals(type.path("key").asText()))) {
+                throw CtpError.badRequest("DuplicateField", format("A type with key [%s] already exists", key));
+            }
+        } else if (PAYMENTS.equals(resource)) {
+            UpdateActions.preparePayment(this, document);
+            createdMessages.add(message(document, "PaymentCreated", "payment", document.deepCopy()));
+            for (final JsonNode transaction : document.withArray("transactions")) {
+                createdMessages.add(message(document, "PaymentTransactionAdded", "transaction", transaction));
+            }
+        } else {
+            resolveCustomType(document);
+        }
+
+        store(resource).put(document.get("id").asText(), document);
+        createdMessages.forEach(this::publish);
+        return document;
+    }
+
+    private ObjectNode update(@Nonnull final String resource, @Nonnull final ObjectNode current,
+                              @Nonnull final ObjectNode body) {
+        final long expectedVersion = body.path("version").asLong(-1);
+        final List<ObjectNode> createdMessages = new ArrayList<>();
+
+        final ObjectNode updated = store(resource).compute(current.get("id").asText(), (id, document) -> {
+            if (document == null) {
+                throw CtpError.notFound(resource, id);
+            }
+            checkVersion(resource, document, expectedVersion);
+
+            final ObjectNode copy = document.deepCopy();
+            final UpdateActions actions = new UpdateActions(this, resource, copy);
+            for (final JsonNode action : body.withArray("actions")) {
+                actions.apply(action);
+            }
+            copy.put("version", document.get("version").asLong() + 1);
+            copy.put("lastModifiedAt", nextTimestamp());
+            createdMessages.addAll(actions.getMessages());
+            return copy;
+        });
+
+        createdMessages.forEach(message -> {
+            message.put("resourceVersion", updated.get("version").asLong());
+            publish(message);
+        });
+        return updated;
+    }
+
+    private ObjectNode delete(@Nonnull final String resource, @Nonnull final ObjectNode current,
+                              @Nonnull final Map<String, List<String>> parameters) {
+        final long expectedVersion = parseLong(parameters.get("version"), -1);
+        final ObjectNode[] deleted = new ObjectNode[1];
+        store(resource).computeIfPresent(current.get("id").asText(), (id, document) -> {
+            checkVersion(resource, document, expectedVersion);
+            deleted[0] = document;
+            return null;
+        });
+        if (deleted[0] == null) {
+            throw CtpError.notFound(resource, current.get("id").asText());
+        }
+        return deleted[0];
+    }
+
+    private void checkVersion(@Nonnull final String resource, @Nonnull final ObjectNode document,
+                              final long expectedVersion) {
+        final long currentVersion = document.get("version").asLong();
+        if (expectedVersion != currentVersion) {
+            concurrentModifications.increment();
+            concurrentModificationListener.accept(resource, document);
+            throw CtpError.concurrentModification(expectedVersion, currentVersion);
+        }
+    }
+
+    /**
+     * @param idOrKey resource id or {@code key=<key>}
+     */
+    private ObjectNode find(@Nonnull final String resource, @Nonnull final String idOrKey) {
+        final ObjectNode document;
+        if (idOrKey.startsWith("key=")) {
+            final String key = idOrKey.substring("key=".length());
+            document = store(resource).values().stream()
+                    .filter(candidate -> key.equals(candidate.path("key").asText()))
+                    .findFirst()
+                    .orElse(null);
+        } else {
+            document = MESSAGES.equals(resource)
+                    ? messages.values().stream().filter(message -> idOrKey.equals(message.get("id").asText()))
+                    .findFirst().orElse(null)
+                    : store(resource).get(idOrKey);
+        }
+        if (document == null) {
+            throw CtpError.notFound(resource, idOrKey);
+        }
+        return document;
+    }
+
+    /**
+     * Expands top level references like {@code resource} of messages or {@code customer} of payments. Nested
+     * expansion paths are ignored.
+     */
+    private ObjectNode expand(@Nonnull final String resource, @Nonnull final ObjectNode document,
+                              @Nullable final List<String> expansionPaths) {
+        if (expansionPaths == null || expansionPaths.isEmpty()) {
+            return document;
+        }
+        final ObjectNode expanded = document.deepCopy();
+        for (final String path : expansionPaths) {
+            final JsonNode reference = expanded.get(path);
+            if (reference == null || !reference.isObject() || !reference.hasNonNull("typeId")) {
+                continue;
+            }
+            final String referencedResource = resourceOfTypeId(reference.get("typeId").asText());
+            final ObjectNode referenced = referencedResource != null
+                    ? store(referencedResource).get(reference.path("id").asText())
+                    : null;
+            if (referenced != null) {
+                ((ObjectNode) reference).set("obj", referenced);
+            }
+        }
+        return expanded;
+    }
+
+    private static Comparator<ObjectNode> sortComparator(@Nonnull final List<String> sortExpressions) {
+        Comparator<ObjectNode> comparator = null;
+        for (final String expression : sortExpressions) {
+            final String[] parts = StringUtils.split(expression, ' ');
+            final String[] fieldPath = StringUtils.split(parts[0], '.');
+            Comparator<ObjectNode> fieldComparator = (left, right) ->
+                    compareValues(value(left, fieldPath), value(right, fieldPath));
+            if (parts.length > 1 && "desc".equalsIgnoreCase(parts[1])) {
+                fieldComparator = fieldComparator.reversed();
+            }
+            comparator = comparator == null ? fieldComparator : comparator.thenComparing(fieldComparator);
+        }
+        return comparator;
+    }
+
+    private static JsonNode value(@Nonnull final JsonNode document, @Nonnull final String[] fieldPath) {
+        JsonNode value = document;
+        for (final String field : fieldPath) {
+            value = value.path(field);
+        }
+        return value;
+    }
+
+    private static int compareValues(@Nonnull final JsonNode left, @Nonnull final JsonNode right) {
+        if (left.isMissingNode() || right.isMissingNode()) {
+            return Boolean.compare(left.isMissingNode(), right.isMissingNode());
+        }
+        if (left.isNumber() && right.isNumber()) {
+            return Double.compare(left.asDouble(), right.asDouble());
+        }
+        // timestamps have a fixed format, so they are ordered as strings
+        return left.asText().compareTo(right.asText());
+    }
+
+    /**
+     * Replaces a custom type resource identifier of a draft ({@code {"key": "..."}}) by a reference.
+     */
+    void resolveCustomType(@Nonnull final ObjectNode document) {
+        final JsonNode custom = document.get("custom");
+        if (custom instanceof ObjectNode) {
+            ((ObjectNode) custom).set("type", typeReference(custom.get("type")));
+            if (!custom.has("fields")) {
+                ((ObjectNode) custom).putObject("fields");
+            }
+        }
+    }
+
+    @Nonnull
+    ObjectNode typeReference(@Nullable final JsonNode resourceIdentifier) {
+        if (resourceIdentifier == null || !resourceIdentifier.isObject()) {
+            throw CtpError.badRequest("InvalidInput", "Type resource identifier expected");
+        }
+        final String id;
+        if (resourceIdentifier.hasNonNull("id")) {
+            id = resourceIdentifier.get("id").asText();
+        } else {
+            final String key = resourceIdentifier.path("key").asText();
+            id = store(TYPES).values().stream()
+                    .filter(type -> key.equals(type.path("key").asText()))
+                    .map(type -> type.get("id").asText())
+                    .findFirst()
+                    .orElseThrow(() -> CtpError.badRequest("ReferencedResourceNotFound",
+                            format("The type with key [%s] was not found", key)));
+        }
+        final ObjectNode reference = JsonNodeFactory.instance.objectNode();
+        reference.put("typeId", "type");
+        reference.put("id", id);
+        return reference;
+    }
+
+    /**
+     * Creates a message of a payment. The {@code resourceVersion} is set when the update is stored.
+     */
+    @Nonnull
+    ObjectNode message(@Nonnull final ObjectNode payment, @Nonnull final String type,
+                       @Nonnull final String payloadField, @Nonnull final JsonNode payload) {
+        final String now = nextTimestamp();
+        final String paymentId = payment.get("id").asText();
+        final ObjectNode message = JsonNodeFactory.instance.objectNode();
+        message.put("id", UUID.randomUUID().toString());
+        message.put("version", 1L);
+        message.put("createdAt", now);
+        message.put("lastModifiedAt", now);
+        message.put("sequenceNumber",
+                messageSequenceNumbers.computeIfAbsent(paymentId, id -> new AtomicLong()).incrementAndGet());
+        final ObjectNode resource = message.putObject("resource");
+        resource.put("typeId", "payment");
+        resource.put("id", paymentId);
+        message.put("resourceVersion", payment.path("version").asLong(1));
+        message.put("type", type);
+        message.set(payloadField, payload.deepCopy());
+        return message;
+    }
+
+    private void publish(@Nonnull final ObjectNode message) {
+        messages.put(parseMicros(message.get("createdAt").asText()), message);
+    }
+
+    /**
+     * @return unique and strictly increasing timestamp with microseconds precision
+     */
+    @Nonnull
+    String nextTimestamp() {
+        final long nowMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        return formatTimestamp(lastTimestampMicros.updateAndGet(last -> Math.max(last + 1, nowMicros)));
+    }
+
+    private static String formatTimestamp(final long micros) {
+        return TIMESTAMP_FORMAT.format(Instant.ofEpochSecond(TimeUnit.MICROSECONDS.toSeconds(micros),
+                TimeUnit.MICROSECONDS.toNanos(micros % 1_000_000)));
+    }
+
+    private static long parseMicros(@Nonnull final String timestamp) {
+        final Instant instant = Instant.parse(timestamp);
+        return TimeUnit.SECONDS.toMicros(instant.getEpochSecond()) + TimeUnit.NANOSECONDS.toMicros(instant.getNano());
+    }
+
+    private ConcurrentMap<String, ObjectNode> store(@Nonnull final String resource) {
+        return resources.computeIfAbsent(resource, name -> new ConcurrentHashMap<>());
+    }
+
+    @Nullable
+    private static String resourceOfTypeId(@Nonnull final String typeId) {
+        return TYPE_IDS.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(typeId))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static ObjectNode body(@Nonnull final HttpRequestIntent intent) {
+        final HttpRequestBody body = intent.getBody();
+        if (!(body instanceof StringHttpRequestBody)) {
+            throw CtpError.badRequest("InvalidJsonInput", "JSON body expected");
+        }
+        final JsonNode json = SphereJsonUtils.parse(((StringHttpRequestBody) body).getString());
+        if (!json.isObject()) {
+            throw CtpError.badRequest("InvalidJsonInput", "JSON object expected");
+        }
+        return (ObjectNode) json;
+    }
+
+    private static HttpResponse ok(@Nonnull final JsonNode body) {
+        return HttpResponse.of(200, SphereJsonUtils.toJsonString(body));
+    }
+
+    private static Map<String, List<String>> parseQuery(@Nonnull final String query) {
+        final Map<String, List<String>> parameters = new LinkedHashMap<>();
+        for (final String parameter : StringUtils.split(query, '&')) {
+            final String name = decode(StringUtils.substringBefore(parameter, "="));
+            final String value = decode(StringUtils.substringAfter(parameter, "="));
+            parameters.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+        return parameters;
+    }
+
+    private static String decode(@Nonnull final String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long parseLong(@Nullable final List<String> values, final long defaultValue) {
+        if (values == null || values.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(values.get(0));
+        } catch (final NumberFormatException e) {
+            throw CtpError.badRequest("InvalidInput", "Number expected, but found " + values.get(0));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.commercetools.loadtest.ctp;
+
+import com.commercetools.loadtest.LatencyDistribution;
+import io.sphere.sdk.client.ConcurrentModificationException;
+import io.sphere.sdk.client.NotFoundException;
+import io.sphere.sdk.client.SphereApiConfig;
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.client.SphereRequest;
+import io.sphere.sdk.http.HttpResponse;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+
+/**
+ * {@link SphereClient} backed by an {@link InMemoryProject} instead of the commercetools platform, so throughput and
+ * concurrent modification behaviour of the service can be measured without network.
+ * <p>
+ * Like the real client, requests complete asynchronously on a pool of I/O threads, optionally after an artificial
+ * delay drawn from a {@link LatencyDistribution}. Error responses are mapped to the SDK exceptions the service
+ * handles: 409 to {@link ConcurrentModificationException}, 404 of commands to {@link NotFoundException}.
+ */
+public class InMemorySphereClient implements SphereClient {
+
+    private final InMemoryProject project;
+    private final LatencyDistribution latency;
+    private final SphereApiConfig config;
+    private final ScheduledExecutorService ioThreads;
+
+    public InMemorySphereClient(@Nonnull final InMemoryProject project) {
+        this(project, LatencyDistribution.none());
+    }
+
+    /**
+     * @param project project which stores the resources, may be shared by several clients
+     * @param latency delay of every request, includes the processing time of the platform
+     */
+    public InMemorySphereClient(@Nonnull final InMemoryProject project, @Nonnull final LatencyDistribution latency) {
+        this.project = project;
+        this.latency = latency;
+        this.config = SphereApiConfig.of(project.getProjectKey());
+
+        final AtomicInteger counter = new AtomicInteger();
+        this.ioThreads = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            final Thread thread = new Thread(runnable,
+                    format("in-memory-ctp-%s-%d", project.getProjectKey(), counter.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public <T> CompletionStage<T> execute(final SphereRequest<T> sphereRequest) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final long delayMillis = latency.nextMillis();
+        final Runnable task = () -> complete(sphereRequest, result);
+        if (delayMillis > 0) {
+            ioThreads.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            ioThreads.execute(task);
+        }
+        return result;
+    }
+
+    private <T> void complete(@Nonnull final SphereRequest<T> sphereRequest, @Nonnull final CompletableFuture<T> result) {
+        try {
+            final HttpResponse response = project.handle(sphereRequest.httpRequestIntent());
+            if (sphereRequest.canDeserialize(response)) {
+                result.complete(sphereRequest.deserialize(response));
+            } else {
+                result.completeExceptionally(toException(response));
+            }
+        } catch (final Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static RuntimeException toException(@Nonnull final HttpResponse response) {
+        switch (response.getStatusCode()) {
+            case 409:
+                return new ConcurrentModificationException();
+            case 404:
+                return new NotFoundException();
+            default:
+                final byte[] body = response.getResponseBody();
+                return new IllegalStateException(format("In-memory project responded %d: %s",
+                        response.getStatusCode(), body != null ? new String(body, StandardCharsets.UTF_8) : ""));
+        }
+    }
+
+    @Override
+    public SphereApiConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public void close() {
+        ioThreads.shutdownNow();
+    }
+}
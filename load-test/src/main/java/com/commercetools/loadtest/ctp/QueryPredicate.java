@@ -0,0 +1,302 @@
+package com.commercetools.loadtest.ctp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import static java.lang.String.format;
+
+/**
+ * Evaluates commercetools query predicates (the {@code where} parameter) against JSON documents.
+ * <p>
+ * Supported is the subset the service and the SDK query models generate:
+ * <ul>
+ * <li>comparisons {@code field = "value"}, {@code !=}, {@code <>}, {@code >}, {@code >=}, {@code <}, {@code <=}
+ * with strings, numbers and booleans. Strings which are timestamps are compared as instants.</li>
+ * <li>{@code field in ("a", "b")}, {@code field not in (...)}, {@code field is defined},
+ * {@code field is not defined}</li>
+ * <li>nested fields {@code paymentInfo(payments(id = "..."))}. If a field is an array, the predicate matches if any
+ * element matches.</li>
+ * <li>{@code and}, {@code or}, {@code not(...)} and parentheses</li>
+ * </ul>
+ */
+final class QueryPredicate {
+
+    private static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    private final List<String> tokens;
+    private int position;
+
+    private QueryPredicate(@Nonnull final String predicate) {
+        this.tokens = tokenize(predicate);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the predicate is malformed or not supported
+     */
+    @Nonnull
+    static Predicate<JsonNode> parse(@Nonnull final String predicate) {
+        final QueryPredicate parser = new QueryPredicate(predicate);
+        final Predicate<JsonNode> result = parser.parseOr();
+        if (parser.position != parser.tokens.size()) {
+            throw new IllegalArgumentException(format("Unexpected token [%s] in predicate [%s]",
+                    parser.tokens.get(parser.position), predicate));
+        }
+        return result;
+    }
+
+    private Predicate<JsonNode> parseOr() {
+        Predicate<JsonNode> result = parseAnd();
+        while (acceptKeyword("or")) {
+            result = result.or(parseAnd());
+        }
+        return result;
+    }
+
+    private Predicate<JsonNode> parseAnd() {
+        Predicate<JsonNode> result = parseUnary();
+        while (acceptKeyword("and")) {
+            result = result.and(parseUnary());
+        }
+        return result;
+    }
+
+    private Predicate<JsonNode> parseUnary() {
+        if (acceptKeyword("not")) {
+            expect("(");
+            final Predicate<JsonNode> negated = parseOr();
+            expect(")");
+            return negated.negate();
+        }
+        if (accept("(")) {
+            final Predicate<JsonNode> nested = parseOr();
+            expect(")");
+            return nested;
+        }
+        return parseField();
+    }
+
+    private Predicate<JsonNode> parseField() {
+        final String field = next();
+        if (!isIdentifier(field)) {
+            throw new IllegalArgumentException("Field name expected, but found " + field);
+        }
+
+        if (accept("(")) {
+            final Predicate<JsonNode> nested = parseOr();
+            expect(")");
+            return document -> anyValue(document.get(field), nested);
+        }
+
+        if (acceptKeyword("is")) {
+            final boolean negated = acceptKeyword("not");
+            expectKeyword("defined");
+            return document -> isDefined(document.get(field)) != negated;
+        }
+
+        final boolean negatedIn = acceptKeyword("not");
+        if (acceptKeyword("in")) {
+            final List<String> values = new ArrayList<>();
+            expect("(");
+            do {
+                values.add(literal(next()));
+            } while (accept(","));
+            expect(")");
+            final Predicate<JsonNode> in = value -> values.stream().anyMatch(literal -> compare(value, literal) == 0);
+            return document -> anyValue(document.get(field), in) != negatedIn;
+        }
+        if (negatedIn) {
+            throw new IllegalArgumentException("'in' expected after 'not'");
+        }
+
+        final String operator = next();
+        final String literal = literal(next());
+        final Predicate<JsonNode> comparison = comparison(operator, literal);
+        return document -> anyValue(document.get(field), comparison);
+    }
+
+    private static Predicate<JsonNode> comparison(@Nonnull final String operator, @Nonnull final String literal) {
+        switch (operator) {
+            case "=":
+                return value -> compare(value, literal) == 0;
+            case "!=":
+            case "<>":
+                return value -> compare(value, literal) != 0;
+            case ">":
+                return value -> isOrdered(compare(value, literal), result -> result > 0);
+            case ">=":
+                return value -> isOrdered(compare(value, literal), result -> result >= 0);
+            case "<":
+                return value -> isOrdered(compare(value, literal), result -> result < 0);
+            case "<=":
+                return value -> isOrdered(compare(value, literal), result -> result <= 0);
+            default:
+                throw new IllegalArgumentException("Unsupported operator " + operator);
+        }
+    }
+
+    private static boolean isOrdered(final int comparison, @Nonnull final IntPredicate expected) {
+        return comparison != INCOMPARABLE && expected.test(comparison);
+    }
+
+    /**
+     * Arrays match if any of their elements matches, missing values never match.
+     */
+    private static boolean anyValue(@Nullable final JsonNode value, @Nonnull final Predicate<JsonNode> predicate) {
+        if (!isDefined(value)) {
+            return false;
+        }
+        if (value.isArray()) {
+            for (final JsonNode element : value) {
+                if (predicate.test(element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return predicate.test(value);
+    }
+
+    private static boolean isDefined(@Nullable final JsonNode value) {
+        return value != null && !value.isNull() && !value.isMissingNode();
+    }
+
+    /**
+     * @return comparison result of the JSON value and the literal, {@link #INCOMPARABLE} if they are not comparable
+     */
+    private static int compare(@Nonnull final JsonNode value, @Nonnull final String literal) {
+        if (value.isNumber()) {
+            try {
+                return Double.compare(value.asDouble(), Double.parseDouble(literal));
+            } catch (final NumberFormatException e) {
+                return INCOMPARABLE;
+            }
+        }
+        if (value.isBoolean()) {
+            return String.valueOf(value.asBoolean()).equals(literal) ? 0 : INCOMPARABLE;
+        }
+        if (!value.isTextual()) {
+            return INCOMPARABLE;
+        }
+
+        final String text = value.asText();
+        final Instant instant = parseInstant(text);
+        final Instant literalInstant = instant != null ? parseInstant(literal) : null;
+        if (instant != null && literalInstant != null) {
+            return Integer.signum(instant.compareTo(literalInstant));
+        }
+        return Integer.signum(text.compareTo(literal));
+    }
+
+    @Nullable
+    private static Instant parseInstant(@Nonnull final String text) {
+        if (text.length() < 20 || text.charAt(4) != '-' || text.charAt(10) != 'T') {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(text).toInstant();
+        } catch (final DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String literal(@Nonnull final String token) {
+        if (token.startsWith("\"")) {
+            return token.substring(1, token.length() - 1);
+        }
+        return token;
+    }
+
+    private static boolean isIdentifier(@Nonnull final String token) {
+        return !token.isEmpty() && (Character.isLetter(token.charAt(0)) || token.charAt(0) == '_');
+    }
+
+    private String next() {
+        if (position >= tokens.size()) {
+            throw new IllegalArgumentException("Unexpected end of predicate");
+        }
+        return tokens.get(position++);
+    }
+
+    private boolean accept(@Nonnull final String token) {
+        if (position < tokens.size() && tokens.get(position).equals(token)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptKeyword(@Nonnull final String keyword) {
+        if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(keyword)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(@Nonnull final String token) {
+        if (!accept(token)) {
+            throw new IllegalArgumentException(format("[%s] expected at token %d", token, position));
+        }
+    }
+
+    private void expectKeyword(@Nonnull final String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw new IllegalArgumentException(format("[%s] expected at token %d", keyword, position));
+        }
+    }
+
+    private static List<String> tokenize(@Nonnull final String predicate) {
+        final List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < predicate.length()) {
+            final char c = predicate.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                final StringBuilder string = new StringBuilder("\"");
+                i++;
+                while (i < predicate.length() && predicate.charAt(i) != '"') {
+                    if (predicate.charAt(i) == '\\' && i + 1 < predicate.length()) {
+                        i++;
+                    }
+                    string.append(predicate.charAt(i++));
+                }
+                if (i >= predicate.length()) {
+                    throw new IllegalArgumentException("Unterminated string in predicate " + predicate);
+                }
+                tokens.add(string.append('"').toString());
+                i++;
+            } else if (c == '(' || c == ')' || c == ',') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+                final int start = i++;
+                while (i < predicate.length() && "=<>".indexOf(predicate.charAt(i)) >= 0) {
+                    i++;
+                }
+                tokens.add(predicate.substring(start, i));
+            } else {
+                final int start = i;
+                while (i < predicate.length() && (Character.isLetterOrDigit(predicate.charAt(i))
+                        || "_.-+:".indexOf(predicate.charAt(i)) >= 0)) {
+                    i++;
+                }
+                if (start == i) {
+                    throw new IllegalArgumentException(format("Unexpected character [%s] in predicate %s", c,
+                            predicate));
+                }
+                tokens.add(predicate.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,203 @@
+package com.commercetools.loadtest.ctp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.commercetools.loadtest.ctp.InMemoryProject.CARTS;
+import static com.commercetools.loadtest.ctp.InMemoryProject.ORDERS;
+import static com.commercetools.loadtest.ctp.InMemoryProject.PAYMENTS;
+import static java.lang.String.format;
+
+/**
+ * Applies update actions to a copy of a resource document of the {@link InMemoryProject}.
+ * <p>
+ * Supported actions:
+ * <ul>
+ * <li>payments: {@code addTransaction}, {@code changeTransactionState}, {@code changeTransactionInteractionId},
+ * {@code changeTransactionTimestamp}, {@code setInterfaceId}, {@code setStatusInterfaceCode},
+ * {@code setStatusInterfaceText}, {@code addInterfaceInteraction}, {@code setKey}</li>
+ * <li>orders: {@code changePaymentState}, {@code changeOrderState}, {@code addPayment}</li>
+ * <li>carts: {@code addPayment}</li>
+ * <li>all of them: {@code setCustomType}, {@code setCustomField}</li>
+ * </ul>
+ */
+final class UpdateActions {
+
+    private static final String INITIAL_STATE = "Initial";
+
+    private final InMemoryProject project;
+    private final String resource;
+    private final ObjectNode document;
+    private final List<ObjectNode> messages = new ArrayList<>();
+
+    UpdateActions(@Nonnull final InMemoryProject project, @Nonnull final String resource,
+                  @Nonnull final ObjectNode document) {
+        this.project = project;
+        this.resource = resource;
+        this.document = document;
+    }
+
+    /**
+     * Completes a payment created from a draft the way the platform does.
+     */
+    static void preparePayment(@Nonnull final InMemoryProject project, @Nonnull final ObjectNode payment) {
+        final ArrayNode transactions = payment.withArray("transactions");
+        for (final JsonNode transaction : transactions) {
+            prepareTransaction((ObjectNode) transaction);
+        }
+        final ArrayNode interactions = payment.withArray("interfaceInteractions");
+        for (final JsonNode interaction : interactions) {
+            ((ObjectNode) interaction).set("type", project.typeReference(interaction.get("type")));
+        }
+        if (!payment.has("paymentStatus")) {
+            payment.putObject("paymentStatus");
+        }
+        if (payment.hasNonNull("customer") && !payment.get("customer").has("typeId")) {
+            ((ObjectNode) payment.get("customer")).put("typeId", "customer");
+        }
+        project.resolveCustomType(payment);
+    }
+
+    void apply(@Nonnull final JsonNode action) {
+        final String name = action.path("action").asText();
+        switch (name) {
+            case "setCustomType":
+                setCustomType(action);
+                return;
+            case "setCustomField":
+                setCustomField(action);
+                return;
+            default:
+        }
+
+        if (PAYMENTS.equals(resource)) {
+            applyPaymentAction(name, action);
+        } else if (ORDERS.equals(resource) && "changePaymentState".equals(name)) {
+            document.set("paymentState", action.get("paymentState"));
+        } else if (ORDERS.equals(resource) && "changeOrderState".equals(name)) {
+            document.set("orderState", action.get("orderState"));
+        } else if ((ORDERS.equals(resource) || CARTS.equals(resource)) && "addPayment".equals(name)) {
+            final ObjectNode paymentInfo = document.has("paymentInfo")
+                    ? (ObjectNode) document.get("paymentInfo")
+                    : document.putObject("paymentInfo");
+            final ObjectNode reference = paymentInfo.withArray("payments").addObject();
+            reference.put("typeId", "payment");
+            reference.put("id", action.path("payment").path("id").asText());
+        } else {
+            throw unsupported(name);
+        }
+    }
+
+    private void applyPaymentAction(@Nonnull final String name, @Nonnull final JsonNode action) {
+        switch (name) {
+            case "addTransaction":
+                final ObjectNode transaction = ((ObjectNode) action.get("transaction")).deepCopy();
+                prepareTransaction(transaction);
+                document.withArray("transactions").add(transaction);
+                messages.add(project.message(document, "PaymentTransactionAdded", "transaction", transaction));
+                break;
+            case "changeTransactionState":
+                transaction(action).set("state", action.get("state"));
+                final ObjectNode stateChanged = project.message(document, "PaymentTransactionStateChanged",
+                        "transactionId", action.get("transactionId"));
+                stateChanged.set("state", action.get("state"));
+                messages.add(stateChanged);
+                break;
+            case "changeTransactionInteractionId":
+                transaction(action).set("interactionId", action.get("interactionId"));
+                break;
+            case "changeTransactionTimestamp":
+                transaction(action).set("timestamp", action.get("timestamp"));
+                break;
+            case "setInterfaceId":
+                document.set("interfaceId", action.get("interfaceId"));
+                break;
+            case "setKey":
+                document.set("key", action.get("key"));
+                break;
+            case "setStatusInterfaceCode":
+                paymentStatus().set("interfaceCode", action.get("interfaceCode"));
+                break;
+            case "setStatusInterfaceText":
+                paymentStatus().set("interfaceText", action.get("interfaceText"));
+                break;
+            case "addInterfaceInteraction":
+                final ObjectNode interaction = document.withArray("interfaceInteractions").addObject();
+                interaction.set("type", project.typeReference(action.get("type")));
+                interaction.set("fields", action.has("fields")
+                        ? action.get("fields").deepCopy()
+                        : JsonNodeFactory.instance.objectNode());
+                break;
+            default:
+                throw unsupported(name);
+        }
+    }
+
+    private void setCustomType(@Nonnull final JsonNode action) {
+        if (!action.hasNonNull("type")) {
+            document.remove("custom");
+            return;
+        }
+        final ObjectNode custom = document.putObject("custom");
+        custom.set("type", project.typeReference(action.get("type")));
+        custom.set("fields", action.has("fields")
+                ? action.get("fields").deepCopy()
+                : JsonNodeFactory.instance.objectNode());
+    }
+
+    private void setCustomField(@Nonnull final JsonNode action) {
+        final JsonNode custom = document.get("custom");
+        if (!(custom instanceof ObjectNode)) {
+            throw CtpError.badRequest("InvalidOperation",
+                    format("The %s has no custom type, thus custom field [%s] can't be set", resource,
+                            action.path("name").asText()));
+        }
+        final ObjectNode fields = ((ObjectNode) custom).with("fields");
+        final String fieldName = action.path("name").asText();
+        if (action.hasNonNull("value")) {
+            fields.set(fieldName, action.get("value"));
+        } else {
+            fields.remove(fieldName);
+        }
+    }
+
+    private ObjectNode transaction(@Nonnull final JsonNode action) {
+        final String transactionId = action.path("transactionId").asText();
+        for (final JsonNode transaction : document.withArray("transactions")) {
+            if (transactionId.equals(transaction.path("id").asText())) {
+                return (ObjectNode) transaction;
+            }
+        }
+        throw CtpError.badRequest("InvalidOperation",
+                format("The payment has no transaction with id [%s]", transactionId));
+    }
+
+    private ObjectNode paymentStatus() {
+        return document.has("paymentStatus")
+                ? (ObjectNode) document.get("paymentStatus")
+                : document.putObject("paymentStatus");
+    }
+
+    private static void prepareTransaction(@Nonnull final ObjectNode transaction) {
+        transaction.put("id", UUID.randomUUID().toString());
+        if (!transaction.hasNonNull("state")) {
+            transaction.put("state", INITIAL_STATE);
+        }
+    }
+
+    private CtpError unsupported(@Nonnull final String action) {
+        return CtpError.badRequest("InvalidOperation",
+                format("Update action [%s] on %s is not supported by the in-memory project", action, resource));
+    }
+
+    List<ObjectNode> getMessages() {
+        return messages;
+    }
+}
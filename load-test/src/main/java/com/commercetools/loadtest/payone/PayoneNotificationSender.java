@@ -0,0 +1,142 @@
+package com.commercetools.loadtest.payone;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.TransactionStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Sends Payone transaction status notifications to the service, like Payone does after a transaction changed.
+ * <p>
+ * The body is the {@code key=value&...} form the service parses with
+ * {@link com.commercetools.pspadapter.payone.domain.payone.model.common.Notification#fromKeyValueString}. The values
+ * are not URL encoded, since the service doesn't decode them either.
+ */
+class PayoneNotificationSender {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PayoneNotificationSender.class);
+
+    private static final String TSOK = "TSOK";
+
+    private final ScheduledExecutorService scheduler;
+    private final CloseableHttpClient httpClient;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile PayoneStubServer.NotificationListener listener = (clearingType, txaction, nanos, accepted) -> {
+    };
+
+    PayoneNotificationSender(final int threads) {
+        final AtomicInteger counter = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "payone-stub-notification-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClients.custom()
+                .setMaxConnTotal(threads * 2)
+                .setMaxConnPerRoute(threads * 2)
+                .build();
+    }
+
+    void schedule(@Nonnull final String url, @Nonnull final StubTransaction transaction,
+                  @Nonnull final NotificationAction txaction, final long delayMillis) {
+        scheduler.schedule(() -> send(url, transaction, txaction), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void send(@Nonnull final String url, @Nonnull final StubTransaction transaction,
+                      @Nonnull final NotificationAction txaction) {
+        final HttpPost post = new HttpPost(url);
+        post.setEntity(new StringEntity(toNotificationBody(transaction, txaction, transaction.nextSequenceNumber()),
+                ContentType.APPLICATION_FORM_URLENCODED));
+        final long start = System.nanoTime();
+        boolean accepted = false;
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            final String body = response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : "";
+            accepted = response.getStatusLine().getStatusCode() == 200 && TSOK.equals(body);
+            if (!accepted) {
+                LOG.debug("Notification [{}] of txid [{}] rejected with status {}: {}", txaction, transaction.txid,
+                        response.getStatusLine().getStatusCode(), body);
+            }
+        } catch (final Exception e) {
+            LOG.debug("Notification [{}] of txid [{}] failed", txaction, transaction.txid, e);
+        }
+
+        if (accepted) {
+            sent.increment();
+        } else {
+            failed.increment();
+        }
+        listener.onNotification(transaction.clearingType, txaction, System.nanoTime() - start, accepted);
+    }
+
+    static String toNotificationBody(@Nonnull final StubTransaction transaction,
+                                     @Nonnull final NotificationAction txaction,
+                                     final int sequenceNumber) {
+        final String price = BigDecimal.valueOf(transaction.amount, 2).toPlainString();
+        final boolean settled = txaction == NotificationAction.PAID || txaction == NotificationAction.CAPTURE;
+
+        final Map<String, String> values = new LinkedHashMap<>();
+        values.put("key", transaction.key);
+        values.put("txaction", txaction.getTxActionCode());
+        values.put("transaction_status", TransactionStatus.COMPLETED.getPayoneCode());
+        values.put("mode", transaction.mode);
+        values.put("portalid", transaction.portalid);
+        values.put("aid", transaction.aid);
+        values.put("clearingtype", transaction.clearingType.getPayoneCode());
+        values.put("txtime", String.valueOf(System.currentTimeMillis() / 1000));
+        values.put("currency", transaction.currency);
+        values.put("userid", transaction.userid);
+        values.put("txid", transaction.txid);
+        values.put("reference", transaction.reference);
+        values.put("sequencenumber", String.valueOf(sequenceNumber));
+        values.put("price", price);
+        values.put("receivable", settled ? price : "0.00");
+        values.put("balance", txaction == NotificationAction.PAID ? "0.00" : price);
+
+        return values.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(joining("&"));
+    }
+
+    void setListener(@Nonnull final PayoneStubServer.NotificationListener listener) {
+        this.listener = listener;
+    }
+
+    long getSent() {
+        return sent.sum();
+    }
+
+    long getFailed() {
+        return failed.sum();
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        try {
+            httpClient.close();
+        } catch (final Exception e) {
+            LOG.debug("Failed to close notification HTTP client", e);
+        }
+    }
+}
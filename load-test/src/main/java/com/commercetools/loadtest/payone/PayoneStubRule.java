@@ -0,0 +1,176 @@
+package com.commercetools.loadtest.payone;
+
+import com.commercetools.loadtest.LatencyDistribution;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ClearingType;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.RequestType;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ResponseStatus;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes how the {@link PayoneStubServer} answers matching requests. Rules are configured before the server is
+ * started, for example:
+ * <pre>{@code
+ * PayoneStubRule.when(RequestType.PREAUTHORIZATION)
+ *     .clearingType(ClearingType.PAYONE_PPE)
+ *     .respond(ResponseStatus.REDIRECT)
+ *     .latency(LatencyDistribution.logNormal(150, 900))
+ *     .serverErrorRate(0.01)
+ *     .notify(NotificationAction.APPOINTED, 500);
+ * }</pre>
+ */
+public class PayoneStubRule {
+
+    public static final String DEFAULT_ERROR_CODE = "1";
+    public static final String DEFAULT_ERROR_MESSAGE = "Stubbed error";
+
+    private final RequestType requestType;
+    private ClearingType clearingType;
+
+    private ResponseStatus status = ResponseStatus.APPROVED;
+    private String errorCode = DEFAULT_ERROR_CODE;
+    private String errorMessage = DEFAULT_ERROR_MESSAGE;
+
+    private LatencyDistribution latency = LatencyDistribution.none();
+    private double serverErrorRate;
+    private double timeoutRate;
+    private long timeoutMillis = 30_000;
+
+    private final List<ScheduledNotification> notifications = new ArrayList<>();
+
+    private PayoneStubRule(@Nullable final RequestType requestType) {
+        this.requestType = requestType;
+    }
+
+    /**
+     * @param requestType Payone {@code request} to match
+     */
+    @Nonnull
+    public static PayoneStubRule when(@Nonnull final RequestType requestType) {
+        return new PayoneStubRule(requestType);
+    }
+
+    /**
+     * @return rule which matches all the requests
+     */
+    @Nonnull
+    public static PayoneStubRule any() {
+        return new PayoneStubRule(null);
+    }
+
+    /**
+     * Restricts the rule to one clearing type. For captures it is the clearing type of the captured transaction.
+     */
+    @Nonnull
+    public PayoneStubRule clearingType(@Nonnull final ClearingType clearingType) {
+        this.clearingType = clearingType;
+        return this;
+    }
+
+    @Nonnull
+    public PayoneStubRule respond(@Nonnull final ResponseStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Responds {@link ResponseStatus#ERROR} with the given error.
+     */
+    @Nonnull
+    public PayoneStubRule respondError(@Nonnull final String errorCode, @Nonnull final String errorMessage) {
+        this.status = ResponseStatus.ERROR;
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+        return this;
+    }
+
+    @Nonnull
+    public PayoneStubRule latency(@Nonnull final LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * @param serverErrorRate share of the requests answered with HTTP 503 instead of a Payone response
+     */
+    @Nonnull
+    public PayoneStubRule serverErrorRate(final double serverErrorRate) {
+        this.serverErrorRate = serverErrorRate;
+        return this;
+    }
+
+    /**
+     * @param timeoutRate   share of the requests which are held for {@code timeoutMillis} and then answered with
+     *                      HTTP 503
+     * @param timeoutMillis how long to hold the timed out requests, should exceed the socket timeout of the client
+     *                      (10 seconds in the service)
+     */
+    @Nonnull
+    public PayoneStubRule timeouts(final double timeoutRate, final long timeoutMillis) {
+        this.timeoutRate = timeoutRate;
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+
+    /**
+     * Sends a transaction status notification {@code delayMillis} after a successful (not {@link ResponseStatus#ERROR})
+     * response. Several notifications are sent in the order they are added.
+     */
+    @Nonnull
+    public PayoneStubRule notify(@Nonnull final NotificationAction txaction, final long delayMillis) {
+        this.notifications.add(new ScheduledNotification(txaction, delayMillis));
+        return this;
+    }
+
+    boolean matches(@Nonnull final RequestType requestType, @Nullable final ClearingType clearingType) {
+        return (this.requestType == null || this.requestType == requestType)
+                && (this.clearingType == null || this.clearingType == clearingType);
+    }
+
+    ResponseStatus getStatus() {
+        return status;
+    }
+
+    String getErrorCode() {
+        return errorCode;
+    }
+
+    String getErrorMessage() {
+        return errorMessage;
+    }
+
+    LatencyDistribution getLatency() {
+        return latency;
+    }
+
+    double getServerErrorRate() {
+        return serverErrorRate;
+    }
+
+    double getTimeoutRate() {
+        return timeoutRate;
+    }
+
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    List<ScheduledNotification> getNotifications() {
+        return Collections.unmodifiableList(notifications);
+    }
+
+    static final class ScheduledNotification {
+        final NotificationAction txaction;
+        final long delayMillis;
+
+        ScheduledNotification(@Nonnull final NotificationAction txaction, final long delayMillis) {
+            this.txaction = txaction;
+            this.delayMillis = delayMillis;
+        }
+    }
+}
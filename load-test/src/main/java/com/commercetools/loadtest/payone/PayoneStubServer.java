@@ -0,0 +1,396 @@
+package com.commercetools.loadtest.payone;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ClearingType;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.RequestType;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ResponseStatus;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.ACCOUNT_HOLDER;
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.BIC;
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.CUSTOMER_MESSAGE;
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.ERROR_CODE;
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.ERROR_MESSAGE;
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.IBAN;
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.REDIRECT_URL;
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.STATUS;
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.TXID;
+import static java.lang.String.format;
+
+/**
+ * Embedded stand-in for the Payone server API ({@code POST https://api.pay1.de/post-gateway/}), which allows to load
+ * and latency test the service without network and without a Payone test account.
+ * <p>
+ * The stub speaks the same {@code key=value} protocol as Payone for <i>preauthorization</i>, <i>authorization</i>
+ * and <i>capture</i> requests of all {@link ClearingType}s. How a request is answered is decided by the first
+ * matching {@link PayoneStubRule}: response status, latency, injected HTTP 5xx and timeouts, and the transaction
+ * status notifications which are sent back to the service afterwards. Requests without matching rule are approved
+ * immediately.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * PayoneStubServer payone = new PayoneStubServer(0)
+ *     .rule(PayoneStubRule.when(RequestType.PREAUTHORIZATION).clearingType(ClearingType.PAYONE_PPE)
+ *             .respond(ResponseStatus.REDIRECT).notify(NotificationAction.APPOINTED, 200))
+ *     .notificationUrl(portalId, subAccountId, "http://localhost:8080/TENANT/payone/notification");
+ * payone.start();
+ * // use payone.getApiUrl() as PAYONE_API_URL of the service
+ * }</pre>
+ */
+public class PayoneStubServer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PayoneStubServer.class);
+
+    public static final int DEFAULT_MAX_THREADS = 200;
+
+    private static final PayoneStubRule DEFAULT_RULE = PayoneStubRule.any();
+
+    private static final String REDIRECT_PATH = "/redirect/";
+
+    private final Server server;
+    private final ServerConnector connector;
+
+    private final List<PayoneStubRule> rules = new CopyOnWriteArrayList<>();
+    private final Map<String, String> notificationUrls = new ConcurrentHashMap<>();
+    private final Map<String, StubTransaction> transactions = new ConcurrentHashMap<>();
+    private final PayoneNotificationSender notificationSender;
+
+    private final AtomicLong txidSequence = new AtomicLong(100_000_000L);
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * @param port port to listen on, 0 to pick a free one
+     */
+    public PayoneStubServer(final int port) {
+        this(port, DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * @param port       port to listen on, 0 to pick a free one
+     * @param maxThreads size of the request thread pool. Requests with latency occupy a thread while they wait.
+     */
+    public PayoneStubServer(final int port, final int maxThreads) {
+        this.server = new Server(new QueuedThreadPool(maxThreads, Math.min(8, maxThreads)));
+        this.connector = new ServerConnector(server);
+        this.connector.setPort(port);
+        this.server.addConnector(connector);
+        this.server.setHandler(new StubHandler());
+        this.notificationSender = new PayoneNotificationSender(Math.max(2, maxThreads / 10));
+    }
+
+    /**
+     * Appends a rule. Rules are evaluated in the order they were added, the first matching one wins.
+     */
+    @Nonnull
+    public PayoneStubServer rule(@Nonnull final PayoneStubRule rule) {
+        rules.add(rule);
+        return this;
+    }
+
+    /**
+     * Sets the URL which receives the notifications of the given portal and sub-account, usually
+     * {@code http://localhost:{port}/{TENANT}/payone/notification}.
+     */
+    @Nonnull
+    public PayoneStubServer notificationUrl(@Nonnull final String portalId, @Nonnull final String subAccountId,
+                                            @Nonnull final String url) {
+        notificationUrls.put(accountKey(portalId, subAccountId), url);
+        return this;
+    }
+
+    /**
+     * Sets the listener which is informed about the outcome of every notification sent to the service.
+     */
+    @Nonnull
+    public PayoneStubServer notificationListener(@Nonnull final NotificationListener listener) {
+        notificationSender.setListener(listener);
+        return this;
+    }
+
+    public void start() throws Exception {
+        server.start();
+        LOG.info("Payone stub started on {}", getApiUrl());
+    }
+
+    public void stop() throws Exception {
+        notificationSender.shutdown();
+        server.stop();
+    }
+
+    /**
+     * @return URL to use as {@code PAYONE_API_URL} of the service
+     */
+    @Nonnull
+    public String getApiUrl() {
+        return format("http://localhost:%d/post-gateway/", connector.getLocalPort());
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getServerErrorCount() {
+        return serverErrors.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public long getNotificationsSent() {
+        return notificationSender.getSent();
+    }
+
+    public long getNotificationsFailed() {
+        return notificationSender.getFailed();
+    }
+
+    /**
+     * Receives the outcome of the notifications sent to the service, e.g. to measure the notification URL latency.
+     * Called on the notification sender threads.
+     */
+    @FunctionalInterface
+    public interface NotificationListener {
+
+        /**
+         * @param clearingType  clearing type of the notified transaction
+         * @param txaction      sent transaction status
+         * @param durationNanos time until the service responded or the request failed
+         * @param accepted      <b>true</b> if the service responded {@code TSOK}
+         */
+        void onNotification(@Nonnull ClearingType clearingType, @Nonnull NotificationAction txaction,
+                            long durationNanos, boolean accepted);
+    }
+
+    private class StubHandler extends AbstractHandler {
+
+        @Override
+        public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+                           final HttpServletResponse response) throws IOException {
+            baseRequest.setHandled(true);
+            if (!"POST".equals(request.getMethod())) {
+                // landing page of the redirect URLs
+                writeBody(response, HttpStatus.OK_200, "text/html", "<html><body>Payone stub</body></html>");
+                return;
+            }
+
+            requests.increment();
+            final Map<String, String> parameters = new LinkedHashMap<>();
+            request.getParameterMap().forEach((name, values) -> parameters.put(name, values[0]));
+
+            final Map<String, String> result = process(parameters);
+            if (result == null) {
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE_503);
+                return;
+            }
+            writeBody(response, HttpStatus.OK_200, "text/plain", toResponseBody(result));
+        }
+    }
+
+    /**
+     * @return Payone response fields, or <b>null</b> if the request fails with HTTP 503 (also after a timeout)
+     */
+    @Nullable
+    Map<String, String> process(@Nonnull final Map<String, String> parameters) {
+        final RequestType requestType = RequestType.getRequestTypeOf(parameters.get("request"));
+        if (requestType != RequestType.PREAUTHORIZATION && requestType != RequestType.AUTHORIZATION
+                && requestType != RequestType.CAPTURE) {
+            return errorResponse("3", format("Request [%s] is not supported by the stub", parameters.get("request")));
+        }
+
+        final StubTransaction capturedTransaction =
+                requestType == RequestType.CAPTURE ? transactions.get(parameters.get(TXID)) : null;
+        if (requestType == RequestType.CAPTURE && capturedTransaction == null) {
+            return errorResponse("911", "Reference not found");
+        }
+        final ClearingType clearingType = capturedTransaction != null
+                ? capturedTransaction.clearingType
+                : clearingTypeOf(parameters);
+
+        final PayoneStubRule rule = rules.stream()
+                .filter(candidate -> candidate.matches(requestType, clearingType))
+                .findFirst()
+                .orElse(DEFAULT_RULE);
+
+        final double random = ThreadLocalRandom.current().nextDouble();
+        if (random < rule.getTimeoutRate()) {
+            timeouts.increment();
+            sleep(rule.getTimeoutMillis());
+            return null;
+        }
+        if (random < rule.getTimeoutRate() + rule.getServerErrorRate()) {
+            serverErrors.increment();
+            return null;
+        }
+        sleep(rule.getLatency().nextMillis());
+
+        if (rule.getStatus() == ResponseStatus.ERROR) {
+            return errorResponse(rule.getErrorCode(), rule.getErrorMessage());
+        }
+        if (clearingType == null) {
+            return errorResponse("2", format("Clearing type [%s] is not supported by the stub",
+                    parameters.get("clearingtype")));
+        }
+
+        final StubTransaction transaction = capturedTransaction != null
+                ? capturedTransaction
+                : createTransaction(parameters, clearingType);
+
+        final Map<String, String> result = new LinkedHashMap<>();
+        result.put(STATUS, rule.getStatus().getStateCode());
+        result.put(TXID, transaction.txid);
+        if (capturedTransaction == null) {
+            result.put("userid", transaction.userid);
+            if (rule.getStatus() == ResponseStatus.REDIRECT) {
+                result.put(REDIRECT_URL, format("http://localhost:%d%s%s", connector.getLocalPort(), REDIRECT_PATH,
+                        transaction.txid));
+            }
+            if (clearingType == ClearingType.PAYONE_VOR) {
+                result.put(BIC, "TESTDEBIC00");
+                result.put(IBAN, "DE00123456780000000000");
+                result.put(ACCOUNT_HOLDER, "Payone Stub");
+            }
+        } else {
+            result.put("settleaccount", "yes");
+        }
+
+        scheduleNotifications(rule, transaction);
+        return result;
+    }
+
+    private StubTransaction createTransaction(@Nonnull final Map<String, String> parameters,
+                                              @Nonnull final ClearingType clearingType) {
+        final long txid = txidSequence.incrementAndGet();
+        final StubTransaction transaction = new StubTransaction(
+                String.valueOf(txid),
+                String.valueOf(txid + 50_000_000L),
+                StringUtils.defaultString(parameters.get("key")),
+                StringUtils.defaultString(parameters.get("mode")),
+                StringUtils.defaultString(parameters.get("portalid")),
+                StringUtils.defaultString(parameters.get("aid")),
+                clearingType,
+                StringUtils.defaultString(parameters.get("reference")),
+                StringUtils.defaultString(parameters.get("currency")),
+                parseAmount(parameters.get("amount")));
+        transactions.put(transaction.txid, transaction);
+        return transaction;
+    }
+
+    private void scheduleNotifications(@Nonnull final PayoneStubRule rule, @Nonnull final StubTransaction transaction) {
+        if (rule.getNotifications().isEmpty()) {
+            return;
+        }
+        final String url = notificationUrls.get(accountKey(transaction.portalid, transaction.aid));
+        if (url == null) {
+            LOG.warn("No notification URL for portal [{}] and sub-account [{}]", transaction.portalid,
+                    transaction.aid);
+            return;
+        }
+        rule.getNotifications().forEach(notification ->
+                notificationSender.schedule(url, transaction, notification.txaction, notification.delayMillis));
+    }
+
+    /**
+     * Resolves the clearing type from {@code clearingtype} and the sub type parameter of the request, e.g.
+     * {@code wlt} + {@code wallettype=PPE} is {@link ClearingType#PAYONE_PPE}.
+     */
+    @Nullable
+    static ClearingType clearingTypeOf(@Nonnull final Map<String, String> parameters) {
+        final String code = parameters.get("clearingtype");
+        final String subType = Stream.of("wallettype", "onlinebanktransfertype", "financingtype")
+                .map(parameters::get)
+                .filter(StringUtils::isNotBlank)
+                .findFirst()
+                .orElse("");
+        for (final ClearingType clearingType : ClearingType.values()) {
+            if (clearingType.getPayoneCode().equals(code)
+                    && (clearingType.getSubType().isEmpty() || clearingType.getSubType().equals(subType))) {
+                return clearingType;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> errorResponse(@Nonnull final String errorCode,
+                                                     @Nonnull final String errorMessage) {
+        final Map<String, String> result = new LinkedHashMap<>();
+        result.put(STATUS, ResponseStatus.ERROR.getStateCode());
+        result.put(ERROR_CODE, errorCode);
+        result.put(ERROR_MESSAGE, errorMessage);
+        result.put(CUSTOMER_MESSAGE, errorMessage);
+        return result;
+    }
+
+    /**
+     * Renders the response fields one per line. Like Payone the values are URL encoded, except the redirect URL.
+     */
+    static String toResponseBody(@Nonnull final Map<String, String> result) throws UnsupportedEncodingException {
+        final StringBuilder body = new StringBuilder(256);
+        for (final Map.Entry<String, String> field : result.entrySet()) {
+            body.append(field.getKey()).append('=')
+                    .append(REDIRECT_URL.equals(field.getKey())
+                            ? field.getValue()
+                            : URLEncoder.encode(field.getValue(), "UTF-8"))
+                    .append('\n');
+        }
+        return body.toString();
+    }
+
+    private static void writeBody(@Nonnull final HttpServletResponse response, final int status,
+                                  @Nonnull final String contentType, @Nonnull final String body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(contentType + "; charset=UTF-8");
+        response.getWriter().write(body);
+    }
+
+    private static int parseAmount(@Nullable final String amount) {
+        try {
+            return amount != null ? Integer.parseInt(amount) : 0;
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String accountKey(@Nonnull final String portalId, @Nonnull final String subAccountId) {
+        return portalId + ":" + subAccountId;
+    }
+
+    private static void sleep(final long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.commercetools.loadtest.payone;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ClearingType;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Payone transaction created by a stubbed (pre)authorization. Captures and notifications refer to it by txid.
+ */
+final class StubTransaction {
+
+    final String txid;
+    final String userid;
+    final String key;
+    final String mode;
+    final String portalid;
+    final String aid;
+    final ClearingType clearingType;
+    final String reference;
+    final String currency;
+    final int amount;
+
+    private final AtomicInteger sequenceNumber = new AtomicInteger();
+
+    StubTransaction(@Nonnull final String txid, @Nonnull final String userid, @Nonnull final String key,
+                    @Nonnull final String mode, @Nonnull final String portalid, @Nonnull final String aid,
+                    @Nonnull final ClearingType clearingType, @Nonnull final String reference,
+                    @Nonnull final String currency, final int amount) {
+        this.txid = txid;
+        this.userid = userid;
+        this.key = key;
+        this.mode = mode;
+        this.portalid = portalid;
+        this.aid = aid;
+        this.clearingType = clearingType;
+        this.reference = reference;
+        this.currency = currency;
+        this.amount = amount;
+    }
+
+    /**
+     * @return sequence number of the next notification of this transaction, the first one is 0
+     */
+    int nextSequenceNumber() {
+        return sequenceNumber.getAndIncrement();
+    }
+}
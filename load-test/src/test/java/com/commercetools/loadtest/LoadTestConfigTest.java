@@ -0,0 +1,56 @@
+package com.commercetools.loadtest;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LoadTestConfigTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty(LoadTestConfig.TENANTS);
+        System.clearProperty(LoadTestConfig.RATE);
+        System.clearProperty(LoadTestConfig.SCENARIOS);
+    }
+
+    @Test
+    public void fromSystemProperties_overridesOnlyGivenSettings() {
+        System.setProperty(LoadTestConfig.TENANTS, "BOOTS, BIKES");
+        System.setProperty(LoadTestConfig.RATE, "12.5");
+
+        final LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        assertThat(config.getTenants()).containsExactly("BOOTS", "BIKES");
+        assertThat(config.getRate()).isEqualTo(12.5);
+        assertThat(config.getDurationSeconds()).isEqualTo(60);
+        assertThat(config.getScenarioWeights()).containsOnlyKeys(LoadScenario.values());
+    }
+
+    @Test
+    public void parseScenarioWeights_defaultsToWeightOne() {
+        final Map<LoadScenario, Integer> weights = LoadTestConfig.parseScenarioWeights("CREDIT_CARD:3, KLARNA");
+
+        assertThat(weights).hasSize(2)
+                .containsEntry(LoadScenario.CREDIT_CARD, 3)
+                .containsEntry(LoadScenario.KLARNA, 1);
+    }
+
+    @Test
+    public void parseLatency_withSingleValue_isFixed() {
+        assertThat(LoadTestConfig.parseLatency("25").nextMillis()).isEqualTo(25);
+        assertThat(LoadTestConfig.parseLatency("10:100").nextMillis()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void fromSystemProperties_withInvalidValue_namesTheProperty() {
+        System.setProperty(LoadTestConfig.SCENARIOS, "CASH:1");
+
+        assertThatThrownBy(LoadTestConfig::fromSystemProperties)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(LoadTestConfig.SCENARIOS);
+    }
+}
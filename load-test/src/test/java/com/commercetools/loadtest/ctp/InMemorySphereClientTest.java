@@ -0,0 +1,111 @@
+package com.commercetools.loadtest.ctp;
+
+import com.commercetools.service.PaymentServiceImpl;
+import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.client.ConcurrentModificationException;
+import io.sphere.sdk.messages.queries.MessageQuery;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.PaymentDraftBuilder;
+import io.sphere.sdk.payments.PaymentMethodInfoBuilder;
+import io.sphere.sdk.payments.TransactionDraftBuilder;
+import io.sphere.sdk.payments.TransactionState;
+import io.sphere.sdk.payments.TransactionType;
+import io.sphere.sdk.payments.commands.PaymentCreateCommand;
+import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
+import io.sphere.sdk.payments.commands.updateactions.AddTransaction;
+import io.sphere.sdk.payments.commands.updateactions.SetInterfaceId;
+import io.sphere.sdk.payments.messages.PaymentTransactionAddedMessage;
+import io.sphere.sdk.payments.queries.PaymentByIdGet;
+import io.sphere.sdk.queries.PagedQueryResult;
+import io.sphere.sdk.utils.MoneyImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InMemorySphereClientTest {
+
+    private InMemoryProject project;
+    private BlockingSphereClient client;
+
+    @Before
+    public void setUp() {
+        project = new InMemoryProject("test-project");
+        client = BlockingSphereClient.of(new InMemorySphereClient(project), 10, TimeUnit.SECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+    }
+
+    @Test
+    public void createPayment_isFoundByServiceQuery() throws Exception {
+        final Payment created = createPayment("txid-1");
+
+        final Optional<Payment> found = new PaymentServiceImpl(client)
+                .getByPaymentMethodAndInterfaceId("PAYONE", "txid-1")
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        assertThat(created.getVersion()).isEqualTo(1L);
+        assertThat(found).hasValueSatisfying(payment -> assertThat(payment.getId()).isEqualTo(created.getId()));
+    }
+
+    @Test
+    public void getById_withUnknownId_returnsNull() {
+        assertThat(client.executeBlocking(PaymentByIdGet.of("unknown"))).isNull();
+    }
+
+    @Test
+    public void update_withStaleVersion_throwsConcurrentModificationException() {
+        final Payment created = createPayment("txid-2");
+        final Payment updated = client.executeBlocking(PaymentUpdateCommand.of(created,
+                AddTransaction.of(TransactionDraftBuilder.of(TransactionType.AUTHORIZATION,
+                        MoneyImpl.of(10, "EUR")).build())));
+
+        assertThat(updated.getVersion()).isEqualTo(2L);
+        assertThat(updated.getTransactions()).hasSize(1);
+        assertThat(updated.getTransactions().get(0).getState()).isEqualTo(TransactionState.INITIAL);
+
+        assertThatThrownBy(() -> client.executeBlocking(PaymentUpdateCommand.of(created, SetInterfaceId.of("other"))))
+                .isInstanceOf(ConcurrentModificationException.class);
+        assertThat(project.getConcurrentModificationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void addTransaction_createsMessageWithExpandedPayment() {
+        final ZonedDateTime before = ZonedDateTime.now().minusSeconds(1);
+        final Payment created = createPayment("txid-3");
+        client.executeBlocking(PaymentUpdateCommand.of(created,
+                AddTransaction.of(TransactionDraftBuilder.of(TransactionType.CHARGE, MoneyImpl.of(10, "EUR"))
+                        .build())));
+
+        final PagedQueryResult<PaymentTransactionAddedMessage> messages = client.executeBlocking(MessageQuery.of()
+                .withPredicates(m -> m.createdAt().isGreaterThanOrEqualTo(before))
+                .withSort(m -> m.createdAt().sort().asc())
+                .withExpansionPaths(m -> m.resource())
+                .forMessageType(PaymentTransactionAddedMessage.MESSAGE_HINT));
+
+        assertThat(messages.getTotal()).isEqualTo(1);
+        final PaymentTransactionAddedMessage message = messages.getResults().get(0);
+        assertThat(message.getTransaction().getType()).isEqualTo(TransactionType.CHARGE);
+        assertThat(message.getResourceVersion()).isEqualTo(2L);
+        assertThat(message.getResource().getObj()).isNotNull();
+    }
+
+    private Payment createPayment(final String interfaceId) {
+        return client.executeBlocking(PaymentCreateCommand.of(PaymentDraftBuilder.of(MoneyImpl.of(10, "EUR"))
+                .interfaceId(interfaceId)
+                .paymentMethodInfo(PaymentMethodInfoBuilder.of()
+                        .paymentInterface("PAYONE")
+                        .method("CREDIT_CARD")
+                        .build())
+                .build()));
+    }
+}
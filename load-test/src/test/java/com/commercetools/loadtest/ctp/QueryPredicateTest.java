@@ -0,0 +1,49 @@
+package com.commercetools.loadtest.ctp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.sphere.sdk.json.SphereJsonUtils;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class QueryPredicateTest {
+
+    private static final JsonNode ORDER = SphereJsonUtils.parse("{"
+            + "\"id\": \"order-1\","
+            + "\"createdAt\": \"2020-05-01T10:00:00.123Z\","
+            + "\"version\": 3,"
+            + "\"paymentInfo\": {\"payments\": [{\"typeId\": \"payment\", \"id\": \"p-1\"},"
+            + "                                 {\"typeId\": \"payment\", \"id\": \"p-2\"}]}"
+            + "}");
+
+    @Test
+    public void nestedArrayField_matchesAnyElement() {
+        assertThat(QueryPredicate.parse("paymentInfo(payments(id=\"p-2\"))").test(ORDER)).isTrue();
+        assertThat(QueryPredicate.parse("paymentInfo(payments(id=\"p-3\"))").test(ORDER)).isFalse();
+    }
+
+    @Test
+    public void timestamps_areComparedAsInstants() {
+        assertThat(QueryPredicate.parse("createdAt >= \"2020-05-01T12:00:00+02:00\"").test(ORDER)).isTrue();
+        assertThat(QueryPredicate.parse("createdAt > \"2020-05-01T10:00:01Z\"").test(ORDER)).isFalse();
+    }
+
+    @Test
+    public void logicalOperators_areCombined() {
+        assertThat(QueryPredicate.parse("id = \"order-1\" and (version > 5 or version <= 3)").test(ORDER)).isTrue();
+        assertThat(QueryPredicate.parse("not(id in (\"order-1\", \"order-2\"))").test(ORDER)).isFalse();
+        assertThat(QueryPredicate.parse("key is not defined and id is defined").test(ORDER)).isTrue();
+    }
+
+    @Test
+    public void comparison_withIncomparableValue_neverMatchesOrdering() {
+        assertThat(QueryPredicate.parse("paymentInfo < \"x\"").test(ORDER)).isFalse();
+    }
+
+    @Test
+    public void malformedPredicate_throwsException() {
+        assertThatThrownBy(() -> QueryPredicate.parse("id = "))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,157 @@
+package com.commercetools.loadtest.payone;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ClearingType;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.RequestType;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.ResponseStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PayoneStubServerTest {
+
+    private PayoneStubServer payone;
+
+    @Before
+    public void setUp() throws Exception {
+        payone = new PayoneStubServer(0, 16)
+                .rule(PayoneStubRule.when(RequestType.PREAUTHORIZATION).clearingType(ClearingType.PAYONE_PPE)
+                        .respond(ResponseStatus.REDIRECT))
+                .rule(PayoneStubRule.when(RequestType.AUTHORIZATION).clearingType(ClearingType.PAYONE_KLV)
+                        .respondError("307", "Declined"))
+                .rule(PayoneStubRule.when(RequestType.AUTHORIZATION).clearingType(ClearingType.PAYONE_PNT)
+                        .serverErrorRate(1.0));
+        payone.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        payone.stop();
+    }
+
+    @Test
+    public void post_withMatchingRule_respondsInPayoneFormat() throws Exception {
+        final Map<String, String> request = authorizationRequest(RequestType.PREAUTHORIZATION, "wlt");
+        request.put("wallettype", "PPE");
+
+        final String body = post(request);
+
+        assertThat(body).startsWith("status=REDIRECT\ntxid=");
+        assertThat(body).contains("redirecturl=http://localhost:");
+        assertThat(payone.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void process_withoutMatchingRule_approves() {
+        final Map<String, String> result = payone.process(authorizationRequest(RequestType.AUTHORIZATION, "cc"));
+
+        assertThat(result).containsEntry("status", "APPROVED").containsKeys("txid", "userid");
+    }
+
+    @Test
+    public void process_withErrorRule_returnsError() {
+        final Map<String, String> request = authorizationRequest(RequestType.AUTHORIZATION, "fnc");
+        request.put("financingtype", "KLV");
+
+        assertThat(payone.process(request))
+                .containsEntry("status", "ERROR")
+                .containsEntry("errorcode", "307")
+                .containsEntry("errormessage", "Declined");
+    }
+
+    @Test
+    public void process_withServerErrorRule_fails() {
+        final Map<String, String> request = authorizationRequest(RequestType.AUTHORIZATION, "sb");
+        request.put("onlinebanktransfertype", "PNT");
+
+        assertThat(payone.process(request)).isNull();
+        assertThat(payone.getServerErrorCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void process_bankTransferInAdvance_returnsBankAccount() {
+        assertThat(payone.process(authorizationRequest(RequestType.PREAUTHORIZATION, "vor")))
+                .containsEntry("status", "APPROVED")
+                .containsKeys("clearing_bankbic", "clearing_bankiban", "clearing_bankaccountholder");
+    }
+
+    @Test
+    public void process_capture_refersToAuthorizedTransaction() {
+        final String txid = payone.process(authorizationRequest(RequestType.PREAUTHORIZATION, "cc")).get("txid");
+
+        final Map<String, String> capture = new HashMap<>();
+        capture.put("request", "capture");
+        capture.put("txid", txid);
+        assertThat(payone.process(capture)).containsEntry("status", "APPROVED").containsEntry("txid", txid);
+
+        capture.put("txid", "unknown");
+        assertThat(payone.process(capture)).containsEntry("status", "ERROR");
+    }
+
+    @Test
+    public void clearingTypeOf_resolvesSubType() {
+        final Map<String, String> request = authorizationRequest(RequestType.AUTHORIZATION, "sb");
+        request.put("onlinebanktransfertype", "PFF");
+
+        assertThat(PayoneStubServer.clearingTypeOf(request)).isEqualTo(ClearingType.PAYONE_PFF);
+        assertThat(PayoneStubServer.clearingTypeOf(authorizationRequest(RequestType.AUTHORIZATION, "cc")))
+                .isEqualTo(ClearingType.PAYONE_CC);
+    }
+
+    @Test
+    public void toNotificationBody_isParsedByTheService() {
+        final StubTransaction transaction = new StubTransaction("123", "456", "keyHash", "test", "portal", "aid",
+                ClearingType.PAYONE_CC, "ref-1", "EUR", 2050);
+
+        final Notification notification = Notification.fromKeyValueString(
+                PayoneNotificationSender.toNotificationBody(transaction, NotificationAction.PAID, 2), "\r?\n?&");
+
+        assertThat(notification.getTxaction()).isEqualTo(NotificationAction.PAID);
+        assertThat(notification.getTxid()).isEqualTo("123");
+        assertThat(notification.getKey()).isEqualTo("keyHash");
+        assertThat(notification.getPrice()).isEqualTo("20.50");
+        assertThat(notification.getSequencenumber()).isEqualTo("2");
+    }
+
+    private static Map<String, String> authorizationRequest(final RequestType requestType, final String clearingType) {
+        final Map<String, String> request = new HashMap<>();
+        request.put("request", requestType.getType());
+        request.put("clearingtype", clearingType);
+        request.put("key", "keyHash");
+        request.put("mode", "test");
+        request.put("portalid", "portal");
+        request.put("aid", "aid");
+        request.put("reference", "ref-1");
+        request.put("currency", "EUR");
+        request.put("amount", "2050");
+        return request;
+    }
+
+    private String post(final Map<String, String> parameters) throws Exception {
+        final List<NameValuePair> form = parameters.entrySet().stream()
+                .map(entry -> new BasicNameValuePair(entry.getKey(), entry.getValue()))
+                .collect(toList());
+        final HttpPost post = new HttpPost(payone.getApiUrl());
+        post.setEntity(new UrlEncodedFormEntity(form));
+        try (CloseableHttpClient client = HttpClients.createDefault();
+             CloseableHttpResponse response = client.execute(post)) {
+            return EntityUtils.toString(response.getEntity());
+        }
+    }
+}
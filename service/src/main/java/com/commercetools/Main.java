@@ -2,11 +2,15 @@ package com.commercetools;
 
 import ch.qos.logback.access.jetty.RequestLogImpl;
 import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
 import com.commercetools.pspadapter.payone.IntegrationService;
 import com.commercetools.pspadapter.payone.ServiceFactory;
 import com.commercetools.pspadapter.payone.config.PropertyProvider;
 import com.commercetools.pspadapter.payone.config.ServiceConfig;
+import com.commercetools.util.logging.LogModeConfigurer;
 import com.commercetools.util.spark.JettyServerWithRequestLogFactory;
+import com.commercetools.util.spark.LaneExecutor;
+import com.commercetools.util.spark.RequestLane;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.bridge.SLF4JBridgeHandler;
@@ -14,6 +18,9 @@ import spark.embeddedserver.EmbeddedServerFactory;
 import spark.embeddedserver.EmbeddedServers;
 import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 import static ch.qos.logback.classic.Level.toLevel;
 
 
@@ -37,8 +44,9 @@ public class Main {
         final ServiceConfig serviceConfig = new ServiceConfig(propertyProvider);
 
         bridgeJULToSLF4J();
-        configureAccessLogs();
+        configureAccessLogs(serviceConfig);
         configureLogLevel(serviceConfig);
+        configureLogMode(serviceConfig);
 
         final IntegrationService integrationService = ServiceFactory.createIntegrationService(propertyProvider, serviceConfig);
         integrationService.start();
@@ -52,15 +60,39 @@ public class Main {
         }
     }
 
-    static void configureAccessLogs() {
+    static void configureLogMode(ServiceConfig serviceConfig) {
+        LogModeConfigurer.configure((LoggerContext) LoggerFactory.getILoggerFactory(), serviceConfig.getLogMode(),
+                serviceConfig.getLogBufferSize(), serviceConfig.getLogDropPolicy(),
+                serviceConfig.getLogMaxRepeatedPerMinute());
+    }
+
+    static void configureAccessLogs(ServiceConfig serviceConfig) {
         final RequestLogImpl requestLog = new RequestLogImpl();
         requestLog.setFileName(Main.class.getResource("/logback-access.xml").getPath());
         requestLog.start();
-        final JettyServerWithRequestLogFactory serverFactory = new JettyServerWithRequestLogFactory(requestLog);
+        final JettyServerWithRequestLogFactory serverFactory =
+                new JettyServerWithRequestLogFactory(requestLog, createLaneExecutors(serviceConfig));
         final EmbeddedServerFactory embeddedServerFactory = new EmbeddedJettyFactory(serverFactory);
         EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, embeddedServerFactory);
     }
 
+    /**
+     * Creates an executor for every lane with threads, so that checkout, notification and admin requests don't queue
+     * behind each other in the server thread pool.
+     */
+    static Map<RequestLane, LaneExecutor> createLaneExecutors(ServiceConfig serviceConfig) {
+        final Map<RequestLane, LaneExecutor> lanes = new EnumMap<>(RequestLane.class);
+        serviceConfig.getLaneConfigs().forEach((lane, config) -> {
+            if (config.getThreads() > 0) {
+                lanes.put(lane, new LaneExecutor(lane, config.getThreads(), config.getQueueCapacity(),
+                        config.getTimeoutMillis()));
+                LOG.info("Lane {}: {} threads, queue capacity {}, timeout {} ms", lane, config.getThreads(),
+                        config.getQueueCapacity(), config.getTimeoutMillis());
+            }
+        });
+        return lanes;
+    }
+
     /**
      * Routes all incoming j.u.l. (java.util.logging.Logger) records to the SLF4j API. This is done by:
      * <ol>
@@ -0,0 +1,51 @@
+package com.commercetools.health;
+
+import org.apache.http.pool.PoolStats;
+
+import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Fails when the Payone HTTP connection pool is saturated: at least {@code maxSaturation} of the connections are
+ * leased and further requests already wait for a free connection.
+ */
+public class ConnectionPoolProbe implements HealthProbe {
+
+    private final Supplier<PoolStats> poolStats;
+    private final double maxSaturation;
+
+    /**
+     * @param poolStats     supplier of the current pool statistics
+     * @param maxSaturation ratio of leased to max connections in range (0..1]
+     */
+    public ConnectionPoolProbe(@Nonnull final Supplier<PoolStats> poolStats, final double maxSaturation) {
+        this.poolStats = poolStats;
+        this.maxSaturation = maxSaturation;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "payone-connection-pool";
+    }
+
+    @Override
+    public boolean isCritical() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public ProbeResult probe(final long timeoutMillis) {
+        final PoolStats stats = poolStats.get();
+        final double saturation = stats.getMax() > 0 ? (double) stats.getLeased() / stats.getMax() : 0;
+        final String details = format("leased %d of %d, pending %d", stats.getLeased(), stats.getMax(),
+                stats.getPending());
+
+        return saturation >= maxSaturation && stats.getPending() > 0
+                ? ProbeResult.unhealthy(details)
+                : ProbeResult.healthy(details);
+    }
+}
@@ -0,0 +1,187 @@
+package com.commercetools.health;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static com.commercetools.metrics.ServiceMetrics.WARM_UP_REQUESTS;
+
+/**
+ * Opens the connections to Payone and the commercetools platform before the node reports ready, and keeps them open
+ * during quiet periods, so the first checkouts after a deploy or a lull don't pay for TLS handshakes, the OAuth token
+ * fetch and new HTTP connections.
+ * <p>
+ * Every {@link Target} is warmed by running its ping as often in parallel as it wants connections:
+ * <ul>
+ * <li>{@link #warmUp()} runs once before the health probes start, so the node is not ready before it completes or
+ * times out. A failed warm-up is logged, it doesn't prevent the start.</li>
+ * <li>{@link #start()} schedules the keep-warm runs of the targets to keep warm. Their interval should be shorter than
+ * the keep-alive time of the connections, the pings reuse the idle connections and so renew their keep-alive.</li>
+ * </ul>
+ */
+public class ConnectionWarmer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionWarmer.class);
+
+    /**
+     * Something to keep warm, like the Payone API or the project of a tenant.
+     */
+    public static final class Target {
+        private final String name;
+        private final IntSupplier connections;
+        private final Callable<?> ping;
+        private final boolean keepWarm;
+
+        /**
+         * @param name        name of the target in logs and metrics
+         * @param connections number of parallel pings of a run, asked before every run
+         * @param ping        cheap request which uses a connection of the target
+         * @param keepWarm    <b>true</b> to ping the target in the keep-warm runs, <b>false</b> to warm it up only once
+         */
+        public Target(@Nonnull final String name, @Nonnull final IntSupplier connections,
+                      @Nonnull final Callable<?> ping, final boolean keepWarm) {
+            this.name = name;
+            this.connections = connections;
+            this.ping = ping;
+            this.keepWarm = keepWarm;
+        }
+
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final List<Target> targets;
+    private final long keepWarmIntervalMillis;
+    private final long timeoutMillis;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService pingExecutor;
+
+    /**
+     * @param targets                targets to warm up
+     * @param keepWarmIntervalMillis delay between two keep-warm runs, non-positive value disables them
+     * @param timeoutMillis          time budget of a run. Non-positive value means
+     *                               {@link HealthCheckService#DEFAULT_TIMEOUT_MILLIS}.
+     */
+    public ConnectionWarmer(@Nonnull final List<Target> targets, final long keepWarmIntervalMillis,
+                            final long timeoutMillis) {
+        this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+        this.keepWarmIntervalMillis = keepWarmIntervalMillis;
+        this.timeoutMillis = timeoutMillis > 0 ? timeoutMillis : HealthCheckService.DEFAULT_TIMEOUT_MILLIS;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("keep-warm-scheduler"));
+        this.pingExecutor = Executors.newCachedThreadPool(daemonThreadFactory("keep-warm-ping"));
+    }
+
+    /**
+     * Runs the pings of all targets in parallel and waits for them, at most the timeout.
+     *
+     * @return number of successful pings
+     */
+    public int warmUp() {
+        final long start = System.currentTimeMillis();
+        final int succeeded = run(false);
+        LOG.info("Warmed up {} connections of {} in {} ms", succeeded,
+                targets.stream().map(Target::getName).toArray(), System.currentTimeMillis() - start);
+        return succeeded;
+    }
+
+    public void start() {
+        if (keepWarmIntervalMillis > 0 && targets.stream().anyMatch(target -> target.keepWarm)) {
+            LOG.info("Keep connections of {} warm every {} ms", targets.stream().map(Target::getName).toArray(),
+                    keepWarmIntervalMillis);
+            scheduler.scheduleWithFixedDelay(this::keepWarmSafely, keepWarmIntervalMillis, keepWarmIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        pingExecutor.shutdownNow();
+    }
+
+    private void keepWarmSafely() {
+        try {
+            run(true);
+        } catch (final RuntimeException e) {
+            // never let an exception cancel the periodic task
+            LOG.error("Keep-warm run failed", e);
+        }
+    }
+
+    /**
+     * @param keepWarm <b>true</b> for a keep-warm run, which pings only the targets to keep warm
+     * @return number of successful pings
+     */
+    int run(final boolean keepWarm) {
+        final String phase = keepWarm ? "keep_warm" : "warm_up";
+        final long start = System.currentTimeMillis();
+        final List<Target> pingTargets = new ArrayList<>();
+        final List<Future<?>> futures = new ArrayList<>();
+        for (final Target target : targets) {
+            if (keepWarm && !target.keepWarm) {
+                continue;
+            }
+            for (int i = target.connections.getAsInt(); i > 0; i--) {
+                pingTargets.add(target);
+                futures.add(pingExecutor.submit(target.ping));
+            }
+        }
+
+        int succeeded = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            final Target target = pingTargets.get(i);
+            final String result = awaitPing(target, futures.get(i), start);
+            WARM_UP_REQUESTS.labels(target.getName(), phase, result).increment();
+            if ("success".equals(result)) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    @Nonnull
+    private String awaitPing(@Nonnull final Target target, @Nonnull final Future<?> future, final long start) {
+        // all pings run in parallel, so the deadline is shared
+        final long remainingMillis = Math.max(0, start + timeoutMillis - System.currentTimeMillis());
+        try {
+            future.get(remainingMillis, TimeUnit.MILLISECONDS);
+            return "success";
+        } catch (final TimeoutException e) {
+            future.cancel(true);
+            LOG.warn("Warming up a connection of [{}] timed out after {} ms", target.getName(), timeoutMillis);
+            return "timeout";
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        } catch (final Exception e) {
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            LOG.warn("Warming up a connection of [{}] failed: {}", target.getName(), cause.toString());
+            return "failure";
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(@Nonnull final String namePrefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.commercetools.health;
+
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.projects.Project;
+import io.sphere.sdk.projects.queries.ProjectGet;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Checks a tenant's commercetools project is reachable with the configured credentials. Fetching the project is the
+ * cheapest authorized read the API offers.
+ */
+public class CtpProjectProbe implements HealthProbe {
+
+    private final String tenantName;
+    private final SphereClient client;
+    private final boolean critical;
+
+    public CtpProjectProbe(@Nonnull final String tenantName, @Nonnull final SphereClient client,
+                           final boolean critical) {
+        this.tenantName = tenantName;
+        this.client = client;
+        this.critical = critical;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "ctp:" + tenantName;
+    }
+
+    @Override
+    public boolean isCritical() {
+        return critical;
+    }
+
+    @Nonnull
+    @Override
+    public ProbeResult probe(final long timeoutMillis) throws Exception {
+        final Project project = client.execute(ProjectGet.of())
+                .toCompletableFuture()
+                .get(timeoutMillis, TimeUnit.MILLISECONDS);
+        return ProbeResult.healthy(format("project [%s] is reachable", project.getKey()));
+    }
+}
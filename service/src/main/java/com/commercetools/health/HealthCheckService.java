@@ -0,0 +1,199 @@
+package com.commercetools.health;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.sphere.sdk.json.SphereJsonUtils.toJsonString;
+import static java.lang.String.format;
+
+/**
+ * Runs {@link HealthProbe}s on a background schedule and keeps the last result as a precomputed response, so the
+ * {@code /health/live} and {@code /health/ready} handlers are O(1) and never touch commercetools or Payone, no matter
+ * how often the load balancer polls them.
+ * <ul>
+ * <li><b>ready</b> - all {@link HealthProbe#isCritical() critical} probes passed in the last run. The node is not ready
+ * before the first run has completed.</li>
+ * <li><b>live</b> - the probe scheduler itself is still running, e.g. the last run completed within
+ * {@value #LIVENESS_INTERVALS} probe intervals.</li>
+ * </ul>
+ */
+public class HealthCheckService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HealthCheckService.class);
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 5000;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+
+    static final int LIVENESS_INTERVALS = 3;
+
+    private final List<HealthProbe> probes;
+    private final long intervalMillis;
+    private final long timeoutMillis;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService probeExecutor;
+
+    private volatile HealthSnapshot snapshot;
+
+    /**
+     * @param probes         probes to run, each run executes them in parallel
+     * @param intervalMillis delay between two runs. Non-positive value means {@link #DEFAULT_INTERVAL_MILLIS}.
+     * @param timeoutMillis  time budget of a single probe. Non-positive value means {@link #DEFAULT_TIMEOUT_MILLIS}.
+     */
+    public HealthCheckService(@Nonnull final List<HealthProbe> probes, final long intervalMillis,
+                              final long timeoutMillis) {
+        this.probes = Collections.unmodifiableList(new ArrayList<>(probes));
+        this.intervalMillis = intervalMillis > 0 ? intervalMillis : DEFAULT_INTERVAL_MILLIS;
+        this.timeoutMillis = timeoutMillis > 0 ? timeoutMillis : DEFAULT_TIMEOUT_MILLIS;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("health-scheduler"));
+        this.probeExecutor = Executors.newCachedThreadPool(daemonThreadFactory("health-probe"));
+        this.snapshot = HealthSnapshot.starting(System.currentTimeMillis());
+    }
+
+    public void start() {
+        LOG.info("Start health probes {} every {} ms", probes.stream().map(HealthProbe::getName).toArray(),
+                intervalMillis);
+        scheduler.scheduleWithFixedDelay(this::runProbesSafely, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        probeExecutor.shutdownNow();
+    }
+
+    @Nonnull
+    public HealthSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isAlive() {
+        final long maxAgeMillis = LIVENESS_INTERVALS * intervalMillis + timeoutMillis;
+        return !scheduler.isShutdown()
+                && System.currentTimeMillis() - snapshot.getCreatedAtMillis() <= maxAgeMillis;
+    }
+
+    private void runProbesSafely() {
+        try {
+            snapshot = runProbes();
+        } catch (final RuntimeException e) {
+            // never let an exception cancel the periodic task
+            LOG.error("Health probes run failed", e);
+        }
+    }
+
+    HealthSnapshot runProbes() {
+        final long start = System.currentTimeMillis();
+        final List<Future<ProbeResult>> futures = new ArrayList<>(probes.size());
+        for (final HealthProbe probe : probes) {
+            futures.add(probeExecutor.submit(() -> probe.probe(timeoutMillis)));
+        }
+
+        boolean ready = true;
+        final Map<String, Object> probeResults = new LinkedHashMap<>();
+        for (int i = 0; i < probes.size(); i++) {
+            final HealthProbe probe = probes.get(i);
+            final ProbeResult result = awaitResult(probe, futures.get(i), start);
+            if (!result.isHealthy()) {
+                if (probe.isCritical()) {
+                    ready = false;
+                }
+                LOG.warn("Health probe [{}] failed: {}", probe.getName(), result.getDetails());
+            }
+
+            final Map<String, Object> probeResult = new LinkedHashMap<>();
+            probeResult.put("healthy", result.isHealthy());
+            probeResult.put("critical", probe.isCritical());
+            probeResult.put("details", result.getDetails());
+            probeResults.put(probe.getName(), probeResult);
+        }
+
+        final long now = System.currentTimeMillis();
+        final Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", ready ? HttpStatus.OK_200 : HttpStatus.SERVICE_UNAVAILABLE_503);
+        response.put("checkedAt", Instant.ofEpochMilli(now).toString());
+        response.put("durationMillis", now - start);
+        response.put("probes", probeResults);
+
+        return new HealthSnapshot(ready, toJsonString(response), now);
+    }
+
+    private ProbeResult awaitResult(@Nonnull final HealthProbe probe, @Nonnull final Future<ProbeResult> future,
+                                    final long start) {
+        // all probes run in parallel, so the deadline is shared
+        final long remainingMillis = Math.max(0, start + timeoutMillis - System.currentTimeMillis());
+        try {
+            return future.get(remainingMillis, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            future.cancel(true);
+            return ProbeResult.unhealthy(format("timed out after %d ms", timeoutMillis));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ProbeResult.unhealthy("interrupted");
+        } catch (final Exception e) {
+            final Throwable cause = e.getCause() != null ? e.getCause() : e;
+            LOG.debug("Health probe [{}] threw exception", probe.getName(), cause);
+            return ProbeResult.unhealthy(cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(@Nonnull final String namePrefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Immutable result of a probes run with the precomputed JSON body.
+     */
+    public static final class HealthSnapshot {
+        private final boolean ready;
+        private final String json;
+        private final long createdAtMillis;
+
+        HealthSnapshot(final boolean ready, @Nonnull final String json, final long createdAtMillis) {
+            this.ready = ready;
+            this.json = json;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        static HealthSnapshot starting(final long createdAtMillis) {
+            return new HealthSnapshot(false,
+                    format("{\"status\":%d,\"details\":\"health probes have not completed yet\"}",
+                            HttpStatus.SERVICE_UNAVAILABLE_503),
+                    createdAtMillis);
+        }
+
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Nonnull
+        public String getJson() {
+            return json;
+        }
+
+        public long getCreatedAtMillis() {
+            return createdAtMillis;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.commercetools.health;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A single check executed periodically by {@link HealthCheckService}. Implementations may block, but should respect
+ * the {@code timeoutMillis}: the service stops waiting for the result after this time anyway.
+ */
+public interface HealthProbe {
+
+    /**
+     * @return unique name of the probe, used as a key in the readiness response
+     */
+    @Nonnull
+    String getName();
+
+    /**
+     * @return <b>true</b> if a failure of this probe makes the node not ready
+     */
+    boolean isCritical();
+
+    /**
+     * @param timeoutMillis time budget of the probe
+     * @return result of the check. Thrown exceptions are reported as unhealthy results.
+     * @throws Exception if the check failed
+     */
+    @Nonnull
+    ProbeResult probe(long timeoutMillis) throws Exception;
+}
@@ -0,0 +1,57 @@
+package com.commercetools.health;
+
+import javax.annotation.Nonnull;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+
+import static java.lang.String.format;
+
+/**
+ * Checks the Payone server API host accepts TCP connections and, for {@code https} URLs, completes a TLS handshake.
+ * No request is sent, so the probe doesn't produce any traffic on the Payone side beyond the handshake.
+ */
+public class PayoneEndpointProbe implements HealthProbe {
+
+    private final URI apiUri;
+    private final boolean critical;
+
+    public PayoneEndpointProbe(@Nonnull final String apiUrl, final boolean critical) {
+        this.apiUri = URI.create(apiUrl);
+        this.critical = critical;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "payone:" + apiUri.getHost();
+    }
+
+    @Override
+    public boolean isCritical() {
+        return critical;
+    }
+
+    @Nonnull
+    @Override
+    public ProbeResult probe(final long timeoutMillis) throws Exception {
+        final boolean secure = "https".equalsIgnoreCase(apiUri.getScheme());
+        final int port = apiUri.getPort() > 0 ? apiUri.getPort() : (secure ? 443 : 80);
+        final int timeout = (int) Math.min(Integer.MAX_VALUE, timeoutMillis);
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(apiUri.getHost(), port), timeout);
+            if (secure) {
+                socket.setSoTimeout(timeout);
+                final SSLSocketFactory sslSocketFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+                try (SSLSocket sslSocket = (SSLSocket) sslSocketFactory
+                        .createSocket(socket, apiUri.getHost(), port, false)) {
+                    sslSocket.startHandshake();
+                }
+            }
+        }
+        return ProbeResult.healthy(format("%s:%d is reachable", apiUri.getHost(), port));
+    }
+}
@@ -0,0 +1,34 @@
+package com.commercetools.health;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Outcome of a {@link HealthProbe} run.
+ */
+public final class ProbeResult {
+
+    private final boolean healthy;
+    private final String details;
+
+    private ProbeResult(final boolean healthy, @Nonnull final String details) {
+        this.healthy = healthy;
+        this.details = details;
+    }
+
+    public static ProbeResult healthy(@Nonnull final String details) {
+        return new ProbeResult(true, details);
+    }
+
+    public static ProbeResult unhealthy(@Nonnull final String details) {
+        return new ProbeResult(false, details);
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    @Nonnull
+    public String getDetails() {
+        return details;
+    }
+}
@@ -0,0 +1,91 @@
+package com.commercetools.health;
+
+import com.commercetools.util.spark.LaneExecutor;
+import com.commercetools.util.spark.RequestLane;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Fails when more than {@code maxQueueDepth} jobs wait for a thread of the embedded Jetty server, e.g. requests are
+ * accepted faster than they are processed.
+ * <p>
+ * With {@link com.commercetools.util.spark.RequestLaneHandler request lanes} the requests wait in the queues of the
+ * lanes instead, so the probe fails as well when more than {@code maxQueueDepth} requests wait for the threads of a
+ * lane, or when the queue of a lane is full and the lane answers {@code 503}.
+ */
+public class ServerQueueProbe implements HealthProbe {
+
+    private final Supplier<Optional<ThreadPool>> threadPool;
+    private final Supplier<Map<RequestLane, LaneExecutor>> lanes;
+    private final int maxQueueDepth;
+
+    public ServerQueueProbe(@Nonnull final Supplier<Optional<ThreadPool>> threadPool, final int maxQueueDepth) {
+        this(threadPool, Collections::emptyMap, maxQueueDepth);
+    }
+
+    public ServerQueueProbe(@Nonnull final Supplier<Optional<ThreadPool>> threadPool,
+                            @Nonnull final Supplier<Map<RequestLane, LaneExecutor>> lanes,
+                            final int maxQueueDepth) {
+        this.threadPool = threadPool;
+        this.lanes = lanes;
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "server-queue";
+    }
+
+    @Override
+    public boolean isCritical() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public ProbeResult probe(final long timeoutMillis) {
+        final Optional<QueuedThreadPool> queuedThreadPool = threadPool.get()
+                .filter(QueuedThreadPool.class::isInstance)
+                .map(QueuedThreadPool.class::cast);
+        final Map<RequestLane, LaneExecutor> laneExecutors = lanes.get();
+
+        if (!queuedThreadPool.isPresent() && laneExecutors.isEmpty()) {
+            return ProbeResult.healthy("server thread pool is not monitored");
+        }
+
+        final List<String> details = new ArrayList<>();
+        boolean healthy = true;
+
+        if (queuedThreadPool.isPresent()) {
+            final QueuedThreadPool pool = queuedThreadPool.get();
+            details.add(format("queued %d, busy threads %d of %d", pool.getQueueSize(),
+                    pool.getBusyThreads(), pool.getMaxThreads()));
+            healthy = pool.getQueueSize() <= maxQueueDepth;
+        }
+
+        for (final LaneExecutor executor : laneExecutors.values()) {
+            final long queueDepth = executor.getQueueDepth();
+            details.add(format("lane %s queued %d of %d", executor.getLane().name().toLowerCase(), queueDepth,
+                    executor.getQueueCapacity()));
+            if (queueDepth > maxQueueDepth || queueDepth >= executor.getQueueCapacity()) {
+                healthy = false;
+            }
+        }
+
+        final String joinedDetails = String.join(", ", details);
+        return healthy
+                ? ProbeResult.healthy(joinedDetails)
+                : ProbeResult.unhealthy(joinedDetails);
+    }
+}
@@ -0,0 +1,218 @@
+package com.commercetools.lease;
+
+import io.sphere.sdk.client.ConcurrentModificationException;
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.customobjects.CustomObject;
+import io.sphere.sdk.customobjects.CustomObjectDraft;
+import io.sphere.sdk.customobjects.commands.CustomObjectDeleteCommand;
+import io.sphere.sdk.customobjects.commands.CustomObjectUpsertCommand;
+import io.sphere.sdk.customobjects.queries.CustomObjectByKeyGet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Keeps the leases in custom objects of the tenant project, so the leases are shared by all nodes of the service.
+ * <p>
+ * The value is <i>token|expiresAtMillis|handOff</i>. Every write is version-checked: a lease is created with version
+ * 0, which the platform accepts only if the object doesn't exist, and updated or deleted with the version read before.
+ * A concurrent write fails with a {@link ConcurrentModificationException} and the operation starts over from a fresh
+ * read. Released leases are deleted, expired ones are overwritten by the next acquirer.
+ */
+public class CustomObjectLeaseProvider implements LeaseProvider {
+
+    public static final String CONTAINER = "commercetools-payone-leases";
+
+    private static final String SEPARATOR = "|";
+
+    private final SphereClient client;
+
+    private final Clock clock;
+
+    public CustomObjectLeaseProvider(@Nonnull final SphereClient client) {
+        this(client, Clock.systemUTC());
+    }
+
+    public CustomObjectLeaseProvider(@Nonnull final SphereClient client, @Nonnull final Clock clock) {
+        this.client = client;
+        this.clock = clock;
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Optional<Lease>> tryAcquire(@Nonnull final String key, @Nonnull final Duration ttl) {
+        return get(key).thenCompose(current -> {
+            final long now = clock.millis();
+            if (current != null && !LeaseValue.parse(current.getValue()).isExpired(now)) {
+                return completedFuture(Optional.empty());
+            }
+            final LeaseValue value = new LeaseValue(UUID.randomUUID().toString(), now + ttl.toMillis(), false);
+            // an empty write result means a concurrent acquirer won
+            return write(key, value, current == null ? 0L : current.getVersion())
+                    .thenApply(written -> written.map(customObject -> value.toLease(customObject)));
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Optional<Lease>> renew(@Nonnull final Lease lease, @Nonnull final Duration ttl) {
+        return renew(lease, ttl, false);
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Optional<Lease>> extend(@Nonnull final Lease lease, @Nonnull final Duration ttl) {
+        return renew(lease, ttl, true);
+    }
+
+    private CompletionStage<Optional<Lease>> renew(@Nonnull final Lease lease, @Nonnull final Duration ttl,
+                                                   final boolean keepHandOff) {
+        return get(lease.getKey()).thenCompose(current -> {
+            final LeaseValue currentValue = current == null ? null : LeaseValue.parse(current.getValue());
+            if (currentValue == null || !currentValue.isHeldBy(lease)) {
+                return completedFuture(Optional.<Lease>empty());
+            }
+            final LeaseValue value = new LeaseValue(lease.getToken(), clock.millis() + ttl.toMillis(),
+                    keepHandOff && currentValue.handOff);
+            return write(lease.getKey(), value, current.getVersion())
+                    .thenCompose(written -> written.isPresent()
+                            ? completedFuture(written.map(customObject -> value.toLease(customObject)))
+                            : renew(lease, ttl, keepHandOff));
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Boolean> requestHandOff(@Nonnull final String key) {
+        return get(key).thenCompose(current -> {
+            if (current == null) {
+                return completedFuture(false);
+            }
+            final LeaseValue value = LeaseValue.parse(current.getValue());
+            if (value.isExpired(clock.millis())) {
+                return completedFuture(false);
+            }
+            if (value.handOff) {
+                return completedFuture(true);
+            }
+            return write(key, new LeaseValue(value.token, value.expiresAtMillis, true), current.getVersion())
+                    .thenCompose(written -> written.isPresent() ? completedFuture(true) : requestHandOff(key));
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Boolean> release(@Nonnull final Lease lease) {
+        return get(lease.getKey()).thenCompose(current -> {
+            if (current == null) {
+                return completedFuture(true);
+            }
+            final LeaseValue value = LeaseValue.parse(current.getValue());
+            if (!value.isHeldBy(lease)) {
+                return completedFuture(true);
+            }
+            if (value.handOff) {
+                return completedFuture(false);
+            }
+            return delete(lease.getKey(), current.getVersion())
+                    .thenCompose(deleted -> deleted ? completedFuture(true) : release(lease));
+        });
+    }
+
+    private CompletionStage<CustomObject<String>> get(@Nonnull final String key) {
+        return client.execute(CustomObjectByKeyGet.of(CONTAINER, key, String.class));
+    }
+
+    /**
+     * @return the written object, empty if the version didn't match
+     */
+    private CompletionStage<Optional<CustomObject<String>>> write(@Nonnull final String key,
+                                                                  @Nonnull final LeaseValue value,
+                                                                  final long version) {
+        final CustomObjectDraft<String> draft =
+                CustomObjectDraft.ofVersionedUpdate(CONTAINER, key, value.toString(), version, String.class);
+        return client.execute(CustomObjectUpsertCommand.of(draft))
+                .handle(ifNoConflict(Optional::of, Optional.empty()));
+    }
+
+    /**
+     * @return <b>false</b> if the version didn't match
+     */
+    private CompletionStage<Boolean> delete(@Nonnull final String key, final long version) {
+        return client.execute(CustomObjectDeleteCommand.of(CONTAINER, key, version, String.class))
+                .handle(ifNoConflict(deleted -> true, false));
+    }
+
+    private static <T, R> BiFunction<T, Throwable, R> ifNoConflict(
+            @Nonnull final Function<T, R> onSuccess, @Nonnull final R onConflict) {
+        return (result, throwable) -> {
+            if (throwable == null) {
+                return onSuccess.apply(result);
+            }
+            final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+            if (cause instanceof ConcurrentModificationException) {
+                return onConflict;
+            }
+            throw throwable instanceof CompletionException
+                    ? (CompletionException) throwable
+                    : new CompletionException(throwable);
+        };
+    }
+
+    static final class LeaseValue {
+
+        final String token;
+        final long expiresAtMillis;
+        final boolean handOff;
+
+        LeaseValue(@Nonnull final String token, final long expiresAtMillis, final boolean handOff) {
+            this.token = token;
+            this.expiresAtMillis = expiresAtMillis;
+            this.handOff = handOff;
+        }
+
+        @Nonnull
+        static LeaseValue parse(@Nullable final String value) {
+            final String[] parts = value == null ? new String[0] : value.split("\\" + SEPARATOR);
+            try {
+                if (parts.length == 3) {
+                    return new LeaseValue(parts[0], Long.parseLong(parts[1]), Boolean.parseBoolean(parts[2]));
+                }
+            } catch (NumberFormatException ignored) {
+                // fall through
+            }
+            // unreadable leases are treated as expired, so they are overwritten
+            return new LeaseValue("", 0L, false);
+        }
+
+        boolean isExpired(final long now) {
+            return expiresAtMillis <= now;
+        }
+
+        boolean isHeldBy(@Nonnull final Lease lease) {
+            return token.equals(lease.getToken());
+        }
+
+        @Nonnull
+        Lease toLease(@Nonnull final CustomObject<String> customObject) {
+            return new Lease(customObject.getKey(), token, customObject.getVersion(), expiresAtMillis);
+        }
+
+        @Override
+        public String toString() {
+            return token + SEPARATOR + expiresAtMillis + SEPARATOR + handOff;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.commercetools.lease;
+
+import javax.annotation.Nonnull;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * Keeps the leases in the memory of the node: makes the requests of one node exclusive, for single node deployments
+ * and tests.
+ */
+public class InMemoryLeaseProvider implements LeaseProvider {
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Clock clock;
+
+    public InMemoryLeaseProvider() {
+        this(Clock.systemUTC());
+    }
+
+    public InMemoryLeaseProvider(@Nonnull final Clock clock) {
+        this.clock = clock;
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Optional<Lease>> tryAcquire(@Nonnull final String key, @Nonnull final Duration ttl) {
+        final String token = UUID.randomUUID().toString();
+        final long now = clock.millis();
+        final Entry entry = entries.compute(key, (k, current) -> current == null || current.isExpired(now)
+                ? new Entry(token, current == null ? 1L : current.version + 1, now + ttl.toMillis(), false)
+                : current);
+        return completedFuture(token.equals(entry.token) ? Optional.of(entry.toLease(key)) : Optional.empty());
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Optional<Lease>> renew(@Nonnull final Lease lease, @Nonnull final Duration ttl) {
+        return renew(lease, ttl, false);
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Optional<Lease>> extend(@Nonnull final Lease lease, @Nonnull final Duration ttl) {
+        return renew(lease, ttl, true);
+    }
+
+    private CompletionStage<Optional<Lease>> renew(@Nonnull final Lease lease, @Nonnull final Duration ttl,
+                                                   final boolean keepHandOff) {
+        final long now = clock.millis();
+        final Entry entry = entries.computeIfPresent(lease.getKey(), (k, current) -> current.isHeldBy(lease)
+                ? new Entry(current.token, current.version + 1, now + ttl.toMillis(), keepHandOff && current.handOff)
+                : current);
+        return completedFuture(entry != null && entry.isHeldBy(lease)
+                ? Optional.of(entry.toLease(lease.getKey()))
+                : Optional.empty());
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Boolean> requestHandOff(@Nonnull final String key) {
+        final long now = clock.millis();
+        final Entry entry = entries.computeIfPresent(key, (k, current) -> current.isExpired(now) || current.handOff
+                ? current
+                : new Entry(current.token, current.version + 1, current.expiresAtMillis, true));
+        return completedFuture(entry != null && !entry.isExpired(now));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Boolean> release(@Nonnull final Lease lease) {
+        final Entry remaining = entries.computeIfPresent(lease.getKey(),
+                (k, current) -> current.isHeldBy(lease) && !current.handOff ? null : current);
+        return completedFuture(remaining == null || !remaining.isHeldBy(lease));
+    }
+
+    private static final class Entry {
+
+        private final String token;
+        private final long version;
+        private final long expiresAtMillis;
+        private final boolean handOff;
+
+        private Entry(final String token, final long version, final long expiresAtMillis, final boolean handOff) {
+            this.token = token;
+            this.version = version;
+            this.expiresAtMillis = expiresAtMillis;
+            this.handOff = handOff;
+        }
+
+        private boolean isExpired(final long now) {
+            return expiresAtMillis <= now;
+        }
+
+        private boolean isHeldBy(final Lease lease) {
+            return token.equals(lease.getToken());
+        }
+
+        private Lease toLease(final String key) {
+            return new Lease(key, token, version, expiresAtMillis);
+        }
+    }
+}
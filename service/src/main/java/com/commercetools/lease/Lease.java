@@ -0,0 +1,58 @@
+package com.commercetools.lease;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Exclusive right of one request to work on a key, like a payment ID, until {@link #getExpiresAtMillis()}. Acquired,
+ * renewed and released by a {@link LeaseProvider}.
+ * <p>
+ * Immutable.
+ */
+public final class Lease {
+
+    private final String key;
+
+    private final String token;
+
+    private final long version;
+
+    private final long expiresAtMillis;
+
+    /**
+     * @param key             the leased key
+     * @param token           unique per acquisition, identifies the holder
+     * @param version         version of the stored lease, changes with every write
+     * @param expiresAtMillis epoch millis after which the lease can be taken over by others
+     */
+    public Lease(@Nonnull final String key, @Nonnull final String token, final long version,
+                 final long expiresAtMillis) {
+        this.key = key;
+        this.token = token;
+        this.version = version;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    @Nonnull
+    public String getKey() {
+        return key;
+    }
+
+    @Nonnull
+    public String getToken() {
+        return token;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Lease{key='" + key + "', token='" + token + "', version=" + version
+                + ", expiresAtMillis=" + expiresAtMillis + '}';
+    }
+}
@@ -0,0 +1,64 @@
+package com.commercetools.lease;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Store of leases, which makes the requests working on the same key exclusive, also across service nodes if the
+ * store is shared.
+ * <p>
+ * A lease lives until it is released or its TTL passes, after that anybody can take it over. Besides waiting, a
+ * contender can {@link #requestHandOff(String) hand its work off} to the holder: the holder sees the request on
+ * {@link #release(Lease)} and has to do its work once more before the lease is released.
+ */
+public interface LeaseProvider {
+
+    /**
+     * @param key the key to lease
+     * @param ttl how long the lease lives if it is neither renewed nor released
+     * @return the lease, empty if an unexpired lease of the key is held by somebody else
+     */
+    @Nonnull
+    CompletionStage<Optional<Lease>> tryAcquire(@Nonnull String key, @Nonnull Duration ttl);
+
+    /**
+     * Extends the lease and clears a pending hand-off request.
+     *
+     * @param lease the held lease
+     * @param ttl   how long the renewed lease lives
+     * @return the renewed lease, empty if the lease was lost, because it expired and was taken over
+     */
+    @Nonnull
+    CompletionStage<Optional<Lease>> renew(@Nonnull Lease lease, @Nonnull Duration ttl);
+
+    /**
+     * Extends the lease of a holder which is still working, keeping a pending hand-off request.
+     *
+     * @param lease the held lease
+     * @param ttl   how long the extended lease lives
+     * @return the extended lease, empty if the lease was lost, because it expired and was taken over
+     */
+    @Nonnull
+    CompletionStage<Optional<Lease>> extend(@Nonnull Lease lease, @Nonnull Duration ttl);
+
+    /**
+     * Asks the holder of the lease to do its work once more before releasing it.
+     *
+     * @param key the leased key
+     * @return <b>true</b> if an unexpired lease is held and will see the request, <b>false</b> if the key is free
+     * and the caller should try to acquire it
+     */
+    @Nonnull
+    CompletionStage<Boolean> requestHandOff(@Nonnull String key);
+
+    /**
+     * @param lease the held lease
+     * @return <b>true</b> if the lease is released or was lost anyway, <b>false</b> if a hand-off was requested: the
+     * lease is still held, the caller has to {@link #renew(Lease, Duration) renew} it, do its work once more and
+     * release it again
+     */
+    @Nonnull
+    CompletionStage<Boolean> release(@Nonnull Lease lease);
+}
@@ -0,0 +1,15 @@
+package com.commercetools.lease;
+
+import javax.annotation.Nonnull;
+
+import static java.lang.String.format;
+
+/**
+ * The lease of a key couldn't be acquired in the maximum wait time, see {@link PaymentLeases}.
+ */
+public class LeaseUnavailableException extends RuntimeException {
+
+    public LeaseUnavailableException(@Nonnull final String key, final long waitedMillis) {
+        super(format("The lease of [%s] is held by another request, gave up after waiting [%d] ms", key, waitedMillis));
+    }
+}
@@ -0,0 +1,264 @@
+package com.commercetools.lease;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.commercetools.metrics.ServiceMetrics.PAYMENT_LEASE_CONTENTIONS;
+import static com.commercetools.pspadapter.payone.util.CompletionUtil.executeBlocking;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Makes the requests working on the same payment exclusive, so that they don't burn their
+ * {@link java.util.ConcurrentModificationException} retries against each other.
+ * <p>
+ * A request which finds the lease held either waits for it with a jittered backoff up to the maximum wait, or hands
+ * its work off to the holder: the holder handles the payment once more before it releases the lease, and the
+ * contender returns at once. The payment updates stay version-checked, so the lease is an optimization and not a
+ * guarantee: if the lease store fails, the request runs without a lease.
+ * <p>
+ * While the action runs, the lease is {@link LeaseProvider#extend(Lease, Duration) extended} every third of its TTL,
+ * so an action which takes longer than the TTL, like one retrying on concurrent modifications, keeps its lease. The
+ * TTL only bounds how long the lease of a crashed node blocks the payment.
+ */
+public class PaymentLeases {
+
+    public enum Provider {
+        /**
+         * No leases, concurrent requests rely on the retries only, default.
+         */
+        NONE,
+
+        /**
+         * {@link InMemoryLeaseProvider}, for single node deployments.
+         */
+        MEMORY,
+
+        /**
+         * {@link CustomObjectLeaseProvider}, shared by all nodes.
+         */
+        CUSTOM_OBJECT
+    }
+
+    /**
+     * Runs every request at once, without a lease.
+     */
+    public static final PaymentLeases DISABLED = new PaymentLeases(null, "", Duration.ZERO, Duration.ZERO);
+
+    private static final long MIN_POLL_DELAY_MILLIS = 25;
+    private static final long MAX_POLL_DELAY_MILLIS = 500;
+
+    private static final ScheduledExecutorService RENEWAL_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "payment-lease-renewal");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentLeases.class);
+
+    @Nullable
+    private final LeaseProvider provider;
+
+    private final String tenantName;
+
+    private final Duration ttl;
+
+    private final Duration maxWait;
+
+    /**
+     * @param provider   store of the leases, <b>null</b> to disable leasing
+     * @param tenantName used as metrics label
+     * @param ttl        lifetime of a lease which is not extended, because its holder died
+     * @param maxWait    how long a request waits for a held lease
+     */
+    public PaymentLeases(@Nullable final LeaseProvider provider, @Nonnull final String tenantName,
+                         @Nonnull final Duration ttl, @Nonnull final Duration maxWait) {
+        this.provider = provider;
+        this.tenantName = tenantName;
+        this.ttl = ttl;
+        this.maxWait = maxWait;
+    }
+
+    public boolean isEnabled() {
+        return provider != null;
+    }
+
+    /**
+     * Runs {@code action} holding the lease of {@code paymentId}.
+     *
+     * @param paymentId   ID of the payment the action works on
+     * @param action      the work on the payment
+     * @param onHandedOff result if the lease is held and the holder accepted to do the work once more, <b>null</b> to
+     *                    wait for the lease instead
+     * @param <T>         result type of the action
+     * @return the result of {@code action}, or of {@code onHandedOff} if the work was handed off
+     * @throws LeaseUnavailableException if the lease is still held after the maximum wait
+     */
+    public <T> T runExclusively(@Nonnull final String paymentId, @Nonnull final Supplier<T> action,
+                                @Nullable final Supplier<T> onHandedOff) {
+        return runExclusively(paymentId, mayHaveChanged -> action.get(), onHandedOff);
+    }
+
+    /**
+     * Runs {@code action} holding the lease of {@code paymentId}. The action is told whether the payment may have
+     * changed since the caller read it: because another request held the lease, or because the action runs once more
+     * for a request which handed its work off. Otherwise it can work on the payment it was given.
+     *
+     * @param paymentId   ID of the payment the action works on
+     * @param action      the work on the payment, gets <b>true</b> if the payment may have changed
+     * @param onHandedOff result if the lease is held and the holder accepted to do the work once more, <b>null</b> to
+     *                    wait for the lease instead
+     * @param <T>         result type of the action
+     * @return the result of {@code action}, or of {@code onHandedOff} if the work was handed off
+     * @throws LeaseUnavailableException if the lease is still held after the maximum wait
+     */
+    public <T> T runExclusively(@Nonnull final String paymentId, @Nonnull final Function<Boolean, T> action,
+                                @Nullable final Supplier<T> onHandedOff) {
+        if (provider == null) {
+            return action.apply(false);
+        }
+        final AtomicBoolean contended = new AtomicBoolean();
+        final Lease lease;
+        try {
+            lease = acquire(provider, paymentId, onHandedOff != null, contended);
+        } catch (final CompletionException e) {
+            LOGGER.warn("Could not acquire the lease of payment [{}], it is handled without lease", paymentId, e);
+            return action.apply(true);
+        }
+        if (lease == null) {
+            return onHandedOff.get();
+        }
+        return runHolding(provider, lease, action, contended.get());
+    }
+
+    /**
+     * @param contended set if the lease was held by another request on the first attempt
+     * @return the acquired lease, <b>null</b> if the work was handed off to the holder
+     */
+    @Nullable
+    private Lease acquire(@Nonnull final LeaseProvider provider, @Nonnull final String key, final boolean handOff,
+                          @Nonnull final AtomicBoolean contended) {
+        final long start = System.nanoTime();
+        long delay = MIN_POLL_DELAY_MILLIS;
+        while (true) {
+            final Optional<Lease> lease = executeBlocking(provider.tryAcquire(key, ttl));
+            if (lease.isPresent()) {
+                if (contended.get()) {
+                    PAYMENT_LEASE_CONTENTIONS.labels(tenantName, "acquired").increment();
+                }
+                return lease.get();
+            }
+            contended.set(true);
+            if (handOff && executeBlocking(provider.requestHandOff(key))) {
+                PAYMENT_LEASE_CONTENTIONS.labels(tenantName, "handed_off").increment();
+                return null;
+            }
+            final long waited = NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (waited >= maxWait.toMillis()) {
+                PAYMENT_LEASE_CONTENTIONS.labels(tenantName, "timed_out").increment();
+                throw new LeaseUnavailableException(key, waited);
+            }
+            sleep(key, waited, min(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1),
+                    maxWait.toMillis() - waited));
+            delay = min(delay * 2, MAX_POLL_DELAY_MILLIS);
+        }
+    }
+
+    private <T> T runHolding(@Nonnull final LeaseProvider provider, @Nonnull final Lease lease,
+                             @Nonnull final Function<Boolean, T> action, final boolean contended) {
+        final ScheduledFuture<?> extension = scheduleExtension(provider, lease);
+        try {
+            Lease held = lease;
+            T result = runReleasingOnFailure(provider, held, action, contended);
+            try {
+                while (!executeBlocking(provider.release(held))) {
+                    // a contender handed its work off: do it once more on the current payment
+                    final Optional<Lease> renewed = executeBlocking(provider.renew(held, ttl));
+                    if (!renewed.isPresent()) {
+                        LOGGER.warn("The lease of payment [{}] expired while it was handled", held.getKey());
+                        return result;
+                    }
+                    held = renewed.get();
+                    result = runReleasingOnFailure(provider, held, action, true);
+                }
+            } catch (final CompletionException e) {
+                LOGGER.warn("Could not release the lease of payment [{}], it expires after [{}]", held.getKey(), ttl,
+                        e);
+            }
+            return result;
+        } finally {
+            extension.cancel(false);
+        }
+    }
+
+    /**
+     * Extends the lease every third of the TTL until the returned future is cancelled. Renewals keep the token of
+     * the lease, so extending the acquired lease also extends its renewals.
+     */
+    private ScheduledFuture<?> scheduleExtension(@Nonnull final LeaseProvider provider, @Nonnull final Lease lease) {
+        final long periodMillis = max(1, ttl.toMillis() / 3);
+        return RENEWAL_SCHEDULER.scheduleWithFixedDelay(() -> {
+            try {
+                provider.extend(lease, ttl).whenComplete((extended, throwable) -> {
+                    if (throwable != null) {
+                        LOGGER.warn("Could not extend the lease of payment [{}]", lease.getKey(), throwable);
+                    } else if (!extended.isPresent()) {
+                        LOGGER.warn("The lease of payment [{}] was lost while it was handled", lease.getKey());
+                    }
+                });
+            } catch (final RuntimeException e) {
+                LOGGER.warn("Could not extend the lease of payment [{}]", lease.getKey(), e);
+            }
+        }, periodMillis, periodMillis, MILLISECONDS);
+    }
+
+    private <T> T runReleasingOnFailure(@Nonnull final LeaseProvider provider, @Nonnull final Lease lease,
+                                        @Nonnull final Function<Boolean, T> action, final boolean mayHaveChanged) {
+        try {
+            return action.apply(mayHaveChanged);
+        } catch (final RuntimeException e) {
+            releaseQuietly(provider, lease);
+            throw e;
+        }
+    }
+
+    /**
+     * Releases the lease after a failed action, dropping a pending hand-off: the contender got an answer already and
+     * retries on its own. If the store fails, the lease expires after its TTL.
+     */
+    private void releaseQuietly(@Nonnull final LeaseProvider provider, @Nonnull final Lease lease) {
+        try {
+            if (!executeBlocking(provider.release(lease))) {
+                executeBlocking(provider.renew(lease, ttl))
+                        .ifPresent(renewed -> executeBlocking(provider.release(renewed)));
+            }
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Could not release the lease of payment [{}], it expires after [{}]", lease.getKey(), ttl, e);
+        }
+    }
+
+    private static void sleep(@Nonnull final String key, final long waited, final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LeaseUnavailableException(key, waited);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.commercetools.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free log-linear latency histogram in the spirit of HdrHistogram.
+ * <p>
+ * Values are recorded in microseconds. Every power of two range is split into {@value #SUB_BUCKET_COUNT} linear
+ * sub-buckets, so a reported quantile is never more than ~6% above the real value. Recording is a couple of atomic
+ * increments and never blocks, thus it is safe to use on request threads. Reading ({@link #snapshot()}) doesn't
+ * block the writers either, it may only miss values recorded concurrently.
+ * <p>
+ * Values above 2<sup>{@value #MAX_EXPONENT}</sup> microseconds (~12 days) are clamped to the last bucket.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+
+    static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param micros duration in microseconds. Negative values are recorded as 0.
+     */
+    public void record(final long micros) {
+        final long value = Math.max(0, micros);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public void recordNanos(final long nanos) {
+        record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, which is expected to be a {@link System#nanoTime()} value.
+     */
+    public void recordSince(final long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public Snapshot snapshot() {
+        final long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(counts, total, sum.sum(), max.get());
+    }
+
+    static int bucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the highest value which is still recorded into the bucket with {@code index}.
+     */
+    static long highestEquivalentValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        final long subBucket = SUB_BUCKET_COUNT + (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Point in time copy of the histogram counters.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(final long[] counts, final long count, final long sum, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return sum of all recorded values in microseconds
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        /**
+         * @return max recorded value in microseconds
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @param quantile value in range [0..1]
+         * @return the value in microseconds below which {@code quantile} of the recorded values fall,
+         * or 0 if nothing has been recorded yet.
+         */
+        public long getValueAtQuantile(final double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            final long rank = Math.max(1, (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * count));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return Math.min(highestEquivalentValue(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
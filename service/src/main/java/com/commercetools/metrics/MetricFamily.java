@@ -0,0 +1,98 @@
+package com.commercetools.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * A named metric with a fixed set of label names. Every distinct combination of label values has its own
+ * child metric (e.g. {@link Counter} or {@link LatencyHistogram}), which is created on first access.
+ *
+ * @param <T> type of the child metrics
+ */
+public final class MetricFamily<T> {
+
+    private final String name;
+    private final String help;
+    private final MetricType type;
+    private final List<String> labelNames;
+    private final Supplier<T> childFactory;
+    private final Map<List<String>, T> children = new ConcurrentHashMap<>();
+
+    MetricFamily(@Nonnull final String name,
+                 @Nonnull final String help,
+                 @Nonnull final MetricType type,
+                 @Nonnull final List<String> labelNames,
+                 @Nonnull final Supplier<T> childFactory) {
+        this.name = name;
+        this.help = help;
+        this.type = type;
+        this.labelNames = Collections.unmodifiableList(labelNames);
+        this.childFactory = childFactory;
+    }
+
+    /**
+     * Gets or creates the child metric for the given label values.
+     *
+     * @param labelValues values in the same order as the label names of this family. {@code null} values are
+     *                    exported as empty strings.
+     * @return the child metric, never null
+     * @throws IllegalArgumentException if the number of values doesn't match the number of label names
+     */
+    @Nonnull
+    public T labels(final String... labelValues) {
+        final List<String> key = toKey(labelValues);
+        // get() first: ConcurrentHashMap#computeIfAbsent locks the bin even if the value is present
+        final T child = children.get(key);
+        return child != null ? child : children.computeIfAbsent(key, k -> childFactory.get());
+    }
+
+    /**
+     * Sets the child metric for the given label values explicitly, replacing a previously registered one.
+     * Used for gauges, which are backed by a value supplier rather than by recorded values.
+     */
+    public void register(@Nonnull final T child, final String... labelValues) {
+        children.put(toKey(labelValues), child);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public MetricType getType() {
+        return type;
+    }
+
+    public List<String> getLabelNames() {
+        return labelNames;
+    }
+
+    /**
+     * @return unmodifiable live view of the children, keyed by label values
+     */
+    public Map<List<String>, T> getChildren() {
+        return Collections.unmodifiableMap(children);
+    }
+
+    private List<String> toKey(final String[] labelValues) {
+        if (labelValues.length != labelNames.size()) {
+            throw new IllegalArgumentException(format("Metric [%s] expects label values for %s, but %d values given",
+                    name, labelNames, labelValues.length));
+        }
+        final String[] values = new String[labelValues.length];
+        for (int i = 0; i < labelValues.length; i++) {
+            values[i] = labelValues[i] != null ? labelValues[i] : "";
+        }
+        return Arrays.asList(values);
+    }
+}
@@ -0,0 +1,20 @@
+package com.commercetools.metrics;
+
+/**
+ * Kinds of metrics supported by {@link MetricsRegistry}, named after their Prometheus counterparts.
+ */
+public enum MetricType {
+    COUNTER("counter"),
+    GAUGE("gauge"),
+    SUMMARY("summary");
+
+    private final String prometheusName;
+
+    MetricType(final String prometheusName) {
+        this.prometheusName = prometheusName;
+    }
+
+    public String getPrometheusName() {
+        return prometheusName;
+    }
+}
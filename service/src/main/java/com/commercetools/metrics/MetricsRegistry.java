@@ -0,0 +1,78 @@
+package com.commercetools.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Holds all metric families of the service. Use {@link #getDefault()} in production code, separate instances are
+ * useful only in tests.
+ * <p>
+ * Registering a family with a name which already exists returns the existing family, if type and label names
+ * match, thus the registration methods may be safely called from several places or several times.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private final Map<String, MetricFamily<?>> families = new ConcurrentSkipListMap<>();
+
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    public MetricFamily<Counter> counter(@Nonnull final String name,
+                                         @Nonnull final String help,
+                                         final String... labelNames) {
+        return register(name, help, MetricType.COUNTER, labelNames, Counter::new);
+    }
+
+    /**
+     * Latency histograms are exported as Prometheus summaries in seconds.
+     */
+    public MetricFamily<LatencyHistogram> histogram(@Nonnull final String name,
+                                                    @Nonnull final String help,
+                                                    final String... labelNames) {
+        return register(name, help, MetricType.SUMMARY, labelNames, LatencyHistogram::new);
+    }
+
+    /**
+     * Gauges are read on export only, the children should be set with {@link MetricFamily#register(Object, String...)}.
+     */
+    public MetricFamily<LongSupplier> gauge(@Nonnull final String name,
+                                            @Nonnull final String help,
+                                            final String... labelNames) {
+        return register(name, help, MetricType.GAUGE, labelNames, () -> () -> 0L);
+    }
+
+    /**
+     * @return families sorted by name
+     */
+    public Collection<MetricFamily<?>> getFamilies() {
+        return Collections.unmodifiableCollection(new ArrayList<>(families.values()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> MetricFamily<T> register(@Nonnull final String name,
+                                         @Nonnull final String help,
+                                         @Nonnull final MetricType type,
+                                         @Nonnull final String[] labelNames,
+                                         @Nonnull final Supplier<T> childFactory) {
+        final MetricFamily<?> family = families.computeIfAbsent(name,
+                key -> new MetricFamily<>(name, help, type, Arrays.asList(labelNames.clone()), childFactory));
+
+        if (family.getType() != type || !family.getLabelNames().equals(Arrays.asList(labelNames))) {
+            throw new IllegalArgumentException(format("Metric [%s] is already registered as %s with labels %s",
+                    name, family.getType(), family.getLabelNames()));
+        }
+        return (MetricFamily<T>) family;
+    }
+}
@@ -0,0 +1,133 @@
+package com.commercetools.metrics;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Renders a {@link MetricsRegistry} in the
+ * <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Prometheus text exposition format</a>
+ * version 0.0.4.
+ * <p>
+ * Rendering only reads the atomic counters of the metrics, so the request threads which record values are never
+ * blocked by a scrape.
+ */
+public final class PrometheusTextFormat {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final double MICROS_PER_SECOND = 1_000_000.0;
+
+    @Nonnull
+    public static String render(@Nonnull final MetricsRegistry registry) {
+        final StringBuilder out = new StringBuilder(4096);
+        for (final MetricFamily<?> family : registry.getFamilies()) {
+            if (family.getChildren().isEmpty()) {
+                continue;
+            }
+            out.append("# HELP ").append(family.getName()).append(' ').append(escapeHelp(family.getHelp())).append('\n');
+            out.append("# TYPE ").append(family.getName()).append(' ')
+                    .append(family.getType().getPrometheusName()).append('\n');
+
+            for (final Map.Entry<List<String>, ?> child : family.getChildren().entrySet()) {
+                renderChild(out, family, child.getKey(), child.getValue());
+            }
+        }
+        return out.toString();
+    }
+
+    private static void renderChild(@Nonnull final StringBuilder out,
+                                    @Nonnull final MetricFamily<?> family,
+                                    @Nonnull final List<String> labelValues,
+                                    @Nonnull final Object child) {
+        final String name = family.getName();
+        final List<String> labelNames = family.getLabelNames();
+        switch (family.getType()) {
+            case COUNTER:
+                sample(out, name, labelNames, labelValues, null, null, ((Counter) child).get());
+                break;
+            case GAUGE:
+                final long value;
+                try {
+                    value = ((LongSupplier) child).getAsLong();
+                } catch (final RuntimeException e) {
+                    // a failing gauge must not break the whole scrape
+                    return;
+                }
+                sample(out, name, labelNames, labelValues, null, null, value);
+                break;
+            case SUMMARY:
+                final LatencyHistogram.Snapshot snapshot = ((LatencyHistogram) child).snapshot();
+                for (final double quantile : QUANTILES) {
+                    sample(out, name, labelNames, labelValues, "quantile", Double.toString(quantile),
+                            snapshot.getValueAtQuantile(quantile) / MICROS_PER_SECOND);
+                }
+                sample(out, name + "_sum", labelNames, labelValues, null, null,
+                        snapshot.getSum() / MICROS_PER_SECOND);
+                sample(out, name + "_count", labelNames, labelValues, null, null, snapshot.getCount());
+                break;
+            default:
+                throw new IllegalStateException("Unsupported metric type " + family.getType());
+        }
+    }
+
+    private static void sample(@Nonnull final StringBuilder out,
+                               @Nonnull final String name,
+                               @Nonnull final List<String> labelNames,
+                               @Nonnull final List<String> labelValues,
+                               final String extraLabelName,
+                               final String extraLabelValue,
+                               final Number value) {
+        out.append(name);
+        if (!labelNames.isEmpty() || extraLabelName != null) {
+            out.append('{');
+            for (int i = 0; i < labelNames.size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendLabel(out, labelNames.get(i), labelValues.get(i));
+            }
+            if (extraLabelName != null) {
+                if (!labelNames.isEmpty()) {
+                    out.append(',');
+                }
+                appendLabel(out, extraLabelName, extraLabelValue);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static void appendLabel(@Nonnull final StringBuilder out,
+                                    @Nonnull final String name,
+                                    @Nonnull final String value) {
+        out.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static String escapeHelp(@Nonnull final String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private PrometheusTextFormat() {
+    }
+}
@@ -0,0 +1,197 @@
+package com.commercetools.metrics;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import javax.annotation.Nonnull;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Metrics exported by the service on {@code /metrics}. All families live in {@link MetricsRegistry#getDefault()}.
+ */
+public final class ServiceMetrics {
+
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.getDefault();
+
+    /**
+     * Full duration of handling a payment on the handle URL, including retries.
+     */
+    public static final MetricFamily<LatencyHistogram> HANDLE_PAYMENT_DURATION = REGISTRY.histogram(
+            "payone_handle_payment_duration_seconds",
+            "Duration of handling a commercetools payment on the handle URL, including retries",
+            "tenant", "method");
+
+    /**
+     * Summed duration of each phase of handling a payment, see {@link com.commercetools.tracing.TracePhase}.
+     */
+    public static final MetricFamily<LatencyHistogram> HANDLE_PHASE_DURATION = REGISTRY.histogram(
+            "payone_handle_phase_duration_seconds",
+            "Duration of the phases of handling a commercetools payment",
+            "tenant", "phase");
+
+    /**
+     * Duration of Payone server API POST requests.
+     */
+    public static final MetricFamily<LatencyHistogram> PAYONE_REQUEST_DURATION = REGISTRY.histogram(
+            "payone_api_request_duration_seconds",
+            "Duration of Payone server API POST requests",
+            "request", "status", "errorcode");
+
+    /**
+     * Duration of commercetools platform requests, including the retries of the sphere client.
+     */
+    public static final MetricFamily<LatencyHistogram> CTP_REQUEST_DURATION = REGISTRY.histogram(
+            "ctp_request_duration_seconds",
+            "Duration of commercetools platform requests",
+            "project", "command");
+
+    /**
+     * Duration of processing a Payone transaction status notification.
+     */
+    public static final MetricFamily<LatencyHistogram> NOTIFICATION_DURATION = REGISTRY.histogram(
+            "payone_notification_duration_seconds",
+            "Duration of processing a Payone transaction status notification",
+            "tenant", "txaction");
+
+    /**
+     * Retries caused by {@link java.util.ConcurrentModificationException} on payment updates.
+     */
+    public static final MetricFamily<Counter> CONCURRENT_MODIFICATION_RETRIES = REGISTRY.counter(
+            "ctp_concurrent_modification_retries_total",
+            "Retries caused by concurrent modifications of commercetools payments",
+            "tenant", "component");
+
+    /**
+     * Redelivered notifications which were not handled again, by the check which found them: {@code memory} (recently
+     * handled by the node) or {@code interaction} (already added to the payment), see
+     * {@link com.commercetools.pspadapter.payone.notification.NotificationDeduplicator}.
+     */
+    public static final MetricFamily<Counter> NOTIFICATION_DUPLICATES = REGISTRY.counter(
+            "payone_notification_duplicates_total",
+            "Redelivered Payone notifications answered without handling them again",
+            "tenant", "check");
+
+    /**
+     * Attempts of failed notifications by result: {@code scheduled}, {@code succeeded}, {@code failed},
+     * {@code dead_lettered}, {@code replayed} and {@code replay_failed}, see
+     * {@link com.commercetools.pspadapter.payone.notification.retry.NotificationRetryScheduler}.
+     */
+    public static final MetricFamily<Counter> NOTIFICATION_RETRIES = REGISTRY.counter(
+            "payone_notification_retries_total",
+            "Failed Payone notifications retried in the service",
+            "tenant", "result");
+
+    /**
+     * Payment updates which failed with a concurrent modification by result: {@code rebased} (the actions were sent
+     * again against the current version) and {@code conflict} (the caller starts over), see
+     * {@link com.commercetools.pspadapter.payone.domain.ctp.PaymentUpdateRebaser}.
+     */
+    public static final MetricFamily<Counter> PAYMENT_UPDATE_REBASES = REGISTRY.counter(
+            "ctp_payment_update_rebases_total",
+            "Payment updates rebased on the current payment version after a concurrent modification",
+            "result");
+
+    /**
+     * Hedges of idempotent commercetools reads by outcome: {@code sent}, {@code won} (the hedge answered first) and
+     * {@code budget_exhausted}, see {@link com.commercetools.service.HedgedReads}.
+     */
+    public static final MetricFamily<Counter> CTP_HEDGED_READS = REGISTRY.counter(
+            "ctp_hedged_reads_total",
+            "Hedges of slow commercetools reads",
+            "tenant", "outcome");
+
+    /**
+     * Requests which found the lease of their payment held by another request, by outcome, see
+     * {@link com.commercetools.lease.PaymentLeases}.
+     */
+    public static final MetricFamily<Counter> PAYMENT_LEASE_CONTENTIONS = REGISTRY.counter(
+            "payone_payment_lease_contentions_total",
+            "Requests which found the lease of their payment held by another request",
+            "tenant", "outcome");
+
+    /**
+     * Payments handed to the {@link com.commercetools.pspadapter.payone.PaymentCatchUpProcessor}, by result.
+     */
+    public static final MetricFamily<Counter> CATCH_UP_PAYMENTS = REGISTRY.counter(
+            "payone_catch_up_payments_total",
+            "Payments handled by the message-driven catch-up processor",
+            "tenant", "result");
+
+    public static final MetricFamily<LongSupplier> CATCH_UP_LAG = REGISTRY.gauge(
+            "payone_catch_up_lag_milliseconds",
+            "Age of the catch-up processor checkpoint",
+            "tenant");
+
+    public static final MetricFamily<LongSupplier> PAYONE_HTTP_POOL_CONNECTIONS = REGISTRY.gauge(
+            "payone_http_pool_connections",
+            "Connections of the Payone HTTP client pool by state",
+            "state");
+
+    public static final MetricFamily<LongSupplier> CTP_HTTP_CLIENT_CONNECTIONS = REGISTRY.gauge(
+            "ctp_http_client_connections",
+            "Connections of the commercetools platform HTTP client by state",
+            "project", "state");
+
+    /**
+     * Pings of {@link com.commercetools.health.ConnectionWarmer} by target, phase ({@code warm_up} or
+     * {@code keep_warm}) and result.
+     */
+    public static final MetricFamily<Counter> WARM_UP_REQUESTS = REGISTRY.counter(
+            "payone_warm_up_requests_total",
+            "Requests which open or keep connections to Payone and commercetools warm",
+            "target", "phase", "result");
+
+    /**
+     * Requests waiting for a thread of their {@link com.commercetools.util.spark.RequestLane}.
+     */
+    public static final MetricFamily<LongSupplier> SERVER_LANE_QUEUE_DEPTH = REGISTRY.gauge(
+            "payone_server_lane_queue_depth",
+            "Requests waiting for a thread of their lane",
+            "lane");
+
+    public static final MetricFamily<LongSupplier> SERVER_LANE_ACTIVE_THREADS = REGISTRY.gauge(
+            "payone_server_lane_active_threads",
+            "Threads of the lane executing a request",
+            "lane");
+
+    public static final MetricFamily<Counter> SERVER_LANE_REJECTED = REGISTRY.counter(
+            "payone_server_lane_rejected_total",
+            "Requests rejected with 503 because the queue of their lane was full",
+            "lane");
+
+    /**
+     * Log events dropped by {@link com.commercetools.util.logging.LogMode#HIGH_THROUGHPUT} logging, because the buffer
+     * was full or the message was repeated too often.
+     */
+    public static final MetricFamily<Counter> LOG_EVENTS_DROPPED = REGISTRY.counter(
+            "log_events_dropped_total",
+            "Log events dropped because the buffer was full or the message was repeated too often",
+            "level", "reason");
+
+    public static final MetricFamily<LongSupplier> LOG_BUFFER_EVENTS = REGISTRY.gauge(
+            "log_buffer_events",
+            "Log events waiting in the buffer of the appender",
+            "appender");
+
+    public static final String UNKNOWN_LABEL = "unknown";
+
+    /**
+     * Exports the current pool statistics of the Payone HTTP client.
+     */
+    public static void registerPayoneConnectionPool(@Nonnull final PoolingHttpClientConnectionManager connectionManager) {
+        registerPoolStat(connectionManager, "leased", PoolStats::getLeased);
+        registerPoolStat(connectionManager, "available", PoolStats::getAvailable);
+        registerPoolStat(connectionManager, "pending", PoolStats::getPending);
+        registerPoolStat(connectionManager, "max", PoolStats::getMax);
+    }
+
+    private static void registerPoolStat(@Nonnull final PoolingHttpClientConnectionManager connectionManager,
+                                         @Nonnull final String state,
+                                         @Nonnull final ToIntFunction<PoolStats> stat) {
+        PAYONE_HTTP_POOL_CONNECTIONS.register(() -> stat.applyAsInt(connectionManager.getTotalStats()), state);
+    }
+
+    private ServiceMetrics() {
+    }
+}
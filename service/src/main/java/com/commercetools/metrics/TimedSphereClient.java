@@ -0,0 +1,65 @@
+package com.commercetools.metrics;
+
+import io.sphere.sdk.client.HttpRequestIntent;
+import io.sphere.sdk.client.SphereApiConfig;
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.client.SphereClientDecorator;
+import io.sphere.sdk.client.SphereRequest;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletionStage;
+
+import static com.commercetools.metrics.ServiceMetrics.CTP_REQUEST_DURATION;
+
+/**
+ * Records the duration of every request executed by the decorated client into
+ * {@link ServiceMetrics#CTP_REQUEST_DURATION}.
+ * <p>
+ * The requests are often wrapped (e.g. by
+ * {@link io.sphere.sdk.client.correlationid.CorrelationIdRequestDecorator}), so the command label is derived from the
+ * HTTP intent instead of the request class, for instance {@code payments.update} for {@code POST /payments/{id}}
+ * or {@code orders.query} for {@code GET /orders?where=...}.
+ */
+public class TimedSphereClient extends SphereClientDecorator {
+
+    private final SphereClient delegate;
+    private final String projectKey;
+
+    public TimedSphereClient(@Nonnull final SphereClient delegate, @Nonnull final String projectKey) {
+        super(delegate);
+        this.delegate = delegate;
+        this.projectKey = projectKey;
+    }
+
+    @Override
+    public SphereApiConfig getConfig() {
+        return delegate.getConfig();
+    }
+
+    @Override
+    public <T> CompletionStage<T> execute(final SphereRequest<T> sphereRequest) {
+        final long start = System.nanoTime();
+        final LatencyHistogram histogram = CTP_REQUEST_DURATION.labels(projectKey, commandName(sphereRequest));
+        return super.execute(sphereRequest)
+                .whenComplete((result, throwable) -> histogram.recordSince(start));
+    }
+
+    static String commandName(@Nonnull final SphereRequest<?> sphereRequest) {
+        final HttpRequestIntent intent = sphereRequest.httpRequestIntent();
+        final String[] segments = StringUtils.split(StringUtils.substringBefore(intent.getPath(), "?"), '/');
+        final String resource = segments.length > 0 ? segments[0] : "project";
+        final boolean singleResource = segments.length > 1;
+
+        switch (intent.getHttpMethod()) {
+            case GET:
+                return resource + (singleResource ? ".get" : ".query");
+            case POST:
+                return resource + (singleResource ? ".update" : ".create");
+            case DELETE:
+                return resource + ".delete";
+            default:
+                return resource + "." + StringUtils.lowerCase(intent.getHttpMethod().name());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.commercetools.payments;
 
 import io.sphere.sdk.payments.Transaction;
+import io.sphere.sdk.payments.TransactionState;
 
 import javax.annotation.Nonnull;
 
@@ -29,4 +30,13 @@ public interface TransactionStateResolver {
      * @return <b>true</b> if the transaction is in pending or initial state.
      */
     boolean isNotCompletedTransaction(@Nonnull Transaction transaction);
+
+    /**
+     * Same as {@link #isNotCompletedTransaction(Transaction)} for a state the transaction is going to have, like the
+     * state of a not yet executed {@link io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState}.
+     *
+     * @param state transaction state to verify
+     * @return <b>true</b> if the state is pending or initial.
+     */
+    boolean isNotCompletedState(@Nonnull TransactionState state);
 }
@@ -1,6 +1,7 @@
 package com.commercetools.payments;
 
 import io.sphere.sdk.payments.Transaction;
+import io.sphere.sdk.payments.TransactionState;
 
 import javax.annotation.Nonnull;
 
@@ -14,6 +15,14 @@ public class TransactionStateResolverImpl implements TransactionStateResolver {
      */
     @Override
     public boolean isNotCompletedTransaction(@Nonnull final Transaction transaction) {
-        return transaction.getState() == INITIAL || transaction.getState() == PENDING;
+        return isNotCompletedState(transaction.getState());
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public boolean isNotCompletedState(@Nonnull final TransactionState state) {
+        return state == INITIAL || state == PENDING;
     }
 }
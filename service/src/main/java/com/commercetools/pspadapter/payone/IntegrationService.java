@@ -1,33 +1,70 @@
 package com.commercetools.pspadapter.payone;
 
+import com.commercetools.health.ConnectionPoolProbe;
+import com.commercetools.health.ConnectionWarmer;
+import com.commercetools.health.CtpProjectProbe;
+import com.commercetools.health.HealthCheckService;
+import com.commercetools.health.HealthProbe;
+import com.commercetools.health.PayoneEndpointProbe;
+import com.commercetools.health.ServerQueueProbe;
+import com.commercetools.metrics.MetricsRegistry;
+import com.commercetools.metrics.PrometheusTextFormat;
 import com.commercetools.pspadapter.payone.config.PayoneConfig;
 import com.commercetools.pspadapter.payone.config.PropertyProvider;
 import com.commercetools.pspadapter.payone.config.ServiceConfig;
+import com.commercetools.pspadapter.payone.domain.payone.PayonePostServiceImpl;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
-import com.commercetools.pspadapter.payone.notification.NotificationDispatcher;
+import com.commercetools.pspadapter.payone.notification.retry.DeadLetterStore;
+import com.commercetools.pspadapter.payone.notification.retry.FailedNotification;
+import com.commercetools.pspadapter.payone.notification.retry.NotificationRetryScheduler;
 import com.commercetools.pspadapter.tenant.TenantConfig;
 import com.commercetools.pspadapter.tenant.TenantFactory;
 import com.commercetools.pspadapter.tenant.TenantPropertyProvider;
+import com.commercetools.pspadapter.tenant.TenantRouter;
+import com.commercetools.util.spark.JettyServerWithRequestLogFactory;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sphere.sdk.projects.queries.ProjectGet;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.entity.ContentType;
 import org.eclipse.jetty.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import spark.Request;
+import spark.Response;
 import spark.Spark;
 import spark.utils.CollectionUtils;
 
 import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static com.commercetools.pspadapter.payone.util.PayoneConstants.PAYONE;
+import static com.commercetools.pspadapter.tenant.TenantRouter.NOTIFICATION_ROUTE;
+import static com.commercetools.pspadapter.tenant.TenantRouter.PAYMENT_HANDLER_ROUTE;
+import static com.commercetools.pspadapter.tenant.TenantRouter.SHARED_NOTIFICATION_ROUTE;
+import static com.commercetools.pspadapter.tenant.TenantRouter.TENANT_PARAM;
 import static com.commercetools.util.CorrelationIdUtil.attachFromRequestOrGenerateNew;
 import static io.sphere.sdk.json.SphereJsonUtils.toJsonString;
 import static io.sphere.sdk.json.SphereJsonUtils.toPrettyJsonString;
+import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 /**
  * @author fhaertig
@@ -39,11 +76,18 @@ public class IntegrationService {
     static final int SUCCESS_STATUS = HttpStatus.OK_200;
     private static final String STATUS_KEY = "status";
     private static final String APPLICATION_INFO_KEY = "applicationInfo";
+    private static final String LIVE_RESPONSE = "{\"status\":" + HttpStatus.OK_200 + "}";
+    private static final String NOT_LIVE_RESPONSE = "{\"status\":" + HttpStatus.SERVICE_UNAVAILABLE_503 + "}";
+    private static final String DEAD_LETTERS_ROUTE = "/admin/notifications/dead-letters";
 
 
     private static final String HEROKU_ASSIGNED_PORT = "PORT";
     private List<TenantFactory> tenantFactories = null;
     private ServiceConfig serviceConfig = null;
+    private HealthCheckService healthCheckService = null;
+    private ConnectionWarmer connectionWarmer = null;
+    private TenantRouter tenantRouter = null;
+    private NotificationRetryScheduler notificationRetryScheduler = null;
 
     /**
      * This constructor is only used for testing proposes
@@ -76,50 +120,90 @@ public class IntegrationService {
         if (tenantFactory.getCustomTypeBuilder() != null) {
             tenantFactory.getCustomTypeBuilder().run();
         }
-        PaymentHandler paymentHandler = tenantFactory.getPaymentHandler();
-        NotificationDispatcher notificationDispatcher = tenantFactory.getNotificationDispatcher();
-
-        // register payment handler URL
-        String paymentHandlerUrl = tenantFactory.getPaymentHandlerUrl();
-        if (StringUtils.isNotEmpty(paymentHandlerUrl)) {
-            LOG.info("Register payment handler URL {}", paymentHandlerUrl);
-            Spark.get(paymentHandlerUrl, (req, res) -> {
-                    final PaymentHandleResult paymentHandleResult = paymentHandler.handlePayment(req.params("id"));
-                    if (!paymentHandleResult.body().isEmpty()) {
-                        LOG.debug("--> Result body of ${getTenantName()}/commercetools/handle/payments/{}: {}",
-                            req.params("id"), paymentHandleResult.body());
-                    }
-                    res.status(paymentHandleResult.statusCode());
+    }
+
+    /**
+     * Registers one parameterized route per endpoint, the tenant is resolved by {@link TenantRouter} in constant
+     * time. Spark matches the routes one by one, so per tenant routes made routing cost grow with the tenants.
+     */
+    private void initTenantRoutes() {
+        LOG.info("Register payment handler URL {}", PAYMENT_HANDLER_ROUTE);
+        Spark.get(PAYMENT_HANDLER_ROUTE, (req, res) -> {
+                final Optional<TenantFactory> tenantFactory = tenantRouter.getTenant(req.params(TENANT_PARAM));
+                if (!tenantFactory.isPresent()) {
+                    res.status(HttpStatus.NOT_FOUND_404);
                     return res;
-                },
-                new HandlePaymentResponseTransformer());
-        }
-        // register Payone notifications URL
-        String payoneNotificationUrl = tenantFactory.getPayoneNotificationUrl();
-        if (StringUtils.isNotEmpty(payoneNotificationUrl)) {
-            LOG.info("Register payone notification URL {}", payoneNotificationUrl);
-            Spark.post(payoneNotificationUrl, (req, res) -> {
-                LOG.debug("<- Received POST from Payone: {}", req.body());
+                }
+                final PaymentHandleResult paymentHandleResult =
+                        tenantFactory.get().getPaymentHandler().handlePayment(req.params("id"));
+                if (!paymentHandleResult.body().isEmpty()) {
+                    LOG.debug("--> Result body of {}/commercetools/handle/payments/{}: {}",
+                        tenantFactory.get().getTenantName(), req.params("id"), paymentHandleResult.body());
+                }
+                res.status(paymentHandleResult.statusCode());
+                return res;
+            },
+            new HandlePaymentResponseTransformer());
+
+        LOG.info("Register payone notification URLs {} and {}", NOTIFICATION_ROUTE, SHARED_NOTIFICATION_ROUTE);
+        Spark.post(NOTIFICATION_ROUTE, (req, res) -> {
+            final Optional<TenantFactory> tenantFactory = tenantRouter.getTenant(req.params(TENANT_PARAM));
+            if (!tenantFactory.isPresent()) {
+                res.status(HttpStatus.NOT_FOUND_404);
+                return "Unknown tenant " + req.params(TENANT_PARAM);
+            }
+            return dispatchNotification(req, res, notification -> tenantFactory);
+        });
+        Spark.post(SHARED_NOTIFICATION_ROUTE, (req, res) ->
+                dispatchNotification(req, res, tenantRouter::getTenantForNotification));
+    }
+
+    /**
+     * @param tenantResolver finds the tenant of the parsed notification
+     */
+    private String dispatchNotification(final Request req, final Response res,
+                                        final Function<Notification, Optional<TenantFactory>> tenantResolver) {
+        LOG.debug("<- Received POST from Payone: {}", req.body());
+        Notification notification = null;
+        TenantFactory tenantFactory = null;
+        try {
+            notification = Notification.fromKeyValueString(req.body(), Notification.KEY_VALUE_SEPARATOR_PATTERN);
+            final Notification parsedNotification = notification;
+            tenantFactory = tenantResolver.apply(notification)
+                    .orElseThrow(() -> new IllegalArgumentException(format("No single tenant is configured for "
+                            + "portalid [%s] and aid [%s]", parsedNotification.getPortalid(),
+                            parsedNotification.getAid())));
+            tenantFactory.getNotificationDispatcher().dispatchNotification(notification);
+        } catch (Exception e) {
+            if (notificationRetryScheduler != null && tenantFactory != null
+                    && NotificationRetryScheduler.isRetriable(e)) {
                 try {
-                    final Notification notification = Notification.fromKeyValueString(req.body(), "\r?\n?&");
-                    notificationDispatcher.dispatchNotification(notification);
-                } catch (Exception e) {
-                    // Potential issues for this exception are:
-                    // 1. req.body is mal-formed hence can't by parsed by Notification.fromKeyValueString
-                    // 2. Invalid access secret values in the request (account id, key, portal id etc)
-                    // 3. ConcurrentModificationException in case the respective payment could not be updated
-                    //    after two attempts due to concurrent modifications; a later retry might be successful
-                    // 4. Execution timeout, if sphere client has not responded in time
-                    // 5. unknown notification type
-                    // Any other unexpected error.
-                    LOG.error("Payone notification handling error. Request body: {}", req.body(), e);
-                    res.status(400);
-                    return "Payone notification handling error. See the logs. Requested body: " + req.body();
+                    notificationRetryScheduler.submit(tenantFactory.getTenantName(), req.body(), notification, e);
+                    // Payone must not redeliver it, the service retries it
+                    LOG.warn("Payone notification handling error, the notification is retried later. "
+                            + "Request body: {}", req.body(), e);
+                    res.status(200);
+                    return "TSOK";
+                } catch (RuntimeException submitError) {
+                    e.addSuppressed(submitError);
                 }
-                res.status(200);
-                return "TSOK";
-            });
+            }
+            // Potential issues for this exception are:
+            // 1. req.body is mal-formed hence can't by parsed by Notification.fromKeyValueString
+            // 2. Invalid access secret values in the request (account id, key, portal id etc)
+            // 3. ConcurrentModificationException in case the respective payment could not be updated
+            //    after two attempts due to concurrent modifications; a later retry might be successful
+            // 4. Execution timeout, if sphere client has not responded in time
+            // 5. unknown notification type
+            // 6. no tenant, or more than one, for the Payone account on the shared notification URL
+            // Any other unexpected error.
+            // Recoverable errors are retried by the service instead, if NOTIFICATION_RETRY_MAX_ATTEMPTS is set.
+            LOG.error("Payone notification handling error. Request body: {}", req.body(), e);
+            res.status(400);
+            return "Payone notification handling error. See the logs. Requested body: " + req.body();
         }
+        res.status(200);
+        return "TSOK";
     }
 
     /**
@@ -130,13 +214,33 @@ public class IntegrationService {
     }
 
     public void start() {
+        healthCheckService = createHealthCheckService();
+        tenantRouter = new TenantRouter(tenantFactories);
+        notificationRetryScheduler = createNotificationRetryScheduler();
         initSparkService();
 
         for (TenantFactory tenantFactory : tenantFactories) {
             initTenantServiceResources(tenantFactory);
         }
+        initTenantRoutes();
+        initAdminRoutes();
 
         Spark.awaitInitialization();
+
+        // the node is not ready before the first health probes run, so it gets traffic only after the warm-up
+        connectionWarmer = createConnectionWarmer();
+        connectionWarmer.warmUp();
+        connectionWarmer.start();
+        healthCheckService.start();
+
+        for (TenantFactory tenantFactory : tenantFactories) {
+            if (tenantFactory.getPaymentCatchUpProcessor() != null) {
+                tenantFactory.getPaymentCatchUpProcessor().start();
+            }
+        }
+        if (notificationRetryScheduler != null) {
+            notificationRetryScheduler.start();
+        }
     }
 
     private void initSparkService() {
@@ -147,11 +251,8 @@ public class IntegrationService {
         final String healthRequestContent = toJsonString(healthResponse);
         final String healthRequestPrettyContent = toPrettyJsonString(healthResponse);
 
-        // This is a temporary jerry-rig for the load balancer to check connection with the service itself.
-        // For now it just returns a JSON response with status code, tenants list and static application info.
-        // It should be expanded to a more real health-checker service, which really performs PAYONE status check.
-        // But don't forget, a load balancer may call this URL very often (like 1 per sec),
-        // so don't make this request processor heavy, or implement is as independent background service.
+        // Static application info, kept for backward compatibility.
+        // Load balancers should use /health/ready, which reflects the background probes of HealthCheckService.
         LOG.info("Register /health URL");
         LOG.info("Use /health?pretty to pretty-print output JSON");
         Spark.get("/health", (req, res) -> {
@@ -159,6 +260,28 @@ public class IntegrationService {
             res.type(ContentType.APPLICATION_JSON.getMimeType());
             return req.queryParams("pretty") != null ? healthRequestPrettyContent : healthRequestContent;
         });
+
+        // Both handlers only read the result of the last background probes run, see HealthCheckService
+        LOG.info("Register /health/live and /health/ready URLs");
+        Spark.get("/health/live", (req, res) -> {
+            final boolean alive = healthCheckService.isAlive();
+            res.status(alive ? SUCCESS_STATUS : HttpStatus.SERVICE_UNAVAILABLE_503);
+            res.type(ContentType.APPLICATION_JSON.getMimeType());
+            return alive ? LIVE_RESPONSE : NOT_LIVE_RESPONSE;
+        });
+        Spark.get("/health/ready", (req, res) -> {
+            final HealthCheckService.HealthSnapshot snapshot = healthCheckService.getSnapshot();
+            res.status(snapshot.isReady() ? SUCCESS_STATUS : HttpStatus.SERVICE_UNAVAILABLE_503);
+            res.type(ContentType.APPLICATION_JSON.getMimeType());
+            return snapshot.getJson();
+        });
+
+        LOG.info("Register /metrics URL");
+        Spark.get("/metrics", (req, res) -> {
+            res.status(SUCCESS_STATUS);
+            res.type(PrometheusTextFormat.CONTENT_TYPE);
+            return PrometheusTextFormat.render(MetricsRegistry.getDefault());
+        });
     }
 
     private void injectCorrelationIdIntoContext() {
@@ -167,6 +290,20 @@ public class IntegrationService {
     }
 
     public void stop() {
+        for (TenantFactory tenantFactory : tenantFactories) {
+            if (tenantFactory.getPaymentCatchUpProcessor() != null) {
+                tenantFactory.getPaymentCatchUpProcessor().stop();
+            }
+        }
+        if (healthCheckService != null) {
+            healthCheckService.stop();
+        }
+        if (connectionWarmer != null) {
+            connectionWarmer.stop();
+        }
+        if (notificationRetryScheduler != null) {
+            notificationRetryScheduler.stop();
+        }
         Spark.stop();
     }
 
@@ -180,6 +317,167 @@ public class IntegrationService {
         return Integer.parseInt(systemProperty);
     }
 
+    /**
+     * Registers the {@code /admin/notifications/*} routes to list, inspect and replay failed notifications, if both
+     * {@code ADMIN_API_TOKEN} and the notification retries are configured. Every request must send the token as
+     * {@code Authorization: Bearer <token>}.
+     */
+    private void initAdminRoutes() {
+        final Optional<String> adminApiToken = serviceConfig.getAdminApiToken();
+        if (!adminApiToken.isPresent() || notificationRetryScheduler == null) {
+            return;
+        }
+        final byte[] expectedAuthorization = ("Bearer " + adminApiToken.get()).getBytes(StandardCharsets.UTF_8);
+        // not "/admin/*", which would also match the notification URL of a tenant named "admin"
+        Spark.before("/admin/notifications/*", (req, res) -> {
+            final String authorization = req.headers("Authorization");
+            // constant time comparison, so the token can't be guessed from the response times
+            if (authorization == null
+                    || !MessageDigest.isEqual(expectedAuthorization, authorization.getBytes(StandardCharsets.UTF_8))) {
+                Spark.halt(HttpStatus.UNAUTHORIZED_401, "Unauthorized");
+            }
+        });
+
+        LOG.info("Register {}, {} and {} URLs", DEAD_LETTERS_ROUTE, DEAD_LETTERS_ROUTE + "/:id",
+                DEAD_LETTERS_ROUTE + "/replay");
+        Spark.get(DEAD_LETTERS_ROUTE, (req, res) -> {
+            final ArrayNode notifications = JsonNodeFactory.instance.arrayNode();
+            notificationRetryScheduler.find(deadLetterFilter(req, res))
+                    .forEach(notification -> notifications.add(notification.toJson(false)));
+            res.type(ContentType.APPLICATION_JSON.getMimeType());
+            return toJsonString(notifications);
+        });
+        Spark.get(DEAD_LETTERS_ROUTE + "/:id", (req, res) -> {
+            final Optional<FailedNotification> notification = notificationRetryScheduler.find(req.params("id"));
+            res.type(ContentType.APPLICATION_JSON.getMimeType());
+            if (!notification.isPresent()) {
+                res.status(HttpStatus.NOT_FOUND_404);
+                return "{}";
+            }
+            return toJsonString(notification.get().toJson(true));
+        });
+        Spark.post(DEAD_LETTERS_ROUTE + "/replay", (req, res) -> {
+            // the ids of the body, or all dead letters matching the query parameters
+            final Set<String> ids = Arrays.stream(StringUtils.defaultString(req.body()).split("[\\s,;]+"))
+                    .filter(StringUtils::isNotBlank)
+                    .collect(toSet());
+            final Predicate<FailedNotification> filter = deadLetterFilter(req, res)
+                    .and(notification -> ids.isEmpty() || ids.contains(notification.getId()));
+            final List<String> queued = notificationRetryScheduler.replay(notificationRetryScheduler.find(filter));
+
+            final ObjectNode response = JsonNodeFactory.instance.objectNode();
+            queued.forEach(response.putArray("queued")::add);
+            res.status(HttpStatus.ACCEPTED_202);
+            res.type(ContentType.APPLICATION_JSON.getMimeType());
+            return toJsonString(response);
+        });
+    }
+
+    /**
+     * Halts the request with {@code 400} and the allowed states if the {@code state} query parameter is unknown.
+     *
+     * @return filter of the optional {@code state} (default {@code DEAD}) and {@code tenant} query parameters
+     */
+    private static Predicate<FailedNotification> deadLetterFilter(final Request req, final Response res) {
+        final String stateParam = req.queryParams("state");
+        final FailedNotification.State state = stateParam == null
+                ? FailedNotification.State.DEAD
+                : Arrays.stream(FailedNotification.State.values())
+                        .filter(value -> value.name().equalsIgnoreCase(stateParam.trim()))
+                        .findFirst()
+                        .orElse(null);
+        if (state == null) {
+            final ObjectNode error = JsonNodeFactory.instance.objectNode();
+            error.put("message", "Unknown state [" + stateParam + "], allowed states are "
+                    + Arrays.toString(FailedNotification.State.values()));
+            res.type(ContentType.APPLICATION_JSON.getMimeType());
+            Spark.halt(HttpStatus.BAD_REQUEST_400, toJsonString(error));
+        }
+        final String tenant = req.queryParams("tenant");
+        return notification -> notification.getState() == state
+                && (tenant == null || tenant.equals(notification.getTenantName()));
+    }
+
+    /**
+     * @return the scheduler, <b>null</b> if {@code NOTIFICATION_RETRY_MAX_ATTEMPTS} is not set and failed
+     * notifications are redelivered by Payone
+     */
+    private NotificationRetryScheduler createNotificationRetryScheduler() {
+        if (serviceConfig.getNotificationRetryMaxAttempts() <= 0) {
+            return null;
+        }
+        final Path directory = Paths.get(serviceConfig.getNotificationDeadLetterDirectory());
+        LOG.info("Retry failed notifications up to {} times, dead letters are kept in {}",
+                serviceConfig.getNotificationRetryMaxAttempts(), directory.toAbsolutePath());
+        return new NotificationRetryScheduler(new DeadLetterStore(directory),
+                tenantName -> tenantRouter.getTenant(tenantName).map(TenantFactory::getNotificationDispatcher),
+                serviceConfig.getNotificationRetryMaxAttempts(),
+                serviceConfig.getNotificationRetryInitialDelayMillis(),
+                serviceConfig.getNotificationRetryMaxDelayMillis(),
+                serviceConfig.getNotificationRetryParallelism());
+    }
+
+    private HealthCheckService createHealthCheckService() {
+        final boolean dependenciesCritical = serviceConfig.isHealthReadyRequiresDependencies();
+        final List<HealthProbe> probes = new ArrayList<>();
+        probes.add(new ConnectionPoolProbe(PayonePostServiceImpl::getConnectionPoolStats,
+                serviceConfig.getHealthMaxPoolSaturation()));
+        probes.add(new ServerQueueProbe(JettyServerWithRequestLogFactory::getServerThreadPool,
+                JettyServerWithRequestLogFactory::getServerLanes, serviceConfig.getHealthMaxQueueDepth()));
+
+        for (final TenantFactory tenantFactory : tenantFactories) {
+            if (tenantFactory.getBlockingSphereClient() != null) {
+                probes.add(new CtpProjectProbe(tenantFactory.getTenantName(), tenantFactory.getBlockingSphereClient(),
+                        dependenciesCritical));
+            }
+        }
+        getPayoneApiUrls().forEach(apiUrl -> probes.add(new PayoneEndpointProbe(apiUrl, dependenciesCritical)));
+
+        return new HealthCheckService(probes, serviceConfig.getHealthProbeIntervalMillis(),
+                serviceConfig.getHealthProbeTimeoutMillis());
+    }
+
+    /**
+     * Payone connections are opened by parallel HEAD requests, which are no API calls. All tenants share the Payone
+     * connection pool, so a keep-warm run, if enabled, only opens the connections which are not in use.
+     * The commercetools projects are read once, which fetches the OAuth token and opens a connection; the SDK
+     * refreshes the token itself.
+     */
+    private ConnectionWarmer createConnectionWarmer() {
+        final List<ConnectionWarmer.Target> targets = new ArrayList<>();
+        final int payoneConnections = serviceConfig.getWarmUpPayoneConnections();
+        if (payoneConnections > 0) {
+            for (final String apiUrl : getPayoneApiUrls()) {
+                targets.add(new ConnectionWarmer.Target("payone:" + apiUrl,
+                        () -> Math.max(0, payoneConnections - PayonePostServiceImpl.getConnectionPoolStats().getLeased()),
+                        () -> PayonePostServiceImpl.executeHeadRequest(apiUrl),
+                        true));
+            }
+        }
+        for (final TenantFactory tenantFactory : tenantFactories) {
+            if (tenantFactory.getBlockingSphereClient() != null) {
+                targets.add(new ConnectionWarmer.Target("ctp:" + tenantFactory.getTenantName(), () -> 1,
+                        () -> tenantFactory.getBlockingSphereClient().executeBlocking(ProjectGet.of()),
+                        false));
+            }
+        }
+        return new ConnectionWarmer(targets, serviceConfig.getKeepWarmIntervalMillis(),
+                serviceConfig.getWarmUpTimeoutMillis());
+    }
+
+    /**
+     * @return distinct Payone API URLs of the tenants, they usually share the same one
+     */
+    private Set<String> getPayoneApiUrls() {
+        final Set<String> payoneApiUrls = new LinkedHashSet<>();
+        for (final TenantFactory tenantFactory : tenantFactories) {
+            if (tenantFactory.getTenantConfig() != null) {
+                payoneApiUrls.add(tenantFactory.getTenantConfig().getPayoneConfig().getApiUrl());
+            }
+        }
+        return payoneApiUrls;
+    }
+
     private Map<String, Object> createHealthResponse(@Nonnull final ServiceConfig serviceConfig) {
         final Map<String, String> applicationInfo = new LinkedHashMap<>();
         applicationInfo.put("version", serviceConfig.getApplicationVersion());
@@ -0,0 +1,239 @@
+package com.commercetools.pspadapter.payone;
+
+import com.commercetools.payments.TransactionStateResolver;
+import com.commercetools.pspadapter.payone.domain.ctp.CommercetoolsQueryExecutor;
+import com.commercetools.service.CheckpointService;
+import io.sphere.sdk.http.HttpStatusCode;
+import io.sphere.sdk.payments.Payment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.commercetools.metrics.ServiceMetrics.CATCH_UP_LAG;
+import static com.commercetools.metrics.ServiceMetrics.CATCH_UP_PAYMENTS;
+
+/**
+ * Handles the payments of a tenant from the {@code PaymentTransactionAdded} messages, as an alternative to the shop
+ * calling the handle URL. Payments whose trigger was missed are processed without manual work.
+ * <p>
+ * Every run reads the messages created between the stored checkpoint and {@code now - delay}. The delay gives the
+ * synchronous trigger, if the shop still uses it, time to process the payment first. Payments of another payment
+ * interface or without unprocessed transactions are skipped, the rest is handed to the {@link PaymentHandler} with at
+ * most {@code parallelism} payments in flight, so the message paging waits for the handlers instead of buffering.
+ * <p>
+ * The checkpoint is saved when all the payments of the window were handled. Otherwise the window is read again in the
+ * next run, at most {@value #MAX_WINDOW_ATTEMPTS} times. Handling a payment twice is safe, the transaction executors
+ * only process transactions which are not completed yet.
+ */
+public class PaymentCatchUpProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentCatchUpProcessor.class);
+
+    static final int MAX_WINDOW_ATTEMPTS = 3;
+
+    private final String tenantName;
+    private final String payoneInterfaceName;
+    private final CommercetoolsQueryExecutor commercetoolsQueryExecutor;
+    private final PaymentHandler paymentHandler;
+    private final TransactionStateResolver transactionStateResolver;
+    private final CheckpointService checkpointService;
+    private final String checkpointKey;
+
+    private final long intervalMillis;
+    private final long delayMillis;
+    private final int parallelism;
+    private final Clock clock;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService handlerExecutor;
+
+    private volatile ZonedDateTime checkpoint;
+    private int failedAttempts;
+
+    /**
+     * @param intervalMillis delay between two runs
+     * @param delayMillis    age of the newest message a run reads
+     * @param parallelism    payments handled concurrently
+     */
+    public PaymentCatchUpProcessor(@Nonnull final String tenantName,
+                                   @Nonnull final String payoneInterfaceName,
+                                   @Nonnull final CommercetoolsQueryExecutor commercetoolsQueryExecutor,
+                                   @Nonnull final PaymentHandler paymentHandler,
+                                   @Nonnull final TransactionStateResolver transactionStateResolver,
+                                   @Nonnull final CheckpointService checkpointService,
+                                   final long intervalMillis, final long delayMillis, final int parallelism) {
+        this(tenantName, payoneInterfaceName, commercetoolsQueryExecutor, paymentHandler, transactionStateResolver,
+                checkpointService, intervalMillis, delayMillis, parallelism, Clock.systemUTC());
+    }
+
+    PaymentCatchUpProcessor(@Nonnull final String tenantName,
+                            @Nonnull final String payoneInterfaceName,
+                            @Nonnull final CommercetoolsQueryExecutor commercetoolsQueryExecutor,
+                            @Nonnull final PaymentHandler paymentHandler,
+                            @Nonnull final TransactionStateResolver transactionStateResolver,
+                            @Nonnull final CheckpointService checkpointService,
+                            final long intervalMillis, final long delayMillis, final int parallelism,
+                            @Nonnull final Clock clock) {
+        if (intervalMillis <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Catch-up interval and parallelism must be positive");
+        }
+        this.tenantName = tenantName;
+        this.payoneInterfaceName = payoneInterfaceName;
+        this.commercetoolsQueryExecutor = commercetoolsQueryExecutor;
+        this.paymentHandler = paymentHandler;
+        this.transactionStateResolver = transactionStateResolver;
+        this.checkpointService = checkpointService;
+        this.checkpointKey = "payment-catch-up-" + tenantName;
+        this.intervalMillis = intervalMillis;
+        this.delayMillis = Math.max(0, delayMillis);
+        this.parallelism = parallelism;
+        this.clock = clock;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("catch-up-" + tenantName));
+        this.handlerExecutor = Executors.newFixedThreadPool(parallelism,
+                daemonThreadFactory("catch-up-handler-" + tenantName));
+    }
+
+    public void start() {
+        LOG.info("Start payment catch-up of tenant [{}] every {} ms, delayed by {} ms", tenantName, intervalMillis,
+                delayMillis);
+        CATCH_UP_LAG.register(this::getLagMillis, tenantName);
+        scheduler.scheduleWithFixedDelay(this::runSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+        handlerExecutor.shutdownNow();
+    }
+
+    /**
+     * @return milliseconds between the checkpoint and now, 0 before the checkpoint is known
+     */
+    public long getLagMillis() {
+        final ZonedDateTime current = checkpoint;
+        return current != null ? Math.max(0, clock.millis() - current.toInstant().toEpochMilli()) : 0;
+    }
+
+    private void runSafely() {
+        try {
+            runOnce();
+        } catch (final RuntimeException e) {
+            // never let an exception cancel the periodic task, the window is read again in the next run
+            LOG.error("Payment catch-up of tenant [{}] failed", tenantName, e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Handles the payments of one window of messages.
+     *
+     * @return number of handed over payments
+     */
+    int runOnce() throws InterruptedException {
+        final ZonedDateTime until = ZonedDateTime.now(clock).minusNanos(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+        if (checkpoint == null) {
+            // first run starts now, older payments were expected to be triggered by the shop
+            checkpoint = checkpointService.getCheckpoint(checkpointKey).toCompletableFuture().join().orElse(until);
+        }
+        final ZonedDateTime since = checkpoint;
+        if (!since.isBefore(until)) {
+            return 0;
+        }
+
+        final Semaphore inFlight = new Semaphore(parallelism);
+        final AtomicInteger failed = new AtomicInteger();
+        final Set<String> paymentIds = new HashSet<>();
+        try {
+            commercetoolsQueryExecutor.consumePaymentTransactionAddedMessages(since, until, payment -> {
+                if (isUnprocessed(payment) && paymentIds.add(payment.getId())) {
+                    submit(payment.getId(), inFlight, failed);
+                }
+            });
+        } finally {
+            // wait for the submitted payments, also if reading the messages failed
+            inFlight.acquire(parallelism);
+        }
+
+        if (failed.get() == 0 || ++failedAttempts >= MAX_WINDOW_ATTEMPTS) {
+            if (failed.get() > 0) {
+                LOG.error("Payment catch-up of tenant [{}] skips {} payments of [{}, {}) after {} attempts",
+                        tenantName, failed.get(), since, until, failedAttempts);
+            }
+            checkpoint = checkpointService.saveCheckpoint(checkpointKey, until).toCompletableFuture().join();
+            failedAttempts = 0;
+        }
+        return paymentIds.size();
+    }
+
+    private boolean isUnprocessed(@Nonnull final Payment payment) {
+        return payoneInterfaceName.equals(payment.getPaymentMethodInfo().getPaymentInterface())
+                && payment.getTransactions().stream().anyMatch(transactionStateResolver::isNotCompletedTransaction);
+    }
+
+    private void submit(@Nonnull final String paymentId, @Nonnull final Semaphore inFlight,
+                        @Nonnull final AtomicInteger failed) {
+        try {
+            inFlight.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Payment catch-up was interrupted", e);
+        }
+        try {
+            handlerExecutor.execute(() -> {
+                try {
+                    final PaymentHandleResult result = paymentHandler.handlePayment(paymentId);
+                    final boolean retry = isRetryable(result);
+                    if (retry) {
+                        failed.incrementAndGet();
+                    }
+                    CATCH_UP_PAYMENTS.labels(tenantName,
+                            retry ? "failed" : result.isHandedOff() ? "handed_off" : "handled").increment();
+                } catch (final RuntimeException e) {
+                    failed.incrementAndGet();
+                    CATCH_UP_PAYMENTS.labels(tenantName, "failed").increment();
+                    LOG.error("Payment catch-up of tenant [{}] failed to handle payment [{}]", tenantName, paymentId, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Server errors and exhausted concurrent modification retries are worth another attempt. A payment handed off to
+     * the concurrent request which holds it is handled by that one, the other results are final: a second run would
+     * answer the same.
+     */
+    private static boolean isRetryable(@Nonnull final PaymentHandleResult result) {
+        if (result.isHandedOff()) {
+            return false;
+        }
+        final int statusCode = result.statusCode();
+        return statusCode >= HttpStatusCode.INTERNAL_SERVER_ERROR_500 || statusCode == HttpStatusCode.ACCEPTED_202;
+    }
+
+    private static ThreadFactory daemonThreadFactory(@Nonnull final String namePrefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -6,21 +6,51 @@ import com.commercetools.pspadapter.payone.transaction.PaymentMethodDispatcher;
 import io.sphere.sdk.client.ConcurrentModificationException;
 import io.sphere.sdk.payments.PaymentMethodInfo;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
 
 public class PaymentDispatcher {
 
-    private final Map<PaymentMethod, PaymentMethodDispatcher> methodDispatcher;
+    /**
+     * Method dispatchers indexed by {@link PaymentMethod#ordinal()}, <b>null</b> until the first payment of the method.
+     */
+    private final AtomicReferenceArray<PaymentMethodDispatcher> methodDispatchers;
+
+    /**
+     * Creates the dispatcher of a method, <b>null</b> for unsupported methods.
+     */
+    private final Function<PaymentMethod, PaymentMethodDispatcher> methodDispatcherFactory;
 
     private final String payoneInterfaceName;
 
-    public PaymentDispatcher(final Map<PaymentMethod, PaymentMethodDispatcher> methodDispatcher,
+    public PaymentDispatcher(@Nullable final Map<PaymentMethod, PaymentMethodDispatcher> methodDispatcher,
                              final String payoneInterfaceName) {
-        this.methodDispatcher = methodDispatcher;
+        this(methodDispatcher != null ? methodDispatcher::get : method -> null, payoneInterfaceName);
+    }
+
+    private PaymentDispatcher(@Nonnull final Function<PaymentMethod, PaymentMethodDispatcher> methodDispatcherFactory,
+                              final String payoneInterfaceName) {
+        this.methodDispatchers = new AtomicReferenceArray<>(PaymentMethod.values().length);
+        this.methodDispatcherFactory = methodDispatcherFactory;
         this.payoneInterfaceName = payoneInterfaceName;
     }
 
+    /**
+     * Dispatcher which creates the method dispatchers on the first payment of the method, so the request factories
+     * and executors of methods a tenant doesn't use are never created.
+     *
+     * @param methodDispatcherFactory creates the dispatcher of a method, returns <b>null</b> for unsupported methods
+     * @param payoneInterfaceName     payment interface of the payments to dispatch
+     */
+    @Nonnull
+    public static PaymentDispatcher lazy(@Nonnull final Function<PaymentMethod, PaymentMethodDispatcher> methodDispatcherFactory,
+                                         final String payoneInterfaceName) {
+        return new PaymentDispatcher(methodDispatcherFactory, payoneInterfaceName);
+    }
+
     public PaymentWithCartLike dispatchPayment(PaymentWithCartLike paymentWithCartLike) {
         final PaymentMethodInfo paymentMethodInfo = paymentWithCartLike.getPayment().getPaymentMethodInfo();
 
@@ -33,17 +63,33 @@ public class PaymentDispatcher {
             throw new IllegalArgumentException("No payment method provided");
         }
 
-        return Optional.of(PaymentMethod.fromMethodKey(paymentMethodInfo.getMethod()))
-                .map(methodDispatcher::get)
-                .map(dispatcher -> {
-                    try {
-                        return dispatcher.dispatchPayment(paymentWithCartLike);
-                    } catch (final ConcurrentModificationException cme) {
-                        throw new java.util.ConcurrentModificationException("The payment could not be dispatched: "
-                                + cme.getMessage(), cme);
-                    }
-                })
-                .orElseThrow(() -> new IllegalArgumentException(String.format(
-                        "Unsupported payment method '%s'", paymentMethodInfo.getMethod())));
+        final PaymentMethodDispatcher dispatcher =
+                getMethodDispatcher(PaymentMethod.fromMethodKey(paymentMethodInfo.getMethod()));
+        if (dispatcher == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Unsupported payment method '%s'", paymentMethodInfo.getMethod()));
+        }
+
+        try {
+            return dispatcher.dispatchPayment(paymentWithCartLike);
+        } catch (final ConcurrentModificationException cme) {
+            throw new java.util.ConcurrentModificationException("The payment could not be dispatched: "
+                    + cme.getMessage(), cme);
+        }
+    }
+
+    @Nullable
+    private PaymentMethodDispatcher getMethodDispatcher(@Nonnull final PaymentMethod method) {
+        final PaymentMethodDispatcher dispatcher = methodDispatchers.get(method.ordinal());
+        if (dispatcher != null) {
+            return dispatcher;
+        }
+        final PaymentMethodDispatcher created = methodDispatcherFactory.apply(method);
+        if (created == null) {
+            return null;
+        }
+        // concurrent first payments may create two dispatchers, all of them use the one set first
+        methodDispatchers.compareAndSet(method.ordinal(), null, created);
+        return methodDispatchers.get(method.ordinal());
     }
 }
@@ -10,14 +10,27 @@ public class PaymentHandleResult {
 
     private final String body;
 
+    private final boolean handedOff;
+
     /**
      * Initializes a new instance.
      * @param statusCode the server status code
      * @param body the response body
      */
     public PaymentHandleResult(final int statusCode, final String body) {
+        this(statusCode, body, false);
+    }
+
+    /**
+     * Initializes a new instance.
+     * @param statusCode the server status code
+     * @param body the response body
+     * @param handedOff whether the payment is handled by a concurrent request instead
+     */
+    public PaymentHandleResult(final int statusCode, final String body, final boolean handedOff) {
         this.statusCode = statusCode;
         this.body = body;
+        this.handedOff = handedOff;
     }
 
     /**
@@ -45,4 +58,13 @@ public class PaymentHandleResult {
     public String body() {
         return body;
     }
+
+    /**
+     * Tells whether another request holds the payment and handles it, so there is nothing left to retry.
+     *
+     * @return <b>true</b> if the payment was handed off to a concurrent request
+     */
+    public boolean isHandedOff() {
+        return handedOff;
+    }
 }
@@ -1,8 +1,12 @@
 package com.commercetools.pspadapter.payone;
 
+import com.commercetools.lease.LeaseUnavailableException;
+import com.commercetools.lease.PaymentLeases;
 import com.commercetools.pspadapter.payone.domain.ctp.CommercetoolsQueryExecutor;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.domain.ctp.exceptions.NoCartLikeFoundException;
+import com.commercetools.tracing.PaymentTrace;
+import com.commercetools.tracing.PaymentTraceSampler;
 import io.sphere.sdk.client.ErrorResponseException;
 import io.sphere.sdk.client.NotFoundException;
 import io.sphere.sdk.http.HttpStatusCode;
@@ -13,8 +17,14 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import java.util.ConcurrentModificationException;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static com.commercetools.metrics.ServiceMetrics.CONCURRENT_MODIFICATION_RETRIES;
+import static com.commercetools.metrics.ServiceMetrics.HANDLE_PAYMENT_DURATION;
+import static com.commercetools.metrics.ServiceMetrics.UNKNOWN_LABEL;
 import static com.commercetools.pspadapter.tenant.TenantLoggerUtil.createTenantKeyValue;
+import static com.commercetools.tracing.PaymentTrace.measure;
+import static com.commercetools.tracing.TracePhase.FETCH;
 import static io.sphere.sdk.http.HttpStatusCode.INTERNAL_SERVER_ERROR_500;
 import static java.lang.String.format;
 
@@ -27,19 +37,45 @@ public class PaymentHandler {
     private static final int RETRY_DELAY = 100; // msec
 
     private final String payoneInterfaceName;
+    private final String tenantName;
     private final LogstashMarker tenantNameKeyValue;
 
     private final CommercetoolsQueryExecutor commercetoolsQueryExecutor;
     private final PaymentDispatcher paymentDispatcher;
 
+    private final PaymentTraceSampler traceSampler;
+
+    private final PaymentLeases paymentLeases;
+
     private final Logger logger;
 
     public PaymentHandler(String payoneInterfaceName, String tenantName,
                           CommercetoolsQueryExecutor commercetoolsQueryExecutor, PaymentDispatcher paymentDispatcher) {
+        this(payoneInterfaceName, tenantName, commercetoolsQueryExecutor, paymentDispatcher,
+                PaymentTraceSampler.DISABLED);
+    }
+
+    public PaymentHandler(String payoneInterfaceName, String tenantName,
+                          CommercetoolsQueryExecutor commercetoolsQueryExecutor, PaymentDispatcher paymentDispatcher,
+                          PaymentTraceSampler traceSampler) {
+        this(payoneInterfaceName, tenantName, commercetoolsQueryExecutor, paymentDispatcher, traceSampler,
+                PaymentLeases.DISABLED);
+    }
+
+    /**
+     * @param paymentLeases makes the handling of a payment exclusive: a request which finds the payment handled by
+     *                      another request hands its work off to that one
+     */
+    public PaymentHandler(String payoneInterfaceName, String tenantName,
+                          CommercetoolsQueryExecutor commercetoolsQueryExecutor, PaymentDispatcher paymentDispatcher,
+                          PaymentTraceSampler traceSampler, PaymentLeases paymentLeases) {
         this.payoneInterfaceName = payoneInterfaceName;
+        this.tenantName = tenantName;
 
         this.commercetoolsQueryExecutor = commercetoolsQueryExecutor;
         this.paymentDispatcher = paymentDispatcher;
+        this.traceSampler = traceSampler;
+        this.paymentLeases = paymentLeases;
 
         this.logger = LoggerFactory.getLogger(this.getClass());
         tenantNameKeyValue = createTenantKeyValue(tenantName);
@@ -52,15 +88,39 @@ public class PaymentHandler {
      * @return the result of handling the payment
      */
     public PaymentHandleResult handlePayment(@Nonnull final String paymentId) {
+        final long start = System.nanoTime();
+        final AtomicReference<String> paymentMethod = new AtomicReference<>(UNKNOWN_LABEL);
+        final PaymentTrace trace = traceSampler.isEnabled() ? PaymentTrace.begin(tenantName, paymentId) : null;
+        PaymentHandleResult result = null;
+        try {
+            result = paymentLeases.runExclusively(paymentId,
+                    () -> handlePaymentWithRetries(paymentId, paymentMethod),
+                    () -> handleHandedOff(paymentId));
+            return result;
+        } catch (final LeaseUnavailableException e) {
+            result = handleLeaseUnavailable(paymentId, e);
+            return result;
+        } finally {
+            HANDLE_PAYMENT_DURATION.labels(tenantName, paymentMethod.get()).recordSince(start);
+            if (trace != null) {
+                trace.end(result != null ? result.statusCode() : INTERNAL_SERVER_ERROR_500, traceSampler);
+            }
+        }
+    }
+
+    private PaymentHandleResult handlePaymentWithRetries(@Nonnull final String paymentId,
+                                                         @Nonnull final AtomicReference<String> paymentMethod) {
         int retryCounter = 0;
         try {
             for (; retryCounter < RETRIES_LIMIT; retryCounter++) {
                 try {
-                    return processPayment(paymentId);
+                    return processPayment(paymentId, paymentMethod);
                 } catch (final ConcurrentModificationException concurrentModificationException) {
                     if (retryCounter == RETRIES_LIMIT - 1) {
                         throw concurrentModificationException;
                     } else {
+                        CONCURRENT_MODIFICATION_RETRIES.labels(tenantName, "handler").increment();
+                        PaymentTrace.incrementRetries();
                         Thread.sleep(calculateVariableDelay(retryCounter));
                     }
                 }
@@ -78,11 +138,17 @@ public class PaymentHandler {
                 new Exception("Unknown workflow error in PaymentHandler#handlePayment"));
     }
 
-    private PaymentHandleResult processPayment(@Nonnull final String paymentId)
+    /**
+     * @param paymentMethod receives the method key of the fetched payment, used as a metrics label
+     */
+    private PaymentHandleResult processPayment(@Nonnull final String paymentId,
+                                               @Nonnull final AtomicReference<String> paymentMethod)
         throws ConcurrentModificationException {
 
         final PaymentWithCartLike paymentWithCartLike =
-            commercetoolsQueryExecutor.getPaymentWithCartLike(paymentId);
+            measure(FETCH, () -> commercetoolsQueryExecutor.getPaymentWithCartLike(paymentId));
+        paymentMethod.set(paymentWithCartLike.getPayment().getPaymentMethodInfo().getMethod());
+        PaymentTrace.setPaymentMethod(paymentMethod.get());
 
         final String paymentInterface = paymentWithCartLike
             .getPayment()
@@ -109,6 +175,21 @@ public class PaymentHandler {
         return new PaymentHandleResult(HttpStatusCode.ACCEPTED_202, errorMessage);
     }
 
+    /**
+     * The request which holds the lease of the payment handles it once more before it releases the lease.
+     */
+    private PaymentHandleResult handleHandedOff(@Nonnull final String paymentId) {
+        return new PaymentHandleResult(HttpStatusCode.ACCEPTED_202, format("The payment with id '%s' is handled by "
+                + "a concurrent request, which picks up the current state of the payment.", paymentId), true);
+    }
+
+    private PaymentHandleResult handleLeaseUnavailable(@Nonnull final String paymentId,
+                                                       @Nonnull final LeaseUnavailableException exception) {
+        logger.warn(tenantNameKeyValue, format("The payment with id '%s' is handled by a concurrent request.",
+                paymentId), exception);
+        return new PaymentHandleResult(HttpStatusCode.ACCEPTED_202, exception.getMessage(), true);
+    }
+
     private PaymentHandleResult handleNotFoundException(
             @Nonnull final String paymentId,
             int retriedCount,
@@ -28,10 +28,37 @@ public class PropertyProvider {
     public static final String PAYONE_INTEGRATOR_NAME = "PAYONE_INTEGRATOR_NAME";
     public static final String PAYONE_INTEGRATOR_VERSION = "PAYONE_INTEGRATOR_VERSION";
     public static final String LOG_LEVEL = "LOG_LEVEL";
+    public static final String LOG_MODE = "LOG_MODE";
+    public static final String LOG_BUFFER_SIZE = "LOG_BUFFER_SIZE";
+    public static final String LOG_DROP_POLICY = "LOG_DROP_POLICY";
+    public static final String LOG_MAX_REPEATED_PER_MINUTE = "LOG_MAX_REPEATED_PER_MINUTE";
 
     public static final String PAYONE_API_URL = "PAYONE_API_URL";
     public static final String HIDE_CUSTOMER_PERSONAL_DATA = "HIDE_CUSTOMER_PERSONAL_DATA";
 
+    public static final String HEALTH_PROBE_INTERVAL_MILLIS = "HEALTH_PROBE_INTERVAL_MILLIS";
+    public static final String HEALTH_PROBE_TIMEOUT_MILLIS = "HEALTH_PROBE_TIMEOUT_MILLIS";
+    public static final String HEALTH_MAX_POOL_SATURATION = "HEALTH_MAX_POOL_SATURATION";
+    public static final String HEALTH_MAX_QUEUE_DEPTH = "HEALTH_MAX_QUEUE_DEPTH";
+    public static final String HEALTH_READY_REQUIRES_DEPENDENCIES = "HEALTH_READY_REQUIRES_DEPENDENCIES";
+
+    public static final String WARM_UP_PAYONE_CONNECTIONS = "WARM_UP_PAYONE_CONNECTIONS";
+    public static final String WARM_UP_TIMEOUT_MILLIS = "WARM_UP_TIMEOUT_MILLIS";
+    public static final String KEEP_WARM_INTERVAL_MILLIS = "KEEP_WARM_INTERVAL_MILLIS";
+
+    public static final String NOTIFICATION_RETRY_MAX_ATTEMPTS = "NOTIFICATION_RETRY_MAX_ATTEMPTS";
+    public static final String NOTIFICATION_RETRY_INITIAL_DELAY_MILLIS = "NOTIFICATION_RETRY_INITIAL_DELAY_MILLIS";
+    public static final String NOTIFICATION_RETRY_MAX_DELAY_MILLIS = "NOTIFICATION_RETRY_MAX_DELAY_MILLIS";
+    public static final String NOTIFICATION_RETRY_PARALLELISM = "NOTIFICATION_RETRY_PARALLELISM";
+    public static final String NOTIFICATION_DEAD_LETTER_DIRECTORY = "NOTIFICATION_DEAD_LETTER_DIRECTORY";
+    public static final String ADMIN_API_TOKEN = "ADMIN_API_TOKEN";
+
+    /**
+     * Prefix of the per lane properties {@code LANE_<LANE>_THREADS}, {@code LANE_<LANE>_QUEUE_CAPACITY} and
+     * {@code LANE_<LANE>_TIMEOUT_MILLIS}, see {@link com.commercetools.util.spark.RequestLane}.
+     */
+    public static final String LANE_PREFIX = "LANE_";
+
     private final Map<String, String> internalProperties;
 
     private final List<Function<String, String>> propertiesGetters;
@@ -1,9 +1,17 @@
 package com.commercetools.pspadapter.payone.config;
 
+import com.commercetools.util.logging.BatchingRingBufferAppender;
+import com.commercetools.util.logging.DropPolicy;
+import com.commercetools.util.logging.LogMode;
+import com.commercetools.util.spark.LaneConfig;
+import com.commercetools.util.spark.RequestLane;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.commercetools.pspadapter.payone.config.PropertyProvider.*;
@@ -24,6 +32,30 @@ public class ServiceConfig {
     private final String applicationName;
     private final String applicationVersion;
     private final Optional<String> loglevel;
+
+    private final LogMode logMode;
+    private final int logBufferSize;
+    private final DropPolicy logDropPolicy;
+    private final int logMaxRepeatedPerMinute;
+
+    private final long healthProbeIntervalMillis;
+    private final long healthProbeTimeoutMillis;
+    private final double healthMaxPoolSaturation;
+    private final int healthMaxQueueDepth;
+    private final boolean healthReadyRequiresDependencies;
+    private final int warmUpPayoneConnections;
+    private final long warmUpTimeoutMillis;
+    private final long keepWarmIntervalMillis;
+
+    private final int notificationRetryMaxAttempts;
+    private final long notificationRetryInitialDelayMillis;
+    private final long notificationRetryMaxDelayMillis;
+    private final int notificationRetryParallelism;
+    private final String notificationDeadLetterDirectory;
+    private final Optional<String> adminApiToken;
+
+    private final Map<RequestLane, LaneConfig> laneConfigs;
+
     /**
      * Initializes the configuration.
      *
@@ -38,12 +70,134 @@ public class ServiceConfig {
         this.applicationVersion = propertyProvider.getMandatoryNonEmptyProperty(PAYONE_INTEGRATOR_VERSION);
         this.loglevel = propertyProvider.getProperty(LOG_LEVEL);
 
+        this.logMode = propertyProvider.getProperty(LOG_MODE)
+                .map(String::trim)
+                .map(String::toUpperCase)
+                .map(mode -> mode.replace('-', '_'))
+                .map(LogMode::valueOf)
+                .orElse(LogMode.DEFAULT);
+        this.logBufferSize = propertyProvider.getProperty(LOG_BUFFER_SIZE)
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .orElse(BatchingRingBufferAppender.DEFAULT_RING_BUFFER_SIZE);
+        this.logDropPolicy = propertyProvider.getProperty(LOG_DROP_POLICY)
+                .map(String::trim)
+                .map(String::toUpperCase)
+                .map(DropPolicy::valueOf)
+                .orElse(DropPolicy.DROP_BELOW_WARN);
+        this.logMaxRepeatedPerMinute = propertyProvider.getProperty(LOG_MAX_REPEATED_PER_MINUTE)
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .orElse(20);
+
+        this.healthProbeIntervalMillis = propertyProvider.getProperty(HEALTH_PROBE_INTERVAL_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(5000L);
+        this.healthProbeTimeoutMillis = propertyProvider.getProperty(HEALTH_PROBE_TIMEOUT_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(2000L);
+        this.healthMaxPoolSaturation = propertyProvider.getProperty(HEALTH_MAX_POOL_SATURATION)
+                .map(String::trim)
+                .map(Double::valueOf)
+                .orElse(0.9);
+        this.healthMaxQueueDepth = propertyProvider.getProperty(HEALTH_MAX_QUEUE_DEPTH)
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .orElse(50);
+        this.healthReadyRequiresDependencies = propertyProvider.getProperty(HEALTH_READY_REQUIRES_DEPENDENCIES)
+                .map(String::trim)
+                .map(Boolean::valueOf)
+                .orElse(false);
+        this.warmUpPayoneConnections = propertyProvider.getProperty(WARM_UP_PAYONE_CONNECTIONS)
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .orElse(4);
+        this.warmUpTimeoutMillis = propertyProvider.getProperty(WARM_UP_TIMEOUT_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(10000L);
+        this.keepWarmIntervalMillis = propertyProvider.getProperty(KEEP_WARM_INTERVAL_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(0L);
+
+        this.notificationRetryMaxAttempts = propertyProvider.getProperty(NOTIFICATION_RETRY_MAX_ATTEMPTS)
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .orElse(0);
+        this.notificationRetryInitialDelayMillis = propertyProvider.getProperty(NOTIFICATION_RETRY_INITIAL_DELAY_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(10000L);
+        this.notificationRetryMaxDelayMillis = propertyProvider.getProperty(NOTIFICATION_RETRY_MAX_DELAY_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(600000L);
+        this.notificationRetryParallelism = propertyProvider.getProperty(NOTIFICATION_RETRY_PARALLELISM)
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .orElse(4);
+        this.notificationDeadLetterDirectory = propertyProvider.getProperty(NOTIFICATION_DEAD_LETTER_DIRECTORY)
+                .map(String::trim)
+                .orElse("notification-dead-letters");
+        this.adminApiToken = propertyProvider.getProperty(ADMIN_API_TOKEN)
+                .map(String::trim);
+
+        final Map<RequestLane, LaneConfig> laneConfigs = new EnumMap<>(RequestLane.class);
+        for (final RequestLane lane : RequestLane.values()) {
+            laneConfigs.put(lane, new LaneConfig(
+                    getLaneProperty(propertyProvider, lane, "THREADS", lane.getDefaultThreads()),
+                    getLaneProperty(propertyProvider, lane, "QUEUE_CAPACITY", lane.getDefaultQueueCapacity()),
+                    getLaneProperty(propertyProvider, lane, "TIMEOUT_MILLIS", lane.getDefaultTimeoutMillis())));
+        }
+        this.laneConfigs = Collections.unmodifiableMap(laneConfigs);
+    }
+
+    private static int getLaneProperty(final PropertyProvider propertyProvider, final RequestLane lane,
+                                       final String name, final int defaultValue) {
+        return propertyProvider.getProperty(LANE_PREFIX + lane.name() + "_" + name)
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .orElse(defaultValue);
     }
 
     public Optional<String>  getLoglevel() {
         return loglevel;
     }
 
+    /**
+     * @return how the service writes its logs, default is {@link LogMode#DEFAULT}
+     */
+    @Nonnull
+    public LogMode getLogMode() {
+        return logMode;
+    }
+
+    /**
+     * @return events buffered in {@link LogMode#HIGH_THROUGHPUT}
+     */
+    public int getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    /**
+     * @return what to drop in {@link LogMode#HIGH_THROUGHPUT} when the buffer is full
+     */
+    @Nonnull
+    public DropPolicy getLogDropPolicy() {
+        return logDropPolicy;
+    }
+
+    /**
+     * @return how often the same WARN or ERROR message of a logger is logged per minute in
+     * {@link LogMode#HIGH_THROUGHPUT}, <b>0</b> disables the limit
+     */
+    public int getLogMaxRepeatedPerMinute() {
+        return logMaxRepeatedPerMinute;
+    }
+
     /**
      * @return Non-empty list of tenant names, specified in {@code TENANTS} configuration property.
      */
@@ -61,6 +215,121 @@ public class ServiceConfig {
         return applicationVersion;
     }
 
+    /**
+     * @return delay between two runs of the background health probes
+     */
+    public long getHealthProbeIntervalMillis() {
+        return healthProbeIntervalMillis;
+    }
+
+    /**
+     * @return time budget of a single health probe
+     */
+    public long getHealthProbeTimeoutMillis() {
+        return healthProbeTimeoutMillis;
+    }
+
+    /**
+     * @return ratio of leased to max Payone connections above which the node is not ready, if requests are pending
+     */
+    public double getHealthMaxPoolSaturation() {
+        return healthMaxPoolSaturation;
+    }
+
+    /**
+     * @return number of requests queued in the server thread pool, or in the queue of a request lane, above which the
+     * node is not ready
+     */
+    public int getHealthMaxQueueDepth() {
+        return healthMaxQueueDepth;
+    }
+
+    /**
+     * If <b>true</b> - unreachable commercetools projects or Payone API make the node not ready. By default only
+     * local saturation does, because an outage of a shared dependency would otherwise drain all the nodes at once.
+     *
+     * @return <b>true</b> if dependency probes are critical for readiness
+     */
+    public boolean isHealthReadyRequiresDependencies() {
+        return healthReadyRequiresDependencies;
+    }
+
+    /**
+     * @return Payone connections opened before the node is ready, and kept open during quiet periods if
+     * {@link #getKeepWarmIntervalMillis()} is set, <b>0</b> disables the Payone warm-up
+     */
+    public int getWarmUpPayoneConnections() {
+        return warmUpPayoneConnections;
+    }
+
+    /**
+     * @return time budget of the warm-up at startup and of every keep-warm run
+     */
+    public long getWarmUpTimeoutMillis() {
+        return warmUpTimeoutMillis;
+    }
+
+    /**
+     * @return delay between two keep-warm runs, <b>0</b> (default) disables them. Should be shorter than the keep-alive
+     * time of the Payone connections, see {@link com.commercetools.util.PayoneHttpClientUtil#DEFAULT_KEEP_ALIVE_MILLIS}.
+     */
+    public long getKeepWarmIntervalMillis() {
+        return keepWarmIntervalMillis;
+    }
+
+    /**
+     * @return attempts of a failed notification in the service, the one of the notification request included.
+     * <b>0</b> disables the retries, failed notifications are answered with an error and redelivered by Payone.
+     */
+    public int getNotificationRetryMaxAttempts() {
+        return notificationRetryMaxAttempts;
+    }
+
+    /**
+     * @return delay before the first retry of a failed notification, doubled for every further retry
+     */
+    public long getNotificationRetryInitialDelayMillis() {
+        return notificationRetryInitialDelayMillis;
+    }
+
+    /**
+     * @return longest delay between two attempts of a failed notification
+     */
+    public long getNotificationRetryMaxDelayMillis() {
+        return notificationRetryMaxDelayMillis;
+    }
+
+    /**
+     * @return failed notifications retried or replayed at the same time
+     */
+    public int getNotificationRetryParallelism() {
+        return notificationRetryParallelism;
+    }
+
+    /**
+     * @return local directory of the failed notifications
+     */
+    @Nonnull
+    public String getNotificationDeadLetterDirectory() {
+        return notificationDeadLetterDirectory;
+    }
+
+    /**
+     * @return bearer token of the {@code /admin/notifications/*} routes, which are not registered without it
+     */
+    @Nonnull
+    public Optional<String> getAdminApiToken() {
+        return adminApiToken;
+    }
+
+    /**
+     * @return size and request timeout of every lane, a lane with <b>0</b> threads runs on the server threads
+     */
+    @Nonnull
+    public Map<RequestLane, LaneConfig> getLaneConfigs() {
+        return laneConfigs;
+    }
+
     /**
      * Split comma or semicolon separated list of the tenants names.
      * <p>
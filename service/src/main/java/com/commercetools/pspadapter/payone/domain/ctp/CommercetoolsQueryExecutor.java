@@ -1,6 +1,7 @@
 package com.commercetools.pspadapter.payone.domain.ctp;
 
 import com.commercetools.pspadapter.payone.domain.ctp.exceptions.NoCartLikeFoundException;
+import com.commercetools.service.HedgedReads;
 import io.sphere.sdk.carts.Cart;
 import io.sphere.sdk.carts.queries.CartQuery;
 import io.sphere.sdk.client.BlockingSphereClient;
@@ -17,8 +18,9 @@ import io.sphere.sdk.payments.messages.PaymentCreatedMessage;
 import io.sphere.sdk.payments.messages.PaymentTransactionAddedMessage;
 import io.sphere.sdk.payments.queries.PaymentByIdGet;
 import io.sphere.sdk.queries.PagedQueryResult;
-import io.sphere.sdk.queries.Query;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.time.ZonedDateTime;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
@@ -34,8 +36,18 @@ public class CommercetoolsQueryExecutor {
 
     private BlockingSphereClient client;
 
+    private final HedgedReads hedgedReads;
+
     public CommercetoolsQueryExecutor(final BlockingSphereClient client) {
+        this(client, HedgedReads.DISABLED);
+    }
+
+    /**
+     * @param hedgedReads hedging of the payment, order and cart reads of {@link #getPaymentWithCartLike(String)}
+     */
+    public CommercetoolsQueryExecutor(final BlockingSphereClient client, @Nonnull final HedgedReads hedgedReads) {
         this.client = client;
+        this.hedgedReads = hedgedReads;
     }
 
     public PaymentWithCartLike getPaymentWithCartLike(final String paymentId) {
@@ -47,8 +59,8 @@ public class CommercetoolsQueryExecutor {
 
 
 
-        final CompletionStage<Payment> paymentStage = client
-            .execute(CorrelationIdRequestDecorator.of(getPaymentRequest, getFromMDCOrGenerateNew()));
+        final CompletionStage<Payment> paymentStage = hedgedReads
+            .execute(client, CorrelationIdRequestDecorator.of(getPaymentRequest, getFromMDCOrGenerateNew()));
 
         return getPaymentWithCartLike(paymentId, paymentStage);
     }
@@ -58,12 +70,12 @@ public class CommercetoolsQueryExecutor {
         final CompletionStage<Payment> paymentFuture)  {
 
         final CompletionStage<PagedQueryResult<Order>> orderFuture =
-                client.execute(
+                hedgedReads.execute(client,
                     CorrelationIdRequestDecorator.of(OrderQuery.of().withPredicates(m -> m.paymentInfo().payments().id().is(paymentId)),
                         getFromMDCOrGenerateNew()));
 
         final CompletionStage<PagedQueryResult<Cart>> cartFuture =
-                client.execute(
+                hedgedReads.execute(client,
                     CorrelationIdRequestDecorator.of(CartQuery.of().withPredicates(m -> m.paymentInfo().payments().id().is(paymentId)),
                         getFromMDCOrGenerateNew()));
 
@@ -102,47 +114,54 @@ public class CommercetoolsQueryExecutor {
         final ZonedDateTime sinceDate,
         final Consumer<Payment> paymentConsumer) {
 
-        consumeAllMessages(sinceDate, paymentConsumer, PaymentCreatedMessage.MESSAGE_HINT);
+        consumeAllMessages(sinceDate, null, paymentConsumer, PaymentCreatedMessage.MESSAGE_HINT);
+    }
+
+    public void consumePaymentTransactionAddedMessages(
+        final ZonedDateTime sinceDate,
+        final Consumer<Payment> paymentConsumer) {
+
+        consumeAllMessages(sinceDate, null, paymentConsumer, PaymentTransactionAddedMessage.MESSAGE_HINT);
     }
 
+    /**
+     * Consumes the payments of the {@code PaymentTransactionAdded} messages created in {@code [sinceDate, untilDate)}.
+     * A payment is consumed once per message, with its current state.
+     */
     public void consumePaymentTransactionAddedMessages(
         final ZonedDateTime sinceDate,
+        final ZonedDateTime untilDate,
         final Consumer<Payment> paymentConsumer) {
 
-        consumeAllMessages(sinceDate, paymentConsumer, PaymentTransactionAddedMessage.MESSAGE_HINT);
+        consumeAllMessages(sinceDate, untilDate, paymentConsumer, PaymentTransactionAddedMessage.MESSAGE_HINT);
     }
 
+    /**
+     * Pages by the key of the last message and prefetches the next page while {@code paymentConsumer} processes the
+     * current one, see {@link KeysetMessageIterator}. A blocking consumer holds back the paging.
+     */
     private <T extends GenericMessageImpl<Payment>> void consumeAllMessages(
         final ZonedDateTime sinceDate,
+        @Nullable final ZonedDateTime untilDate,
         final Consumer<Payment> paymentConsumer,
         final MessageDerivateHint<T> messageHint) {
 
-        final MessageQuery baseQuery = MessageQuery.of()
+        MessageQuery baseQuery = MessageQuery.of()
             .withPredicates(m -> m.createdAt().isGreaterThanOrEqualTo(sinceDate))
-            .withSort(m -> m.createdAt().sort().asc())
-            .withExpansionPaths(MessageExpansionModel::resource)
-            .withLimit(500); // Maximum
-
-        long processed = 0;
-        long total = 0;
-
-        do {
-            Query<T> query = baseQuery
-                .withOffset(processed)
-                .forMessageType(messageHint);
-            final PagedQueryResult<T> result =
-                this.client
-                .execute(CorrelationIdRequestDecorator.of(query, getFromMDCOrGenerateNew()))
-                .toCompletableFuture().join();
-
-            result.getResults()
-                    .stream()
-                    .filter(msg -> msg.getResource().getObj() != null)
-                    .forEach(msg -> paymentConsumer.accept(msg.getResource().getObj()));
-
-            processed = result.getOffset() + result.getCount();
-            total = result.getTotal();
-        } while (processed < total);
+            .withExpansionPaths(MessageExpansionModel::resource);
+        if (untilDate != null) {
+            baseQuery = baseQuery.plusPredicates(m -> m.createdAt().isLessThan(untilDate));
+        }
+
+        try (KeysetMessageIterator<T> messages =
+                 new KeysetMessageIterator<>(client, baseQuery, messageHint, getFromMDCOrGenerateNew())) {
+            while (messages.hasNext()) {
+                final Payment payment = messages.next().getResource().getObj();
+                if (payment != null) {
+                    paymentConsumer.accept(payment);
+                }
+            }
+        }
     }
 
 }
@@ -0,0 +1,189 @@
+package com.commercetools.pspadapter.payone.domain.ctp;
+
+import com.commercetools.service.InteractionPayloadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.lang.String.format;
+
+/**
+ * Per tenant retention policy of the payloads of the interface interactions the service adds to payments: the Payone
+ * requests and responses and the notifications. Every transaction execution and every notification adds the full
+ * strings, so long-lived payments grow into large documents which slow down every read and update of the payment.
+ * <p>
+ * Only the payload fields pass the policy. The fields the idempotency and sequence number logic reads, like
+ * {@code transactionId}, {@code sequenceNumber} and {@code txaction}, are always kept in the interaction. Payloads up
+ * to the maximum length are kept as they are in every mode.
+ * <p>
+ * The platform can't remove interface interactions, so the policy applies to the interactions added from now on.
+ */
+public class InteractionRetention {
+
+    public enum Mode {
+        /**
+         * Keep the payloads, default.
+         */
+        FULL,
+
+        /**
+         * Replace long payloads by their beginning and the original length.
+         */
+        SUMMARY,
+
+        /**
+         * GZIP and Base64 encode long payloads, prefixed by {@value #GZIP_PREFIX}.
+         */
+        COMPRESS,
+
+        /**
+         * Store long payloads in custom objects and keep the reference, see {@link InteractionPayloadService}.
+         */
+        OFFLOAD
+    }
+
+    public static final InteractionRetention FULL = new InteractionRetention(Mode.FULL, Integer.MAX_VALUE, null);
+
+    public static final String GZIP_PREFIX = "gzip:";
+
+    private static final String SUMMARY_SUFFIX = "... [%d characters, truncated]";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InteractionRetention.class);
+
+    private final Mode mode;
+
+    private final int maxPayloadLength;
+
+    @Nullable
+    private final InteractionPayloadService payloadService;
+
+    /**
+     * @param mode             what to do with payloads longer than {@code maxPayloadLength}
+     * @param maxPayloadLength longest payload which is kept as it is
+     * @param payloadService   store of the payloads, mandatory for {@link Mode#OFFLOAD}
+     */
+    public InteractionRetention(@Nonnull final Mode mode, final int maxPayloadLength,
+                                @Nullable final InteractionPayloadService payloadService) {
+        if (mode == Mode.OFFLOAD && payloadService == null) {
+            throw new IllegalArgumentException("Offloading interaction payloads needs a payload service");
+        }
+        this.mode = mode;
+        this.maxPayloadLength = maxPayloadLength;
+        this.payloadService = payloadService;
+    }
+
+    @Nonnull
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @param paymentId      ID of the payment the interaction is added to
+     * @param interactionKey key of the interaction, unique in the payment, like <i>request-&lt;transactionId&gt;</i>
+     * @param payload        request, response or notification string
+     * @return the value to store in the payload field of the interaction
+     */
+    @Nullable
+    public String retain(@Nonnull final String paymentId, @Nonnull final String interactionKey,
+                         @Nullable final String payload) {
+        if (payload == null || payload.length() <= maxPayloadLength) {
+            return payload;
+        }
+        switch (mode) {
+            case SUMMARY:
+                return summarize(payload);
+            case COMPRESS:
+                return compress(payload);
+            case OFFLOAD:
+                return offload(paymentId + "-" + interactionKey, payload);
+            default:
+                return payload;
+        }
+    }
+
+    /**
+     * @param storedPayload value of the payload field of an interaction
+     * @return the original payload if it was compressed, otherwise {@code storedPayload}
+     */
+    @Nullable
+    public static String decompress(@Nullable final String storedPayload) {
+        if (storedPayload == null || !storedPayload.startsWith(GZIP_PREFIX)) {
+            return storedPayload;
+        }
+        final byte[] compressed = Base64.getDecoder().decode(storedPayload.substring(GZIP_PREFIX.length()));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            final byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Nonnull
+    private String summarize(@Nonnull final String payload) {
+        int end = maxPayloadLength;
+        if (end > 0 && Character.isHighSurrogate(payload.charAt(end - 1))) {
+            end--; // don't split a surrogate pair
+        }
+        return payload.substring(0, end) + format(SUMMARY_SUFFIX, payload.length());
+    }
+
+    /**
+     * Payloads which don't get shorter by compression are kept as they are.
+     */
+    @Nonnull
+    private static String compress(@Nonnull final String payload) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length() / 4);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final String compressed = GZIP_PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+        return compressed.length() < payload.length() ? compressed : payload;
+    }
+
+    /**
+     * The payment must not fail because of the payload store: the payload is summarized if it can't be offloaded.
+     */
+    @Nonnull
+    private String offload(@Nonnull final String key, @Nonnull final String payload) {
+        try {
+            return payloadService.savePayload(toCustomObjectKey(key), payload).toCompletableFuture().join();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not offload the interaction payload with key [{}], it is summarized instead", key, e);
+            return summarize(payload);
+        }
+    }
+
+    /**
+     * Custom object keys allow only {@code [-_~.a-zA-Z0-9]} characters.
+     */
+    @Nonnull
+    static String toCustomObjectKey(@Nonnull final String key) {
+        final StringBuilder customObjectKey = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            final char c = key.charAt(i);
+            final boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '~' || c == '.';
+            customObjectKey.append(allowed ? c : '_');
+        }
+        return customObjectKey.toString();
+    }
+}
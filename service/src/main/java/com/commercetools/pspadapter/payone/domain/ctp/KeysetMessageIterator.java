@@ -0,0 +1,123 @@
+package com.commercetools.pspadapter.payone.domain.ctp;
+
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.client.correlationid.CorrelationIdRequestDecorator;
+import io.sphere.sdk.messages.Message;
+import io.sphere.sdk.messages.MessageDerivateHint;
+import io.sphere.sdk.messages.queries.MessageQuery;
+import io.sphere.sdk.queries.PagedQueryResult;
+import io.sphere.sdk.queries.QueryPredicate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
+
+/**
+ * Iterates over all the messages of a query, ordered by {@code createdAt} and {@code id}.
+ * <p>
+ * Pages are selected by the key of the last message instead of an offset, so the thousandth page is as cheap as the
+ * first one and the offset limit of the platform doesn't apply. The next page is requested as soon as the current one
+ * arrived, while the caller still processes it. At most one page is prefetched: a slow caller slows down the paging
+ * instead of buffering the backlog in memory.
+ * <p>
+ * Not thread safe, like any iterator. {@link #close()} cancels the prefetched page if the caller stops early.
+ *
+ * @param <T> message type
+ */
+public class KeysetMessageIterator<T extends Message> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * Maximum page size of the platform.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final SphereClient client;
+    private final MessageQuery baseQuery;
+    private final MessageDerivateHint<T> messageHint;
+    private final int pageSize;
+    private final String correlationId;
+
+    private List<T> page = Collections.emptyList();
+    private int index;
+    private CompletableFuture<List<T>> nextPage;
+
+    /**
+     * @param baseQuery   query with the predicates, like the creation date range. Sort and limit are replaced,
+     *                    offset must not be set.
+     * @param messageHint type of the messages
+     */
+    public KeysetMessageIterator(@Nonnull final SphereClient client, @Nonnull final MessageQuery baseQuery,
+                                 @Nonnull final MessageDerivateHint<T> messageHint, @Nonnull final String correlationId) {
+        this(client, baseQuery, messageHint, correlationId, DEFAULT_PAGE_SIZE);
+    }
+
+    KeysetMessageIterator(@Nonnull final SphereClient client, @Nonnull final MessageQuery baseQuery,
+                          @Nonnull final MessageDerivateHint<T> messageHint, @Nonnull final String correlationId,
+                          final int pageSize) {
+        this.client = client;
+        this.baseQuery = baseQuery
+                .withSortMulti(m -> asList(m.createdAt().sort().asc(), m.id().sort().asc()))
+                .withLimit(pageSize)
+                .withFetchTotal(false);
+        this.messageHint = messageHint;
+        this.pageSize = pageSize;
+        this.correlationId = correlationId;
+        this.nextPage = fetchPageAfter(null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= page.size()) {
+            if (nextPage == null) {
+                return false;
+            }
+            page = nextPage.join();
+            index = 0;
+            // a short page is the last one, otherwise request the next page before the caller processes this one
+            nextPage = page.size() < pageSize ? null : fetchPageAfter(page.get(page.size() - 1));
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(index++);
+    }
+
+    @Override
+    public void close() {
+        if (nextPage != null) {
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+        page = Collections.emptyList();
+    }
+
+    private CompletableFuture<List<T>> fetchPageAfter(@Nullable final T lastMessage) {
+        final MessageQuery query = lastMessage != null
+                ? baseQuery.plusPredicates(keysetPredicate(lastMessage))
+                : baseQuery;
+        return client.execute(CorrelationIdRequestDecorator.of(query.forMessageType(messageHint), correlationId))
+                .thenApply(PagedQueryResult::getResults)
+                .toCompletableFuture();
+    }
+
+    /**
+     * Messages with the same creation date as the last one are told apart by their ID.
+     */
+    static QueryPredicate<Message> keysetPredicate(@Nonnull final Message lastMessage) {
+        final String createdAt = lastMessage.getCreatedAt().toInstant().toString();
+        return QueryPredicate.of(format("createdAt > \"%s\" or (createdAt = \"%s\" and id > \"%s\")",
+                createdAt, createdAt, lastMessage.getId()));
+    }
+}
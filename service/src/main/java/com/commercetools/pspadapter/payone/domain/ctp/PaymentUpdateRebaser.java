@@ -0,0 +1,337 @@
+package com.commercetools.pspadapter.payone.domain.ctp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.client.ConcurrentModificationException;
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.commands.UpdateAction;
+import io.sphere.sdk.json.SphereJsonUtils;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.PaymentStatus;
+import io.sphere.sdk.payments.Transaction;
+import io.sphere.sdk.payments.TransactionDraft;
+import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
+import io.sphere.sdk.payments.commands.updateactions.AddInterfaceInteraction;
+import io.sphere.sdk.payments.commands.updateactions.AddTransaction;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionInteractionId;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionTimestamp;
+import io.sphere.sdk.payments.commands.updateactions.SetCustomField;
+import io.sphere.sdk.payments.commands.updateactions.SetInterfaceId;
+import io.sphere.sdk.payments.commands.updateactions.SetStatusInterfaceCode;
+import io.sphere.sdk.payments.commands.updateactions.SetStatusInterfaceText;
+import io.sphere.sdk.payments.queries.PaymentByIdGet;
+import io.sphere.sdk.types.CustomFields;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.commercetools.metrics.ServiceMetrics.PAYMENT_UPDATE_REBASES;
+import static com.commercetools.pspadapter.payone.mapping.CustomFieldKeys.REQUEST_FIELD;
+import static com.commercetools.pspadapter.payone.mapping.CustomFieldKeys.SEQUENCE_NUMBER_FIELD;
+import static com.commercetools.pspadapter.payone.mapping.CustomFieldKeys.TRANSACTION_ID_FIELD;
+import static com.commercetools.pspadapter.payone.mapping.CustomFieldKeys.TX_ACTION_FIELD;
+import static java.util.Collections.emptyList;
+import static java.util.function.Function.identity;
+
+/**
+ * Executes payment updates and rebases them on {@link ConcurrentModificationException}: only the payment is fetched
+ * again, and if the planned actions commute with whatever changed it in the meantime, they are sent once more against
+ * the new version. Only a real conflict reaches the caller, which then fetches everything again and plans the update
+ * from scratch.
+ * <p>
+ * An action commutes with the concurrent changes if the parts of the payment it depends on are the same in the
+ * planned and in the current version:
+ * <ul>
+ * <li>{@link AddInterfaceInteraction} - no interaction for the same transaction id, or the same sequence number and
+ * txaction, was added concurrently; a Payone request interaction also needs the highest sequence number to be
+ * unchanged</li>
+ * <li>{@link AddTransaction} - no transaction of the same type and interaction id (Payone sequence number) was added
+ * concurrently</li>
+ * <li>{@link ChangeTransactionState}, {@link ChangeTransactionTimestamp} - the transaction is unchanged</li>
+ * <li>{@link ChangeTransactionInteractionId} - the transaction and the highest sequence number are unchanged, as the
+ * new interaction id is the next sequence number of the planned version</li>
+ * <li>{@link SetStatusInterfaceCode}, {@link SetStatusInterfaceText}, {@link SetInterfaceId},
+ * {@link SetCustomField} - the value to overwrite is unchanged</li>
+ * </ul>
+ * Any other action is a conflict.
+ */
+public final class PaymentUpdateRebaser {
+
+    /**
+     * How many times the actions are rebased before the {@link ConcurrentModificationException} is passed on.
+     */
+    static final int MAX_REBASES = 3;
+
+    /**
+     * Interface interaction fields which identify the Payone request or notification the interaction belongs to.
+     */
+    private static final List<String> INTERACTION_IDENTITY_FIELDS =
+            Arrays.asList(TRANSACTION_ID_FIELD, SEQUENCE_NUMBER_FIELD, TX_ACTION_FIELD);
+
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentUpdateRebaser.class);
+
+    /**
+     * Updates the payment, rebasing the actions on concurrent modifications which don't conflict.
+     *
+     * @param client  client to execute the update and to fetch the payment
+     * @param payment the payment version the {@code actions} are planned on
+     * @param actions actions to apply
+     * @return the updated payment
+     * @throws ConcurrentModificationException if the actions conflict with a concurrent modification
+     */
+    @Nonnull
+    public static Payment executeBlocking(@Nonnull final BlockingSphereClient client, @Nonnull final Payment payment,
+                                          @Nonnull final List<? extends UpdateAction<Payment>> actions) {
+        Payment target = payment;
+        for (int rebases = 0; ; rebases++) {
+            try {
+                return client.executeBlocking(PaymentUpdateCommand.of(target, actions));
+            } catch (final ConcurrentModificationException e) {
+                if (rebases == MAX_REBASES) {
+                    throw e;
+                }
+                final Payment current = client.executeBlocking(PaymentByIdGet.of(payment.getId()));
+                if (!canRebase(payment, current, actions)) {
+                    throw e;
+                }
+                target = current;
+            }
+        }
+    }
+
+    /**
+     * Updates the payment with actions which record something that happened already, like the Payone response of a
+     * transaction, so they must not be lost on a conflict. If the actions conflict with a concurrent modification,
+     * the payment is fetched again and only the actions which commute with it are executed: where both change the same
+     * part of the payment, the concurrent modification, like a notification of the transaction, is newer and wins.
+     *
+     * @param client  client to execute the update and to fetch the payment
+     * @param payment the payment version the {@code actions} are planned on
+     * @param actions actions to record
+     * @return the updated payment
+     * @throws RuntimeException if the actions could not be recorded, logged with the actions, which are lost
+     */
+    @Nonnull
+    public static Payment recordBlocking(@Nonnull final BlockingSphereClient client, @Nonnull final Payment payment,
+                                         @Nonnull final List<? extends UpdateAction<Payment>> actions) {
+        try {
+            try {
+                return executeBlocking(client, payment, actions);
+            } catch (final ConcurrentModificationException e) {
+                final Payment current = client.executeBlocking(PaymentByIdGet.of(payment.getId()));
+                if (current == null) {
+                    throw e;
+                }
+                final List<UpdateAction<Payment>> commuting = new ArrayList<>(actions.size());
+                for (final UpdateAction<Payment> action : actions) {
+                    if (commutes(action, payment, current)) {
+                        commuting.add(action);
+                    }
+                }
+                if (commuting.size() < actions.size()) {
+                    LOG.warn("Payment [{}] was modified concurrently, {} of {} actions are superseded and dropped",
+                            payment.getId(), actions.size() - commuting.size(), actions.size());
+                }
+                return commuting.isEmpty() ? current : executeBlocking(client, current, commuting);
+            }
+        } catch (final RuntimeException e) {
+            LOG.error("Could not record the actions {} on payment [{}], they are lost",
+                    SphereJsonUtils.toJsonString(actions), payment.getId(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking {@link #executeBlocking(BlockingSphereClient, Payment, List)}.
+     *
+     * @return completion stage with the updated payment, or the {@link ConcurrentModificationException} if the
+     * actions conflict with a concurrent modification
+     */
+    @Nonnull
+    public static CompletionStage<Payment> execute(@Nonnull final SphereClient client, @Nonnull final Payment payment,
+                                                   @Nonnull final List<? extends UpdateAction<Payment>> actions) {
+        return execute(client, payment, payment, actions, 0);
+    }
+
+    private static CompletionStage<Payment> execute(@Nonnull final SphereClient client, @Nonnull final Payment payment,
+                                                    @Nonnull final Payment target,
+                                                    @Nonnull final List<? extends UpdateAction<Payment>> actions,
+                                                    final int rebases) {
+        return client.execute(PaymentUpdateCommand.of(target, actions))
+                .<CompletionStage<Payment>>handle((updatedPayment, throwable) -> {
+                    if (throwable == null) {
+                        return CompletableFuture.completedFuture(updatedPayment);
+                    }
+                    if (!(unwrap(throwable) instanceof ConcurrentModificationException) || rebases == MAX_REBASES) {
+                        return failed(throwable);
+                    }
+                    return client.execute(PaymentByIdGet.of(payment.getId()))
+                            .thenCompose(current -> canRebase(payment, current, actions)
+                                    ? execute(client, payment, current, actions, rebases + 1)
+                                    : PaymentUpdateRebaser.<Payment>failed(throwable));
+                })
+                .thenCompose(identity());
+    }
+
+    /**
+     * @param payment the payment version the {@code actions} are planned on
+     * @param current the current version of the payment, <b>null</b> if it was deleted
+     * @param actions actions to apply
+     * @return <b>true</b> if the actions may be applied to the current version, counted in
+     * {@link com.commercetools.metrics.ServiceMetrics#PAYMENT_UPDATE_REBASES}
+     */
+    static boolean canRebase(@Nonnull final Payment payment, @Nullable final Payment current,
+                          @Nonnull final List<? extends UpdateAction<Payment>> actions) {
+        final boolean commute = current != null && actions.stream().allMatch(action -> commutes(action, payment, current));
+        PAYMENT_UPDATE_REBASES.labels(commute ? "rebased" : "conflict").increment();
+        return commute;
+    }
+
+    private static boolean commutes(@Nonnull final UpdateAction<Payment> action, @Nonnull final Payment payment,
+                                    @Nonnull final Payment current) {
+        if (action instanceof AddInterfaceInteraction) {
+            final AddInterfaceInteraction addInteraction = (AddInterfaceInteraction) action;
+            return !isInteractionAdded(addInteraction, payment, current)
+                    && (!addInteraction.getFields().containsKey(REQUEST_FIELD)
+                    || isSequenceNumberUnchanged(payment, current));
+        }
+        if (action instanceof AddTransaction) {
+            return !isTransactionAdded(((AddTransaction) action).getTransaction(), current);
+        }
+        if (action instanceof ChangeTransactionState) {
+            return isTransactionUnchanged(((ChangeTransactionState) action).getTransactionId(), payment, current);
+        }
+        if (action instanceof ChangeTransactionInteractionId) {
+            return isTransactionUnchanged(((ChangeTransactionInteractionId) action).getTransactionId(), payment, current)
+                    && isSequenceNumberUnchanged(payment, current);
+        }
+        if (action instanceof ChangeTransactionTimestamp) {
+            return isTransactionUnchanged(((ChangeTransactionTimestamp) action).getTransactionId(), payment, current);
+        }
+        if (action instanceof SetStatusInterfaceCode) {
+            return isUnchanged(payment, current, p -> Optional.ofNullable(p.getPaymentStatus())
+                    .map(PaymentStatus::getInterfaceCode).orElse(null));
+        }
+        if (action instanceof SetStatusInterfaceText) {
+            return isUnchanged(payment, current, p -> Optional.ofNullable(p.getPaymentStatus())
+                    .map(PaymentStatus::getInterfaceText).orElse(null));
+        }
+        if (action instanceof SetInterfaceId) {
+            return isUnchanged(payment, current, Payment::getInterfaceId);
+        }
+        if (action instanceof SetCustomField) {
+            final String name = ((SetCustomField) action).getName();
+            return isUnchanged(payment, current, p -> Optional.ofNullable(p.getCustom())
+                    .map(custom -> custom.getFieldAsJsonNode(name)).orElse(null));
+        }
+        return false;
+    }
+
+    private static boolean isInteractionAdded(@Nonnull final AddInterfaceInteraction action,
+                                              @Nonnull final Payment payment, @Nonnull final Payment current) {
+        final Map<String, JsonNode> fields = action.getFields();
+        if (INTERACTION_IDENTITY_FIELDS.stream().noneMatch(fields::containsKey)) {
+            return false;
+        }
+        // interactions can only be appended, so the concurrently added ones follow the planned version's ones
+        final List<CustomFields> interactions = interactions(current);
+        return interactions.subList(Math.min(interactions(payment).size(), interactions.size()), interactions.size())
+                .stream()
+                .anyMatch(interaction -> INTERACTION_IDENTITY_FIELDS.stream()
+                        .filter(fields::containsKey)
+                        .allMatch(name -> Objects.equals(fields.get(name), interaction.getFieldAsJsonNode(name))));
+    }
+
+    private static boolean isTransactionAdded(@Nonnull final TransactionDraft draft, @Nonnull final Payment current) {
+        return current.getTransactions().stream()
+                .anyMatch(transaction -> transaction.getType() == draft.getType()
+                        && Objects.equals(transaction.getInteractionId(), draft.getInteractionId()));
+    }
+
+    private static boolean isTransactionUnchanged(@Nonnull final String transactionId, @Nonnull final Payment payment,
+                                                  @Nonnull final Payment current) {
+        final Optional<Transaction> planned = findTransaction(payment, transactionId);
+        final Optional<Transaction> actual = findTransaction(current, transactionId);
+        return planned.isPresent() && actual.isPresent()
+                && planned.get().getState() == actual.get().getState()
+                && Objects.equals(planned.get().getInteractionId(), actual.get().getInteractionId())
+                && Objects.equals(planned.get().getTimestamp(), actual.get().getTimestamp());
+    }
+
+    /**
+     * The sequence number of a Payone request is planned as the highest sequence number of the payment plus one, see
+     * {@link com.commercetools.pspadapter.payone.transaction.IdempotentTransactionExecutor}. A concurrent notification
+     * which raised it makes the planned number stale.
+     */
+    private static boolean isSequenceNumberUnchanged(@Nonnull final Payment payment, @Nonnull final Payment current) {
+        return maxSequenceNumber(payment) == maxSequenceNumber(current);
+    }
+
+    /**
+     * @return the highest sequence number of the notification interactions and the transaction interaction ids,
+     * -1 if there is none
+     */
+    private static int maxSequenceNumber(@Nonnull final Payment payment) {
+        return IntStream.concat(
+                interactions(payment).stream()
+                        .mapToInt(interaction -> parseSequenceNumber(interaction.getFieldAsString(SEQUENCE_NUMBER_FIELD))),
+                payment.getTransactions().stream()
+                        .mapToInt(transaction -> parseSequenceNumber(transaction.getInteractionId())))
+                .max()
+                .orElse(-1);
+    }
+
+    private static int parseSequenceNumber(@Nullable final String value) {
+        final String trimmed = value != null ? value.trim() : null;
+        return trimmed != null && trimmed.matches("-?[0-9]+") ? Integer.parseInt(trimmed) : -1;
+    }
+
+    private static <T> boolean isUnchanged(@Nonnull final Payment payment, @Nonnull final Payment current,
+                                           @Nonnull final Function<Payment, T> value) {
+        return Objects.equals(value.apply(payment), value.apply(current));
+    }
+
+    @Nonnull
+    private static Optional<Transaction> findTransaction(@Nonnull final Payment payment,
+                                                         @Nonnull final String transactionId) {
+        return payment.getTransactions().stream()
+                .filter(transaction -> transactionId.equals(transaction.getId()))
+                .findFirst();
+    }
+
+    @Nonnull
+    private static List<CustomFields> interactions(@Nonnull final Payment payment) {
+        return payment.getInterfaceInteractions() != null ? payment.getInterfaceInteractions() : emptyList();
+    }
+
+    @Nonnull
+    private static Throwable unwrap(@Nonnull final Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause()
+                : throwable;
+    }
+
+    @Nonnull
+    private static <T> CompletableFuture<T> failed(@Nonnull final Throwable throwable) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(unwrap(throwable));
+        return future;
+    }
+
+    private PaymentUpdateRebaser() {
+    }
+}
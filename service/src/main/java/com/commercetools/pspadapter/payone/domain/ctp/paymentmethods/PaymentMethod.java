@@ -6,10 +6,14 @@ import javax.annotation.Nonnull;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 
 import static io.sphere.sdk.payments.TransactionType.AUTHORIZATION;
 import static io.sphere.sdk.payments.TransactionType.CHARGE;
 import static java.util.Arrays.stream;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
 
 /**
  * Enumerates the payment methods available for Payone and <b>supported by current service</b>.
@@ -93,6 +97,9 @@ public enum PaymentMethod {
      */
     public static final List<TransactionType> supportedTransactionTypes = Arrays.asList(AUTHORIZATION, CHARGE);
 
+    private static final Map<String, PaymentMethod> BY_KEY = unmodifiableMap(stream(values())
+            .collect(toMap(PaymentMethod::getKey, identity())));
+
     private String key;
 
     PaymentMethod(final String key) {
@@ -117,9 +124,10 @@ public enum PaymentMethod {
      */
     @Nonnull
     public static PaymentMethod fromMethodKey(final String methodKey) {
-        return stream(PaymentMethod.values())
-                .filter(value -> value.key.equals(methodKey))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(String.format("Invalid PaymentMethod: %s", methodKey)));
+        final PaymentMethod paymentMethod = BY_KEY.get(methodKey);
+        if (paymentMethod == null) {
+            throw new IllegalArgumentException(String.format("Invalid PaymentMethod: %s", methodKey));
+        }
+        return paymentMethod;
     }
 }
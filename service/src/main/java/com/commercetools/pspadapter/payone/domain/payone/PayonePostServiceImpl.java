@@ -2,6 +2,7 @@ package com.commercetools.pspadapter.payone.domain.payone;
 
 import com.commercetools.pspadapter.payone.domain.payone.exceptions.PayoneException;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.BaseRequest;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields;
 import com.commercetools.util.PayoneHttpClientUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Consts;
@@ -12,14 +13,19 @@ import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URLEncodedUtils;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.util.EntityUtils;
 
@@ -34,6 +40,9 @@ import java.util.Map;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static com.commercetools.metrics.ServiceMetrics.PAYONE_REQUEST_DURATION;
+import static com.commercetools.metrics.ServiceMetrics.UNKNOWN_LABEL;
+import static com.commercetools.metrics.ServiceMetrics.registerPayoneConnectionPool;
 import static com.commercetools.util.PayoneHttpClientUtil.nameValue;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
@@ -70,8 +79,17 @@ public class PayonePostServiceImpl implements PayonePostService {
 
     private static final String ENCODING_UTF8 = "UTF-8";
 
+    /**
+     * Same content type as of {@link UrlEncodedFormEntity} with UTF-8 charset.
+     */
+    private static final ContentType FORM_CONTENT_TYPE =
+            ContentType.create(URLEncodedUtils.CONTENT_TYPE, Consts.UTF_8);
+
     private String serverAPIURL;
 
+    private static final PoolingHttpClientConnectionManager CONNECTION_MANAGER =
+            PayoneHttpClientUtil.buildDefaultConnectionManager();
+
     private static final CloseableHttpClient PAYONE_HTTP_CLIENT = HttpClientBuilder.create()
             .setDefaultRequestConfig(RequestConfig.custom()
                     .setConnectionRequestTimeout(
@@ -83,9 +101,13 @@ public class PayonePostServiceImpl implements PayonePostService {
             .setRetryHandler(PayoneHttpClientUtil.httpRequestRetryHandler)
             .setServiceUnavailableRetryStrategy(PayoneHttpClientUtil.serviceUnavailableRetryStrategy)
             .setKeepAliveStrategy(PayoneHttpClientUtil.keepAliveStrategy)
-            .setConnectionManager(PayoneHttpClientUtil.buildDefaultConnectionManager())
+            .setConnectionManager(CONNECTION_MANAGER)
             .build();
 
+    static {
+        registerPayoneConnectionPool(CONNECTION_MANAGER);
+    }
+
     private PayonePostServiceImpl(final String serverAPIURL) {
         if(StringUtils.isBlank(serverAPIURL)) {
             throw new IllegalArgumentException("The server api url must not be null or empty.");
@@ -107,13 +129,19 @@ public class PayonePostServiceImpl implements PayonePostService {
     @Override
     public Map<String, String> executePost(final BaseRequest baseRequest) throws PayoneException {
 
+        final long start = System.nanoTime();
         try {
-            final List<BasicNameValuePair> mappedListParameters =
-                    getNameValuePairsWithExpandedLists(baseRequest.toStringMap(false));
-            final String serverResponse = executePostRequestToString(this.serverAPIURL, mappedListParameters);
+            final String serverResponse = executePostFormToString(this.serverAPIURL, baseRequest.toFormBody());
 
-            return buildMapFromResultParams(serverResponse);
+            final Map<String, String> response = buildMapFromResultParams(serverResponse);
+            PAYONE_REQUEST_DURATION
+                    .labels(baseRequest.getRequest(),
+                            response.getOrDefault(PayoneResponseFields.STATUS, UNKNOWN_LABEL),
+                            response.get(PayoneResponseFields.ERROR_CODE))
+                    .recordSince(start);
+            return response;
         } catch (Exception e) {
+            PAYONE_REQUEST_DURATION.labels(baseRequest.getRequest(), "EXCEPTION", null).recordSince(start);
             final String requestBody =
                 getNameValuePairsWithExpandedLists(baseRequest.toStringMap(true)).toString();
             final String exceptionMessage = format("Payone POST request with body (%s) failed.", requestBody);
@@ -137,6 +165,22 @@ public class PayonePostServiceImpl implements PayonePostService {
         return PayoneHttpClientUtil.responseToString(executePostRequest(url, parameters));
     }
 
+    /**
+     * Post the already encoded {@code formBody}, see {@link BaseRequest#toFormBody()}.
+     *
+     * @param url      URL to post
+     * @param formBody {@code application/x-www-form-urlencoded} UTF-8 body
+     * @return response string from the request
+     * @throws IOException in case of a problem or the connection was aborted
+     */
+    static String executePostFormToString(@Nonnull final String url, @Nonnull final String formBody)
+            throws IOException {
+
+        final HttpPost request = new HttpPost(url);
+        request.setEntity(new StringEntity(formBody, FORM_CONTENT_TYPE));
+        return PayoneHttpClientUtil.responseToString(executeReadAndCloseRequest(request));
+    }
+
     /**
      * Execute retryable HTTP POST request with specified {@code timeoutMsec}
      *
@@ -201,6 +245,25 @@ public class PayonePostServiceImpl implements PayonePostService {
         return executeReadAndCloseRequest(new HttpGet(url));
     }
 
+    /**
+     * Execute HTTP HEAD request with the Payone client. It opens or reuses a pooled connection without sending an API
+     * call, so it is used to keep the connections warm.
+     *
+     * @param url url to request
+     * @return response from the {@code url}
+     * @throws IOException in case of a problem or the connection was aborted
+     */
+    public static HttpResponse executeHeadRequest(@Nonnull String url) throws IOException {
+        return executeReadAndCloseRequest(new HttpHead(url));
+    }
+
+    /**
+     * @return current statistics of the connection pool shared by all Payone requests
+     */
+    public static PoolStats getConnectionPoolStats() {
+        return CONNECTION_MANAGER.getTotalStats();
+    }
+
     /**
      * Expand entries with list values to key-value pairs where the keys are transformed to set of {@code key[i]} with
      * respective values from the list. Non-list arguments remain the same.
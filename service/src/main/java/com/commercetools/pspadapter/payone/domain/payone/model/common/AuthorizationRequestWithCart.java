@@ -6,6 +6,8 @@ import com.commercetools.pspadapter.payone.domain.payone.model.common.Authorizat
 import com.commercetools.pspadapter.payone.domain.payone.model.common.ClearingType;
 import com.commercetools.pspadapter.payone.domain.payone.model.klarna.KlarnaConstants;
 import com.commercetools.pspadapter.payone.domain.payone.model.klarna.PricesAggregator;
+import com.commercetools.util.UrlEncodedFormWriter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.sphere.sdk.cartdiscounts.DiscountedLineItemPrice;
 import io.sphere.sdk.carts.CartLike;
 import io.sphere.sdk.carts.CartShippingInfo;
@@ -19,9 +21,9 @@ import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -51,17 +53,7 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
 
     private String financingtype;
 
-    private List<String> it;
-
-    private List<String> id;
-
-    private List<Long> pr;
-
-    private List<Long> no;
-
-    private List<String> de;
-
-    private List<Integer> va;
+    private LineItemColumns lineItems;
 
     protected AuthorizationRequestWithCart(@Nonnull final PayoneConfig config,
                                            @Nonnull final String requestType,
@@ -95,12 +87,9 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
      *
      * @return list of all price item types (line items, shipment, voucher/discount), respective to {@link #getId()}
      */
+    @JsonIgnore
     public List<String> getIt() {
-        return it;
-    }
-
-    public void setIt(List<String> it) {
-        this.it = it;
+        return lineItems.itemTypeList();
     }
 
     /**
@@ -108,12 +97,9 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
      *
      * @return list of product numbers (article, artikel)
      */
+    @JsonIgnore
     public List<String> getId() {
-        return id;
-    }
-
-    public void setId(List<String> id) {
-        this.id = id;
+        return lineItems.idList();
     }
 
     /**
@@ -123,37 +109,27 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
      *
      * @return list of product prices, respective to {@link #getIt()} and {@link #getId()}
      */
+    @JsonIgnore
     public List<Long> getPr() {
-        return pr;
-    }
-
-    public void setPr(List<Long> pr) {
-        this.pr = pr;
+        return lineItems.priceList();
     }
 
     /**
      * @return items quantity, respective to {@link #getId()}
      */
+    @JsonIgnore
     public List<Long> getNo() {
-        return no;
-    }
-
-    public void setNo(List<Long> no) {
-        this.no = no;
+        return lineItems.quantityList();
     }
 
     /**
      * @return list of items description, respective to {@link #getId()}
      */
+    @JsonIgnore
     public List<String> getDe() {
-        return de;
+        return lineItems.descriptionList();
     }
 
-    public void setDe(List<String> de) {
-        this.de = de;
-    }
-
-
     /**
      * VAT rate (%)
      * <p>
@@ -161,16 +137,32 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
      *
      * @return list of VAT rates in percent, respective to {@link #getId()}
      */
+    @JsonIgnore
     public List<Integer> getVa() {
-        return va;
+        return lineItems.vatRateList();
+    }
+
+    /**
+     * Adds the line item columns to the map, which Jackson doesn't serialize.
+     */
+    @Override
+    public Map<String, Object> toStringMap(final boolean shouldClearSecurityValues) {
+        final Map<String, Object> parameters = super.toStringMap(shouldClearSecurityValues);
+        lineItems.putTo(parameters);
+        return parameters;
     }
 
-    public void setVa(List<Integer> va) {
-        this.va = va;
+    /**
+     * Writes the line item columns straight into the form body, without boxing and without a map entry per value.
+     */
+    @Override
+    protected void appendFormParameters(final UrlEncodedFormWriter form) {
+        form.appendAll(super.toStringMap(false));
+        lineItems.appendTo(form);
     }
 
     /**
-     * This function will clean/initialize all the list properties(like {@link #id}, {@link #it} and so on) and
+     * This function will clean/initialize the line item columns (like {@link #getId()}, {@link #getIt()} and so on) and
      * populate them from the {@code paymentWithCartLike} (custom)line items, discounts, shipment costs.
      *
      * @param paymentWithCartLike instance from which all the prices are fetched.
@@ -191,12 +183,7 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
                 + 1 // cartLike.getShippingInfo();
                 + 1; // discount
 
-        this.id = new ArrayList<>(itemsCount);
-        this.it = new ArrayList<>(itemsCount);
-        this.pr = new ArrayList<>(itemsCount);
-        this.no = new ArrayList<>(itemsCount);
-        this.de = new ArrayList<>(itemsCount);
-        this.va = new ArrayList<>(itemsCount);
+        this.lineItems = new LineItemColumns(itemsCount);
 
         // populate all "payable" items (goods, shipment) and get the aggregated price
         PricesAggregator aggregatedPrices = populatePrices(asList(
@@ -227,16 +214,10 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
                                                @Nonnull Iterable<Locale> locales) {
         return lineItems.stream()
                 .map(lineItem -> {
-                    it.add(goods.toString());
-                    id.add(validateId(lineItem.getVariant().getSku()));
-
-                    no.add(lineItem.getQuantity());
-
-                    de.add(localizeOrFallback(lineItem.getName(), locales, "item"));
-                    va.add(getTaxRateIfPresentOrZero(lineItem.getTaxRate()));
-
                     final long fullPriceCents = centAmountOf(lineItem.getPrice().getValue());
-                    pr.add(fullPriceCents);
+                    this.lineItems.add(goods, validateId(lineItem.getVariant().getSku()), fullPriceCents,
+                            lineItem.getQuantity(), localizeOrFallback(lineItem.getName(), locales, "item"),
+                            getTaxRateIfPresentOrZero(lineItem.getTaxRate()));
 
                     return new PricesAggregator(fullPriceCents * lineItem.getQuantity(),
                             getActualPricePerLineItem(lineItem));
@@ -255,15 +236,10 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
                                                      @Nonnull Iterable<Locale> locales) {
         return customLineItems.stream()
                 .map(customLineItem -> {
-                    it.add(goods.toString());
                     final String customItemName = localizeOrFallback(customLineItem.getName(), locales, "custom item");
-                    id.add(validateId(customItemName));
-                    no.add(customLineItem.getQuantity());
-                    de.add(customItemName);
-                    va.add(getTaxRateIfPresentOrZero(customLineItem.getTaxRate()));
-
                     final long fullPriceCents = centAmountOf(customLineItem.getMoney());
-                    pr.add(fullPriceCents);
+                    lineItems.add(goods, validateId(customItemName), fullPriceCents, customLineItem.getQuantity(),
+                            customItemName, getTaxRateIfPresentOrZero(customLineItem.getTaxRate()));
 
                     return new PricesAggregator(fullPriceCents * customLineItem.getQuantity(),
                             getActualPricePerLineItem(customLineItem));
@@ -282,22 +258,16 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
     private PricesAggregator populateShipping(@Nullable CartShippingInfo cartShippingInfo) {
         return ofNullable(cartShippingInfo)
                 .map(shippingInfo -> {
-                    it.add(shipment.toString());
-
                     final String shippingMethodName = shippingInfo.getShippingMethodName();
-                    id.add(validateId(shippingMethodName));
-
-                    no.add(1L); // always one shipment item so far
-
-                    de.add(ofNullable(shippingInfo.getShippingMethod())
-                            .map(Reference::getObj)
-                            .map(ShippingMethod::getDescription)
-                            .orElse("shipping " + shippingMethodName));
-
-                    va.add(getTaxRateIfPresentOrZero(shippingInfo.getTaxRate()));
-
                     final long fullPriceCents = centAmountOf(shippingInfo.getPrice());
-                    pr.add(fullPriceCents);
+
+                    lineItems.add(shipment, validateId(shippingMethodName), fullPriceCents,
+                            1L, // always one shipment item so far
+                            ofNullable(shippingInfo.getShippingMethod())
+                                    .map(Reference::getObj)
+                                    .map(ShippingMethod::getDescription)
+                                    .orElse("shipping " + shippingMethodName),
+                            getTaxRateIfPresentOrZero(shippingInfo.getTaxRate()));
 
                     return new PricesAggregator(fullPriceCents, ofNullable(shippingInfo.getDiscountedPrice())
                             .map(DiscountedLineItemPrice::getValue)
@@ -315,17 +285,12 @@ public abstract class AuthorizationRequestWithCart extends AuthorizationRequest
     private void populateVoucher(PricesAggregator aggregatedPrices) {
         long discountCents = -aggregatedPrices.getDiscount();
         if (discountCents != 0) {
-            it.add(voucher.toString());
             final String totalDiscountName = "total discount";
-            id.add(validateId(totalDiscountName));
-            pr.add(discountCents); // discount value should be negative
-
-            // so far we count accumulated discount from all items and shipment.
-            // Could be changed in future to support separated discount lines in the request
-            no.add(1L);
-
-            de.add(totalDiscountName);
-            va.add(0); // taxes doesn't have any sense for accumulated discount
+            // discount value should be negative.
+            // So far we count accumulated discount from all items and shipment.
+            // Could be changed in future to support separated discount lines in the request.
+            // Taxes doesn't have any sense for accumulated discount.
+            lineItems.add(voucher, validateId(totalDiscountName), discountCents, 1L, totalDiscountName, 0);
         }
     }
 
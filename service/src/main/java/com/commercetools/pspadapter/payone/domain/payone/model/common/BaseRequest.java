@@ -2,6 +2,7 @@ package com.commercetools.pspadapter.payone.domain.payone.model.common;
 
 import com.commercetools.pspadapter.payone.config.PayoneConfig;
 import com.commercetools.pspadapter.payone.util.ClearSecuredValuesSerializer;
+import com.commercetools.util.UrlEncodedFormWriter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -16,6 +17,9 @@ import java.util.Map;
 public class BaseRequest implements Serializable {
 
     private static final long serialVersionUID = 2L;
+
+    private static final int FORM_BODY_CAPACITY = 1024;
+
     /**
      * ID of the merchant
      */
@@ -93,6 +97,26 @@ public class BaseRequest implements Serializable {
                 mapper.getTypeFactory().constructMapType(HashMap.class, String.class, Object.class));
     }
 
+    /**
+     * Encodes the request as {@code application/x-www-form-urlencoded} body of the Payone API POST request. List values
+     * are expanded to {@code key[i]} parameters.
+     *
+     * @return the form body with the real (not cleared) security values
+     */
+    public String toFormBody() {
+        final UrlEncodedFormWriter form = new UrlEncodedFormWriter(FORM_BODY_CAPACITY);
+        appendFormParameters(form);
+        return form.toString();
+    }
+
+    /**
+     * Appends all the request parameters to {@code form}. Subclasses with large parameter lists may write them
+     * directly instead of serializing them to a map first.
+     */
+    protected void appendFormParameters(final UrlEncodedFormWriter form) {
+        form.appendAll(toStringMap(false));
+    }
+
     BaseRequest(final PayoneConfig config, final String requestType) {
         this.mid = config.getMerchantId();
         this.key = config.getKeyAsHash();
@@ -1,6 +1,6 @@
 package com.commercetools.pspadapter.payone.domain.payone.model.common;
 
-import org.apache.commons.lang3.StringUtils;
+import com.commercetools.util.CaseInsensitiveTrie;
 
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -48,14 +48,18 @@ public enum ClearingType {
      * </code>
      * **/
     private final String subType;
-    private static final Map<String, ClearingType> LOOKUP_TYPE = new HashMap<>();
-    private static final Map<String, ClearingType> LOOKUP_CODE = new HashMap<>();
+    private static final CaseInsensitiveTrie<ClearingType> TRIE_TYPE;
+    private static final CaseInsensitiveTrie<ClearingType> TRIE_CODE;
 
     static {
+        final Map<String, ClearingType> lookupType = new HashMap<>();
+        final Map<String, ClearingType> lookupCode = new HashMap<>();
         for (ClearingType p : EnumSet.allOf(ClearingType.class)) {
-            LOOKUP_TYPE.put(p.getKey(), p);
-            LOOKUP_CODE.put(p.getPayoneCode(), p);
+            lookupType.put(p.getKey(), p);
+            lookupCode.put(p.getPayoneCode(), p);
         }
+        TRIE_TYPE = new CaseInsensitiveTrie<>(lookupType);
+        TRIE_CODE = new CaseInsensitiveTrie<>(lookupCode);
     }
 
     ClearingType(final String key, final String payoneCode, final String subType) {
@@ -65,15 +69,9 @@ public enum ClearingType {
     }
 
     public static ClearingType getClearingTypeByKey(final String ctKey) {
-        ClearingType clearingType = null;
         // Same paymentmodes could have different codes, when they have for example different paymentcosts. Because
         // of that only the prefix of each paymentmode is checked
-        for (String lookupPaymentType : LOOKUP_TYPE.keySet()) {
-            if (StringUtils.containsIgnoreCase(ctKey, lookupPaymentType)) {
-                clearingType = LOOKUP_TYPE.get(lookupPaymentType);
-                break;
-            }
-        }
+        final ClearingType clearingType = TRIE_TYPE.findIn(ctKey);
         if (clearingType == null) {
             throw new IllegalArgumentException("commercetools clearingtype '" + ctKey + "' could not be mapped.");
         } else {
@@ -82,16 +80,9 @@ public enum ClearingType {
     }
 
     public static ClearingType getClearingTypeByCode(final String payoneCode) {
-        ClearingType clearingType = null;
         // Same paymentmodes could have different Codes, when they have for example different paymentcosts. Because
         // of that only the prefix of each paymentmode is checked
-        for (String lookupPaymentCode : LOOKUP_CODE.keySet()) {
-            if (StringUtils.containsIgnoreCase(payoneCode, lookupPaymentCode)) {
-                clearingType = LOOKUP_CODE.get(lookupPaymentCode);
-                break;
-            }
-        }
-
+        final ClearingType clearingType = TRIE_CODE.findIn(payoneCode);
         if (clearingType == null) {
             throw new IllegalArgumentException("Payone clearingtype '" + payoneCode + "' could not be mapped.");
         } else {
@@ -0,0 +1,181 @@
+package com.commercetools.pspadapter.payone.domain.payone.model.common;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.klarna.KlarnaItemTypeEnum;
+import com.commercetools.util.UrlEncodedFormWriter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Sold items of a request with cart, stored column by column in primitive arrays: one row per (custom) line item,
+ * shipment or voucher. Large B2B carts don't allocate a boxed value per price, quantity and VAT rate, and
+ * {@link #appendTo(UrlEncodedFormWriter)} writes the {@code it[i]}, {@code id[i]}, {@code pr[i]}, {@code no[i]},
+ * {@code de[i]} and {@code va[i]} parameters straight into the form body.
+ * <p>
+ * The {@code xxxList()} methods return read-only views, the values are boxed only when accessed.
+ */
+final class LineItemColumns implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String IT = "it";
+    static final String ID = "id";
+    static final String PR = "pr";
+    static final String NO = "no";
+    static final String DE = "de";
+    static final String VA = "va";
+
+    private static final KlarnaItemTypeEnum[] ITEM_TYPES = KlarnaItemTypeEnum.values();
+
+    private byte[] itemTypes;
+    private String[] ids;
+    private long[] prices;
+    private long[] quantities;
+    private String[] descriptions;
+    private int[] vatRates;
+    private int size;
+
+    LineItemColumns(final int capacity) {
+        final int initialCapacity = Math.max(capacity, 1);
+        this.itemTypes = new byte[initialCapacity];
+        this.ids = new String[initialCapacity];
+        this.prices = new long[initialCapacity];
+        this.quantities = new long[initialCapacity];
+        this.descriptions = new String[initialCapacity];
+        this.vatRates = new int[initialCapacity];
+    }
+
+    /**
+     * @param itemType    Klarna item type
+     * @param id          product number
+     * @param price       full unit price in cents
+     * @param quantity    items quantity
+     * @param description item description
+     * @param vatRate     VAT rate in percent
+     */
+    void add(@Nonnull final KlarnaItemTypeEnum itemType, @Nonnull final String id, final long price,
+             final long quantity, @Nullable final String description, final int vatRate) {
+        if (size == prices.length) {
+            grow();
+        }
+        itemTypes[size] = (byte) itemType.ordinal();
+        ids[size] = id;
+        prices[size] = price;
+        quantities[size] = quantity;
+        descriptions[size] = description;
+        vatRates[size] = vatRate;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Appends all the columns to the form body, or an empty list parameter per column if there are no items.
+     */
+    void appendTo(@Nonnull final UrlEncodedFormWriter form) {
+        if (size == 0) {
+            form.appendEmptyList(IT).appendEmptyList(ID).appendEmptyList(PR)
+                    .appendEmptyList(NO).appendEmptyList(DE).appendEmptyList(VA);
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            final int index = i + 1;
+            form.appendIndexed(IT, index, ITEM_TYPES[itemTypes[i]].toString())
+                    .appendIndexed(ID, index, ids[i])
+                    .appendIndexed(PR, index, prices[i])
+                    .appendIndexed(NO, index, quantities[i])
+                    .appendIndexed(DE, index, descriptions[i])
+                    .appendIndexed(VA, index, vatRates[i]);
+        }
+    }
+
+    /**
+     * Puts the list views of all the columns to {@code parameters}, like Jackson serialized the former list fields.
+     */
+    void putTo(@Nonnull final Map<String, Object> parameters) {
+        parameters.put(IT, itemTypeList());
+        parameters.put(ID, idList());
+        parameters.put(PR, priceList());
+        parameters.put(NO, quantityList());
+        parameters.put(DE, descriptionList());
+        parameters.put(VA, vatRateList());
+    }
+
+    @Nonnull
+    List<String> itemTypeList() {
+        return new ColumnView<>(i -> ITEM_TYPES[itemTypes[i]].toString());
+    }
+
+    @Nonnull
+    List<String> idList() {
+        return new ColumnView<>(i -> ids[i]);
+    }
+
+    @Nonnull
+    List<Long> priceList() {
+        return new ColumnView<>(i -> prices[i]);
+    }
+
+    @Nonnull
+    List<Long> quantityList() {
+        return new ColumnView<>(i -> quantities[i]);
+    }
+
+    @Nonnull
+    List<String> descriptionList() {
+        return new ColumnView<>(i -> descriptions[i]);
+    }
+
+    @Nonnull
+    List<Integer> vatRateList() {
+        return new ColumnView<>(i -> vatRates[i]);
+    }
+
+    private void grow() {
+        final int capacity = prices.length * 2;
+        itemTypes = Arrays.copyOf(itemTypes, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        vatRates = Arrays.copyOf(vatRates, capacity);
+    }
+
+    @FunctionalInterface
+    private interface Cell<T> {
+        T get(int row);
+    }
+
+    /**
+     * Read-only view of one column. The columns only grow while the request is built, so the view reads the current
+     * arrays on every access.
+     */
+    private final class ColumnView<T> extends AbstractList<T> implements RandomAccess {
+        private final Cell<T> cell;
+
+        private ColumnView(@Nonnull final Cell<T> cell) {
+            this.cell = cell;
+        }
+
+        @Override
+        public T get(final int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return cell.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
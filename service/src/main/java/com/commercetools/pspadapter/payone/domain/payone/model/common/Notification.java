@@ -18,6 +18,11 @@ import java.util.stream.Collectors;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Notification implements Serializable {
 
+    /**
+     * Separator of the key-value pairs of a notification request body, see {@link #fromKeyValueString}.
+     */
+    public static final String KEY_VALUE_SEPARATOR_PATTERN = "\r?\n?&";
+
     private String key;
 
     private NotificationAction txaction;
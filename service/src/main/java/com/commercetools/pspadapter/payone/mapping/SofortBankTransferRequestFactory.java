@@ -2,12 +2,13 @@ package com.commercetools.pspadapter.payone.mapping;
 
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.domain.payone.model.banktransfer.BankTransferRequest;
-import com.commercetools.pspadapter.payone.util.BlowfishUtil;
+import com.commercetools.pspadapter.payone.util.BlowfishDecryptor;
 import com.commercetools.pspadapter.tenant.TenantConfig;
 import io.sphere.sdk.payments.Payment;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.function.Consumer;
 
 import static com.commercetools.pspadapter.payone.mapping.CustomFieldKeys.BIC_FIELD;
@@ -22,14 +23,17 @@ import static java.util.Optional.ofNullable;
 public class SofortBankTransferRequestFactory extends BankTransferWithoutIbanBicRequestFactory {
 
     /**
-     * Optional (may be empty string, but not null) key for {@link BlowfishUtil} IBAN/BIC encrypting.
+     * Decryptor of the IBAN/BIC, built from the tenant secure key. <b>null</b> if the key is not set, then the values
+     * are not encrypted.
      */
-    @Nonnull
-    private final String secureKey;
+    @Nullable
+    private final BlowfishDecryptor decryptor;
 
     public SofortBankTransferRequestFactory(@Nonnull final TenantConfig tenantConfig) {
         super(tenantConfig);
-        this.secureKey = tenantConfig.getSecureKey() != null ? tenantConfig.getSecureKey() : "";
+        this.decryptor = StringUtils.isEmpty(tenantConfig.getSecureKey())
+                ? null
+                : new BlowfishDecryptor(tenantConfig.getSecureKey());
     }
 
     @Override
@@ -67,7 +71,7 @@ public class SofortBankTransferRequestFactory extends BankTransferWithoutIbanBic
     }
 
     /**
-     * Decrypt (if {@link #secureKey} is provided and set corresponding bank field (iban or bic) if it exists in the
+     * Decrypt (if {@link #decryptor} is provided and set corresponding bank field (iban or bic) if it exists in the
      * {@code ctPayment}'s custom field.
      *
      * @param ctPayment         Payment which might have iban/bic values in the custom fields.
@@ -83,8 +87,8 @@ public class SofortBankTransferRequestFactory extends BankTransferWithoutIbanBic
             .map(customFields -> customFields.getFieldAsString(fieldKey))
             .filter(StringUtils::isNotBlank)
             .ifPresent(bankFieldAsString ->
-                    bankFieldConsumer.accept(secureKey.isEmpty()
+                    bankFieldConsumer.accept(decryptor == null
                             ? bankFieldAsString
-                            : BlowfishUtil.decryptHexToString(secureKey, bankFieldAsString)));
+                            : decryptor.decryptHexToString(bankFieldAsString)));
     }
 }
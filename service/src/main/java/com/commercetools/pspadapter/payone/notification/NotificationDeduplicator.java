@@ -0,0 +1,82 @@
+package com.commercetools.pspadapter.payone.notification;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+
+import static com.commercetools.metrics.ServiceMetrics.NOTIFICATION_DUPLICATES;
+import static com.commercetools.pspadapter.payone.notification.NotificationProcessorBase.toSequenceNumber;
+
+/**
+ * Remembers the notifications a tenant handled recently, so the ones Payone redelivers because our {@code TSOK} was
+ * slow or lost are answered without reading and updating the payment and the order again.
+ * <p>
+ * A notification is identified by its {@code txid}, {@code sequencenumber}, {@code txaction} and {@code txtime}, which
+ * a redelivery repeats. The keys are exact, so a hit is never a false positive. They are kept for the configured time
+ * and at most the configured number of them, the least recently used ones are evicted first. A miss is no proof for
+ * a new notification, e.g. after a restart or on another node; {@link NotificationProcessorBase} then checks the
+ * interface interactions of the payment.
+ */
+public class NotificationDeduplicator {
+
+    /**
+     * Handles every notification.
+     */
+    public static final NotificationDeduplicator DISABLED = new NotificationDeduplicator();
+
+    @Nullable
+    private final String tenantName;
+
+    @Nullable
+    private final Cache<String, Boolean> handled;
+
+    /**
+     * @param tenantName tenant of the notifications, label of the metrics
+     * @param ttl        how long a handled notification is remembered
+     * @param maxSize    most notifications remembered
+     */
+    public NotificationDeduplicator(@Nonnull final String tenantName, @Nonnull final Duration ttl,
+                                    final long maxSize) {
+        this.tenantName = tenantName;
+        this.handled = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    private NotificationDeduplicator() {
+        this.tenantName = null;
+        this.handled = null;
+    }
+
+    /**
+     * @return <b>true</b> if the notification was handled recently, counted in
+     * {@link com.commercetools.metrics.ServiceMetrics#NOTIFICATION_DUPLICATES}
+     */
+    public boolean isDuplicate(@Nonnull final Notification notification) {
+        if (handled == null || handled.getIfPresent(key(notification)) == null) {
+            return false;
+        }
+        NOTIFICATION_DUPLICATES.labels(tenantName, "memory").increment();
+        return true;
+    }
+
+    /**
+     * Remembers a notification, call it only after the notification was handled completely.
+     */
+    public void markHandled(@Nonnull final Notification notification) {
+        if (handled != null) {
+            handled.put(key(notification), Boolean.TRUE);
+        }
+    }
+
+    @Nonnull
+    static String key(@Nonnull final Notification notification) {
+        return notification.getTxid() + '|' + toSequenceNumber(notification.getSequencenumber()) + '|'
+                + notification.getTxaction() + '|' + notification.getTxtime();
+    }
+}
@@ -1,5 +1,7 @@
 package com.commercetools.pspadapter.payone.notification;
 
+import com.commercetools.lease.LeaseUnavailableException;
+import com.commercetools.lease.PaymentLeases;
 import com.commercetools.pspadapter.payone.config.PayoneConfig;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.ClearingType;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
@@ -13,11 +15,14 @@ import io.sphere.sdk.utils.MoneyImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.money.MonetaryAmount;
 import java.util.ConcurrentModificationException;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Optional;
 
+import static com.commercetools.metrics.ServiceMetrics.CONCURRENT_MODIFICATION_RETRIES;
+import static com.commercetools.metrics.ServiceMetrics.NOTIFICATION_DURATION;
 import static com.commercetools.pspadapter.payone.util.CompletionUtil.executeBlocking;
 
 /**
@@ -28,43 +33,117 @@ public class NotificationDispatcher {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NotificationDispatcher.class);
 
+    /**
+     * Prefix of the lease which serializes the creation of the payment of a transaction, keyed by the txid.
+     */
+    static final String CREATION_LEASE_PREFIX = "txid-";
+
     private final NotificationProcessor defaultProcessor;
     private final Map<NotificationAction, NotificationProcessor> processors;
     private final TenantFactory tenantFactory;
     private final PayoneConfig config;
+    private final PaymentLeases paymentLeases;
+    private final NotificationDeduplicator notificationDeduplicator;
 
     public NotificationDispatcher(
             final NotificationProcessor defaultProcessor,
             final Map<NotificationAction, NotificationProcessor> processors,
             final TenantFactory tenantFactory,
             final PayoneConfig config) {
+        this(defaultProcessor, processors, tenantFactory, config, PaymentLeases.DISABLED);
+    }
+
+    /**
+     * @param paymentLeases makes the processing exclusive per payment: a notification whose payment is handled by
+     *                      another request waits for it
+     */
+    public NotificationDispatcher(
+            final NotificationProcessor defaultProcessor,
+            final Map<NotificationAction, NotificationProcessor> processors,
+            final TenantFactory tenantFactory,
+            final PayoneConfig config,
+            final PaymentLeases paymentLeases) {
+        this(defaultProcessor, processors, tenantFactory, config, paymentLeases, NotificationDeduplicator.DISABLED);
+    }
+
+    /**
+     * @param paymentLeases            makes the processing exclusive per payment: a notification whose payment is
+     *                                 handled by another request waits for it
+     * @param notificationDeduplicator answers notifications which were handled recently without handling them again
+     */
+    public NotificationDispatcher(
+            final NotificationProcessor defaultProcessor,
+            final Map<NotificationAction, NotificationProcessor> processors,
+            final TenantFactory tenantFactory,
+            final PayoneConfig config,
+            final PaymentLeases paymentLeases,
+            final NotificationDeduplicator notificationDeduplicator) {
         this.defaultProcessor = defaultProcessor;
         this.processors = processors;
         this.tenantFactory = tenantFactory;
         this.config = config;
+        this.paymentLeases = paymentLeases;
+        this.notificationDeduplicator = notificationDeduplicator;
     }
 
     /**
-     * Dispatches the {@code notification} to a notification processor
+     * Dispatches the {@code notification} to a notification processor, unless the same notification was handled
+     * recently
      *
      * @param notification a PAYONE transaction status notification
      * @throws ConcurrentModificationException in case the respective payment could not be updated due to concurrent
      *                                         modifications; a retry at a later time might be successful
+     * @throws LeaseUnavailableException       in case the respective payment is handled by another request for longer
+     *                                         than the maximum lease wait; a retry at a later time might be successful
      * @throws RuntimeException                in case of an unexpected (and probably unrecoverable) error
      */
     public void dispatchNotification(final Notification notification) {
         validateSecrets(notification);
 
+        if (notificationDeduplicator.isDuplicate(notification)) {
+            LOGGER.info("Notification [{}] was handled already, it is not handled again.", notification.toString());
+            return;
+        }
+
         final NotificationProcessor notificationProcessor = getNotificationProcessor(notification.getTxaction());
 
+        final long start = System.nanoTime();
+        try {
+            if (paymentLeases.isEnabled()) {
+                final Payment payment = findOrCreatePayment(notification);
+                paymentLeases.runExclusively(payment.getId(), mayHaveChanged -> {
+                    // a payment which another request held is read once more, the holder may have changed it
+                    dispatchNotificationWithRetry(notification, notificationProcessor,
+                            mayHaveChanged ? null : payment);
+                    return null;
+                }, null);
+            } else {
+                dispatchNotificationWithRetry(notification, notificationProcessor, null);
+            }
+            notificationDeduplicator.markHandled(notification);
+        } finally {
+            NOTIFICATION_DURATION.labels(tenantFactory.getTenantName(), String.valueOf(notification.getTxaction()))
+                    .recordSince(start);
+        }
+    }
+
+    /**
+     * @param payment the current payment of the notification, <b>null</b> to read it
+     */
+    private void dispatchNotificationWithRetry(final Notification notification,
+                                               final NotificationProcessor notificationProcessor,
+                                               @Nullable final Payment payment) {
         try {
-            dispatchNotificationToProcessor(notification, notificationProcessor);
+            notificationProcessor.processTransactionStatusNotification(notification,
+                    payment != null ? payment : findOrCreatePayment(notification));
         } catch (final ConcurrentModificationException e) {
             LOGGER.warn("ConcurrentModificationException on notification [{}]. Retry once more.",
                     notification.toString());
+            CONCURRENT_MODIFICATION_RETRIES.labels(tenantFactory.getTenantName(), "notification").increment();
 
             // try once more
-            dispatchNotificationToProcessor(notification, notificationProcessor);
+            notificationProcessor.processTransactionStatusNotification(notification,
+                    findOrCreatePayment(notification));
         }
     }
 
@@ -94,19 +173,31 @@ public class NotificationDispatcher {
         return processors.getOrDefault(txAction, defaultProcessor);
     }
 
-    private void dispatchNotificationToProcessor(final Notification notification,
-                                                 final NotificationProcessor notificationProcessor) {
+    /**
+     * Finds the payment of the notification's transaction, or creates it. With leases the creation runs under a lease
+     * of the txid, so concurrent notifications of a new transaction don't create a payment each.
+     */
+    private Payment findOrCreatePayment(final Notification notification) {
+        final Optional<Payment> payment = findPayment(notification);
+        if (payment.isPresent()) {
+            return payment.get();
+        }
+        if (!paymentLeases.isEnabled()) {
+            return createPayment(notification);
+        }
+        return paymentLeases.runExclusively(CREATION_LEASE_PREFIX + notification.getTxid(), mayHaveChanged ->
+                (mayHaveChanged ? findPayment(notification) : Optional.<Payment>empty())
+                        .orElseGet(() -> createPayment(notification)), null);
+    }
 
-        Payment payment = executeBlocking(tenantFactory.getPaymentService()
-                    .getByPaymentMethodAndInterfaceId(tenantFactory.getPayoneInterfaceName(), notification.getTxid())
-                .thenComposeAsync(optionalPayment -> optionalPayment
-                        .map(CompletableFuture::completedFuture)
-                        .orElseGet(() -> {
-                    PaymentDraft paymentDraft = createNewPaymentDraftFromNotification(notification);
-                    return tenantFactory.getPaymentService().createPayment(paymentDraft).toCompletableFuture();
-                })));
+    private Optional<Payment> findPayment(final Notification notification) {
+        return executeBlocking(tenantFactory.getPaymentService()
+                .getByPaymentMethodAndInterfaceId(tenantFactory.getPayoneInterfaceName(), notification.getTxid()));
+    }
 
-        notificationProcessor.processTransactionStatusNotification(notification, payment);
+    private Payment createPayment(final Notification notification) {
+        final PaymentDraft paymentDraft = createNewPaymentDraftFromNotification(notification);
+        return executeBlocking(tenantFactory.getPaymentService().createPayment(paymentDraft));
     }
 
     private PaymentDraft createNewPaymentDraftFromNotification(final Notification notification) {
@@ -36,8 +36,10 @@ import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
+import static com.commercetools.metrics.ServiceMetrics.NOTIFICATION_DUPLICATES;
 import static com.commercetools.pspadapter.payone.util.CompletionUtil.executeBlocking;
 import static com.commercetools.pspadapter.tenant.TenantLoggerUtil.createTenantKeyValue;
+import static java.util.function.Function.identity;
 
 /**
  * Base for notification processor implementations.
@@ -79,11 +81,27 @@ public abstract class NotificationProcessorBase implements NotificationProcessor
                     this.getClass().getName()));
         }
 
+        if (tenantConfig.isNotificationDeduplication() && hasNotificationInteraction(payment, notification)) {
+            logger.info(createTenantKeyValue(tenantConfig.getName()),
+                    "Payment with id [{}] has the notification [{}] already, the payment is not updated again.",
+                    payment.getId(), notification.toString());
+            NOTIFICATION_DUPLICATES.labels(tenantConfig.getName(), "interaction").increment();
+            // the order update of the first delivery may have failed after the payment was updated
+            if (tenantConfig.isUpdateOrderPaymentState()) {
+                executeBlocking(updateOrderByPayment(CompletableFuture.completedFuture(payment), payment.getId()));
+            }
+            return;
+        }
+
         try {
             // 1. update payment
-            CompletionStage<Order> fullCompletionStage = getPaymentService().updatePayment(payment, createPaymentUpdates(payment, notification))
-                    // 2. try to find and updated respective Order.paymentState if required
-                    .thenComposeAsync(this::tryToUpdateOrderByPayment);
+            final CompletionStage<Payment> paymentUpdateStage =
+                    getPaymentService().updatePayment(payment, createPaymentUpdates(payment, notification));
+
+            // 2. try to find and update respective Order.paymentState if required
+            final CompletionStage<?> fullCompletionStage = tenantConfig.isUpdateOrderPaymentState()
+                    ? updateOrderByPayment(paymentUpdateStage, payment.getId())
+                    : paymentUpdateStage;
 
             executeBlocking(fullCompletionStage);
 
@@ -93,19 +111,42 @@ public abstract class NotificationProcessorBase implements NotificationProcessor
     }
 
     /**
-     * If {@link #tenantConfig#isUpdateOrderPaymentState()} is <b>true</b> - fetch an order with respective payment id
-     * and try to update that order. If <b>false</b> - return completed stage with <b>null</b> value.
+     * Checks whether the {@code notification} was added to the {@code payment} already, i.e. it is a redelivery of a
+     * notification which was processed.
      *
-     * @param updatedPayment <b>non-null</b> new updated payment instance.
-     * @return completion stage with nullable updated {@link Order} if was updated.
+     * @param payment      the payment the notification belongs to
+     * @param notification the PAYONE notification
+     * @return <b>true</b> if the payment has an interface interaction with the sequence number, txaction and txtime
+     * of the notification
      */
-    private CompletionStage<Order> tryToUpdateOrderByPayment(Payment updatedPayment) {
-        if (tenantConfig.isUpdateOrderPaymentState()) {
-            return getOrderService().getOrderByPaymentId(updatedPayment.getId())
-                    .thenComposeAsync(order -> updateOrderIfExists(order.orElse(null), updatedPayment));
+    private static boolean hasNotificationInteraction(final Payment payment, final Notification notification) {
+        if (notification.getTxtime() == null || notification.getTxaction() == null) {
+            return false;
         }
+        final String sequenceNumber = toSequenceNumber(notification.getSequencenumber());
+        final String txAction = notification.getTxaction().getTxActionCode();
+        final ZonedDateTime timestamp = toZonedDateTime(notification);
+
+        return payment.getInterfaceInteractions().stream()
+                .anyMatch(fields -> sequenceNumber.equals(fields.getFieldAsString(CustomFieldKeys.SEQUENCE_NUMBER_FIELD))
+                        && txAction.equals(fields.getFieldAsString(CustomFieldKeys.TX_ACTION_FIELD))
+                        && fields.getFieldAsDateTime(CustomFieldKeys.TIMESTAMP_FIELD) != null
+                        && timestamp.isEqual(fields.getFieldAsDateTime(CustomFieldKeys.TIMESTAMP_FIELD)));
+    }
 
-        return CompletableFuture.completedFuture(null);
+    /**
+     * Fetch an order with respective payment id while the payment update is in flight: the order only depends on
+     * the payment id, which doesn't change with the update. Then try to update that order from the updated payment.
+     *
+     * @param paymentUpdateStage <b>non-null</b> stage of the payment update
+     * @param paymentId          <b>non-null</b> id of the updated payment
+     * @return completion stage with nullable updated {@link Order} if was updated.
+     */
+    private CompletionStage<Order> updateOrderByPayment(CompletionStage<Payment> paymentUpdateStage, String paymentId) {
+        return paymentUpdateStage
+                .thenCombineAsync(getOrderService().getOrderByPaymentId(paymentId),
+                        (updatedPayment, order) -> updateOrderIfExists(order.orElse(null), updatedPayment))
+                .thenCompose(identity());
     }
 
     /**
@@ -170,7 +211,7 @@ public abstract class NotificationProcessorBase implements NotificationProcessor
                                                                final Notification notification) {
 
         final ArrayList<UpdateAction<Payment>> updateActions = new ArrayList<>();
-        updateActions.add(createNotificationAddAction(notification));
+        updateActions.add(createNotificationAddAction(payment, notification));
         updateActions.add(setStatusInterfaceCode(notification));
         updateActions.add(setStatusInterfaceText(notification));
         return updateActions;
@@ -180,15 +221,24 @@ public abstract class NotificationProcessorBase implements NotificationProcessor
      * Creates a payment update action to add the given notification as
      * {@value CustomTypeBuilder#PAYONE_INTERACTION_NOTIFICATION}.
      *
+     * The notification payload passes the {@link TenantFactory#getInteractionRetention()} of the tenant, the sequence
+     * number and txaction are always kept.
+     *
+     * @param payment      the payment the interaction is added to
      * @param notification the PAYONE notification
      * @return the update action
      */
-    protected static AddInterfaceInteraction createNotificationAddAction(final Notification notification) {
+    protected AddInterfaceInteraction createNotificationAddAction(final Payment payment,
+                                                                  final Notification notification) {
+        final String sequenceNumber = toSequenceNumber(notification.getSequencenumber());
+        final String txAction = notification.getTxaction().getTxActionCode();
+
         final Map<String, Object> fieldsMap = new HashMap<>();
         fieldsMap.put(CustomFieldKeys.TIMESTAMP_FIELD, toZonedDateTime(notification));
-        fieldsMap.put(CustomFieldKeys.SEQUENCE_NUMBER_FIELD, toSequenceNumber(notification.getSequencenumber()));
-        fieldsMap.put(CustomFieldKeys.TX_ACTION_FIELD, notification.getTxaction().getTxActionCode());
-        fieldsMap.put(CustomFieldKeys.NOTIFICATION_FIELD, notification.toString());
+        fieldsMap.put(CustomFieldKeys.SEQUENCE_NUMBER_FIELD, sequenceNumber);
+        fieldsMap.put(CustomFieldKeys.TX_ACTION_FIELD, txAction);
+        fieldsMap.put(CustomFieldKeys.NOTIFICATION_FIELD, tenantFactory.getInteractionRetention()
+                .retain(payment.getId(), "notification-" + sequenceNumber + "-" + txAction, notification.toString()));
         return AddInterfaceInteraction.ofTypeKeyAndObjects(
                 CustomTypeBuilder.PAYONE_INTERACTION_NOTIFICATION,
                 fieldsMap);
@@ -226,6 +276,9 @@ public abstract class NotificationProcessorBase implements NotificationProcessor
     /**
      * Checks whether {@code transactions} contains a transaction of the given {@code transactionType} with the
      * given {@code interactionId}.
+     * <p>
+     * The scan stops at the first match, so it is the cheapest way for a single lookup. Processors with several
+     * lookups per notification use a {@link TransactionIndex}.
      *
      * @param transactions    the list of transactions
      * @param transactionType the type of transaction
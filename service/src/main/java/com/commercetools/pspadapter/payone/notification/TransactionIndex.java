@@ -0,0 +1,66 @@
+package com.commercetools.pspadapter.payone.notification;
+
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.Transaction;
+import io.sphere.sdk.payments.TransactionType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.commercetools.pspadapter.payone.notification.NotificationProcessorBase.toSequenceNumber;
+
+/**
+ * Transactions of a payment by type and interaction id, so a notification processor with several lookups per
+ * notification, like the {@code appointed} one, doesn't scan the transactions of the payment again and again.
+ * Subscription and installment payments collect hundreds of transactions.
+ * <p>
+ * Built once per notification from the payment version it processes. Building it costs more than a single scan, so
+ * processors with a single lookup use {@link NotificationProcessorBase#findMatchingTransaction} instead. Like the linear
+ * search, every lookup returns the first of several matching transactions.
+ */
+public final class TransactionIndex {
+
+    private final Map<TransactionType, Map<String, Transaction>> byTypeAndInteractionId =
+            new EnumMap<>(TransactionType.class);
+
+    private final Map<TransactionType, Transaction> firstByType = new EnumMap<>(TransactionType.class);
+
+    private TransactionIndex(@Nonnull final List<Transaction> transactions) {
+        for (final Transaction transaction : transactions) {
+            firstByType.putIfAbsent(transaction.getType(), transaction);
+            byTypeAndInteractionId.computeIfAbsent(transaction.getType(), type -> new HashMap<>())
+                    .putIfAbsent(toSequenceNumber(transaction.getInteractionId()), transaction);
+        }
+    }
+
+    @Nonnull
+    public static TransactionIndex of(@Nonnull final Payment payment) {
+        return new TransactionIndex(payment.getTransactions());
+    }
+
+    /**
+     * @param transactionType the type of transaction
+     * @param interactionId   the interaction ID (aka PAYONE's sequencenumber), a blank value matches
+     *                        {@link NotificationProcessorBase#toSequenceNumber(String)}
+     * @return the first transaction of the payment with the type and the interaction id
+     */
+    @Nonnull
+    public Optional<Transaction> findByTypeAndInteractionId(@Nonnull final TransactionType transactionType,
+                                                            @Nullable final String interactionId) {
+        return Optional.ofNullable(byTypeAndInteractionId.get(transactionType))
+                .map(transactions -> transactions.get(toSequenceNumber(interactionId)));
+    }
+
+    /**
+     * @return the first transaction of the payment with the type
+     */
+    @Nonnull
+    public Optional<Transaction> findFirstByType(@Nonnull final TransactionType transactionType) {
+        return Optional.ofNullable(firstByType.get(transactionType));
+    }
+}
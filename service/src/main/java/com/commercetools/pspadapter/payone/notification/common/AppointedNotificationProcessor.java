@@ -5,11 +5,11 @@ import com.commercetools.pspadapter.payone.domain.payone.model.common.Notificati
 import com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.TransactionStatus;
 import com.commercetools.pspadapter.payone.notification.NotificationProcessorBase;
+import com.commercetools.pspadapter.payone.notification.TransactionIndex;
 import com.commercetools.pspadapter.tenant.TenantConfig;
 import com.commercetools.pspadapter.tenant.TenantFactory;
 import io.sphere.sdk.commands.UpdateAction;
 import io.sphere.sdk.payments.Payment;
-import io.sphere.sdk.payments.Transaction;
 import io.sphere.sdk.payments.TransactionDraftBuilder;
 import io.sphere.sdk.payments.TransactionState;
 import io.sphere.sdk.payments.TransactionType;
@@ -49,10 +49,10 @@ public class AppointedNotificationProcessor extends NotificationProcessorBase {
         final List<UpdateAction<Payment>> updateActions = new ArrayList<>();
         updateActions.addAll(super.createPaymentUpdates(payment, notification));
 
-        final List<Transaction> transactions = payment.getTransactions();
+        final TransactionIndex transactionIndex = TransactionIndex.of(payment);
         final String sequenceNumber = toSequenceNumber(notification.getSequencenumber());
 
-        if (findMatchingTransaction(transactions, TransactionType.CHARGE, sequenceNumber).isPresent()) {
+        if (transactionIndex.findByTypeAndInteractionId(TransactionType.CHARGE, sequenceNumber).isPresent()) {
             // TODO: https://github.com/commercetools/commercetools-payone-integration/issues/196
             // also: never tested (either unit nor functional)
             return updateActions;
@@ -60,16 +60,14 @@ public class AppointedNotificationProcessor extends NotificationProcessorBase {
 
         if (sequenceNumber.equals("1")) {
 
-            updateActions.add(matchingChangeInteractionOrChargeTransaction(notification, transactions, sequenceNumber));
+            updateActions.add(matchingChangeInteractionOrChargeTransaction(notification, transactionIndex, sequenceNumber));
 
             return updateActions;
         }
 
         final MonetaryAmount balance = MoneyImpl.of(notification.getBalance(), notification.getCurrency());
         if (balance.isZero()) {
-            return transactions.stream()
-                    .filter(t -> t.getType().equals(TransactionType.AUTHORIZATION))
-                    .findFirst()
+            return transactionIndex.findFirstByType(TransactionType.AUTHORIZATION)
                     .map(transaction -> {
                         //set transactionState if is still not completed and notification has status "complete"
                         if (isNotCompletedTransaction(transaction) &&
@@ -91,11 +89,11 @@ public class AppointedNotificationProcessor extends NotificationProcessorBase {
     }
 
     private UpdateAction<Payment> matchingChangeInteractionOrChargeTransaction(@Nonnull final Notification notification,
-                                                                               @Nonnull final List<Transaction> transactions,
+                                                                               @Nonnull final TransactionIndex transactionIndex,
                                                                                @Nonnull final String sequenceNumber) {
         // if a CHARGE transaction with "0" interaction id found - update interaction id,
         // otherwise -  create ad new Charge-Pending transaction with interactionId == notification.sequencenumber
-        return findMatchingTransaction(transactions, TransactionType.CHARGE, "0")
+        return transactionIndex.findByTypeAndInteractionId(TransactionType.CHARGE, "0")
                 .map(transaction -> (UpdateAction<Payment>) ChangeTransactionInteractionId.of(sequenceNumber, transaction.getId()))
                 .orElseGet(() -> addChargePendingTransaction(notification));
     }
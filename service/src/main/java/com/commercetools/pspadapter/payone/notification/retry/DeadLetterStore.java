@@ -0,0 +1,141 @@
+package com.commercetools.pspadapter.payone.notification.retry;
+
+import io.sphere.sdk.json.SphereJsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Failed notifications as one JSON file per notification in a local directory. Notifications are saved as soon as
+ * their first attempt fails, so the retries survive a restart of the node, and stay in the store as
+ * {@link FailedNotification.State#DEAD dead letters} when all attempts failed.
+ * <p>
+ * Files are replaced atomically, a reader never sees a partially written notification. The directory must not be
+ * shared by several nodes.
+ */
+public class DeadLetterStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeadLetterStore.class);
+
+    private static final String SUFFIX = ".json";
+
+    /**
+     * Ids are random UUIDs, anything else could address a file outside of the directory.
+     */
+    private static final Pattern ID_PATTERN = Pattern.compile("[0-9a-fA-F-]{1,64}");
+
+    private final Path directory;
+
+    /**
+     * @param directory directory of the store, created if it doesn't exist
+     * @throws UncheckedIOException if the directory can't be created
+     */
+    public DeadLetterStore(@Nonnull final Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't create the dead letter directory " + directory, e);
+        }
+    }
+
+    /**
+     * Saves the notification, replacing the stored one with the same id.
+     *
+     * @throws UncheckedIOException if the file can't be written
+     */
+    public void save(@Nonnull final FailedNotification notification) {
+        final Path file = file(notification.getId());
+        Path temporaryFile = null;
+        try {
+            temporaryFile = Files.createTempFile(directory, notification.getId(), ".tmp");
+            Files.write(temporaryFile,
+                    SphereJsonUtils.toJsonString(notification.toJson(true)).getBytes(StandardCharsets.UTF_8));
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            // on a full disk the orphaned temporary files would fill the directory even more
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (final IOException deleteException) {
+                    e.addSuppressed(deleteException);
+                }
+            }
+            throw new UncheckedIOException("Can't save the failed notification " + file, e);
+        }
+    }
+
+    /**
+     * @return the notification, empty if there is none with the id
+     */
+    @Nonnull
+    public Optional<FailedNotification> find(@Nonnull final String id) {
+        if (!ID_PATTERN.matcher(id).matches()) {
+            return Optional.empty();
+        }
+        return read(file(id));
+    }
+
+    /**
+     * @return all readable notifications, oldest first. Unreadable files are logged and skipped.
+     */
+    @Nonnull
+    public List<FailedNotification> findAll() {
+        final List<FailedNotification> notifications = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (final Path file : files) {
+                read(file).ifPresent(notifications::add);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't list the dead letter directory " + directory, e);
+        }
+        notifications.sort(Comparator.comparing(FailedNotification::getFirstFailedAt));
+        return notifications;
+    }
+
+    /**
+     * @return <b>true</b> if the notification was deleted, <b>false</b> if there is none with the id
+     */
+    public boolean delete(@Nonnull final String id) {
+        if (!ID_PATTERN.matcher(id).matches()) {
+            return false;
+        }
+        try {
+            return Files.deleteIfExists(file(id));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Can't delete the failed notification " + id, e);
+        }
+    }
+
+    @Nonnull
+    private Optional<FailedNotification> read(@Nonnull final Path file) {
+        try {
+            final String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            return Optional.of(FailedNotification.fromJson(SphereJsonUtils.parse(json)));
+        } catch (final NoSuchFileException e) {
+            return Optional.empty();
+        } catch (final IOException | RuntimeException e) {
+            LOG.warn("Skip unreadable failed notification {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    @Nonnull
+    private Path file(@Nonnull final String id) {
+        return directory.resolve(id + SUFFIX);
+    }
+}
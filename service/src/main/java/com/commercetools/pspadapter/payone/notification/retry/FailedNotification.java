@@ -0,0 +1,200 @@
+package com.commercetools.pspadapter.payone.notification.retry;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A notification whose handling failed, as kept by the {@link DeadLetterStore}: the raw request body, which is parsed
+ * and dispatched again on every attempt, and the history of its failures.
+ */
+public final class FailedNotification {
+
+    public enum State {
+        /**
+         * Retried by the {@link NotificationRetryScheduler}.
+         */
+        RETRYING,
+
+        /**
+         * All attempts failed, waits for a replay.
+         */
+        DEAD
+    }
+
+    private final String id;
+    private final String tenantName;
+    private final String body;
+    private final String txid;
+    private final String txaction;
+    private final String sequenceNumber;
+    private final int attempts;
+    private final Instant firstFailedAt;
+    private final Instant lastFailedAt;
+    private final String lastError;
+    private final State state;
+
+    private FailedNotification(@Nonnull final String id, @Nonnull final String tenantName, @Nonnull final String body,
+                               @Nullable final String txid, @Nullable final String txaction,
+                               @Nullable final String sequenceNumber, final int attempts,
+                               @Nonnull final Instant firstFailedAt, @Nonnull final Instant lastFailedAt,
+                               @Nullable final String lastError, @Nonnull final State state) {
+        this.id = id;
+        this.tenantName = tenantName;
+        this.body = body;
+        this.txid = txid;
+        this.txaction = txaction;
+        this.sequenceNumber = sequenceNumber;
+        this.attempts = attempts;
+        this.firstFailedAt = firstFailedAt;
+        this.lastFailedAt = lastFailedAt;
+        this.lastError = lastError;
+        this.state = state;
+    }
+
+    /**
+     * @param tenantName   tenant which received the notification
+     * @param body         request body of the notification
+     * @param notification the parsed {@code body}
+     * @param error        failure of the first attempt
+     * @param state        the state after the first attempt
+     * @return a new failed notification with a random id
+     */
+    @Nonnull
+    public static FailedNotification of(@Nonnull final String tenantName, @Nonnull final String body,
+                                        @Nonnull final Notification notification, @Nonnull final Throwable error,
+                                        @Nonnull final State state) {
+        final Instant now = Instant.now();
+        return new FailedNotification(UUID.randomUUID().toString(), tenantName, body, notification.getTxid(),
+                String.valueOf(notification.getTxaction()), notification.getSequencenumber(), 1, now, now,
+                describe(error), state);
+    }
+
+    /**
+     * @param error failure of the last attempt
+     * @param state the state after the failure
+     * @return copy with one more failed attempt
+     */
+    @Nonnull
+    public FailedNotification failedAgain(@Nonnull final Throwable error, @Nonnull final State state) {
+        return new FailedNotification(id, tenantName, body, txid, txaction, sequenceNumber, attempts + 1,
+                firstFailedAt, Instant.now(), describe(error), state);
+    }
+
+    @Nonnull
+    public String getId() {
+        return id;
+    }
+
+    @Nonnull
+    public String getTenantName() {
+        return tenantName;
+    }
+
+    @Nonnull
+    public String getBody() {
+        return body;
+    }
+
+    @Nullable
+    public String getTxid() {
+        return txid;
+    }
+
+    @Nullable
+    public String getTxaction() {
+        return txaction;
+    }
+
+    @Nullable
+    public String getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    /**
+     * @return failed attempts, including the one of the notification request
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @Nonnull
+    public Instant getFirstFailedAt() {
+        return firstFailedAt;
+    }
+
+    @Nonnull
+    public Instant getLastFailedAt() {
+        return lastFailedAt;
+    }
+
+    @Nullable
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Nonnull
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @param withBody <b>true</b> to include the request body, which contains the hashed Payone key and the buyer's
+     *                 data
+     */
+    @Nonnull
+    public ObjectNode toJson(final boolean withBody) {
+        final ObjectNode json = JsonNodeFactory.instance.objectNode();
+        json.put("id", id);
+        json.put("tenant", tenantName);
+        json.put("txid", txid);
+        json.put("txaction", txaction);
+        json.put("sequencenumber", sequenceNumber);
+        json.put("attempts", attempts);
+        json.put("firstFailedAt", firstFailedAt.toString());
+        json.put("lastFailedAt", lastFailedAt.toString());
+        json.put("lastError", lastError);
+        json.put("state", state.name());
+        if (withBody) {
+            json.put("body", body);
+        }
+        return json;
+    }
+
+    /**
+     * @param json the {@link #toJson(boolean) JSON} with body
+     */
+    @Nonnull
+    public static FailedNotification fromJson(@Nonnull final JsonNode json) {
+        return new FailedNotification(
+                json.get("id").asText(),
+                json.get("tenant").asText(),
+                json.get("body").asText(),
+                textOrNull(json, "txid"),
+                textOrNull(json, "txaction"),
+                textOrNull(json, "sequencenumber"),
+                json.get("attempts").asInt(),
+                Instant.parse(json.get("firstFailedAt").asText()),
+                Instant.parse(json.get("lastFailedAt").asText()),
+                textOrNull(json, "lastError"),
+                State.valueOf(json.get("state").asText()));
+    }
+
+    @Nullable
+    private static String textOrNull(@Nonnull final JsonNode json, @Nonnull final String field) {
+        final JsonNode value = json.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    @Nonnull
+    private static String describe(@Nonnull final Throwable error) {
+        final Throwable cause = error.getCause() != null && error.getMessage() == null ? error.getCause() : error;
+        return cause.toString();
+    }
+}
@@ -0,0 +1,256 @@
+package com.commercetools.pspadapter.payone.notification.retry;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
+import com.commercetools.pspadapter.payone.notification.NotificationDispatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.commercetools.metrics.ServiceMetrics.NOTIFICATION_RETRIES;
+
+/**
+ * Retries failed notifications in the node instead of answering them with an error and waiting for Payone to
+ * redeliver them, which takes from minutes to hours and comes in bursts.
+ * <p>
+ * A notification which failed with a recoverable error is saved to the {@link DeadLetterStore} and retried with
+ * exponential backoff and jitter. After {@code maxAttempts} failed attempts, the one of the notification request
+ * included, it stays in the store as {@link FailedNotification.State#DEAD dead letter} until it is
+ * {@link #replay(Collection) replayed}. Retries and replays run with at most {@code parallelism} notifications at a
+ * time. Notifications of the store which still are to be retried are scheduled again on {@link #start()}.
+ */
+public class NotificationRetryScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationRetryScheduler.class);
+
+    private final DeadLetterStore store;
+    private final Function<String, Optional<NotificationDispatcher>> dispatchers;
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService retryExecutor;
+
+    /**
+     * Ids of the notifications being dispatched, so a notification is never dispatched twice at the same time.
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param store              store of the failed notifications
+     * @param dispatchers        notification dispatcher of a tenant name, empty if the tenant is not configured
+     * @param maxAttempts        attempts of a notification, the one of the notification request included
+     * @param initialDelayMillis delay before the first retry, doubled for every further retry
+     * @param maxDelayMillis     longest delay between two attempts
+     * @param parallelism        notifications retried or replayed at the same time
+     */
+    public NotificationRetryScheduler(@Nonnull final DeadLetterStore store,
+                                      @Nonnull final Function<String, Optional<NotificationDispatcher>> dispatchers,
+                                      final int maxAttempts, final long initialDelayMillis, final long maxDelayMillis,
+                                      final int parallelism) {
+        this.store = store;
+        this.dispatchers = dispatchers;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialDelayMillis = Math.max(initialDelayMillis, 1);
+        this.maxDelayMillis = Math.max(maxDelayMillis, this.initialDelayMillis);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("notification-retry-scheduler"));
+        this.retryExecutor = Executors.newFixedThreadPool(Math.max(parallelism, 1),
+                daemonThreadFactory("notification-retry"));
+    }
+
+    /**
+     * @return <b>false</b> if a retry can't succeed, because the notification or its secrets are invalid
+     */
+    public static boolean isRetriable(@Nonnull final Throwable error) {
+        return !(error instanceof IllegalArgumentException);
+    }
+
+    /**
+     * Schedules the notifications of the store which are still to be retried.
+     */
+    public void start() {
+        final List<FailedNotification> retrying = find(notification ->
+                notification.getState() == FailedNotification.State.RETRYING);
+        if (!retrying.isEmpty()) {
+            LOG.info("Schedule {} failed notifications of the previous run", retrying.size());
+        }
+        retrying.forEach(this::schedule);
+    }
+
+    /**
+     * Pending retries stay in the store and are scheduled again by the next {@link #start()}.
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+        retryExecutor.shutdownNow();
+    }
+
+    /**
+     * Saves a notification whose first attempt failed and schedules its retry.
+     *
+     * @param tenantName   tenant which received the notification
+     * @param body         request body of the notification
+     * @param notification the parsed {@code body}
+     * @param error        failure of the first attempt
+     * @return the saved notification
+     * @throws java.io.UncheckedIOException if the notification can't be saved, so it is not retried
+     */
+    @Nonnull
+    public FailedNotification submit(@Nonnull final String tenantName, @Nonnull final String body,
+                                     @Nonnull final Notification notification, @Nonnull final Throwable error) {
+        final boolean dead = maxAttempts == 1;
+        final FailedNotification failed = FailedNotification.of(tenantName, body, notification, error,
+                dead ? FailedNotification.State.DEAD : FailedNotification.State.RETRYING);
+        store.save(failed);
+        NOTIFICATION_RETRIES.labels(tenantName, dead ? "dead_lettered" : "scheduled").increment();
+        if (!dead) {
+            schedule(failed);
+        }
+        return failed;
+    }
+
+    /**
+     * @return the stored notifications which match the filter, oldest first
+     */
+    @Nonnull
+    public List<FailedNotification> find(@Nonnull final Predicate<FailedNotification> filter) {
+        final List<FailedNotification> notifications = new ArrayList<>();
+        for (final FailedNotification notification : store.findAll()) {
+            if (filter.test(notification)) {
+                notifications.add(notification);
+            }
+        }
+        return notifications;
+    }
+
+    @Nonnull
+    public Optional<FailedNotification> find(@Nonnull final String id) {
+        return store.find(id);
+    }
+
+    /**
+     * Dispatches the dead letters once more in the background. Replayed notifications are removed from the store,
+     * failed ones stay dead letters with one more attempt.
+     *
+     * @param notifications notifications to replay, the ones which are not dead letters are skipped
+     * @return ids of the notifications which will be replayed
+     */
+    @Nonnull
+    public List<String> replay(@Nonnull final Collection<FailedNotification> notifications) {
+        final List<String> queued = new ArrayList<>();
+        for (final FailedNotification notification : notifications) {
+            if (notification.getState() == FailedNotification.State.DEAD && submitAttempt(notification, true)) {
+                queued.add(notification.getId());
+            }
+        }
+        return queued;
+    }
+
+    private void schedule(@Nonnull final FailedNotification notification) {
+        final long dueMillis = notification.getLastFailedAt().toEpochMilli() + backoffMillis(notification.getAttempts());
+        final long delayMillis = Math.max(0, dueMillis - Instant.now().toEpochMilli());
+        try {
+            scheduler.schedule(() -> submitAttempt(notification, false), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            LOG.warn("Retry of notification [{}] not scheduled, the service is stopping", notification.getId());
+        }
+    }
+
+    /**
+     * @param attempts failed attempts so far
+     * @return delay before the next attempt: the exponential backoff, of which the second half is random, so the
+     * retries of a burst of failures spread out
+     */
+    long backoffMillis(final int attempts) {
+        final int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        final long backoff = Math.min(initialDelayMillis << doublings, maxDelayMillis);
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * @return <b>false</b> if the notification is already dispatched or the service is stopping
+     */
+    private boolean submitAttempt(@Nonnull final FailedNotification notification, final boolean replay) {
+        if (!inFlight.add(notification.getId())) {
+            return false;
+        }
+        try {
+            retryExecutor.execute(() -> {
+                try {
+                    attempt(notification, replay);
+                } finally {
+                    inFlight.remove(notification.getId());
+                }
+            });
+            return true;
+        } catch (final RejectedExecutionException e) {
+            inFlight.remove(notification.getId());
+            return false;
+        }
+    }
+
+    void attempt(@Nonnull final FailedNotification notification, final boolean replay) {
+        final String tenantName = notification.getTenantName();
+        try {
+            final NotificationDispatcher dispatcher = dispatchers.apply(tenantName)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown tenant " + tenantName));
+            dispatcher.dispatchNotification(Notification.fromKeyValueString(notification.getBody(),
+                    Notification.KEY_VALUE_SEPARATOR_PATTERN));
+        } catch (final RuntimeException e) {
+            failed(notification, e, replay);
+            return;
+        }
+        store.delete(notification.getId());
+        NOTIFICATION_RETRIES.labels(tenantName, replay ? "replayed" : "succeeded").increment();
+        LOG.info("Notification [{}] of txid [{}] handled after {} failed attempts", notification.getId(),
+                notification.getTxid(), notification.getAttempts());
+    }
+
+    private void failed(@Nonnull final FailedNotification notification, @Nonnull final RuntimeException error,
+                        final boolean replay) {
+        final boolean dead = replay
+                || notification.getAttempts() + 1 >= maxAttempts
+                || !isRetriable(error);
+        final FailedNotification failed = notification.failedAgain(error,
+                dead ? FailedNotification.State.DEAD : FailedNotification.State.RETRYING);
+        store.save(failed);
+
+        final String result = replay ? "replay_failed" : dead ? "dead_lettered" : "failed";
+        NOTIFICATION_RETRIES.labels(notification.getTenantName(), result).increment();
+        if (dead) {
+            LOG.error("Notification [{}] of txid [{}] failed {} times, kept as dead letter", failed.getId(),
+                    failed.getTxid(), failed.getAttempts(), error);
+        } else {
+            LOG.warn("Notification [{}] of txid [{}] failed {} times, retry later: {}", failed.getId(),
+                    failed.getTxid(), failed.getAttempts(), error.toString());
+            schedule(failed);
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(@Nonnull final String namePrefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
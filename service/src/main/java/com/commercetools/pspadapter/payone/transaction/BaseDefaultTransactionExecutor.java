@@ -1,6 +1,7 @@
 package com.commercetools.pspadapter.payone.transaction;
 
 import com.commercetools.pspadapter.payone.domain.ctp.CustomTypeBuilder;
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.domain.payone.PayonePostService;
 import com.commercetools.pspadapter.payone.domain.payone.exceptions.PayoneException;
@@ -14,7 +15,6 @@ import io.sphere.sdk.client.BlockingSphereClient;
 import io.sphere.sdk.payments.Payment;
 import io.sphere.sdk.payments.Transaction;
 import io.sphere.sdk.payments.TransactionState;
-import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
 import io.sphere.sdk.payments.commands.updateactions.AddInterfaceInteraction;
 import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionInteractionId;
 import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState;
@@ -27,6 +27,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import static com.commercetools.tracing.PaymentTrace.measure;
+import static com.commercetools.tracing.TracePhase.PAYONE_POST;
+import static com.commercetools.tracing.TracePhase.PRE_UPDATE;
+import static com.commercetools.tracing.TracePhase.REQUEST_MAPPING;
 import static java.lang.String.format;
 
 
@@ -41,8 +45,9 @@ abstract public class BaseDefaultTransactionExecutor extends TransactionBaseExec
     public BaseDefaultTransactionExecutor(@Nonnull LoadingCache<String, Type> typeCache,
                                           @Nonnull final PayoneRequestFactory requestFactory,
                                           @Nonnull final PayonePostService payonePostService,
-                                          @Nonnull BlockingSphereClient client) {
-        super(typeCache, client);
+                                          @Nonnull BlockingSphereClient client,
+                                          @Nonnull InteractionRetention interactionRetention) {
+        super(typeCache, client, interactionRetention);
         this.requestFactory = requestFactory;
         this.payonePostService = payonePostService;
 
@@ -83,32 +88,41 @@ abstract public class BaseDefaultTransactionExecutor extends TransactionBaseExec
     @Nonnull
     protected PaymentWithCartLike execute(final PaymentWithCartLike paymentWithCartLike,
                                           final Transaction transaction) {
+        return execute(paymentWithCartLike, transaction, immediateUpdates());
+    }
+
+    @Override
+    @Nonnull
+    protected PaymentWithCartLike execute(final PaymentWithCartLike paymentWithCartLike,
+                                          final Transaction transaction,
+                                          final PaymentUpdates updates) {
         final String transactionId = transaction.getId();
         final String sequenceNumber = String.valueOf(getNextSequenceNumber(paymentWithCartLike));
 
-        final BaseRequest request = createRequest(paymentWithCartLike);
+        final BaseRequest request = measure(REQUEST_MAPPING, () -> createRequest(paymentWithCartLike));
 
         final Map<String, Object> requestInfo = new HashMap<>();
-        requestInfo.put(CustomFieldKeys.REQUEST_FIELD, request.toStringMap(true).toString());
+        requestInfo.put(CustomFieldKeys.REQUEST_FIELD,
+                retainPayload(paymentWithCartLike, "request-" + transactionId, request.toStringMap(true).toString()));
         requestInfo.put(CustomFieldKeys.TRANSACTION_ID_FIELD, transactionId);
         requestInfo.put(CustomFieldKeys.TIMESTAMP_FIELD, ZonedDateTime.now());
 
-        final Payment updatedPayment = client.executeBlocking(
-                PaymentUpdateCommand.of(paymentWithCartLike.getPayment(),
-                    Arrays.asList(
-                        AddInterfaceInteraction.ofTypeKeyAndObjects(CustomTypeBuilder.PAYONE_INTERACTION_REQUEST,
-                            requestInfo),
-                        ChangeTransactionInteractionId.of(sequenceNumber, transactionId)
-                    )
-                ));
+        final Payment updatedPayment = measure(PRE_UPDATE, () -> updates.preUpdate(
+                paymentWithCartLike.getPayment(),
+                Arrays.asList(
+                    AddInterfaceInteraction.ofTypeKeyAndObjects(CustomTypeBuilder.PAYONE_INTERACTION_REQUEST,
+                        requestInfo),
+                    ChangeTransactionInteractionId.of(sequenceNumber, transactionId)
+                )));
 
         final Map<String, Object> responseInfo = new HashMap<>();
         try {
-            final Map<String, String> response = payonePostService.executePost(request);
+            final Map<String, String> response = measure(PAYONE_POST, () -> payonePostService.executePost(request));
 
             final String status = response.get(PayoneResponseFields.STATUS);
             if (ResponseStatus.REDIRECT.getStateCode().equals(status)) {
-                responseInfo.put(CustomFieldKeys.RESPONSE_FIELD, responseToJsonString(response));
+                responseInfo.put(CustomFieldKeys.RESPONSE_FIELD,
+                        retainPayload(paymentWithCartLike, "response-" + transactionId, responseToJsonString(response)));
                 responseInfo.put(CustomFieldKeys.REDIRECT_URL_FIELD, response.get(PayoneResponseFields.REDIRECT_URL));
                 responseInfo.put(CustomFieldKeys.TRANSACTION_ID_FIELD, transactionId);
                 responseInfo.put(CustomFieldKeys.TIMESTAMP_FIELD, ZonedDateTime.now());
@@ -116,10 +130,11 @@ abstract public class BaseDefaultTransactionExecutor extends TransactionBaseExec
                 final AddInterfaceInteraction interfaceInteraction = AddInterfaceInteraction.ofTypeKeyAndObjects(CustomTypeBuilder.PAYONE_INTERACTION_REDIRECT,
                         responseInfo);
 
-                return update(paymentWithCartLike, updatedPayment, getRedirectUpdateActions(TransactionState.PENDING, updatedPayment, transactionId, response, interfaceInteraction));
+                return updates.postUpdate(paymentWithCartLike, updatedPayment, getRedirectUpdateActions(TransactionState.PENDING, updatedPayment, transactionId, response, interfaceInteraction));
 
             } else {
-                responseInfo.put(CustomFieldKeys.RESPONSE_FIELD, responseToJsonString(response));
+                responseInfo.put(CustomFieldKeys.RESPONSE_FIELD,
+                        retainPayload(paymentWithCartLike, "response-" + transactionId, responseToJsonString(response)));
                 responseInfo.put(CustomFieldKeys.TRANSACTION_ID_FIELD, transactionId);
                 responseInfo.put(CustomFieldKeys.TIMESTAMP_FIELD, ZonedDateTime.now());
 
@@ -128,15 +143,15 @@ abstract public class BaseDefaultTransactionExecutor extends TransactionBaseExec
 
                 if (ResponseStatus.APPROVED.getStateCode().equals(status)) {
 
-                    return update(paymentWithCartLike, updatedPayment, getDefaultSuccessUpdateActions(TransactionState.SUCCESS, updatedPayment, transactionId, response, interfaceInteraction));
+                    return updates.postUpdate(paymentWithCartLike, updatedPayment, getDefaultSuccessUpdateActions(TransactionState.SUCCESS, updatedPayment, transactionId, response, interfaceInteraction));
 
                 } else if (ResponseStatus.ERROR.getStateCode().equals(status)) {
 
-                    return update(paymentWithCartLike, updatedPayment, getDefaultUpdateActions(TransactionState.FAILURE, updatedPayment, transactionId, response, interfaceInteraction));
+                    return updates.postUpdate(paymentWithCartLike, updatedPayment, getDefaultUpdateActions(TransactionState.FAILURE, updatedPayment, transactionId, response, interfaceInteraction));
 
                 } else if (ResponseStatus.PENDING.getStateCode().equals(status)) {
 
-                    return update(paymentWithCartLike, updatedPayment, getDefaultSuccessUpdateActions(TransactionState.PENDING, updatedPayment, transactionId, response, interfaceInteraction));
+                    return updates.postUpdate(paymentWithCartLike, updatedPayment, getDefaultSuccessUpdateActions(TransactionState.PENDING, updatedPayment, transactionId, response, interfaceInteraction));
 
                 }
             }
@@ -149,7 +164,8 @@ abstract public class BaseDefaultTransactionExecutor extends TransactionBaseExec
                     paymentWithCartLike.getPayment().getId(), transactionId), paymentException);
 
             responseInfo.clear();
-            responseInfo.put(CustomFieldKeys.RESPONSE_FIELD, exceptionToResponseJsonString(paymentException));
+            responseInfo.put(CustomFieldKeys.RESPONSE_FIELD,
+                    retainPayload(paymentWithCartLike, "response-" + transactionId, exceptionToResponseJsonString(paymentException)));
             responseInfo.put(CustomFieldKeys.TRANSACTION_ID_FIELD, transactionId);
             responseInfo.put(CustomFieldKeys.TIMESTAMP_FIELD, ZonedDateTime.now());
 
@@ -158,7 +174,7 @@ abstract public class BaseDefaultTransactionExecutor extends TransactionBaseExec
 
             final ChangeTransactionState failureTransaction = ChangeTransactionState.of(TransactionState.FAILURE, transactionId);
 
-            return update(paymentWithCartLike, updatedPayment, Arrays.asList(interfaceInteraction, failureTransaction));
+            return updates.postUpdate(paymentWithCartLike, updatedPayment, Arrays.asList(interfaceInteraction, failureTransaction));
         }
     }
 }
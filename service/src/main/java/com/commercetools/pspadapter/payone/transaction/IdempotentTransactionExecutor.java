@@ -47,9 +47,7 @@ public abstract class IdempotentTransactionExecutor implements TransactionExecut
     @Nonnull
     public PaymentWithCartLike executeTransaction(@Nonnull PaymentWithCartLike paymentWithCartLike,
                                                   @Nonnull Transaction transaction) {
-        if (transaction.getType() != supportedTransactionType()) {
-            throw new IllegalArgumentException("Unsupported Transaction Type");
-        }
+        verifySupportedTransactionType(transaction);
 
         if (wasExecuted(paymentWithCartLike, transaction)) {
             return paymentWithCartLike;
@@ -58,6 +56,15 @@ public abstract class IdempotentTransactionExecutor implements TransactionExecut
         return executeIdempotent(paymentWithCartLike, transaction);
     }
 
+    /**
+     * @throws IllegalArgumentException if the type of {@code transaction} is not {@link #supportedTransactionType()}
+     */
+    protected void verifySupportedTransactionType(@Nonnull Transaction transaction) {
+        if (transaction.getType() != supportedTransactionType()) {
+            throw new IllegalArgumentException("Unsupported Transaction Type");
+        }
+    }
+
     /**
      * Whether the transaction was executed and nothing else can be done by the executor.
      *
@@ -0,0 +1,31 @@
+package com.commercetools.pspadapter.payone.transaction;
+
+import io.sphere.sdk.payments.Transaction;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Transaction executor whose CTP updates can be merged with the updates of the neighbour transactions of a payment.
+ * <p>
+ * An execution updates the payment before the Payone call (the request interaction which makes it idempotent) and
+ * after it (the response interaction and the new transaction state). The update after the call of one transaction and
+ * the update before the call of the next transaction have no Payone call in between, so they are sent as one
+ * {@link io.sphere.sdk.payments.commands.PaymentUpdateCommand}.
+ */
+public interface MergingTransactionExecutor extends TransactionExecutor {
+
+    /**
+     * Executes the transaction like {@link #executeTransaction}, but
+     * <ul>
+     * <li>executes the pending actions of {@code previous} with its first update of the payment, and</li>
+     * <li>returns the actions of its last update as pending instead of executing them.</li>
+     * </ul>
+     * If the transaction was executed already the pending actions of {@code previous} stay pending.
+     *
+     * @param previous    the payment after the previous transaction, with its pending actions
+     * @param transaction the transaction to be triggered on the PSP
+     * @return the payment after the Payone call, with the pending actions of the last update
+     */
+    @Nonnull
+    TransactionStep executeStep(@Nonnull TransactionStep previous, @Nonnull Transaction transaction);
+}
@@ -2,50 +2,79 @@ package com.commercetools.pspadapter.payone.transaction;
 
 import com.commercetools.payments.TransactionStateResolver;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
+import com.commercetools.tracing.PaymentTrace;
 import io.sphere.sdk.payments.Transaction;
 import io.sphere.sdk.payments.TransactionType;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
+import static java.util.stream.Collectors.toList;
+
 public class PaymentMethodDispatcher {
-    private final TransactionExecutor defaultExecutor;
-    private final Map<TransactionType, TransactionExecutor> executors;
+    /**
+     * Executors indexed by {@link TransactionType#ordinal()}, the default executor fills the unmapped types.
+     */
+    private final TransactionExecutor[] executors;
     private final TransactionStateResolver transactionStateResolver;
 
     public PaymentMethodDispatcher(
             @Nonnull final TransactionExecutor defaultExecutor,
             @Nonnull final Map<TransactionType, TransactionExecutor> executors,
             @Nonnull final TransactionStateResolver transactionStateResolver) {
-        this.defaultExecutor = defaultExecutor;
-        this.executors = executors;
+        this.executors = new TransactionExecutor[TransactionType.values().length];
+        Arrays.fill(this.executors, defaultExecutor);
+        executors.forEach((transactionType, executor) -> this.executors[transactionType.ordinal()] = executor);
         this.transactionStateResolver = transactionStateResolver;
     }
 
+    /**
+     * Executes the uncompleted transactions of the payment in order, until one of them stays uncompleted: a
+     * notification from Payone is required to proceed with it.
+     * <p>
+     * The update of the payment after the Payone call of one transaction is sent together with the update before the
+     * Payone call of the next one, see {@link MergingTransactionExecutor}. So a payment with an authorization and a
+     * charge takes three payment updates instead of four.
+     */
     public PaymentWithCartLike dispatchPayment(@Nonnull final PaymentWithCartLike paymentWithCartLike) {
-        // Execute the first uncompleted transaction
-        return paymentWithCartLike.getPayment()
+        // the executors don't add transactions, so the plan is known before the first one is executed
+        final List<Transaction> plan = paymentWithCartLike.getPayment()
             .getTransactions()
             .stream()
             .filter(transactionStateResolver::isNotCompletedTransaction)
-            .findFirst()
-            .map(transaction -> {
-                final PaymentWithCartLike newPaymentWithCartLike = executeTransaction(paymentWithCartLike, transaction);
-                final Transaction updatedTransaction = getUpdatedTransaction(transaction, newPaymentWithCartLike);
-                if (transactionStateResolver.isNotCompletedTransaction(updatedTransaction)) { // Still not completed ->
-                    // stop, executor has done its duty, notification from Payone required to proceed with this transaction
-                    return newPaymentWithCartLike;
-                } else { // Recursively execute next uncompleted Transaction
-                    return dispatchPayment(newPaymentWithCartLike);
-                }
-            })
-            .orElse(paymentWithCartLike);
+            .collect(toList());
+
+        TransactionStep step = TransactionStep.of(paymentWithCartLike);
+        for (final Transaction plannedTransaction : plan) {
+            final Transaction transaction = getUpdatedTransaction(plannedTransaction, step.getPaymentWithCartLike());
+            step = executeTransaction(step, transaction);
+            if (isNotCompleted(step, transaction)) { // Still not completed ->
+                // stop, executor has done its duty, notification from Payone required to proceed with this transaction
+                break;
+            }
+        }
+        return step.flush();
+    }
+
+    private TransactionStep executeTransaction(final TransactionStep previous, final Transaction transaction) {
+        PaymentTrace.setTransactionType(transaction.getType());
+        final TransactionExecutor executor = executors[transaction.getType().ordinal()];
+        if (executor instanceof MergingTransactionExecutor) {
+            return ((MergingTransactionExecutor) executor).executeStep(previous, transaction);
+        }
+        // the executor updates the payment on its own, so the pending actions go first
+        final PaymentWithCartLike paymentWithCartLike = previous.flush();
+        return TransactionStep.of(executor.executeTransaction(paymentWithCartLike,
+                getUpdatedTransaction(transaction, paymentWithCartLike)));
     }
 
-    private PaymentWithCartLike executeTransaction(final PaymentWithCartLike paymentWithCartLike,
-                                                   final Transaction transaction) {
-        return executors.getOrDefault(transaction.getType(), defaultExecutor)
-                .executeTransaction(paymentWithCartLike, transaction);
+    private boolean isNotCompleted(final TransactionStep step, final Transaction transaction) {
+        return step.getPendingState(transaction.getId())
+            .map(transactionStateResolver::isNotCompletedState)
+            .orElseGet(() -> transactionStateResolver.isNotCompletedTransaction(
+                getUpdatedTransaction(transaction, step.getPaymentWithCartLike())));
     }
 
     private static Transaction getUpdatedTransaction(final Transaction transaction,
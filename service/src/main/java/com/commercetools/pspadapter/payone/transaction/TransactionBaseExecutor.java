@@ -1,5 +1,7 @@
 package com.commercetools.pspadapter.payone.transaction;
 
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
+import com.commercetools.pspadapter.payone.domain.ctp.PaymentUpdateRebaser;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.ResponseErrorCode;
@@ -7,13 +9,13 @@ import com.commercetools.pspadapter.payone.domain.payone.model.common.ResponseSt
 import com.commercetools.pspadapter.payone.mapping.CustomFieldKeys;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.client.ConcurrentModificationException;
 import io.sphere.sdk.commands.UpdateAction;
 import io.sphere.sdk.commands.UpdateActionImpl;
 import io.sphere.sdk.json.SphereJsonUtils;
 import io.sphere.sdk.payments.Payment;
 import io.sphere.sdk.payments.Transaction;
 import io.sphere.sdk.payments.TransactionState;
-import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
 import io.sphere.sdk.payments.commands.updateactions.AddInterfaceInteraction;
 import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState;
 import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionTimestamp;
@@ -36,21 +38,29 @@ import static com.commercetools.pspadapter.payone.domain.payone.model.common.Pay
 import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.STATUS;
 import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.TXID;
 import static com.commercetools.pspadapter.payone.util.PaymentUtil.getTransactionById;
+import static com.commercetools.tracing.PaymentTrace.measure;
+import static com.commercetools.tracing.TracePhase.POST_UPDATE;
+import static java.util.Collections.emptyList;
 
 /**
  * @author mht@dotsource.de
  * Common base class responsible for default paymentupdateactions
  */
-public abstract class TransactionBaseExecutor extends IdempotentTransactionExecutor {
+public abstract class TransactionBaseExecutor extends IdempotentTransactionExecutor
+        implements MergingTransactionExecutor {
 
     public static final String ERROR = "ERROR";
 
     protected final BlockingSphereClient client;
 
+    protected final InteractionRetention interactionRetention;
+
     public TransactionBaseExecutor(@Nonnull final LoadingCache<String, Type> typeCache,
-                                   @Nonnull final BlockingSphereClient client) {
+                                   @Nonnull final BlockingSphereClient client,
+                                   @Nonnull final InteractionRetention interactionRetention) {
         super(typeCache);
         this.client = client;
+        this.interactionRetention = interactionRetention;
     }
 
     @Override
@@ -58,10 +68,69 @@ public abstract class TransactionBaseExecutor extends IdempotentTransactionExecu
         return execute(paymentWithCartLike, transaction);
     }
 
+    @Override
+    @Nonnull
+    public TransactionStep executeStep(@Nonnull final TransactionStep previous,
+                                       @Nonnull final Transaction transaction) {
+        verifySupportedTransactionType(transaction);
+
+        final PaymentWithCartLike paymentWithCartLike = previous.getPaymentWithCartLike();
+        if (wasExecuted(paymentWithCartLike, transaction)) {
+            return previous;
+        }
+
+        final PaymentUpdates updates = new PaymentUpdates(client, previous.getPendingActions(), true);
+        try {
+            final PaymentWithCartLike executed = execute(paymentWithCartLike, transaction, updates);
+            return TransactionStep.ofPending(executed, updates.pendingActions, client);
+        } catch (RuntimeException e) {
+            // the previous transaction is recorded even if this one failed before its first update
+            try {
+                updates.flushPending(paymentWithCartLike.getPayment());
+            } catch (RuntimeException flushException) {
+                // logged with the lost actions by the rebaser
+                e.addSuppressed(flushException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Executes the transaction with its own CTP updates.
+     */
     @Nonnull
     abstract protected PaymentWithCartLike execute(final PaymentWithCartLike paymentWithCartLike,
                                                    final Transaction transaction);
 
+    /**
+     * Executes the transaction, updating the payment through {@code updates}: once before the Payone call with
+     * {@link PaymentUpdates#preUpdate(Payment, List)} and once after it with
+     * {@link PaymentUpdates#postUpdate(PaymentWithCartLike, Payment, List)}.
+     */
+    @Nonnull
+    abstract protected PaymentWithCartLike execute(final PaymentWithCartLike paymentWithCartLike,
+                                                   final Transaction transaction,
+                                                   final PaymentUpdates updates);
+
+    /**
+     * @return updates which are executed immediately
+     */
+    @Nonnull
+    protected PaymentUpdates immediateUpdates() {
+        return new PaymentUpdates(client, emptyList(), false);
+    }
+
+    /**
+     * Applies the tenant {@link InteractionRetention} to the request or response payload of an interface interaction.
+     *
+     * @param interactionKey <i>request</i> or <i>response</i> with the transaction id, unique in the payment
+     */
+    protected String retainPayload(@Nonnull final PaymentWithCartLike paymentWithCartLike,
+                                   @Nonnull final String interactionKey,
+                                   final String payload) {
+        return interactionRetention.retain(paymentWithCartLike.getPayment().getId(), interactionKey, payload);
+    }
+
     /**
      * Creates the SetStatusInterfaceCode from the response
      * @param response contains all key that creates the
@@ -196,8 +265,89 @@ public abstract class TransactionBaseExecutor extends IdempotentTransactionExecu
         return updateActions;
     }
 
-    protected PaymentWithCartLike update(PaymentWithCartLike paymentWithCartLike, Payment payment, List<? extends UpdateAction<Payment>> updateActions) {
-        return paymentWithCartLike.withPayment(
-                client.executeBlocking(PaymentUpdateCommand.of(payment, updateActions)));
+    /**
+     * The CTP updates of one execution. Executed on their own, or, if the execution is a step of a plan, the pending
+     * actions of the previous transaction are sent with the pre-update and the actions of the post-update stay
+     * pending for the next transaction, see {@link MergingTransactionExecutor}.
+     */
+    protected static final class PaymentUpdates {
+
+        private final BlockingSphereClient client;
+
+        private final boolean keepPostUpdatePending;
+
+        private List<UpdateAction<Payment>> pendingActions;
+
+        private PaymentUpdates(@Nonnull final BlockingSphereClient client,
+                               @Nonnull final List<UpdateAction<Payment>> pendingActions,
+                               final boolean keepPostUpdatePending) {
+            this.client = client;
+            this.pendingActions = pendingActions;
+            this.keepPostUpdatePending = keepPostUpdatePending;
+        }
+
+        /**
+         * Executes the update which makes the execution idempotent, together with the pending actions.
+         * <p>
+         * If the merged update conflicts with a concurrent modification, like a notification of the previous
+         * transaction, the pending actions are recorded on their own and the conflict is thrown: the Payone response
+         * of the previous transaction isn't lost, and this transaction is planned again on the current payment.
+         *
+         * @return the updated payment
+         * @throws ConcurrentModificationException if the update conflicts with a concurrent modification
+         */
+        @Nonnull
+        public Payment preUpdate(@Nonnull final Payment payment,
+                                 @Nonnull final List<? extends UpdateAction<Payment>> updateActions) {
+            if (pendingActions.isEmpty()) {
+                return PaymentUpdateRebaser.executeBlocking(client, payment, updateActions);
+            }
+            final List<UpdateAction<Payment>> actions = new ArrayList<>(pendingActions.size() + updateActions.size());
+            actions.addAll(pendingActions);
+            actions.addAll(updateActions);
+            final Payment updatedPayment;
+            try {
+                updatedPayment = PaymentUpdateRebaser.executeBlocking(client, payment, actions);
+            } catch (final ConcurrentModificationException e) {
+                try {
+                    flushPending(payment);
+                } catch (RuntimeException flushException) {
+                    // logged with the lost actions by the rebaser
+                    e.addSuppressed(flushException);
+                }
+                throw e;
+            }
+            pendingActions = emptyList();
+            return updatedPayment;
+        }
+
+        /**
+         * Executes the update with the Payone response, or keeps it pending if the execution is a step of a plan.
+         *
+         * @return the updated payment, or {@code payment} if the actions are pending
+         */
+        @Nonnull
+        public PaymentWithCartLike postUpdate(@Nonnull final PaymentWithCartLike paymentWithCartLike,
+                                              @Nonnull final Payment payment,
+                                              @Nonnull final List<? extends UpdateAction<Payment>> updateActions) {
+            if (keepPostUpdatePending) {
+                pendingActions = new ArrayList<>(updateActions);
+                return paymentWithCartLike.withPayment(payment);
+            }
+            return paymentWithCartLike.withPayment(measure(POST_UPDATE,
+                    () -> PaymentUpdateRebaser.executeBlocking(client, payment, updateActions)));
+        }
+
+        /**
+         * Records the pending actions on their own. They are attempted once: if recording fails, the rebaser logs
+         * them as lost.
+         */
+        private void flushPending(@Nonnull final Payment payment) {
+            if (!pendingActions.isEmpty()) {
+                final List<UpdateAction<Payment>> actions = pendingActions;
+                pendingActions = emptyList();
+                PaymentUpdateRebaser.recordBlocking(client, payment, actions);
+            }
+        }
     }
 }
@@ -0,0 +1,111 @@
+package com.commercetools.pspadapter.payone.transaction;
+
+import com.commercetools.pspadapter.payone.domain.ctp.PaymentUpdateRebaser;
+import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
+import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.commands.UpdateAction;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.TransactionState;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.commercetools.tracing.PaymentTrace.measure;
+import static com.commercetools.tracing.TracePhase.POST_UPDATE;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * State of a payment between two transactions of a {@link PaymentMethodDispatcher} plan: the payment as last updated
+ * on CTP and the actions of the final update of the previous transaction, which are not executed yet, so that the next
+ * transaction merges them into its first update, see {@link MergingTransactionExecutor}.
+ * <p>
+ * Immutable.
+ */
+public final class TransactionStep {
+
+    private final PaymentWithCartLike paymentWithCartLike;
+
+    private final List<UpdateAction<Payment>> pendingActions;
+
+    @Nullable
+    private final BlockingSphereClient client;
+
+    private TransactionStep(@Nonnull final PaymentWithCartLike paymentWithCartLike,
+                            @Nonnull final List<UpdateAction<Payment>> pendingActions,
+                            @Nullable final BlockingSphereClient client) {
+        this.paymentWithCartLike = paymentWithCartLike;
+        this.pendingActions = pendingActions;
+        this.client = client;
+    }
+
+    /**
+     * @return step without pending actions
+     */
+    @Nonnull
+    public static TransactionStep of(@Nonnull final PaymentWithCartLike paymentWithCartLike) {
+        return new TransactionStep(paymentWithCartLike, emptyList(), null);
+    }
+
+    /**
+     * @param paymentWithCartLike the payment version the {@code pendingActions} apply to
+     * @param pendingActions      actions to execute with the next update of the payment
+     * @param client              client to execute the actions if no further update follows
+     * @return step with pending actions
+     */
+    @Nonnull
+    public static TransactionStep ofPending(@Nonnull final PaymentWithCartLike paymentWithCartLike,
+                                            @Nonnull final List<? extends UpdateAction<Payment>> pendingActions,
+                                            @Nonnull final BlockingSphereClient client) {
+        return new TransactionStep(paymentWithCartLike, unmodifiableList(new ArrayList<>(pendingActions)), client);
+    }
+
+    /**
+     * @return the payment as last updated on CTP, without the pending actions
+     */
+    @Nonnull
+    public PaymentWithCartLike getPaymentWithCartLike() {
+        return paymentWithCartLike;
+    }
+
+    @Nonnull
+    public List<UpdateAction<Payment>> getPendingActions() {
+        return pendingActions;
+    }
+
+    /**
+     * @param transactionId id of a transaction of the payment
+     * @return the state the transaction gets by the pending actions, empty if they don't change it
+     */
+    @Nonnull
+    public Optional<TransactionState> getPendingState(@Nonnull final String transactionId) {
+        TransactionState state = null;
+        for (final UpdateAction<Payment> action : pendingActions) {
+            if (action instanceof ChangeTransactionState
+                    && transactionId.equals(((ChangeTransactionState) action).getTransactionId())) {
+                state = ((ChangeTransactionState) action).getState();
+            }
+        }
+        return Optional.ofNullable(state);
+    }
+
+    /**
+     * Executes the pending actions on their own, when no further update of the payment follows. They record the Payone
+     * response of the previous transaction, so they are {@link PaymentUpdateRebaser#recordBlocking recorded} also if
+     * the payment was modified concurrently.
+     *
+     * @return the payment after the pending actions are executed
+     */
+    @Nonnull
+    public PaymentWithCartLike flush() {
+        if (pendingActions.isEmpty() || client == null) {
+            return paymentWithCartLike;
+        }
+        return paymentWithCartLike.withPayment(measure(POST_UPDATE, () -> PaymentUpdateRebaser.recordBlocking(client,
+                paymentWithCartLike.getPayment(), pendingActions)));
+    }
+}
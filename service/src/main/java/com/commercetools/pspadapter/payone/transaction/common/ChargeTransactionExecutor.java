@@ -1,5 +1,6 @@
 package com.commercetools.pspadapter.payone.transaction.common;
 
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.domain.payone.PayonePostService;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.BaseRequest;
@@ -24,8 +25,9 @@ public class ChargeTransactionExecutor extends BaseDefaultTransactionExecutor {
     public ChargeTransactionExecutor(@Nonnull final LoadingCache<String, Type> typeCache,
                                      @Nonnull final PayoneRequestFactory requestFactory,
                                      @Nonnull final PayonePostService payonePostService,
-                                     @Nonnull final BlockingSphereClient client) {
-        super(typeCache, requestFactory, payonePostService, client);
+                                     @Nonnull final BlockingSphereClient client,
+                                     @Nonnull final InteractionRetention interactionRetention) {
+        super(typeCache, requestFactory, payonePostService, client, interactionRetention);
     }
 
     @Override
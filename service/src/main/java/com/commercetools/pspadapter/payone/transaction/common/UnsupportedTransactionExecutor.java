@@ -1,6 +1,7 @@
 package com.commercetools.pspadapter.payone.transaction.common;
 
 import com.commercetools.pspadapter.payone.domain.ctp.CustomTypeBuilder;
+import com.commercetools.pspadapter.payone.domain.ctp.PaymentUpdateRebaser;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.mapping.CustomFieldKeys;
 import com.commercetools.pspadapter.payone.transaction.TransactionExecutor;
@@ -8,7 +9,6 @@ import io.sphere.sdk.client.BlockingSphereClient;
 import io.sphere.sdk.payments.Payment;
 import io.sphere.sdk.payments.Transaction;
 import io.sphere.sdk.payments.TransactionState;
-import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
 import io.sphere.sdk.payments.commands.updateactions.AddInterfaceInteraction;
 import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState;
 
@@ -56,8 +56,8 @@ public class UnsupportedTransactionExecutor implements TransactionExecutor {
                 CustomTypeBuilder.PAYONE_UNSUPPORTED_TRANSACTION, fieldsMap);
 
         return paymentWithCartLike.withPayment(
-            client.executeBlocking(
-                PaymentUpdateCommand.of(payment, Arrays.asList(changeTransactionState, addInterfaceInteraction))));
+            PaymentUpdateRebaser.executeBlocking(client, payment,
+                Arrays.asList(changeTransactionState, addInterfaceInteraction)));
     }
 
 }
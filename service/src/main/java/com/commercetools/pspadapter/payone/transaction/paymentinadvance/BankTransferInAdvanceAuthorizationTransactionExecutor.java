@@ -1,5 +1,6 @@
 package com.commercetools.pspadapter.payone.transaction.paymentinadvance;
 
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.domain.payone.PayonePostService;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.AuthorizationRequest;
@@ -17,8 +18,9 @@ public class BankTransferInAdvanceAuthorizationTransactionExecutor extends BaseB
     public BankTransferInAdvanceAuthorizationTransactionExecutor(@Nonnull LoadingCache<String, Type> typeCache,
                                                                  @Nonnull PayoneRequestFactory requestFactory,
                                                                  @Nonnull PayonePostService payonePostService,
-                                                                 @Nonnull BlockingSphereClient client) {
-        super(AUTHORIZATION, typeCache, requestFactory, payonePostService, client);
+                                                                 @Nonnull BlockingSphereClient client,
+                                                                 @Nonnull InteractionRetention interactionRetention) {
+        super(AUTHORIZATION, typeCache, requestFactory, payonePostService, client, interactionRetention);
     }
 
     @Nonnull
@@ -1,6 +1,7 @@
 package com.commercetools.pspadapter.payone.transaction.paymentinadvance;
 
 import com.commercetools.pspadapter.payone.domain.ctp.CustomTypeBuilder;
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.domain.payone.PayonePostService;
 import com.commercetools.pspadapter.payone.domain.payone.exceptions.PayoneException;
@@ -16,7 +17,6 @@ import io.sphere.sdk.payments.Payment;
 import io.sphere.sdk.payments.Transaction;
 import io.sphere.sdk.payments.TransactionState;
 import io.sphere.sdk.payments.TransactionType;
-import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
 import io.sphere.sdk.payments.commands.updateactions.AddInterfaceInteraction;
 import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionInteractionId;
 import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState;
@@ -36,6 +36,10 @@ import static com.commercetools.pspadapter.payone.domain.payone.model.common.Pay
 import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.BIC;
 import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.IBAN;
 import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.STATUS;
+import static com.commercetools.tracing.PaymentTrace.measure;
+import static com.commercetools.tracing.TracePhase.PAYONE_POST;
+import static com.commercetools.tracing.TracePhase.PRE_UPDATE;
+import static com.commercetools.tracing.TracePhase.REQUEST_MAPPING;
 import static java.lang.String.format;
 
 /**
@@ -54,8 +58,9 @@ abstract class BaseBankTransferInAdvanceTransactionExecutor extends TransactionB
                                                            @Nonnull final LoadingCache<String, Type> typeCache,
                                                            @Nonnull final PayoneRequestFactory requestFactory,
                                                            @Nonnull final PayonePostService payonePostService,
-                                                           @Nonnull final BlockingSphereClient client) {
-        super(typeCache, client);
+                                                           @Nonnull final BlockingSphereClient client,
+                                                           @Nonnull final InteractionRetention interactionRetention) {
+        super(typeCache, client, interactionRetention);
         this.transactionType = transactionType;
         this.requestFactory = requestFactory;
         this.payonePostService = payonePostService;
@@ -95,13 +100,22 @@ abstract class BaseBankTransferInAdvanceTransactionExecutor extends TransactionB
     @Nonnull
     protected PaymentWithCartLike execute(final PaymentWithCartLike paymentWithCartLike,
                                           final Transaction transaction) {
+        return execute(paymentWithCartLike, transaction, immediateUpdates());
+    }
+
+    @Override
+    @Nonnull
+    protected PaymentWithCartLike execute(final PaymentWithCartLike paymentWithCartLike,
+                                          final Transaction transaction,
+                                          final PaymentUpdates updates) {
         final String transactionId = transaction.getId();
         final int sequenceNumber = getNextSequenceNumber(paymentWithCartLike);
 
-        final AuthorizationRequest request = createRequest(paymentWithCartLike);
+        final AuthorizationRequest request = measure(REQUEST_MAPPING, () -> createRequest(paymentWithCartLike));
 
         final Map<String, Object> requestInfo = new HashMap<>();
-        requestInfo.put(CustomFieldKeys.REQUEST_FIELD, request.toStringMap(true).toString());
+        requestInfo.put(CustomFieldKeys.REQUEST_FIELD,
+                retainPayload(paymentWithCartLike, "request-" + transactionId, request.toStringMap(true).toString()));
         requestInfo.put(CustomFieldKeys.TRANSACTION_ID_FIELD, transactionId);
         requestInfo.put(CustomFieldKeys.TIMESTAMP_FIELD, ZonedDateTime.now());
 
@@ -109,19 +123,20 @@ abstract class BaseBankTransferInAdvanceTransactionExecutor extends TransactionB
             AddInterfaceInteraction.ofTypeKeyAndObjects(CustomTypeBuilder.PAYONE_INTERACTION_REQUEST,
                 requestInfo);
 
-        final Payment updatedPayment = client.executeBlocking(
-            PaymentUpdateCommand.of(paymentWithCartLike.getPayment(),
-                Arrays.asList(interfaceInteraction1,
-                    ChangeTransactionInteractionId.of(String.valueOf(sequenceNumber), transactionId))
-            ));
+        final Payment updatedPayment = measure(PRE_UPDATE, () -> updates.preUpdate(
+            paymentWithCartLike.getPayment(),
+            Arrays.asList(interfaceInteraction1,
+                ChangeTransactionInteractionId.of(String.valueOf(sequenceNumber), transactionId))));
 
         final Map<String, Object> responseInfo = new HashMap<>();
         try {
-            final Map<String, String> response = payonePostService.executePost(request);
+            final Map<String, String> response = measure(PAYONE_POST, () -> payonePostService.executePost(request));
 
             final String status = response.get(STATUS);
 
-            responseInfo.put(CustomFieldKeys.RESPONSE_FIELD, responseToJsonString(response));
+            responseInfo.put(CustomFieldKeys.RESPONSE_FIELD,
+
+                    retainPayload(paymentWithCartLike, "response-" + transactionId, responseToJsonString(response)));
             responseInfo.put(CustomFieldKeys.TRANSACTION_ID_FIELD, transactionId);
             responseInfo.put(CustomFieldKeys.TIMESTAMP_FIELD, ZonedDateTime.now());
 
@@ -130,15 +145,15 @@ abstract class BaseBankTransferInAdvanceTransactionExecutor extends TransactionB
 
             if (ResponseStatus.APPROVED.getStateCode().equals(status)) {
 
-                return update(paymentWithCartLike, updatedPayment, getBankTransferAdvancedUpdateActions(TransactionState.PENDING, updatedPayment, transactionId, response, interfaceInteraction2));
+                return updates.postUpdate(paymentWithCartLike, updatedPayment, getBankTransferAdvancedUpdateActions(TransactionState.PENDING, updatedPayment, transactionId, response, interfaceInteraction2));
 
             } else if (ResponseStatus.ERROR.getStateCode().equals(status)) {
 
-                return update(paymentWithCartLike, updatedPayment, getDefaultUpdateActions(TransactionState.FAILURE, updatedPayment, transactionId, response, interfaceInteraction2));
+                return updates.postUpdate(paymentWithCartLike, updatedPayment, getDefaultUpdateActions(TransactionState.FAILURE, updatedPayment, transactionId, response, interfaceInteraction2));
 
             } else if (ResponseStatus.PENDING.getStateCode().equals(status)) {
 
-                return update(paymentWithCartLike, updatedPayment, getDefaultSuccessUpdateActions(TransactionState.PENDING, updatedPayment, transactionId, response, interfaceInteraction2));
+                return updates.postUpdate(paymentWithCartLike, updatedPayment, getDefaultSuccessUpdateActions(TransactionState.PENDING, updatedPayment, transactionId, response, interfaceInteraction2));
 
             }
 
@@ -150,7 +165,8 @@ abstract class BaseBankTransferInAdvanceTransactionExecutor extends TransactionB
                 paymentException);
 
             responseInfo.clear();
-            responseInfo.put(CustomFieldKeys.RESPONSE_FIELD, exceptionToResponseJsonString(paymentException));
+            responseInfo.put(CustomFieldKeys.RESPONSE_FIELD,
+                    retainPayload(paymentWithCartLike, "response-" + transactionId, exceptionToResponseJsonString(paymentException)));
             responseInfo.put(CustomFieldKeys.TRANSACTION_ID_FIELD, transactionId);
             responseInfo.put(CustomFieldKeys.TIMESTAMP_FIELD, ZonedDateTime.now());
 
@@ -161,7 +177,7 @@ abstract class BaseBankTransferInAdvanceTransactionExecutor extends TransactionB
             final ChangeTransactionState failureTransaction =
                 ChangeTransactionState.of(TransactionState.FAILURE, transactionId);
 
-            return update(paymentWithCartLike, updatedPayment, Arrays.asList(interfaceInteraction, failureTransaction));
+            return updates.postUpdate(paymentWithCartLike, updatedPayment, Arrays.asList(interfaceInteraction, failureTransaction));
         }
     }
 
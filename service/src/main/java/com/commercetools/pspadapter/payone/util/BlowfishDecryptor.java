@@ -0,0 +1,131 @@
+package com.commercetools.pspadapter.payone.util;
+
+import javax.annotation.Nonnull;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Decrypts HEX encoded data with one Blowfish key (mode: ECB, padding: none), like
+ * {@link BlowfishUtil#decryptHexToString(String, String)}, but for repeated use: the key is prepared once and every
+ * thread keeps an initialized {@link Cipher}, so the synchronized provider lookup of {@link Cipher#getInstance(String)}
+ * runs once per thread instead of once per value.
+ * <p>
+ * Thread safe. One instance per tenant secure key, see
+ * {@link com.commercetools.pspadapter.tenant.TenantConfig#getSecureKey()}.
+ */
+public class BlowfishDecryptor {
+
+    private static final String CRYPT_ALGORITHM = "Blowfish";
+    private static final String CRYPT_TRANSFORMATION = CRYPT_ALGORITHM + "/ECB/NoPadding";
+    private static final int BLOCK_SIZE = 8;
+
+    private static final int NOT_HEX = -1;
+    private static final int[] HEX_DIGITS = new int[128];
+
+    static {
+        for (int i = 0; i < HEX_DIGITS.length; i++) {
+            HEX_DIGITS[i] = Character.digit((char) i, 16);
+        }
+    }
+
+    private final SecretKeySpec keySpec;
+
+    private final ThreadLocal<Cipher> cipher;
+
+    /**
+     * @param key the secret key as string which was used to encrypt the data. A key not matching the requirements
+     *            fails the decryption, not the construction, so it doesn't stop the tenant from starting.
+     */
+    public BlowfishDecryptor(@Nonnull final String key) {
+        this.keySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), CRYPT_ALGORITHM);
+        this.cipher = ThreadLocal.withInitial(this::createCipher);
+    }
+
+    /**
+     * Decrypts a given string encoded in HEX.
+     *
+     * @param encryptedString the encrypted data as String, encoded in HEX
+     * @return the decrypted data without padding chars.
+     * @throws IllegalArgumentException when the data is not HEX encoded or not a multiple of the block size, or when
+     *                                  the key is not matching the requirements
+     */
+    @Nonnull
+    public String decryptHexToString(@Nonnull final String encryptedString) {
+        final byte[] data = parseHex(encryptedString);
+        if (data.length % BLOCK_SIZE != 0) {
+            throw new IllegalArgumentException(String.format("The encrypted data is not a multiple of the block size "
+                    + "defined by algorithm %s", CRYPT_TRANSFORMATION));
+        }
+        try {
+            // ECB without padding decrypts in place, the cipher is reset to the initialized state afterwards
+            final int length = cipher.get().doFinal(data, 0, data.length, data);
+            return new String(data, 0, length, StandardCharsets.UTF_8).trim();
+        } catch (IllegalBlockSizeException | BadPaddingException | ShortBufferException e) {
+            // the state of the failed cipher is undefined, the next call of this thread creates a new one
+            cipher.remove();
+            throw new IllegalArgumentException("The given key for decryption seems to be invalid!", e);
+        }
+    }
+
+    /**
+     * Decrypts all the given strings with the cipher of the current thread.
+     *
+     * @param encryptedStrings the encrypted data, encoded in HEX
+     * @return the decrypted data in the iteration order of {@code encryptedStrings}
+     * @throws IllegalArgumentException when any of the data is not HEX encoded or not a multiple of the block size
+     */
+    @Nonnull
+    public List<String> decryptHexToStrings(@Nonnull final Collection<String> encryptedStrings) {
+        final List<String> decrypted = new ArrayList<>(encryptedStrings.size());
+        for (final String encryptedString : encryptedStrings) {
+            decrypted.add(decryptHexToString(encryptedString));
+        }
+        return decrypted;
+    }
+
+    private Cipher createCipher() {
+        try {
+            final Cipher newCipher = Cipher.getInstance(CRYPT_TRANSFORMATION);
+            newCipher.init(Cipher.DECRYPT_MODE, keySpec);
+            return newCipher;
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new UnsupportedOperationException(String.format("Could not find valid crypt algorithm for %s",
+                    CRYPT_TRANSFORMATION), e);
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException("The given key for decryption seems to be invalid!", e);
+        }
+    }
+
+    /**
+     * Parses HEX into a new array, without the intermediate copies of {@code DatatypeConverter.parseHexBinary}.
+     */
+    private static byte[] parseHex(@Nonnull final String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("HEX encoded data needs to be even-length: " + hex);
+        }
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            final int high = hexDigit(hex.charAt(2 * i));
+            final int low = hexDigit(hex.charAt(2 * i + 1));
+            if (high == NOT_HEX || low == NOT_HEX) {
+                throw new IllegalArgumentException("Contains illegal character for HEX encoded data: " + hex);
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    private static int hexDigit(final char c) {
+        return c < HEX_DIGITS.length ? HEX_DIGITS[c] : NOT_HEX;
+    }
+}
@@ -0,0 +1,66 @@
+package com.commercetools.pspadapter.tenant;
+
+import com.commercetools.payments.TransactionStateResolver;
+import com.commercetools.payments.TransactionStateResolverImpl;
+import com.commercetools.pspadapter.payone.domain.payone.PayonePostService;
+import com.commercetools.pspadapter.payone.domain.payone.PayonePostServiceImpl;
+import com.commercetools.pspadapter.payone.mapping.CountryToLanguageMapper;
+import com.commercetools.pspadapter.payone.mapping.klarna.PayoneKlarnaCountryToLanguageMapper;
+import com.commercetools.pspadapter.payone.mapping.order.DefaultPaymentToOrderStateMapper;
+import com.commercetools.pspadapter.payone.mapping.order.PaymentToOrderStateMapper;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stateless components which don't depend on the tenant configuration, so one instance serves all tenants of the
+ * service instead of one per {@link TenantFactory}.
+ * <p>
+ * {@link PayonePostServiceImpl} shares its HTTP client and connection pool anyway, so one instance per Payone API URL
+ * is enough.
+ */
+public final class SharedTenantComponents {
+
+    private static final SharedTenantComponents DEFAULT = new SharedTenantComponents();
+
+    private final TransactionStateResolver transactionStateResolver = new TransactionStateResolverImpl();
+
+    private final PaymentToOrderStateMapper paymentToOrderStateMapper = new DefaultPaymentToOrderStateMapper();
+
+    private final CountryToLanguageMapper countryToLanguageMapper = new PayoneKlarnaCountryToLanguageMapper();
+
+    private final ConcurrentMap<String, PayonePostService> payonePostServices = new ConcurrentHashMap<>();
+
+    private SharedTenantComponents() {
+    }
+
+    @Nonnull
+    public static SharedTenantComponents getDefault() {
+        return DEFAULT;
+    }
+
+    @Nonnull
+    public TransactionStateResolver getTransactionStateResolver() {
+        return transactionStateResolver;
+    }
+
+    @Nonnull
+    public PaymentToOrderStateMapper getPaymentToOrderStateMapper() {
+        return paymentToOrderStateMapper;
+    }
+
+    @Nonnull
+    public CountryToLanguageMapper getCountryToLanguageMapper() {
+        return countryToLanguageMapper;
+    }
+
+    /**
+     * @param apiUrl Payone server API URL of a tenant
+     * @return the post service of the URL, the same instance for all tenants with this URL
+     */
+    @Nonnull
+    public PayonePostService getPayonePostService(@Nonnull final String apiUrl) {
+        return payonePostServices.computeIfAbsent(apiUrl, PayonePostServiceImpl::of);
+    }
+}
@@ -1,6 +1,8 @@
 package com.commercetools.pspadapter.tenant;
 
 import com.commercetools.pspadapter.payone.config.PayoneConfig;
+import com.commercetools.lease.PaymentLeases;
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import io.sphere.sdk.client.SphereClientConfig;
 
 import javax.annotation.Nonnull;
@@ -21,6 +23,38 @@ public class TenantConfig {
 
     private final SphereClientConfig sphereClientConfig;
 
+    private final double traceSampleRate;
+
+    private final long traceSlowThresholdMillis;
+
+    private final long catchUpIntervalMillis;
+
+    private final long catchUpDelayMillis;
+
+    private final int catchUpParallelism;
+
+    private final InteractionRetention.Mode interactionRetention;
+
+    private final int interactionMaxPayloadLength;
+
+    private final PaymentLeases.Provider paymentLeaseProvider;
+
+    private final long paymentLeaseTtlMillis;
+
+    private final long paymentLeaseMaxWaitMillis;
+
+    private final boolean ctpHedgeReads;
+
+    private final long ctpHedgeDelayMillis;
+
+    private final double ctpHedgeBudgetPercent;
+
+    private final boolean notificationDeduplication;
+
+    private final long notificationDeduplicationTtlMillis;
+
+    private final long notificationDeduplicationMaxSize;
+
     public TenantConfig(@Nonnull TenantPropertyProvider tenantPropertyProvider, @Nonnull PayoneConfig payoneConfig) {
         this.name = tenantPropertyProvider.getTenantName();
 
@@ -43,6 +77,90 @@ public class TenantConfig {
                 .map(String::trim)
                 .map(Boolean::valueOf)
                 .orElse(false);
+
+        this.traceSampleRate = tenantPropertyProvider.getTenantProperty(TRACE_SAMPLE_RATE)
+                .map(String::trim)
+                .map(Double::valueOf)
+                .orElse(0.0);
+
+        this.traceSlowThresholdMillis = tenantPropertyProvider.getTenantProperty(TRACE_SLOW_THRESHOLD_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(5000L);
+
+        this.catchUpIntervalMillis = tenantPropertyProvider.getTenantProperty(CATCH_UP_INTERVAL_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(0L);
+
+        this.catchUpDelayMillis = tenantPropertyProvider.getTenantProperty(CATCH_UP_DELAY_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(60000L);
+
+        this.catchUpParallelism = tenantPropertyProvider.getTenantProperty(CATCH_UP_PARALLELISM)
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .orElse(4);
+
+        this.interactionRetention = tenantPropertyProvider.getTenantProperty(INTERACTION_RETENTION)
+                .map(String::trim)
+                .map(String::toUpperCase)
+                .map(InteractionRetention.Mode::valueOf)
+                .orElse(InteractionRetention.Mode.FULL);
+
+        this.interactionMaxPayloadLength = tenantPropertyProvider.getTenantProperty(INTERACTION_MAX_PAYLOAD_LENGTH)
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .orElse(2000);
+
+        this.paymentLeaseProvider = tenantPropertyProvider.getTenantProperty(PAYMENT_LEASE_PROVIDER)
+                .map(String::trim)
+                .map(String::toUpperCase)
+                .map(PaymentLeases.Provider::valueOf)
+                .orElse(PaymentLeases.Provider.NONE);
+
+        this.paymentLeaseTtlMillis = tenantPropertyProvider.getTenantProperty(PAYMENT_LEASE_TTL_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(30000L);
+
+        this.paymentLeaseMaxWaitMillis = tenantPropertyProvider.getTenantProperty(PAYMENT_LEASE_MAX_WAIT_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(10000L);
+
+        this.ctpHedgeReads = tenantPropertyProvider.getTenantProperty(CTP_HEDGE_READS)
+                .map(String::trim)
+                .map(Boolean::valueOf)
+                .orElse(false);
+
+        this.ctpHedgeDelayMillis = tenantPropertyProvider.getTenantProperty(CTP_HEDGE_DELAY_MILLIS)
+                .map(String::trim)
+                .map(Long::valueOf)
+                .orElse(0L);
+
+        this.ctpHedgeBudgetPercent = tenantPropertyProvider.getTenantProperty(CTP_HEDGE_BUDGET_PERCENT)
+                .map(String::trim)
+                .map(Double::valueOf)
+                .orElse(5.0);
+
+        this.notificationDeduplication = tenantPropertyProvider.getTenantProperty(NOTIFICATION_DEDUPLICATION)
+                .map(String::trim)
+                .map(Boolean::valueOf)
+                .orElse(false);
+
+        this.notificationDeduplicationTtlMillis =
+                tenantPropertyProvider.getTenantProperty(NOTIFICATION_DEDUPLICATION_TTL_MILLIS)
+                        .map(String::trim)
+                        .map(Long::valueOf)
+                        .orElse(21600000L);
+
+        this.notificationDeduplicationMaxSize =
+                tenantPropertyProvider.getTenantProperty(NOTIFICATION_DEDUPLICATION_MAX_SIZE)
+                        .map(String::trim)
+                        .map(Long::valueOf)
+                        .orElse(50000L);
     }
 
     public String getName() {
@@ -88,4 +206,127 @@ public class TenantConfig {
     public SphereClientConfig getSphereClientConfig() {
         return sphereClientConfig;
     }
+
+    /**
+     * Share of handled payments whose timing trace is logged, from <i>0.0</i> (default, none) to <i>1.0</i> (all).
+     */
+    public double getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    /**
+     * Handled payments slower than this are always logged with their timing trace, regardless of
+     * {@link #getTraceSampleRate()}. Non-positive value disables it.
+     */
+    public long getTraceSlowThresholdMillis() {
+        return traceSlowThresholdMillis;
+    }
+
+    /**
+     * Delay between two runs of the message-driven payment catch-up, see
+     * {@link com.commercetools.pspadapter.payone.PaymentCatchUpProcessor}. Non-positive value (default) disables it.
+     */
+    public long getCatchUpIntervalMillis() {
+        return catchUpIntervalMillis;
+    }
+
+    public boolean isCatchUpEnabled() {
+        return catchUpIntervalMillis > 0;
+    }
+
+    /**
+     * Age of the newest message the payment catch-up reads, so the handle URL processes the payment first if the
+     * shop still calls it. Default is one minute.
+     */
+    public long getCatchUpDelayMillis() {
+        return catchUpDelayMillis;
+    }
+
+    /**
+     * Payments the catch-up handles concurrently, default is 4.
+     */
+    public int getCatchUpParallelism() {
+        return catchUpParallelism;
+    }
+
+    /**
+     * What to do with interface interaction payloads longer than {@link #getInteractionMaxPayloadLength()}, see
+     * {@link InteractionRetention.Mode}. Default is {@link InteractionRetention.Mode#FULL}.
+     */
+    public InteractionRetention.Mode getInteractionRetention() {
+        return interactionRetention;
+    }
+
+    /**
+     * Longest interface interaction payload which is kept as it is, default is 2000 characters.
+     */
+    public int getInteractionMaxPayloadLength() {
+        return interactionMaxPayloadLength;
+    }
+
+    /**
+     * Store of the per payment leases, see {@link PaymentLeases.Provider}. Default is
+     * {@link PaymentLeases.Provider#NONE}.
+     */
+    public PaymentLeases.Provider getPaymentLeaseProvider() {
+        return paymentLeaseProvider;
+    }
+
+    /**
+     * Lifetime of a payment lease which is neither renewed nor released, default is 30 seconds.
+     */
+    public long getPaymentLeaseTtlMillis() {
+        return paymentLeaseTtlMillis;
+    }
+
+    /**
+     * How long a request waits for the lease of its payment, default is 10 seconds.
+     */
+    public long getPaymentLeaseMaxWaitMillis() {
+        return paymentLeaseMaxWaitMillis;
+    }
+
+    /**
+     * If <b>true</b> - slow idempotent commercetools reads are sent a second time, see
+     * {@link com.commercetools.service.HedgedReads}. Default is <b>false</b>.
+     */
+    public boolean isCtpHedgeReads() {
+        return ctpHedgeReads;
+    }
+
+    /**
+     * Delay before a read is hedged, default <b>0</b> uses the observed 95th percentile of the reads.
+     */
+    public long getCtpHedgeDelayMillis() {
+        return ctpHedgeDelayMillis;
+    }
+
+    /**
+     * Maximal hedges in percent of the reads, default is 5.
+     */
+    public double getCtpHedgeBudgetPercent() {
+        return ctpHedgeBudgetPercent;
+    }
+
+    /**
+     * If <b>true</b> - notifications which Payone redelivers are answered without handling them again, see
+     * {@link com.commercetools.pspadapter.payone.notification.NotificationDeduplicator}. Default is <b>false</b>.
+     */
+    public boolean isNotificationDeduplication() {
+        return notificationDeduplication;
+    }
+
+    /**
+     * How long a handled notification is remembered, default is 6 hours.
+     */
+    public long getNotificationDeduplicationTtlMillis() {
+        return notificationDeduplicationTtlMillis;
+    }
+
+    /**
+     * Most handled notifications remembered, default is 50000.
+     */
+    public long getNotificationDeduplicationMaxSize() {
+        return notificationDeduplicationMaxSize;
+    }
 }
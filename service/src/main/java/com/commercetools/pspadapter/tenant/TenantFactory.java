@@ -1,15 +1,19 @@
 package com.commercetools.pspadapter.tenant;
 
+import com.commercetools.lease.CustomObjectLeaseProvider;
+import com.commercetools.lease.InMemoryLeaseProvider;
+import com.commercetools.lease.LeaseProvider;
+import com.commercetools.lease.PaymentLeases;
 import com.commercetools.payments.TransactionStateResolver;
-import com.commercetools.payments.TransactionStateResolverImpl;
+import com.commercetools.pspadapter.payone.PaymentCatchUpProcessor;
 import com.commercetools.pspadapter.payone.PaymentDispatcher;
 import com.commercetools.pspadapter.payone.PaymentHandler;
 import com.commercetools.pspadapter.payone.domain.ctp.CommercetoolsQueryExecutor;
 import com.commercetools.pspadapter.payone.domain.ctp.CustomTypeBuilder;
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import com.commercetools.pspadapter.payone.domain.ctp.TypeCacheLoader;
 import com.commercetools.pspadapter.payone.domain.ctp.paymentmethods.PaymentMethod;
 import com.commercetools.pspadapter.payone.domain.payone.PayonePostService;
-import com.commercetools.pspadapter.payone.domain.payone.PayonePostServiceImpl;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.NotificationAction;
 import com.commercetools.pspadapter.payone.mapping.BankTransferInAdvanceRequestFactory;
 import com.commercetools.pspadapter.payone.mapping.BankTransferWithoutIbanBicRequestFactory;
@@ -20,9 +24,8 @@ import com.commercetools.pspadapter.payone.mapping.PostFinanceBanktransferReques
 import com.commercetools.pspadapter.payone.mapping.SofortBankTransferRequestFactory;
 import com.commercetools.pspadapter.payone.mapping.WalletRequestFactory;
 import com.commercetools.pspadapter.payone.mapping.klarna.KlarnaRequestFactory;
-import com.commercetools.pspadapter.payone.mapping.klarna.PayoneKlarnaCountryToLanguageMapper;
-import com.commercetools.pspadapter.payone.mapping.order.DefaultPaymentToOrderStateMapper;
 import com.commercetools.pspadapter.payone.mapping.order.PaymentToOrderStateMapper;
+import com.commercetools.pspadapter.payone.notification.NotificationDeduplicator;
 import com.commercetools.pspadapter.payone.notification.NotificationDispatcher;
 import com.commercetools.pspadapter.payone.notification.NotificationProcessor;
 import com.commercetools.pspadapter.payone.notification.common.AppointedNotificationProcessor;
@@ -37,13 +40,19 @@ import com.commercetools.pspadapter.payone.transaction.common.ChargeTransactionE
 import com.commercetools.pspadapter.payone.transaction.common.UnsupportedTransactionExecutor;
 import com.commercetools.pspadapter.payone.transaction.paymentinadvance.BankTransferInAdvanceAuthorizationTransactionExecutor;
 import com.commercetools.pspadapter.payone.transaction.paymentinadvance.BankTransferInAdvanceChargeTransactionExecutor;
+import com.commercetools.service.CheckpointService;
+import com.commercetools.service.CheckpointServiceImpl;
+import com.commercetools.service.HedgedReads;
+import com.commercetools.service.InteractionPayloadService;
+import com.commercetools.service.InteractionPayloadServiceImpl;
 import com.commercetools.service.OrderService;
 import com.commercetools.service.OrderServiceImpl;
 import com.commercetools.service.PaymentService;
 import com.commercetools.service.PaymentServiceImpl;
+import com.commercetools.tracing.PaymentTraceSampler;
 import com.commercetools.util.SphereClientConfigurationUtil;
+import com.commercetools.util.function.Lazy;
 import com.github.benmanes.caffeine.cache.Caffeine;
-
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import io.sphere.sdk.client.BlockingSphereClient;
 import io.sphere.sdk.client.SphereClient;
@@ -51,28 +60,40 @@ import io.sphere.sdk.payments.TransactionType;
 import io.sphere.sdk.types.Type;
 
 import javax.annotation.Nonnull;
-import java.util.HashMap;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.EnumMap;
 import java.util.Map;
 
 import static com.commercetools.pspadapter.payone.domain.ctp.paymentmethods.PaymentMethod.supportedPaymentMethods;
 import static com.commercetools.pspadapter.payone.domain.ctp.paymentmethods.PaymentMethod.supportedTransactionTypes;
 import static java.lang.String.format;
 
+/**
+ * Object graph of a tenant.
+ * <p>
+ * Stateless components are shared by all tenants, see {@link SharedTenantComponents}. The payment and notification
+ * dispatchers and the payment handler are created on first use, the request factories and transaction executors of
+ * a payment method on the first payment of the method, so tenants which get few requests or use few payment methods
+ * cost little memory.
+ */
 public class TenantFactory {
 
     private final String payoneInterfaceName;
 
     private final String tenantName;
 
+    private final TenantConfig tenantConfig;
+
     private final String urlPrefix;
 
     private final BlockingSphereClient blockingSphereClient;
 
     private final PayonePostService payonePostService;
 
-    private final PaymentHandler paymentHandler;
-    private final PaymentDispatcher paymentDispatcher;
-    private final NotificationDispatcher notificationDispatcher;
+    private final Lazy<PaymentHandler> paymentHandler;
+    private final Lazy<PaymentDispatcher> paymentDispatcher;
+    private final Lazy<NotificationDispatcher> notificationDispatcher;
 
     private final PaymentService paymentService;
     private final OrderService orderService;
@@ -83,16 +104,29 @@ public class TenantFactory {
 
     private final TransactionStateResolver transactionStateResolver;
 
+    private final InteractionRetention interactionRetention;
+
+    private final PaymentLeases paymentLeases;
+
+    private final HedgedReads hedgedReads;
+
+    private final NotificationDeduplicator notificationDeduplicator;
+
+    private final PaymentCatchUpProcessor paymentCatchUpProcessor;
+
 
     public TenantFactory(String payoneInterfaceName, TenantConfig tenantConfig) {
         this.payoneInterfaceName = payoneInterfaceName;
 
         this.tenantName = tenantConfig.getName();
+        this.tenantConfig = tenantConfig;
 
         this.urlPrefix = "/" + tenantName;
 
         this.paymentToOrderStateMapper = createPaymentToOrderStateMapper();
 
+        this.hedgedReads = createHedgedReads(tenantConfig);
+
         this.blockingSphereClient = createBlockingSphereClient(tenantConfig);
         this.payonePostService = getPayonePostService(tenantConfig);
 
@@ -101,16 +135,29 @@ public class TenantFactory {
 
         this.transactionStateResolver = createTransactionStateResolver();
 
-        this.paymentDispatcher = createPaymentDispatcher(tenantConfig, createTypeCache(blockingSphereClient),
-                blockingSphereClient, payonePostService, transactionStateResolver);
+        this.interactionRetention = createInteractionRetention(tenantConfig, blockingSphereClient);
+
+        this.paymentLeases = createPaymentLeases(tenantConfig, blockingSphereClient);
 
-        this.notificationDispatcher = createNotificationDispatcher(tenantConfig, transactionStateResolver);
+        this.notificationDeduplicator = createNotificationDeduplicator(tenantConfig);
 
-        this.commercetoolsQueryExecutor = new CommercetoolsQueryExecutor(blockingSphereClient);
+        this.paymentDispatcher = Lazy.of(() -> createPaymentDispatcher(tenantConfig,
+                createTypeCache(blockingSphereClient), blockingSphereClient, payonePostService, transactionStateResolver));
 
-        this.paymentHandler = createPaymentHandler(payoneInterfaceName, tenantConfig.getName(), commercetoolsQueryExecutor, paymentDispatcher);
+        this.notificationDispatcher = Lazy.of(() -> createNotificationDispatcher(tenantConfig, transactionStateResolver));
+
+        this.commercetoolsQueryExecutor = new CommercetoolsQueryExecutor(blockingSphereClient, hedgedReads);
+
+        this.paymentHandler = Lazy.of(() -> createPaymentHandler(payoneInterfaceName, tenantConfig.getName(),
+                commercetoolsQueryExecutor, paymentDispatcher.get(),
+                new PaymentTraceSampler(tenantConfig.getTraceSampleRate(), tenantConfig.getTraceSlowThresholdMillis())));
 
         this.customTypeBuilder = createCustomTypeBuilder(blockingSphereClient, tenantConfig.getStartFromScratch());
+
+        this.paymentCatchUpProcessor = tenantConfig.isCatchUpEnabled()
+                ? createPaymentCatchUpProcessor(tenantConfig, commercetoolsQueryExecutor, paymentHandler.get(),
+                        transactionStateResolver, createCheckpointService(blockingSphereClient))
+                : null;
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -121,6 +168,10 @@ public class TenantFactory {
         return tenantName;
     }
 
+    public TenantConfig getTenantConfig() {
+        return tenantConfig;
+    }
+
     public String getPayoneInterfaceName() {
         return payoneInterfaceName;
     }
@@ -147,15 +198,15 @@ public class TenantFactory {
 
 
     public PaymentHandler getPaymentHandler() {
-        return paymentHandler;
+        return paymentHandler.get();
     }
 
     public PaymentDispatcher getPaymentDispatcher() {
-        return paymentDispatcher;
+        return paymentDispatcher.get();
     }
 
     public NotificationDispatcher getNotificationDispatcher() {
-        return notificationDispatcher;
+        return notificationDispatcher.get();
     }
 
     public CommercetoolsQueryExecutor getCommercetoolsQueryExecutor() {
@@ -166,6 +217,22 @@ public class TenantFactory {
         return customTypeBuilder;
     }
 
+    /**
+     * @return the message-driven payment catch-up of the tenant, <b>null</b> if it is disabled
+     */
+    @Nullable
+    public PaymentCatchUpProcessor getPaymentCatchUpProcessor() {
+        return paymentCatchUpProcessor;
+    }
+
+    public InteractionRetention getInteractionRetention() {
+        return interactionRetention;
+    }
+
+    public PaymentLeases getPaymentLeases() {
+        return paymentLeases;
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // Encapsulated Factory Creators
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -181,21 +248,76 @@ public class TenantFactory {
 
     @Nonnull
     protected PayonePostService getPayonePostService(TenantConfig tenantConfig) {
-        return PayonePostServiceImpl.of(tenantConfig.getPayoneConfig().getApiUrl());
+        return SharedTenantComponents.getDefault().getPayonePostService(tenantConfig.getPayoneConfig().getApiUrl());
     }
 
 
 
     protected PaymentService createPaymentService(SphereClient sphereClient) {
-        return new PaymentServiceImpl(sphereClient);
+        return new PaymentServiceImpl(sphereClient, hedgedReads);
     }
 
     protected OrderService createOrderService(SphereClient sphereClient) {
         return new OrderServiceImpl(sphereClient);
     }
 
+    protected CheckpointService createCheckpointService(SphereClient sphereClient) {
+        return new CheckpointServiceImpl(sphereClient);
+    }
+
+    protected InteractionPayloadService createInteractionPayloadService(SphereClient sphereClient) {
+        return new InteractionPayloadServiceImpl(sphereClient);
+    }
+
+    protected InteractionRetention createInteractionRetention(TenantConfig tenantConfig, SphereClient sphereClient) {
+        final InteractionRetention.Mode mode = tenantConfig.getInteractionRetention();
+        if (mode == InteractionRetention.Mode.FULL) {
+            return InteractionRetention.FULL;
+        }
+        return new InteractionRetention(mode, tenantConfig.getInteractionMaxPayloadLength(),
+                mode == InteractionRetention.Mode.OFFLOAD ? createInteractionPayloadService(sphereClient) : null);
+    }
+
+    protected HedgedReads createHedgedReads(TenantConfig tenantConfig) {
+        if (!tenantConfig.isCtpHedgeReads()) {
+            return HedgedReads.DISABLED;
+        }
+        return new HedgedReads(tenantConfig.getName(), tenantConfig.getCtpHedgeDelayMillis(),
+                tenantConfig.getCtpHedgeBudgetPercent());
+    }
+
+    protected NotificationDeduplicator createNotificationDeduplicator(TenantConfig tenantConfig) {
+        if (!tenantConfig.isNotificationDeduplication()) {
+            return NotificationDeduplicator.DISABLED;
+        }
+        return new NotificationDeduplicator(tenantConfig.getName(),
+                Duration.ofMillis(tenantConfig.getNotificationDeduplicationTtlMillis()),
+                tenantConfig.getNotificationDeduplicationMaxSize());
+    }
+
+    protected PaymentLeases createPaymentLeases(TenantConfig tenantConfig, SphereClient sphereClient) {
+        final PaymentLeases.Provider provider = tenantConfig.getPaymentLeaseProvider();
+        if (provider == PaymentLeases.Provider.NONE) {
+            return PaymentLeases.DISABLED;
+        }
+        return new PaymentLeases(createLeaseProvider(provider, sphereClient), tenantConfig.getName(),
+                Duration.ofMillis(tenantConfig.getPaymentLeaseTtlMillis()),
+                Duration.ofMillis(tenantConfig.getPaymentLeaseMaxWaitMillis()));
+    }
+
+    protected LeaseProvider createLeaseProvider(PaymentLeases.Provider provider, SphereClient sphereClient) {
+        switch (provider) {
+            case MEMORY:
+                return new InMemoryLeaseProvider();
+            case CUSTOM_OBJECT:
+                return new CustomObjectLeaseProvider(sphereClient);
+            default:
+                throw new IllegalArgumentException(format("Lease provider \"%s\" is not supported", provider));
+        }
+    }
+
     protected PaymentToOrderStateMapper createPaymentToOrderStateMapper() {
-        return new DefaultPaymentToOrderStateMapper();
+        return SharedTenantComponents.getDefault().getPaymentToOrderStateMapper();
     }
 
     protected NotificationDispatcher createNotificationDispatcher(TenantConfig tenantConfig,
@@ -203,19 +325,33 @@ public class TenantFactory {
         final NotificationProcessor defaultNotificationProcessor =
                 new DefaultNotificationProcessor(this, tenantConfig, transactionStateResolver);
 
-        final Map<NotificationAction, NotificationProcessor> processorMap = new HashMap<>();
+        final Map<NotificationAction, NotificationProcessor> processorMap = new EnumMap<>(NotificationAction.class);
         processorMap.put(NotificationAction.APPOINTED, new AppointedNotificationProcessor(this, tenantConfig, transactionStateResolver));
         processorMap.put(NotificationAction.CAPTURE, new CaptureNotificationProcessor(this, tenantConfig, transactionStateResolver));
         processorMap.put(NotificationAction.PAID, new PaidNotificationProcessor(this, tenantConfig, transactionStateResolver));
         processorMap.put(NotificationAction.UNDERPAID, new UnderpaidNotificationProcessor(this, tenantConfig, transactionStateResolver));
 
-        return new NotificationDispatcher(defaultNotificationProcessor, processorMap, this, tenantConfig.getPayoneConfig());
+        return new NotificationDispatcher(defaultNotificationProcessor, processorMap, this, tenantConfig.getPayoneConfig(),
+                paymentLeases, notificationDeduplicator);
     }
 
     protected PaymentHandler createPaymentHandler(String payoneInterfaceName, String tenantName,
                                                   CommercetoolsQueryExecutor commercetoolsQueryExecutor,
-                                                  PaymentDispatcher paymentDispatcher) {
-        return new PaymentHandler(payoneInterfaceName, tenantName, commercetoolsQueryExecutor, paymentDispatcher);
+                                                  PaymentDispatcher paymentDispatcher,
+                                                  PaymentTraceSampler traceSampler) {
+        return new PaymentHandler(payoneInterfaceName, tenantName, commercetoolsQueryExecutor, paymentDispatcher,
+                traceSampler, paymentLeases);
+    }
+
+    protected PaymentCatchUpProcessor createPaymentCatchUpProcessor(TenantConfig tenantConfig,
+                                                                    CommercetoolsQueryExecutor commercetoolsQueryExecutor,
+                                                                    PaymentHandler paymentHandler,
+                                                                    TransactionStateResolver transactionStateResolver,
+                                                                    CheckpointService checkpointService) {
+        return new PaymentCatchUpProcessor(tenantConfig.getName(), getPayoneInterfaceName(),
+                commercetoolsQueryExecutor, paymentHandler, transactionStateResolver, checkpointService,
+                tenantConfig.getCatchUpIntervalMillis(), tenantConfig.getCatchUpDelayMillis(),
+                tenantConfig.getCatchUpParallelism());
     }
 
     protected PaymentDispatcher createPaymentDispatcher(final TenantConfig tenantConfig,
@@ -224,23 +360,22 @@ public class TenantFactory {
                                                         final PayonePostService payonePostService,
                                                         final TransactionStateResolver transactionStateResolver) {
 
-        final HashMap<PaymentMethod, PaymentMethodDispatcher> methodDispatcherMap = new HashMap<>();
-
         final TransactionExecutor defaultExecutor = new UnsupportedTransactionExecutor(client);
 
-        for (final PaymentMethod paymentMethod : supportedPaymentMethods) {
+        return PaymentDispatcher.lazy(paymentMethod -> {
+            if (!supportedPaymentMethods.contains(paymentMethod)) {
+                return null;
+            }
             final PayoneRequestFactory requestFactory = createRequestFactory(paymentMethod, tenantConfig);
-            final Map<TransactionType, TransactionExecutor> executors = new HashMap<>();
+            final Map<TransactionType, TransactionExecutor> executors = new EnumMap<>(TransactionType.class);
 
             supportedTransactionTypes
                     .forEach(transactionType ->
                             executors.put(transactionType,
                                     createTransactionExecutor(transactionType, typeCache, client, requestFactory, payonePostService, paymentMethod)));
 
-            methodDispatcherMap.put(paymentMethod,
-                    new PaymentMethodDispatcher(defaultExecutor, executors, transactionStateResolver));
-        }
-        return new PaymentDispatcher(methodDispatcherMap, getPayoneInterfaceName());
+            return new PaymentMethodDispatcher(defaultExecutor, executors, transactionStateResolver);
+        }, getPayoneInterfaceName());
     }
 
     protected TransactionExecutor createTransactionExecutor(
@@ -255,16 +390,20 @@ public class TenantFactory {
             case AUTHORIZATION:
                 switch (paymentMethod) {
                     case BANK_TRANSFER_ADVANCE:
-                        return new BankTransferInAdvanceAuthorizationTransactionExecutor(typeCache, requestFactory, postService, client);
+                        return new BankTransferInAdvanceAuthorizationTransactionExecutor(typeCache, requestFactory, postService, client,
+                                interactionRetention);
                     default:
-                        return new AuthorizationTransactionExecutor(typeCache, requestFactory, postService, client);
+                        return new AuthorizationTransactionExecutor(typeCache, requestFactory, postService, client,
+                                interactionRetention);
                 }
             case CHARGE:
                 switch (paymentMethod) {
                     case BANK_TRANSFER_ADVANCE:
-                        return new BankTransferInAdvanceChargeTransactionExecutor(typeCache, requestFactory, postService, client);
+                        return new BankTransferInAdvanceChargeTransactionExecutor(typeCache, requestFactory, postService, client,
+                                interactionRetention);
                     default:
-                        return new ChargeTransactionExecutor(typeCache, requestFactory, postService, client);
+                        return new ChargeTransactionExecutor(typeCache, requestFactory, postService, client,
+                                interactionRetention);
                 }
         }
         throw new IllegalArgumentException(format("Transaction type \"%s\" is not supported", transactionType));
@@ -321,11 +460,11 @@ public class TenantFactory {
 
     @Nonnull
     protected CountryToLanguageMapper createCountryToLanguageMapper() {
-        return new PayoneKlarnaCountryToLanguageMapper();
+        return SharedTenantComponents.getDefault().getCountryToLanguageMapper();
     }
 
     @Nonnull
     protected TransactionStateResolver createTransactionStateResolver() {
-        return new TransactionStateResolverImpl();
+        return SharedTenantComponents.getDefault().getTransactionStateResolver();
     }
 }
@@ -22,6 +22,28 @@ public class TenantPropertyProvider {
     public static final String SECURE_KEY = "SECURE_KEY";
     public static final String UPDATE_ORDER_PAYMENT_STATE = "UPDATE_ORDER_PAYMENT_STATE";
 
+    public static final String TRACE_SAMPLE_RATE = "TRACE_SAMPLE_RATE";
+    public static final String TRACE_SLOW_THRESHOLD_MILLIS = "TRACE_SLOW_THRESHOLD_MILLIS";
+
+    public static final String CATCH_UP_INTERVAL_MILLIS = "CATCH_UP_INTERVAL_MILLIS";
+    public static final String CATCH_UP_DELAY_MILLIS = "CATCH_UP_DELAY_MILLIS";
+    public static final String CATCH_UP_PARALLELISM = "CATCH_UP_PARALLELISM";
+
+    public static final String INTERACTION_RETENTION = "INTERACTION_RETENTION";
+    public static final String INTERACTION_MAX_PAYLOAD_LENGTH = "INTERACTION_MAX_PAYLOAD_LENGTH";
+
+    public static final String PAYMENT_LEASE_PROVIDER = "PAYMENT_LEASE_PROVIDER";
+    public static final String PAYMENT_LEASE_TTL_MILLIS = "PAYMENT_LEASE_TTL_MILLIS";
+    public static final String PAYMENT_LEASE_MAX_WAIT_MILLIS = "PAYMENT_LEASE_MAX_WAIT_MILLIS";
+
+    public static final String CTP_HEDGE_READS = "CTP_HEDGE_READS";
+    public static final String CTP_HEDGE_DELAY_MILLIS = "CTP_HEDGE_DELAY_MILLIS";
+    public static final String CTP_HEDGE_BUDGET_PERCENT = "CTP_HEDGE_BUDGET_PERCENT";
+
+    public static final String NOTIFICATION_DEDUPLICATION = "NOTIFICATION_DEDUPLICATION";
+    public static final String NOTIFICATION_DEDUPLICATION_TTL_MILLIS = "NOTIFICATION_DEDUPLICATION_TTL_MILLIS";
+    public static final String NOTIFICATION_DEDUPLICATION_MAX_SIZE = "NOTIFICATION_DEDUPLICATION_MAX_SIZE";
+
     private final String tenantName;
 
     private final String tenantPropertyPrefix;
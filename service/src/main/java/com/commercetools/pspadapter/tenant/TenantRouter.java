@@ -0,0 +1,83 @@
+package com.commercetools.pspadapter.tenant;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Resolves the tenant of a request in constant time, so that the service registers one parameterized route per
+ * endpoint instead of one route per tenant and endpoint.
+ */
+public class TenantRouter {
+
+    /**
+     * Parameter of the tenant name in the route paths.
+     */
+    public static final String TENANT_PARAM = ":tenant";
+
+    public static final String PAYMENT_HANDLER_ROUTE = "/" + TENANT_PARAM + "/commercetools/handle/payments/:id";
+
+    public static final String NOTIFICATION_ROUTE = "/" + TENANT_PARAM + "/payone/notification";
+
+    /**
+     * Notification endpoint shared by all tenants, the tenant is resolved from the Payone account of the payload.
+     */
+    public static final String SHARED_NOTIFICATION_ROUTE = "/payone/notification";
+
+    private final Map<String, TenantFactory> tenantsByName;
+
+    private final Map<String, TenantFactory> tenantsByPayoneAccount;
+
+    public TenantRouter(@Nonnull final Collection<TenantFactory> tenantFactories) {
+        this.tenantsByName = new HashMap<>(tenantFactories.size() * 2);
+        this.tenantsByPayoneAccount = new HashMap<>(tenantFactories.size() * 2);
+
+        // tenants sharing a Payone account can't be told apart by a notification
+        final Set<String> sharedAccounts = new HashSet<>();
+        for (final TenantFactory tenantFactory : tenantFactories) {
+            tenantsByName.put(tenantFactory.getTenantName(), tenantFactory);
+
+            final TenantConfig tenantConfig = tenantFactory.getTenantConfig();
+            if (tenantConfig != null && tenantConfig.getPayoneConfig() != null) {
+                final String account = payoneAccountKey(tenantConfig.getPayoneConfig().getPortalId(),
+                        tenantConfig.getPayoneConfig().getSubAccountId());
+                if (tenantsByPayoneAccount.putIfAbsent(account, tenantFactory) != null) {
+                    sharedAccounts.add(account);
+                }
+            }
+        }
+        sharedAccounts.forEach(tenantsByPayoneAccount::remove);
+    }
+
+    /**
+     * @param tenantName value of the {@link #TENANT_PARAM} route parameter
+     * @return the tenant, empty if it is not configured
+     */
+    @Nonnull
+    public Optional<TenantFactory> getTenant(@Nullable final String tenantName) {
+        return Optional.ofNullable(tenantName).map(tenantsByName::get);
+    }
+
+    /**
+     * @param notification a notification received on the {@link #SHARED_NOTIFICATION_ROUTE}
+     * @return the only tenant with the {@code portalid} and {@code aid} of the notification, empty if there is none or
+     * more than one
+     */
+    @Nonnull
+    public Optional<TenantFactory> getTenantForNotification(@Nonnull final Notification notification) {
+        return Optional.ofNullable(tenantsByPayoneAccount.get(
+                payoneAccountKey(notification.getPortalid(), notification.getAid())));
+    }
+
+    @Nonnull
+    private static String payoneAccountKey(@Nullable final String portalId, @Nullable final String subAccountId) {
+        return portalId + "|" + subAccountId;
+    }
+}
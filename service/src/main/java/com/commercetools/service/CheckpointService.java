@@ -0,0 +1,25 @@
+package com.commercetools.service;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * CTP service to persist the progress of background processors, like the last processed message date.
+ */
+public interface CheckpointService {
+
+    /**
+     * @param key <b>non-null</b> key of the checkpoint, unique in the commercetools project
+     * @return completion stage with the saved checkpoint, empty if it has never been saved
+     */
+    CompletionStage<Optional<ZonedDateTime>> getCheckpoint(String key);
+
+    /**
+     * Create or overwrite the checkpoint.
+     * @param key <b>non-null</b> key of the checkpoint, unique in the commercetools project
+     * @param checkpoint <b>non-null</b> value to save
+     * @return completion stage with the saved checkpoint
+     */
+    CompletionStage<ZonedDateTime> saveCheckpoint(String key, ZonedDateTime checkpoint);
+}
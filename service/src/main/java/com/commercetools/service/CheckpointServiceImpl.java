@@ -0,0 +1,41 @@
+package com.commercetools.service;
+
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.customobjects.CustomObject;
+import io.sphere.sdk.customobjects.CustomObjectDraft;
+import io.sphere.sdk.customobjects.commands.CustomObjectUpsertCommand;
+import io.sphere.sdk.customobjects.queries.CustomObjectByKeyGet;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Stores the checkpoints as unversioned custom objects, the value is the ISO-8601 date string.
+ */
+public class CheckpointServiceImpl implements CheckpointService {
+
+    public static final String CONTAINER = "commercetools-payone-integration";
+
+    private final SphereClient client;
+
+    public CheckpointServiceImpl(SphereClient sphereClient) {
+        this.client = sphereClient;
+    }
+
+    @Override
+    public CompletionStage<Optional<ZonedDateTime>> getCheckpoint(String key) {
+        return client.execute(CustomObjectByKeyGet.of(CONTAINER, key, String.class))
+                .thenApply(customObject -> Optional.ofNullable(customObject)
+                        .map(CustomObject::getValue)
+                        .map(ZonedDateTime::parse));
+    }
+
+    @Override
+    public CompletionStage<ZonedDateTime> saveCheckpoint(String key, ZonedDateTime checkpoint) {
+        final CustomObjectDraft<String> draft =
+                CustomObjectDraft.ofUnversionedUpsert(CONTAINER, key, checkpoint.toString(), String.class);
+        return client.execute(CustomObjectUpsertCommand.of(draft))
+                .thenApply(customObject -> checkpoint);
+    }
+}
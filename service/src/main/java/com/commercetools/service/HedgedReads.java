@@ -0,0 +1,196 @@
+package com.commercetools.service;
+
+import com.commercetools.metrics.LatencyHistogram;
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.client.SphereRequest;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.commercetools.metrics.ServiceMetrics.CTP_HEDGED_READS;
+
+/**
+ * Hedging of idempotent commercetools reads: if the response didn't arrive after the hedge delay, the same request is
+ * sent a second time and the first successful response wins. One slow response of the platform then costs the delay
+ * instead of the full timeout.
+ * <p>
+ * The delay is either fixed or the 95th percentile of the tenant's recent successful reads, so about 5% of the reads
+ * are hedged. The percentile is taken from a window which is restarted on every refresh of the delay once it holds
+ * enough samples, so the delay follows the platform back down after a slow period. Failed reads aren't sampled, a
+ * burst of fast failures or slow timeouts would skew the delay.
+ * <p>
+ * A budget caps the extra load: every read earns {@code budgetPercent / 100} tokens, up to {@value #MAX_TOKENS}, and
+ * every hedge spends one.
+ * <p>
+ * The SDK can't cancel a request, the slower response is ignored.
+ */
+public class HedgedReads {
+
+    /**
+     * Executes every read once.
+     */
+    public static final HedgedReads DISABLED = new HedgedReads(null, 0, 0, null);
+
+    static final double MAX_TOKENS = 10;
+
+    /**
+     * Delay until the observed percentile is meaningful.
+     */
+    static final long INITIAL_DELAY_MILLIS = 200;
+
+    static final long MIN_DELAY_MILLIS = 10;
+
+    static final int MIN_SAMPLES = 100;
+
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "ctp-hedged-reads");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Nullable
+    private final String tenantName;
+
+    private final long fixedDelayMillis;
+
+    private final double tokensPerRead;
+
+    /**
+     * Latencies of the successful primary reads of the current window.
+     */
+    private volatile LatencyHistogram latencies = new LatencyHistogram();
+
+    private double tokens = MAX_TOKENS;
+
+    private volatile long delayMillis = INITIAL_DELAY_MILLIS;
+
+    private volatile long delayRefreshedAtNanos = System.nanoTime();
+
+    @Nullable
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param tenantName       tenant of the reads, label of the metrics
+     * @param fixedDelayMillis delay before the hedge is sent, <b>0</b> to use the observed 95th percentile
+     * @param budgetPercent    maximal hedges in percent of the reads
+     */
+    public HedgedReads(@Nonnull final String tenantName, final long fixedDelayMillis, final double budgetPercent) {
+        this(tenantName, fixedDelayMillis, budgetPercent, SCHEDULER);
+    }
+
+    HedgedReads(@Nullable final String tenantName, final long fixedDelayMillis, final double budgetPercent,
+                @Nullable final ScheduledExecutorService scheduler) {
+        this.tenantName = tenantName;
+        this.fixedDelayMillis = fixedDelayMillis;
+        this.tokensPerRead = budgetPercent / 100;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @param client  client to execute the request
+     * @param request idempotent read
+     * @return the first successful response, or the failure of the first request if both fail
+     */
+    public <T> CompletionStage<T> execute(@Nonnull final SphereClient client, @Nonnull final SphereRequest<T> request) {
+        if (scheduler == null) {
+            return client.execute(request);
+        }
+        earnToken();
+
+        final long start = System.nanoTime();
+        final CompletableFuture<T> primary = client.execute(request).toCompletableFuture();
+        primary.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                latencies.recordSince(start);
+            }
+        });
+
+        final CompletableFuture<T> response = new CompletableFuture<>();
+        final AtomicBoolean hedgeSent = new AtomicBoolean();
+        primary.whenComplete((result, throwable) -> {
+            // a failed primary waits for the hedge if it was sent before
+            if (throwable == null || !hedgeSent.get()) {
+                complete(response, result, throwable);
+            }
+        });
+
+        scheduler.schedule(() -> {
+            if (primary.isDone()) {
+                return;
+            }
+            if (!spendToken()) {
+                CTP_HEDGED_READS.labels(tenantName, "budget_exhausted").increment();
+                return;
+            }
+            hedgeSent.set(true);
+            CTP_HEDGED_READS.labels(tenantName, "sent").increment();
+            client.execute(request).whenComplete((result, throwable) -> {
+                if (throwable == null) {
+                    if (response.complete(result)) {
+                        CTP_HEDGED_READS.labels(tenantName, "won").increment();
+                    }
+                } else {
+                    // the hedge failed, wait for the primary
+                    primary.whenComplete((primaryResult, primaryThrowable) ->
+                            complete(response, primaryResult, primaryThrowable));
+                }
+            });
+        }, getDelayMillis(), TimeUnit.MILLISECONDS);
+
+        return response;
+    }
+
+    private static <T> void complete(@Nonnull final CompletableFuture<T> response, @Nullable final T result,
+                                     @Nullable final Throwable throwable) {
+        if (throwable == null) {
+            response.complete(result);
+        } else {
+            response.completeExceptionally(throwable);
+        }
+    }
+
+    long getDelayMillis() {
+        if (fixedDelayMillis > 0) {
+            return fixedDelayMillis;
+        }
+        final long now = System.nanoTime();
+        if (now - delayRefreshedAtNanos > DELAY_REFRESH_NANOS) {
+            delayRefreshedAtNanos = now;
+            refreshDelay();
+        }
+        return delayMillis;
+    }
+
+    /**
+     * Takes the percentile of the current window and starts a new one. A window with too few samples is kept, so
+     * tenants with little traffic still get a percentile, taken over a longer period.
+     */
+    void refreshDelay() {
+        final LatencyHistogram.Snapshot snapshot = latencies.snapshot();
+        if (snapshot.getCount() >= MIN_SAMPLES) {
+            latencies = new LatencyHistogram();
+            delayMillis = Math.max(MIN_DELAY_MILLIS,
+                    TimeUnit.MICROSECONDS.toMillis(snapshot.getValueAtQuantile(0.95)));
+        }
+    }
+
+    private synchronized void earnToken() {
+        tokens = Math.min(MAX_TOKENS, tokens + tokensPerRead);
+    }
+
+    private synchronized boolean spendToken() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}
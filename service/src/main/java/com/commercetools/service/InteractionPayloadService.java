@@ -0,0 +1,17 @@
+package com.commercetools.service;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * CTP service to keep the full payloads of payment interface interactions outside of the payment.
+ */
+public interface InteractionPayloadService {
+
+    /**
+     * Create or overwrite the payload.
+     * @param key <b>non-null</b> key of the payload, unique in the commercetools project
+     * @param payload <b>non-null</b> payload to save
+     * @return completion stage with the reference to the saved payload, which is kept in the interface interaction
+     */
+    CompletionStage<String> savePayload(String key, String payload);
+}
@@ -0,0 +1,32 @@
+package com.commercetools.service;
+
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.customobjects.CustomObjectDraft;
+import io.sphere.sdk.customobjects.commands.CustomObjectUpsertCommand;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Stores the payloads as unversioned custom objects, the value is the payload string. The reference is
+ * <i>customObject:container/key</i>.
+ */
+public class InteractionPayloadServiceImpl implements InteractionPayloadService {
+
+    public static final String CONTAINER = "commercetools-payone-interactions";
+
+    private static final String REFERENCE_PREFIX = "customObject:" + CONTAINER + "/";
+
+    private final SphereClient client;
+
+    public InteractionPayloadServiceImpl(SphereClient sphereClient) {
+        this.client = sphereClient;
+    }
+
+    @Override
+    public CompletionStage<String> savePayload(String key, String payload) {
+        final CustomObjectDraft<String> draft =
+                CustomObjectDraft.ofUnversionedUpsert(CONTAINER, key, payload, String.class);
+        return client.execute(CustomObjectUpsertCommand.of(draft))
+                .thenApply(customObject -> REFERENCE_PREFIX + customObject.getKey());
+    }
+}
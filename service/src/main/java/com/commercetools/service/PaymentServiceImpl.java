@@ -1,14 +1,15 @@
 package com.commercetools.service;
 
+import com.commercetools.pspadapter.payone.domain.ctp.PaymentUpdateRebaser;
 import io.sphere.sdk.client.SphereClient;
 import io.sphere.sdk.commands.UpdateAction;
 import io.sphere.sdk.payments.Payment;
 import io.sphere.sdk.payments.PaymentDraft;
 import io.sphere.sdk.payments.commands.PaymentCreateCommand;
-import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
 import io.sphere.sdk.payments.queries.PaymentQuery;
 import io.sphere.sdk.queries.PagedQueryResult;
 
+import javax.annotation.Nonnull;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletionStage;
@@ -17,8 +18,18 @@ public class PaymentServiceImpl implements PaymentService {
 
     private final SphereClient client;
 
+    private final HedgedReads hedgedReads;
+
     public PaymentServiceImpl(SphereClient sphereClient) {
+        this(sphereClient, HedgedReads.DISABLED);
+    }
+
+    /**
+     * @param hedgedReads hedging of {@link #getByPaymentMethodAndInterfaceId(String, String)}
+     */
+    public PaymentServiceImpl(SphereClient sphereClient, @Nonnull HedgedReads hedgedReads) {
         this.client = sphereClient;
+        this.hedgedReads = hedgedReads;
     }
 
     @Override
@@ -28,7 +39,7 @@ public class PaymentServiceImpl implements PaymentService {
 
     @Override
     public CompletionStage<Optional<Payment>> getByPaymentMethodAndInterfaceId(String paymentMethodInterface, String interfaceId) {
-        return client.execute(
+        return hedgedReads.execute(client,
                 PaymentQuery.of()
                         .withPredicates(p -> p.interfaceId().is(interfaceId))
                         .plusPredicates(p -> p.paymentMethodInfo().paymentInterface().is(paymentMethodInterface)))
@@ -37,6 +48,6 @@ public class PaymentServiceImpl implements PaymentService {
 
     @Override
     public CompletionStage<Payment> updatePayment(Payment payment, List<UpdateAction<Payment>> updateActions) {
-        return client.execute(PaymentUpdateCommand.of(payment, updateActions));
+        return PaymentUpdateRebaser.execute(client, payment, updateActions);
     }
 }
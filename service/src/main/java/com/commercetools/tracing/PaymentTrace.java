@@ -0,0 +1,176 @@
+package com.commercetools.tracing;
+
+import io.sphere.sdk.payments.TransactionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.commercetools.metrics.ServiceMetrics.HANDLE_PHASE_DURATION;
+import static com.commercetools.pspadapter.tenant.TenantLoggerUtil.createTenantKeyValue;
+import static net.logstash.logback.marker.Markers.append;
+
+/**
+ * Lightweight timing spans of one handled payment.
+ * <p>
+ * A payment is handled synchronously on the request thread, so the current trace is bound to the thread between
+ * {@link #begin(String, String)} and {@link #end(int, PaymentTraceSampler)}. The executors measure their phases with
+ * the static {@link #measure(TracePhase, TracedCall)}, which just calls the block if no trace is bound.
+ * <p>
+ * On {@link #end(int, PaymentTraceSampler) end} the phase durations are recorded as metrics and, if sampled, logged as
+ * one structured event with tenant, payment method, transaction types and the correlation id (from MDC).
+ */
+public final class PaymentTrace {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PaymentTrace.class);
+
+    private static final ThreadLocal<PaymentTrace> CURRENT = new ThreadLocal<>();
+
+    private final String tenantName;
+    private final String paymentId;
+    private final long startNanos;
+    private final List<Span> spans = new ArrayList<>();
+
+    private String paymentMethod;
+    private TransactionType transactionType;
+    private int retries;
+
+    private PaymentTrace(@Nonnull final String tenantName, @Nonnull final String paymentId) {
+        this.tenantName = tenantName;
+        this.paymentId = paymentId;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a new trace and binds it to the current thread.
+     */
+    @Nonnull
+    public static PaymentTrace begin(@Nonnull final String tenantName, @Nonnull final String paymentId) {
+        final PaymentTrace trace = new PaymentTrace(tenantName, paymentId);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Executes {@code call} and, if a trace is bound to the current thread, adds a span of {@code phase} to it.
+     */
+    public static <T, E extends Exception> T measure(@Nonnull final TracePhase phase,
+                                                     @Nonnull final TracedCall<T, E> call) throws E {
+        final PaymentTrace trace = CURRENT.get();
+        if (trace == null) {
+            return call.call();
+        }
+
+        final long start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            trace.spans.add(new Span(phase, trace.transactionType, start - trace.startNanos,
+                    System.nanoTime() - start));
+        }
+    }
+
+    public static void setPaymentMethod(@Nullable final String paymentMethod) {
+        final PaymentTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.paymentMethod = paymentMethod;
+        }
+    }
+
+    /**
+     * Sets the transaction type which the following spans are tagged with.
+     */
+    public static void setTransactionType(@Nullable final TransactionType transactionType) {
+        final PaymentTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.transactionType = transactionType;
+        }
+    }
+
+    public static void incrementRetries() {
+        final PaymentTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.retries++;
+        }
+    }
+
+    /**
+     * Unbinds the trace from the current thread, records the phase metrics and logs the trace if sampled.
+     *
+     * @param statusCode HTTP status code of the handle response
+     * @param sampler    decides whether the trace is logged
+     */
+    public void end(final int statusCode, @Nonnull final PaymentTraceSampler sampler) {
+        CURRENT.remove();
+        final long durationNanos = System.nanoTime() - startNanos;
+
+        final Map<TracePhase, Long> phaseNanos = new EnumMap<>(TracePhase.class);
+        for (final Span span : spans) {
+            phaseNanos.merge(span.phase, span.durationNanos, Long::sum);
+        }
+        phaseNanos.forEach((phase, nanos) ->
+                HANDLE_PHASE_DURATION.labels(tenantName, phase.getFieldName()).recordNanos(nanos));
+
+        final long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        if (sampler.isSampled(durationMillis)) {
+            final Map<String, Long> phases = new LinkedHashMap<>();
+            phaseNanos.forEach((phase, nanos) -> phases.put(phase.getFieldName(), toMillis(nanos)));
+
+            final List<Map<String, Object>> spanList = new ArrayList<>(spans.size());
+            for (final Span span : spans) {
+                spanList.add(span.toMap());
+            }
+
+            LOG.info(createTenantKeyValue(tenantName)
+                            .and(append("paymentId", paymentId))
+                            .and(append("paymentMethod", paymentMethod))
+                            .and(append("statusCode", statusCode))
+                            .and(append("durationMillis", durationMillis))
+                            .and(append("retries", retries))
+                            .and(append("phases", phases))
+                            .and(append("spans", spanList)),
+                    "Handled payment [{}] in {} ms", paymentId, durationMillis);
+        }
+    }
+
+    List<Span> getSpans() {
+        return spans;
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    static final class Span {
+        final TracePhase phase;
+        final TransactionType transactionType;
+        final long offsetNanos;
+        final long durationNanos;
+
+        Span(@Nonnull final TracePhase phase, @Nullable final TransactionType transactionType,
+             final long offsetNanos, final long durationNanos) {
+            this.phase = phase;
+            this.transactionType = transactionType;
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        Map<String, Object> toMap() {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("phase", phase.getFieldName());
+            if (transactionType != null) {
+                map.put("transactionType", transactionType.name());
+            }
+            map.put("offsetMillis", toMillis(offsetNanos));
+            map.put("durationMillis", toMillis(durationNanos));
+            return map;
+        }
+    }
+}
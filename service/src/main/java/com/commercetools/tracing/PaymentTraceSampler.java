@@ -0,0 +1,36 @@
+package com.commercetools.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which {@link PaymentTrace}s are logged: a random {@code sampleRate} share of all handled payments plus
+ * every payment slower than {@code slowThresholdMillis}.
+ */
+public class PaymentTraceSampler {
+
+    public static final PaymentTraceSampler DISABLED = new PaymentTraceSampler(0, 0);
+
+    private final double sampleRate;
+    private final long slowThresholdMillis;
+
+    /**
+     * @param sampleRate          share of payments to log in range [0..1]. 0 disables random sampling.
+     * @param slowThresholdMillis payments handled longer than this are always logged. 0 disables it.
+     */
+    public PaymentTraceSampler(final double sampleRate, final long slowThresholdMillis) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThresholdMillis;
+    }
+
+    /**
+     * @return <b>false</b> if no trace can ever be logged, thus tracing may be skipped completely
+     */
+    public boolean isEnabled() {
+        return sampleRate > 0 || slowThresholdMillis > 0;
+    }
+
+    public boolean isSampled(final long durationMillis) {
+        return (slowThresholdMillis > 0 && durationMillis >= slowThresholdMillis)
+                || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+}
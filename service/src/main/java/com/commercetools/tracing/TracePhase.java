@@ -0,0 +1,37 @@
+package com.commercetools.tracing;
+
+/**
+ * Phases of handling a payment, measured by {@link PaymentTrace}.
+ */
+public enum TracePhase {
+    /**
+     * Fetching payment, order and cart from commercetools platform.
+     */
+    FETCH("fetch"),
+    /**
+     * Mapping the payment and cart to a Payone request.
+     */
+    REQUEST_MAPPING("requestMapping"),
+    /**
+     * Storing the request interaction and the sequence number before sending the request to Payone.
+     */
+    PRE_UPDATE("preUpdate"),
+    PAYONE_POST("payonePost"),
+    /**
+     * Storing the Payone response and the new transaction state.
+     */
+    POST_UPDATE("postUpdate");
+
+    private final String fieldName;
+
+    TracePhase(final String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * @return name of the phase in the log event and in the metrics
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+}
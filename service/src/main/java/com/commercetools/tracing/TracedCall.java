@@ -0,0 +1,12 @@
+package com.commercetools.tracing;
+
+/**
+ * Code block measured by {@link PaymentTrace#measure(TracePhase, TracedCall)}.
+ *
+ * @param <T> result type
+ * @param <E> checked exception type, inferred as {@link RuntimeException} if the block doesn't throw checked ones
+ */
+@FunctionalInterface
+public interface TracedCall<T, E extends Exception> {
+    T call() throws E;
+}
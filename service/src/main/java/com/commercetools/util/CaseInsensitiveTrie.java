@@ -0,0 +1,114 @@
+package com.commercetools.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable case insensitive trie which finds a key contained in a text, like
+ * {@link org.apache.commons.lang3.StringUtils#containsIgnoreCase(CharSequence, CharSequence)} against every key, but
+ * in one pass over the text.
+ * <p>
+ * The common case is a text starting with the key (like {@code CREDIT_CARD} or {@code wlt}), which is resolved by
+ * the first walk from the root.
+ *
+ * @param <V> type of the values
+ */
+public final class CaseInsensitiveTrie<V> {
+
+    private final Node<V> root = new Node<>();
+
+    /**
+     * @param entries keys with their values, must not contain empty keys
+     */
+    public CaseInsensitiveTrie(@Nonnull final Map<String, V> entries) {
+        entries.forEach((key, value) -> {
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("Empty keys match any text");
+            }
+            Node<V> node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(fold(key.charAt(i)));
+            }
+            node.value = value;
+        });
+    }
+
+    /**
+     * @param text text to search the keys in
+     * @return value of the key found at the lowest position of {@code text}, the longest key if several keys start
+     * there. <b>null</b> if {@code text} is <b>null</b> or doesn't contain any key.
+     */
+    @Nullable
+    public V findIn(@Nullable final CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        for (int start = 0; start < text.length(); start++) {
+            final V value = longestMatchAt(text, start);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private V longestMatchAt(@Nonnull final CharSequence text, final int start) {
+        V match = null;
+        Node<V> node = root;
+        for (int i = start; i < text.length(); i++) {
+            node = node.child(fold(text.charAt(i)));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Same folding as {@link String#regionMatches(boolean, int, String, int, int)} ignoring case.
+     */
+    private static char fold(final char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * The keys are short and the alphabet of a node is small, so the children are looked up by a linear scan of a
+     * compact array instead of a map of boxed characters.
+     */
+    private static final class Node<V> {
+        private char[] labels = new char[0];
+        @SuppressWarnings("unchecked")
+        private Node<V>[] children = new Node[0];
+        private V value;
+
+        @Nullable
+        private Node<V> child(final char label) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        @Nonnull
+        private Node<V> childOrCreate(final char label) {
+            final Node<V> existing = child(label);
+            if (existing != null) {
+                return existing;
+            }
+            final Node<V> created = new Node<>();
+            labels = Arrays.copyOf(labels, labels.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            labels[labels.length - 1] = label;
+            children[children.length - 1] = created;
+            return created;
+        }
+    }
+}
@@ -46,6 +46,13 @@ public final class PayoneHttpClientUtil {
 
     static final int SERVICE_UNAVAILABLE_RETRY_DELAY_MILLIS = 100;
 
+    /**
+     * How long an idle connection is kept, if the server doesn't send a {@code Keep-Alive} timeout. Long enough for
+     * the connections to survive quiet periods without keep-warm requests; stale ones are validated before reuse, see
+     * {@link #buildDefaultConnectionManager()}.
+     */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+
     static final Logger logger = LoggerFactory.getLogger(PayoneHttpClientUtil.class);
 
     /**
@@ -121,8 +128,7 @@ public final class PayoneHttpClientUtil {
                 }
             }
         }
-        // Keep alive for 2.5 seconds only
-        return 2500;
+        return DEFAULT_KEEP_ALIVE_MILLIS;
     };
 
     private PayoneHttpClientUtil() {
@@ -1,5 +1,6 @@
 package com.commercetools.util;
 
+import com.commercetools.metrics.TimedSphereClient;
 import io.sphere.sdk.client.BlockingSphereClient;
 import io.sphere.sdk.client.SphereClient;
 import io.sphere.sdk.client.SphereClientConfig;
@@ -7,11 +8,15 @@ import io.sphere.sdk.client.retry.RetryableSphereClientBuilder;
 import io.sphere.sdk.http.AsyncHttpClientAdapter;
 import io.sphere.sdk.http.HttpClient;
 import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.ClientStats;
 import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClientConfig;
 
 import javax.annotation.Nonnull;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import static com.commercetools.metrics.ServiceMetrics.CTP_HTTP_CLIENT_CONNECTIONS;
 
 public final class SphereClientConfigurationUtil {
     private static final long CTP_EXECUTE_COMPLETABLE_FUTURE_TIMEOUT = 10;
@@ -20,16 +25,20 @@ public final class SphereClientConfigurationUtil {
 
     /**
      * Creates a {@link SphereClient} with a default {@code timeout} value of 60 seconds.
+     * <p>
+     * The durations of the executed requests and the connections of the underlying http client are exported
+     * as metrics labeled with the project key.
      *
      * @param clientConfig the client configuration for the client.
      * @return the instantiated {@link SphereClient}.
      */
     public static SphereClient createClient(@Nonnull final SphereClientConfig clientConfig) {
 
-        final HttpClient httpClient = getHttpClient();
-        return RetryableSphereClientBuilder.of(clientConfig, httpClient)
-                                           .withMaxParallelRequests(MAX_PARALLEL_REQUESTS)
-                                           .build();
+        final HttpClient httpClient = getHttpClient(clientConfig.getProjectKey());
+        return new TimedSphereClient(RetryableSphereClientBuilder.of(clientConfig, httpClient)
+                                                                 .withMaxParallelRequests(MAX_PARALLEL_REQUESTS)
+                                                                 .build(),
+                clientConfig.getProjectKey());
     }
 
     /**
@@ -48,13 +57,24 @@ public final class SphereClientConfigurationUtil {
      * Gets an asynchronous {@link HttpClient} of `asynchttpclient` library, to be used by as an
      * underlying http client for the {@link SphereClient}.
      *
+     * @param projectKey used as a label of the exported connection metrics
      * @return an asynchronous {@link HttpClient}
      */
-    private static HttpClient getHttpClient() {
+    private static HttpClient getHttpClient(@Nonnull final String projectKey) {
         final AsyncHttpClient asyncHttpClient =
             new DefaultAsyncHttpClient(new DefaultAsyncHttpClientConfig.Builder().build());
+        registerConnectionStat(asyncHttpClient, projectKey, "active", ClientStats::getTotalActiveConnectionCount);
+        registerConnectionStat(asyncHttpClient, projectKey, "idle", ClientStats::getTotalIdleConnectionCount);
         return AsyncHttpClientAdapter.of(asyncHttpClient);
     }
 
+    private static void registerConnectionStat(@Nonnull final AsyncHttpClient asyncHttpClient,
+                                               @Nonnull final String projectKey,
+                                               @Nonnull final String state,
+                                               @Nonnull final ToLongFunction<ClientStats> stat) {
+        CTP_HTTP_CLIENT_CONNECTIONS.register(() -> stat.applyAsLong(asyncHttpClient.getClientStats()),
+                projectKey, state);
+    }
+
     private SphereClientConfigurationUtil() {}
 }
@@ -0,0 +1,151 @@
+package com.commercetools.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes an {@code application/x-www-form-urlencoded} UTF-8 body straight into a {@link StringBuilder}, without
+ * intermediate name-value pairs. The output is the same as of {@link org.apache.http.client.entity.UrlEncodedFormEntity}
+ * with UTF-8 charset.
+ * <p>
+ * List parameters are expanded to {@code name[i]} with the indices origin <b>1</b>, an empty list is written as
+ * {@code name[]} with empty value, like the Payone API expects.
+ */
+public final class UrlEncodedFormWriter {
+
+    private static final String UTF_8 = "UTF-8";
+
+    private static final String OPEN_BRACKET = "%5B";
+    private static final String CLOSE_BRACKET = "%5D";
+
+    private final StringBuilder body;
+
+    /**
+     * @param capacity expected body length, the buffer grows if needed
+     */
+    public UrlEncodedFormWriter(final int capacity) {
+        this.body = new StringBuilder(capacity);
+    }
+
+    /**
+     * Appends all the entries of {@code parameters}, list values are expanded.
+     */
+    @Nonnull
+    public UrlEncodedFormWriter appendAll(@Nonnull final Map<String, Object> parameters) {
+        parameters.forEach((name, value) -> {
+            if (value instanceof List) {
+                appendList(name, (List<?>) value);
+            } else {
+                append(name, value);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * @param value value to write with {@link Objects#toString(Object)}. Only the name is written for <b>null</b>.
+     */
+    @Nonnull
+    public UrlEncodedFormWriter append(@Nonnull final String name, @Nullable final Object value) {
+        separate();
+        appendEncoded(name);
+        if (value != null) {
+            body.append('=');
+            appendEncoded(value.toString());
+        }
+        return this;
+    }
+
+    @Nonnull
+    public UrlEncodedFormWriter appendIndexed(@Nonnull final String name, final int index,
+                                              @Nullable final String value) {
+        appendIndexedName(name, index);
+        if (value != null) {
+            body.append('=');
+            appendEncoded(value);
+        }
+        return this;
+    }
+
+    @Nonnull
+    public UrlEncodedFormWriter appendIndexed(@Nonnull final String name, final int index, final long value) {
+        appendIndexedName(name, index);
+        // digits and the minus sign don't need encoding
+        body.append('=').append(value);
+        return this;
+    }
+
+    /**
+     * Appends {@code name[]} with empty value, which stands for an empty list.
+     */
+    @Nonnull
+    public UrlEncodedFormWriter appendEmptyList(@Nonnull final String name) {
+        separate();
+        appendEncoded(name);
+        body.append(OPEN_BRACKET).append(CLOSE_BRACKET).append('=');
+        return this;
+    }
+
+    public int length() {
+        return body.length();
+    }
+
+    @Override
+    public String toString() {
+        return body.toString();
+    }
+
+    private void appendList(@Nonnull final String name, @Nonnull final List<?> values) {
+        if (values.isEmpty()) {
+            appendEmptyList(name);
+            return;
+        }
+        for (int i = 0; i < values.size(); i++) {
+            appendIndexed(name, i + 1, Objects.toString(values.get(i), null));
+        }
+    }
+
+    private void appendIndexedName(@Nonnull final String name, final int index) {
+        separate();
+        appendEncoded(name);
+        body.append(OPEN_BRACKET).append(index).append(CLOSE_BRACKET);
+    }
+
+    private void separate() {
+        if (body.length() > 0) {
+            body.append('&');
+        }
+    }
+
+    /**
+     * Most of the values are plain ASCII words and numbers, they are appended without allocating an encoded copy.
+     */
+    private void appendEncoded(@Nonnull final String value) {
+        if (isSafe(value)) {
+            body.append(value);
+            return;
+        }
+        try {
+            body.append(URLEncoder.encode(value, UTF_8));
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // UTF-8 is always supported
+        }
+    }
+
+    private static boolean isSafe(@Nonnull final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            final boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '*';
+            if (!safe) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package com.commercetools.util.function;
+
+import javax.annotation.Nonnull;
+import java.util.function.Supplier;
+
+/**
+ * {@link Supplier} which creates its value on the first {@link #get()} and returns the same value afterwards.
+ * <p>
+ * Thread safe: concurrent first calls create the value only once.
+ *
+ * @param <T> the type of the value
+ */
+public final class Lazy<T> implements Supplier<T> {
+
+    private Supplier<? extends T> factory;
+
+    private volatile T value;
+
+    private Lazy(@Nonnull final Supplier<? extends T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @param factory creates the value, called at most once and must not return <b>null</b>
+     */
+    @Nonnull
+    public static <T> Lazy<T> of(@Nonnull final Supplier<? extends T> factory) {
+        return new Lazy<>(factory);
+    }
+
+    @Override
+    public T get() {
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = factory.get();
+                    if (result == null) {
+                        throw new IllegalStateException("Lazy value factory returned null");
+                    }
+                    value = result;
+                    factory = null; // release what the factory captured
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return <b>true</b> if the value is created already
+     */
+    public boolean isInitialized() {
+        return value != null;
+    }
+}
@@ -0,0 +1,188 @@
+package com.commercetools.util.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.commercetools.metrics.ServiceMetrics.LOG_BUFFER_EVENTS;
+import static com.commercetools.metrics.ServiceMetrics.LOG_EVENTS_DROPPED;
+
+/**
+ * Asynchronous appender which puts the events into a bounded ring buffer and never blocks the logging thread for
+ * longer than its {@link DropPolicy} allows. A single worker thread takes the events in batches, encodes a batch into
+ * one byte array and writes and flushes it at once, instead of one write and flush per event.
+ * <p>
+ * Dropped events are counted in {@code log_events_dropped_total}, the buffered ones in {@code log_buffer_events}.
+ */
+public class BatchingRingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    public static final int DEFAULT_RING_BUFFER_SIZE = 8192;
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final long DEFAULT_APPEND_TIMEOUT_MILLIS = 10;
+
+    private static final long STOP_TIMEOUT_MILLIS = 1000;
+
+    private Encoder<ILoggingEvent> encoder;
+    private OutputStream outputStream = System.out;
+    private int ringBufferSize = DEFAULT_RING_BUFFER_SIZE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private DropPolicy dropPolicy = DropPolicy.DROP_BELOW_WARN;
+    private long appendTimeoutMillis = DEFAULT_APPEND_TIMEOUT_MILLIS;
+
+    private BlockingQueue<ILoggingEvent> buffer;
+    private Thread worker;
+
+    public void setEncoder(final Encoder<ILoggingEvent> encoder) {
+        this.encoder = encoder;
+    }
+
+    public void setOutputStream(final OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    public void setRingBufferSize(final int ringBufferSize) {
+        this.ringBufferSize = ringBufferSize;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setDropPolicy(final DropPolicy dropPolicy) {
+        this.dropPolicy = dropPolicy;
+    }
+
+    public void setAppendTimeoutMillis(final long appendTimeoutMillis) {
+        this.appendTimeoutMillis = appendTimeoutMillis;
+    }
+
+    @Override
+    public void start() {
+        startBuffering();
+        if (isStarted() && worker == null) {
+            worker = new Thread(this::drain, "log-ring-buffer-" + name);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Accepts events into the ring buffer, but writes them only after {@link #start()}. Lets the appender take over
+     * from another appender which still writes to the same stream.
+     */
+    void startBuffering() {
+        if (isStarted()) {
+            return;
+        }
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + name + "].");
+            return;
+        }
+        if (ringBufferSize < 1 || batchSize < 1) {
+            addError("Ring buffer and batch size of the appender named [" + name + "] must be positive.");
+            return;
+        }
+        buffer = new ArrayBlockingQueue<>(ringBufferSize);
+        super.start();
+        LOG_BUFFER_EVENTS.register(buffer::size, String.valueOf(name));
+    }
+
+    /**
+     * Writes the buffered events before the worker stops, as long as it takes less than a second.
+     */
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        try {
+            worker.join(STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void append(final ILoggingEvent event) {
+        // the worker encodes the event later, so the thread dependent data must be taken now
+        event.prepareForDeferredProcessing();
+        if (!offer(event)) {
+            LOG_EVENTS_DROPPED.labels(String.valueOf(event.getLevel()), "buffer_full").increment();
+        }
+    }
+
+    private boolean offer(@Nonnull final ILoggingEvent event) {
+        if (buffer.offer(event)) {
+            return true;
+        }
+        try {
+            switch (dropPolicy) {
+                case BLOCK:
+                    buffer.put(event);
+                    return true;
+                case DROP_BELOW_WARN:
+                    return event.getLevel().isGreaterOrEqual(Level.WARN)
+                            && buffer.offer(event, appendTimeoutMillis, TimeUnit.MILLISECONDS);
+                default:
+                    return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drain() {
+        final List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(batchSize * 512);
+        try {
+            while (isStarted()) {
+                batch.add(buffer.take());
+                buffer.drainTo(batch, batchSize - 1);
+                write(batch, bytes);
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+        buffer.drainTo(batch);
+        write(batch, bytes);
+    }
+
+    private void write(@Nonnull final List<ILoggingEvent> batch, @Nonnull final ByteArrayOutputStream bytes) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        bytes.reset();
+        for (final ILoggingEvent event : batch) {
+            try {
+                final byte[] encoded = encoder.encode(event);
+                bytes.write(encoded, 0, encoded.length);
+            } catch (RuntimeException e) {
+                addError("Failed to encode a log event", e);
+            }
+        }
+        batch.clear();
+        try {
+            bytes.writeTo(outputStream);
+            outputStream.flush();
+        } catch (IOException e) {
+            addError("Failed to write log events", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.commercetools.util.logging;
+
+/**
+ * What {@link BatchingRingBufferAppender} does with an event when its buffer is full.
+ */
+public enum DropPolicy {
+
+    /**
+     * Drop the new event.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Drop new events below WARN; WARN and ERROR events wait up to the append timeout for space. Default.
+     */
+    DROP_BELOW_WARN,
+
+    /**
+     * Wait for space, like the logback {@code AsyncAppender} does.
+     */
+    BLOCK
+}
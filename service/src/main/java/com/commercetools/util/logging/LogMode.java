@@ -0,0 +1,18 @@
+package com.commercetools.util.logging;
+
+/**
+ * How the service writes its logs, see {@link LogModeConfigurer}.
+ */
+public enum LogMode {
+
+    /**
+     * The logback {@code AsyncAppender} of {@code logback.xml}, which blocks the logging thread when its queue is full.
+     */
+    DEFAULT,
+
+    /**
+     * {@link BatchingRingBufferAppender} with a {@link DropPolicy} and the {@link RepeatedLogRateLimitFilter}: logging
+     * never blocks request threads for long, events are dropped instead and counted in the metrics.
+     */
+    HIGH_THROUGHPUT
+}
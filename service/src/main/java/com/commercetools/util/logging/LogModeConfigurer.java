@@ -0,0 +1,104 @@
+package com.commercetools.util.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AsyncAppenderBase;
+import ch.qos.logback.core.OutputStreamAppender;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Switches the appenders of {@code logback.xml} to the {@link LogMode} of the service.
+ */
+public final class LogModeConfigurer {
+
+    /**
+     * Names of the appenders in {@code logback.xml}.
+     */
+    static final String ASYNC_APPENDER = "ASYNCSTDOUT";
+    static final String JSON_APPENDER = "JSON-STDOUT";
+
+    static final String RING_BUFFER_APPENDER = "RINGBUFFERSTDOUT";
+
+    /**
+     * In {@link LogMode#HIGH_THROUGHPUT} replaces the async appender of the root logger by a
+     * {@link BatchingRingBufferAppender} with the same JSON encoder, and adds the {@link RepeatedLogRateLimitFilter}.
+     *
+     * @param context             the logback context
+     * @param mode                the log mode, nothing changes in {@link LogMode#DEFAULT}
+     * @param ringBufferSize      events the appender buffers
+     * @param dropPolicy          what to drop when the buffer is full
+     * @param maxRepeatedPerMinute how often the same WARN or ERROR message of a logger is logged per minute,
+     *                            <b>0</b> disables the limit
+     */
+    public static void configure(@Nonnull final LoggerContext context, @Nonnull final LogMode mode,
+                                 final int ringBufferSize, @Nonnull final DropPolicy dropPolicy,
+                                 final int maxRepeatedPerMinute) {
+        if (mode != LogMode.HIGH_THROUGHPUT) {
+            return;
+        }
+        final Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        final Appender<ILoggingEvent> asyncAppender = root.getAppender(ASYNC_APPENDER);
+        if (!(asyncAppender instanceof AsyncAppenderBase)) {
+            root.warn("Log mode {} is ignored: the root logger has no appender {}", mode, ASYNC_APPENDER);
+            return;
+        }
+        final AsyncAppenderBase<ILoggingEvent> async = (AsyncAppenderBase<ILoggingEvent>) asyncAppender;
+        final Appender<ILoggingEvent> jsonAppender = async.getAppender(JSON_APPENDER);
+        if (!(jsonAppender instanceof OutputStreamAppender)) {
+            root.warn("Log mode {} is ignored: the appender {} has no appender {}", mode, ASYNC_APPENDER,
+                    JSON_APPENDER);
+            return;
+        }
+
+        final BatchingRingBufferAppender ringBufferAppender = new BatchingRingBufferAppender();
+        ringBufferAppender.setContext(context);
+        ringBufferAppender.setName(RING_BUFFER_APPENDER);
+        ringBufferAppender.setEncoder(((OutputStreamAppender<ILoggingEvent>) jsonAppender).getEncoder());
+        ringBufferAppender.setOutputStream(((OutputStreamAppender<ILoggingEvent>) jsonAppender).getOutputStream());
+        ringBufferAppender.setRingBufferSize(ringBufferSize);
+        ringBufferAppender.setDropPolicy(dropPolicy);
+        // the async appender still writes its queue through the same encoder and stream, so the ring buffer only
+        // takes the new events until the async appender is stopped
+        ringBufferAppender.startBuffering();
+
+        root.addAppender(ringBufferAppender);
+        root.detachAppender(async);
+        awaitDrained(async);
+        // the async appender stops its children, the JSON appender's encoder and stream are still used
+        async.detachAppender(jsonAppender);
+        async.stop();
+        ringBufferAppender.start();
+
+        if (maxRepeatedPerMinute > 0) {
+            final RepeatedLogRateLimitFilter rateLimitFilter = new RepeatedLogRateLimitFilter();
+            rateLimitFilter.setContext(context);
+            rateLimitFilter.setMaxPerInterval(maxRepeatedPerMinute);
+            rateLimitFilter.setIntervalMillis(60_000);
+            rateLimitFilter.start();
+            context.addTurboFilter(rateLimitFilter);
+        }
+        root.info("Log mode {}: ring buffer of {} events, {}, at most {} repeated warnings per logger and minute",
+                mode, ringBufferSize, dropPolicy, maxRepeatedPerMinute);
+    }
+
+    /**
+     * Waits until the async appender wrote its queue, at most its max flush time.
+     */
+    private static void awaitDrained(@Nonnull final AsyncAppenderBase<ILoggingEvent> async) {
+        final long deadline = System.currentTimeMillis() + async.getMaxFlushTime();
+        while (async.getNumberOfElementsInQueue() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private LogModeConfigurer() {
+    }
+}
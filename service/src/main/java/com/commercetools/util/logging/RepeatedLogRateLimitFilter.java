@@ -0,0 +1,74 @@
+package com.commercetools.util.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.commercetools.metrics.ServiceMetrics.LOG_EVENTS_DROPPED;
+
+/**
+ * Limits how often the same WARN or ERROR message of a logger is logged per interval, e.g. the error with the full
+ * request body which every failing notification logs during an incident. Messages are the same if their format string
+ * is. Runs before the event is created, so the denied events cost neither formatting nor encoding.
+ */
+public class RepeatedLogRateLimitFilter extends TurboFilter {
+
+    /**
+     * Bounds the memory of the filter, the windows are reset when more messages are tracked.
+     */
+    private static final int MAX_TRACKED_MESSAGES = 10_000;
+
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    private int maxPerInterval = 20;
+    private long intervalMillis = 60_000;
+
+    public void setMaxPerInterval(final int maxPerInterval) {
+        this.maxPerInterval = maxPerInterval;
+    }
+
+    public void setIntervalMillis(final long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    @Override
+    public FilterReply decide(final Marker marker, final Logger logger, final Level level, final String format,
+                              final Object[] params, final Throwable t) {
+        if (level == null || format == null || !level.isGreaterOrEqual(Level.WARN) || !isStarted()) {
+            return FilterReply.NEUTRAL;
+        }
+        if (windows.size() > MAX_TRACKED_MESSAGES) {
+            windows.clear();
+        }
+        final long now = System.currentTimeMillis();
+        final Window window = windows.computeIfAbsent(logger.getName() + '|' + format, key -> new Window(now));
+        if (window.tryAcquire(now, maxPerInterval, intervalMillis)) {
+            return FilterReply.NEUTRAL;
+        }
+        LOG_EVENTS_DROPPED.labels(level.toString(), "rate_limited").increment();
+        return FilterReply.DENY;
+    }
+
+    private static final class Window {
+
+        private long start;
+        private int count;
+
+        private Window(final long start) {
+            this.start = start;
+        }
+
+        private synchronized boolean tryAcquire(final long now, final int max, final long intervalMillis) {
+            if (now - start >= intervalMillis) {
+                start = now;
+                count = 0;
+            }
+            return ++count <= max;
+        }
+    }
+}
@@ -1,16 +1,42 @@
 package com.commercetools.util.spark;
 
+import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.RequestLog;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.ThreadPool;
 import spark.embeddedserver.jetty.JettyServerFactory;
 
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
 public class JettyServerWithRequestLogFactory implements JettyServerFactory {
+
+    /**
+     * Spark runs a single embedded server per JVM, thus it's enough to remember the last created thread pool.
+     */
+    private static volatile ThreadPool serverThreadPool;
+
+    private static volatile Map<RequestLane, LaneExecutor> serverLanes = Collections.emptyMap();
+
     private final RequestLog requestLog;
 
+    private final Map<RequestLane, LaneExecutor> lanes;
+
     public JettyServerWithRequestLogFactory(final RequestLog requestLog) {
+        this(requestLog, Collections.emptyMap());
+    }
+
+    /**
+     * @param lanes executors of the route groups, see {@link RequestLaneHandler}. Lanes without executor run on the
+     *              server threads.
+     */
+    public JettyServerWithRequestLogFactory(final RequestLog requestLog,
+                                            @Nonnull final Map<RequestLane, LaneExecutor> lanes) {
         this.requestLog = requestLog;
+        this.lanes = lanes;
     }
 
     /**
@@ -29,19 +55,69 @@ public class JettyServerWithRequestLogFactory implements JettyServerFactory {
             int min = (minThreads > 0) ? minThreads : 8;
             int idleTimeout = (threadTimeoutMillis > 0) ? threadTimeoutMillis : 60000;
 
-            server = new Server(new QueuedThreadPool(maxThreads, min, idleTimeout));
+            server = newServer(new QueuedThreadPool(maxThreads, min, idleTimeout));
         } else {
-            server = new Server();
+            server = newServer(null);
         }
 
         server.setRequestLog(requestLog);
+        serverThreadPool = server.getThreadPool();
+        serverLanes = lanes;
         return server;
     }
 
     @Override
     public Server create(ThreadPool threadPool) {
-        final Server server = threadPool != null ? new Server(threadPool) : new Server();
+        final Server server = newServer(threadPool);
         server.setRequestLog(requestLog);
+        serverThreadPool = server.getThreadPool();
+        serverLanes = lanes;
         return server;
     }
+
+    /**
+     * Spark sets its handler on the created server, which is wrapped here into the {@link RequestLaneHandler}.
+     */
+    private Server newServer(final ThreadPool threadPool) {
+        if (lanes.isEmpty()) {
+            return threadPool != null ? new Server(threadPool) : new Server();
+        }
+        final RequestLaneHandler laneHandler = new RequestLaneHandler(lanes);
+        return threadPool != null
+                ? new LaneServer(threadPool, laneHandler)
+                : new LaneServer(new QueuedThreadPool(), laneHandler);
+    }
+
+    private static final class LaneServer extends Server {
+
+        private final RequestLaneHandler laneHandler;
+
+        private LaneServer(final ThreadPool threadPool, final RequestLaneHandler laneHandler) {
+            super(threadPool);
+            this.laneHandler = laneHandler;
+        }
+
+        @Override
+        public void setHandler(final Handler handler) {
+            laneHandler.setHandler(handler);
+            super.setHandler(laneHandler);
+        }
+    }
+
+    /**
+     * @return thread pool of the server created by this factory, or empty if the server was created by another
+     * factory (e.g. Spark's default one in tests) or is not created yet.
+     */
+    public static Optional<ThreadPool> getServerThreadPool() {
+        return Optional.ofNullable(serverThreadPool);
+    }
+
+    /**
+     * @return lane executors of the server created by this factory, empty if it runs every request on the server
+     * threads or is not created yet.
+     */
+    @Nonnull
+    public static Map<RequestLane, LaneExecutor> getServerLanes() {
+        return serverLanes;
+    }
 }
@@ -0,0 +1,34 @@
+package com.commercetools.util.spark;
+
+/**
+ * Size and request timeout of a {@link RequestLane}.
+ */
+public class LaneConfig {
+
+    private final int threads;
+    private final int queueCapacity;
+    private final int timeoutMillis;
+
+    /**
+     * @param threads       threads of the lane, <b>0</b> runs the lane on the server threads
+     * @param queueCapacity requests which may wait for a thread of the lane
+     * @param timeoutMillis time after which a request still waiting for a thread of the lane is answered with {@code 503}
+     */
+    public LaneConfig(final int threads, final int queueCapacity, final int timeoutMillis) {
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
@@ -0,0 +1,104 @@
+package com.commercetools.util.spark;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.commercetools.metrics.ServiceMetrics.SERVER_LANE_ACTIVE_THREADS;
+import static com.commercetools.metrics.ServiceMetrics.SERVER_LANE_QUEUE_DEPTH;
+import static com.commercetools.metrics.ServiceMetrics.SERVER_LANE_REJECTED;
+
+/**
+ * Fixed size thread pool with a bounded queue, which executes the requests of one {@link RequestLane}. Requests which
+ * don't fit into the queue are rejected instead of waiting, so a burst on the lane can't hold the server threads.
+ */
+public class LaneExecutor {
+
+    private final RequestLane lane;
+
+    private final int queueCapacity;
+
+    private final long timeoutMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param lane          the executed lane, used for thread names and metrics labels
+     * @param threads       number of threads
+     * @param queueCapacity number of requests which may wait for a thread
+     * @param timeoutMillis time after which a request still waiting for a thread is answered with {@code 503}
+     */
+    public LaneExecutor(@Nonnull final RequestLane lane, final int threads, final int queueCapacity,
+                        final long timeoutMillis) {
+        this.lane = lane;
+        this.queueCapacity = Math.max(queueCapacity, 1);
+        this.timeoutMillis = Math.max(timeoutMillis, 1);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity), new LaneThreadFactory(lane));
+        this.executor.allowCoreThreadTimeOut(true);
+
+        final String label = lane.name().toLowerCase();
+        SERVER_LANE_QUEUE_DEPTH.register(this::getQueueDepth, label);
+        SERVER_LANE_ACTIVE_THREADS.register(executor::getActiveCount, label);
+    }
+
+    @Nonnull
+    public RequestLane getLane() {
+        return lane;
+    }
+
+    /**
+     * @return <b>false</b> if the queue of the lane is full and the request was rejected
+     */
+    public boolean tryExecute(@Nonnull final Runnable request) {
+        try {
+            executor.execute(request);
+            return true;
+        } catch (final RejectedExecutionException e) {
+            SERVER_LANE_REJECTED.labels(lane.name().toLowerCase()).increment();
+            return false;
+        }
+    }
+
+    /**
+     * @return number of requests waiting for a thread of the lane
+     */
+    public long getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return number of requests which may wait for a thread of the lane, further ones are rejected
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return time after which a request still waiting for a thread of the lane is answered with {@code 503}
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    private static final class LaneThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private LaneThreadFactory(@Nonnull final RequestLane lane) {
+            this.namePrefix = "lane-" + lane.name().toLowerCase() + "-";
+        }
+
+        @Override
+        public Thread newThread(@Nonnull final Runnable runnable) {
+            final Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
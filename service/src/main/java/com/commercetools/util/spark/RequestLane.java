@@ -0,0 +1,74 @@
+package com.commercetools.util.spark;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Group of routes whose requests are executed by their own {@link LaneExecutor}, so that a burst on one group doesn't
+ * queue the requests of the others behind it. The defaults apply if the {@code LANE_<NAME>_*} properties are not set.
+ * <p>
+ * Lanes have no priority: HotSpot on Linux ignores {@link Thread#setPriority(int)} unless the JVM runs with
+ * {@code -XX:ThreadPriorityPolicy}, so the share of a lane is expressed by its number of threads only.
+ */
+public enum RequestLane {
+
+    /**
+     * Handle URL calls of the shops, latency-critical because the buyer waits.
+     */
+    CHECKOUT(32, 200, 60_000),
+
+    /**
+     * Payone transaction status notifications, which come in bursts when Payone redelivers them.
+     */
+    NOTIFICATION(8, 200, 60_000),
+
+    /**
+     * Health and metrics, polled by load balancers and monitoring, which time out if they queue, and the admin API.
+     */
+    ADMIN(2, 20, 10_000);
+
+    private final int defaultThreads;
+    private final int defaultQueueCapacity;
+    private final int defaultTimeoutMillis;
+
+    RequestLane(final int defaultThreads, final int defaultQueueCapacity, final int defaultTimeoutMillis) {
+        this.defaultThreads = defaultThreads;
+        this.defaultQueueCapacity = defaultQueueCapacity;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    public int getDefaultThreads() {
+        return defaultThreads;
+    }
+
+    public int getDefaultQueueCapacity() {
+        return defaultQueueCapacity;
+    }
+
+    /**
+     * @return time a request may wait for a thread of the lane. It covers the commercetools and Payone timeouts of
+     * the lane's routes and a couple of retries on concurrent modifications of the request ahead.
+     */
+    public int getDefaultTimeoutMillis() {
+        return defaultTimeoutMillis;
+    }
+
+    /**
+     * @param path request path, like {@code /tenant/commercetools/handle/payments/123}
+     * @return the lane of the path, <b>null</b> for the paths which run on the server thread
+     */
+    @Nullable
+    public static RequestLane forPath(@Nonnull final String path) {
+        if (path.contains("/commercetools/handle/payments/")) {
+            return CHECKOUT;
+        }
+        if (path.endsWith("/payone/notification")) {
+            return NOTIFICATION;
+        }
+        if (path.equals("/health") || path.startsWith("/health/") || path.equals("/metrics")
+                || path.startsWith("/admin/")) {
+            return ADMIN;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.commercetools.util.spark;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Wraps the Spark handler and executes the requests of every {@link RequestLane} on the lane's executor: the server
+ * thread suspends the request and is free again at once. Requests of a lane whose queue is full are answered with
+ * {@code 503} and a {@code Retry-After} header, as are requests which waited for a lane thread longer than the
+ * {@link LaneExecutor#getTimeoutMillis() timeout of the lane}. A running request is never cut off, it is bounded by
+ * the commercetools and Payone client timeouts. Paths without lane, or without executor, run on the server thread.
+ */
+public class RequestLaneHandler extends HandlerWrapper {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestLaneHandler.class);
+
+    private static final ScheduledThreadPoolExecutor QUEUE_TIMEOUT_SCHEDULER = createQueueTimeoutScheduler();
+
+    private final Map<RequestLane, LaneExecutor> lanes;
+
+    public RequestLaneHandler(@Nonnull final Map<RequestLane, LaneExecutor> lanes) {
+        this.lanes = lanes;
+    }
+
+    @Override
+    public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+                       final HttpServletResponse response) throws IOException, ServletException {
+        final RequestLane lane = RequestLane.forPath(target);
+        final LaneExecutor executor = lane != null ? lanes.get(lane) : null;
+        if (executor == null || request.getDispatcherType() != DispatcherType.REQUEST) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        final AsyncContext asyncContext = request.startAsync();
+        // the container must not complete a running request, so only the queue timeout below applies
+        asyncContext.setTimeout(0);
+        baseRequest.setHandled(true);
+
+        // whoever comes first, the lane thread, the rejection or the queue timeout, owns and completes the request
+        final AtomicBoolean started = new AtomicBoolean();
+        final ScheduledFuture<?> queueTimeout = QUEUE_TIMEOUT_SCHEDULER.schedule(() -> {
+            if (started.compareAndSet(false, true)) {
+                LOG.warn("Request [{}] waited longer than {} ms in lane [{}]", target, executor.getTimeoutMillis(),
+                        lane);
+                setUnavailable(response);
+                asyncContext.complete();
+            }
+        }, executor.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+
+        final boolean accepted = executor.tryExecute(() -> {
+            if (!started.compareAndSet(false, true)) {
+                // timed out while queued
+                return;
+            }
+            queueTimeout.cancel(false);
+            try {
+                RequestLaneHandler.super.handle(target, baseRequest, request, response);
+            } catch (final Exception e) {
+                LOG.error("Unexpected error on [{}] in lane [{}]", target, lane, e);
+                if (!response.isCommitted()) {
+                    response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR_500);
+                }
+            } finally {
+                asyncContext.complete();
+            }
+        });
+        if (!accepted) {
+            queueTimeout.cancel(false);
+            if (started.compareAndSet(false, true)) {
+                LOG.warn("Lane [{}] is full, rejected [{}]", lane, target);
+                setUnavailable(response);
+                asyncContext.complete();
+            }
+        }
+    }
+
+    private static void setUnavailable(@Nonnull final HttpServletResponse response) {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE_503);
+        response.setHeader("Retry-After", "1");
+    }
+
+    private static ScheduledThreadPoolExecutor createQueueTimeoutScheduler() {
+        final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "request-lane-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // nearly every timeout is cancelled when its request starts, don't keep them until they are due
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
@@ -0,0 +1,109 @@
+package com.commercetools.health;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionWarmerTest {
+
+    private final List<ConnectionWarmer> warmers = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        warmers.forEach(ConnectionWarmer::stop);
+    }
+
+    @Test
+    public void warmUp_pingsEveryTargetAsOftenAsItWantsConnections() {
+        final AtomicInteger payonePings = new AtomicInteger();
+        final AtomicInteger ctpPings = new AtomicInteger();
+        final ConnectionWarmer warmer = createWarmer(0,
+                new ConnectionWarmer.Target("payone", () -> 3, payonePings::incrementAndGet, true),
+                new ConnectionWarmer.Target("ctp", () -> 1, ctpPings::incrementAndGet, false));
+
+        assertThat(warmer.warmUp()).isEqualTo(4);
+        assertThat(payonePings).hasValue(3);
+        assertThat(ctpPings).hasValue(1);
+    }
+
+    @Test
+    public void warmUp_runsPingsInParallel() {
+        // every ping waits for the others, so the run only succeeds if they hold their connections at the same time
+        final CountDownLatch allStarted = new CountDownLatch(3);
+        final ConnectionWarmer warmer = createWarmer(0,
+                new ConnectionWarmer.Target("payone", () -> 3, () -> {
+                    allStarted.countDown();
+                    return allStarted.await(1, TimeUnit.SECONDS) ? "ok" : fail();
+                }, true));
+
+        assertThat(warmer.warmUp()).isEqualTo(3);
+    }
+
+    @Test
+    public void warmUp_withFailedPings_countsOnlySuccessfulOnes() {
+        final ConnectionWarmer warmer = createWarmer(0,
+                new ConnectionWarmer.Target("payone", () -> 2, ConnectionWarmerTest::fail, true),
+                new ConnectionWarmer.Target("ctp", () -> 1, () -> "ok", false));
+
+        assertThat(warmer.warmUp()).isEqualTo(1);
+    }
+
+    @Test
+    public void warmUp_withSlowPing_returnsAfterTimeout() {
+        final ConnectionWarmer warmer = new ConnectionWarmer(Arrays.asList(
+                new ConnectionWarmer.Target("payone", () -> 1, () -> {
+                    Thread.sleep(5_000);
+                    return "late";
+                }, true)), 0, 100);
+        warmers.add(warmer);
+
+        final long start = System.currentTimeMillis();
+        assertThat(warmer.warmUp()).isEqualTo(0);
+        assertThat(System.currentTimeMillis() - start).isLessThan(2_000);
+    }
+
+    @Test
+    public void keepWarmRun_pingsOnlyTargetsToKeepWarm() {
+        final AtomicInteger payonePings = new AtomicInteger();
+        final AtomicInteger ctpPings = new AtomicInteger();
+        final ConnectionWarmer warmer = createWarmer(0,
+                new ConnectionWarmer.Target("payone", () -> 2, payonePings::incrementAndGet, true),
+                new ConnectionWarmer.Target("ctp", () -> 1, ctpPings::incrementAndGet, false));
+
+        assertThat(warmer.run(true)).isEqualTo(2);
+        assertThat(payonePings).hasValue(2);
+        assertThat(ctpPings).hasValue(0);
+    }
+
+    @Test
+    public void start_schedulesKeepWarmRuns() throws Exception {
+        final CountDownLatch pings = new CountDownLatch(3);
+        final ConnectionWarmer warmer = createWarmer(20,
+                new ConnectionWarmer.Target("payone", () -> 1, () -> {
+                    pings.countDown();
+                    return "ok";
+                }, true));
+
+        warmer.start();
+
+        assertThat(pings.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private ConnectionWarmer createWarmer(final long keepWarmIntervalMillis, final ConnectionWarmer.Target... targets) {
+        final ConnectionWarmer warmer = new ConnectionWarmer(Arrays.asList(targets), keepWarmIntervalMillis, 2_000);
+        warmers.add(warmer);
+        return warmer;
+    }
+
+    private static String fail() {
+        throw new IllegalStateException("connection refused");
+    }
+}
@@ -0,0 +1,125 @@
+package com.commercetools.health;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HealthCheckServiceTest {
+
+    private final List<HealthCheckService> services = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        services.forEach(HealthCheckService::stop);
+    }
+
+    @Test
+    public void getSnapshot_beforeFirstRun_isNotReady() {
+        final HealthCheckService service = createService(probe("a", true, timeout -> ProbeResult.healthy("ok")));
+
+        assertThat(service.getSnapshot().isReady()).isFalse();
+        assertThat(service.getSnapshot().getJson()).contains("\"status\":503");
+    }
+
+    @Test
+    public void runProbes_withAllProbesHealthy_isReady() {
+        final HealthCheckService service = createService(
+                probe("a", true, timeout -> ProbeResult.healthy("ok a")),
+                probe("b", false, timeout -> ProbeResult.healthy("ok b")));
+
+        final HealthCheckService.HealthSnapshot snapshot = service.runProbes();
+
+        assertThat(snapshot.isReady()).isTrue();
+        assertThat(snapshot.getJson()).contains("\"status\":200", "\"a\":{\"healthy\":true", "ok b");
+    }
+
+    @Test
+    public void runProbes_withFailingNonCriticalProbe_isReady() {
+        final HealthCheckService service = createService(
+                probe("a", true, timeout -> ProbeResult.healthy("ok")),
+                probe("b", false, timeout -> {
+                    throw new IllegalStateException("unreachable");
+                }));
+
+        final HealthCheckService.HealthSnapshot snapshot = service.runProbes();
+
+        assertThat(snapshot.isReady()).isTrue();
+        assertThat(snapshot.getJson()).contains("\"b\":{\"healthy\":false", "IllegalStateException: unreachable");
+    }
+
+    @Test
+    public void runProbes_withUnhealthyCriticalProbe_isNotReady() {
+        final HealthCheckService service = createService(
+                probe("a", true, timeout -> ProbeResult.unhealthy("saturated")));
+
+        final HealthCheckService.HealthSnapshot snapshot = service.runProbes();
+
+        assertThat(snapshot.isReady()).isFalse();
+        assertThat(snapshot.getJson()).contains("\"status\":503", "saturated");
+    }
+
+    @Test
+    public void runProbes_withHangingCriticalProbe_timesOut() {
+        final HealthCheckService service = createService(
+                probe("a", true, timeout -> {
+                    Thread.sleep(10_000);
+                    return ProbeResult.healthy("ok");
+                }));
+
+        final long start = System.currentTimeMillis();
+        final HealthCheckService.HealthSnapshot snapshot = service.runProbes();
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(5_000);
+        assertThat(snapshot.isReady()).isFalse();
+        assertThat(snapshot.getJson()).contains("timed out after 100 ms");
+    }
+
+    @Test
+    public void isAlive_whenStarted_returnsTrue() {
+        final HealthCheckService service = createService(probe("a", true, timeout -> ProbeResult.healthy("ok")));
+        service.start();
+
+        assertThat(service.isAlive()).isTrue();
+
+        service.stop();
+        assertThat(service.isAlive()).isFalse();
+    }
+
+    private HealthCheckService createService(final HealthProbe... probes) {
+        final HealthCheckService service = new HealthCheckService(Arrays.asList(probes), 1000, 100);
+        services.add(service);
+        return service;
+    }
+
+    private static HealthProbe probe(final String name, final boolean critical, final ProbeFunction function) {
+        return new HealthProbe() {
+            @Nonnull
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public boolean isCritical() {
+                return critical;
+            }
+
+            @Nonnull
+            @Override
+            public ProbeResult probe(final long timeoutMillis) throws Exception {
+                return function.apply(timeoutMillis);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface ProbeFunction {
+        ProbeResult apply(long timeoutMillis) throws Exception;
+    }
+}
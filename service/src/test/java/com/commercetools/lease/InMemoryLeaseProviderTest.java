@@ -0,0 +1,109 @@
+package com.commercetools.lease;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryLeaseProviderTest {
+
+    private static final String KEY = "payment-1";
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private final MutableClock clock = new MutableClock();
+
+    private final InMemoryLeaseProvider provider = new InMemoryLeaseProvider(clock);
+
+    @Test
+    public void tryAcquire_isExclusiveUntilReleased() {
+        final Lease lease = acquire().orElseThrow(AssertionError::new);
+
+        assertThat(acquire()).isEmpty();
+        assertThat(provider.release(lease).toCompletableFuture().join()).isTrue();
+        assertThat(acquire()).isPresent();
+    }
+
+    @Test
+    public void tryAcquire_takesOverExpiredLease() {
+        final Lease expired = acquire().orElseThrow(AssertionError::new);
+        clock.advance(TTL);
+
+        final Lease lease = acquire().orElseThrow(AssertionError::new);
+
+        assertThat(lease.getToken()).isNotEqualTo(expired.getToken());
+        assertThat(lease.getVersion()).isGreaterThan(expired.getVersion());
+        assertThat(provider.renew(expired, TTL).toCompletableFuture().join()).isEmpty();
+        // releasing a lost lease doesn't release the new holder
+        assertThat(provider.release(expired).toCompletableFuture().join()).isTrue();
+        assertThat(acquire()).isEmpty();
+    }
+
+    @Test
+    public void requestHandOff_keepsLeaseUntilRenewed() {
+        final Lease lease = acquire().orElseThrow(AssertionError::new);
+
+        assertThat(provider.requestHandOff(KEY).toCompletableFuture().join()).isTrue();
+        assertThat(provider.release(lease).toCompletableFuture().join()).isFalse();
+
+        final Lease renewed = provider.renew(lease, TTL).toCompletableFuture().join()
+                .orElseThrow(AssertionError::new);
+        assertThat(provider.release(renewed).toCompletableFuture().join()).isTrue();
+        assertThat(acquire()).isPresent();
+    }
+
+    @Test
+    public void extend_keepsRequestedHandOff() {
+        final Lease lease = acquire().orElseThrow(AssertionError::new);
+        assertThat(provider.requestHandOff(KEY).toCompletableFuture().join()).isTrue();
+
+        final Lease extended = provider.extend(lease, TTL).toCompletableFuture().join()
+                .orElseThrow(AssertionError::new);
+
+        assertThat(extended.getExpiresAtMillis()).isGreaterThanOrEqualTo(lease.getExpiresAtMillis());
+        assertThat(provider.release(extended).toCompletableFuture().join()).isFalse();
+    }
+
+    @Test
+    public void requestHandOff_onFreeKey_isRefused() {
+        assertThat(provider.requestHandOff(KEY).toCompletableFuture().join()).isFalse();
+
+        acquire();
+        clock.advance(TTL);
+
+        assertThat(provider.requestHandOff(KEY).toCompletableFuture().join()).isFalse();
+    }
+
+    private Optional<Lease> acquire() {
+        return provider.tryAcquire(KEY, TTL).toCompletableFuture().join();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2020-01-01T00:00:00Z");
+
+        void advance(final Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
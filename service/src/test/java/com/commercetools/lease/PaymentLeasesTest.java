@@ -0,0 +1,121 @@
+package com.commercetools.lease;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PaymentLeasesTest {
+
+    private static final String PAYMENT_ID = "payment-1";
+    private static final Duration TTL = Duration.ofSeconds(30);
+
+    private final InMemoryLeaseProvider provider = new InMemoryLeaseProvider();
+
+    private final PaymentLeases leases = new PaymentLeases(provider, "testTenant", TTL, Duration.ofMillis(200));
+
+    @Test
+    public void disabled_runsAction() {
+        assertThat(PaymentLeases.DISABLED.isEnabled()).isFalse();
+        assertThat(PaymentLeases.DISABLED.runExclusively(PAYMENT_ID, () -> "done", null)).isEqualTo("done");
+    }
+
+    @Test
+    public void runExclusively_releasesLeaseAfterAction() {
+        assertThat(leases.runExclusively(PAYMENT_ID, () -> "done", null)).isEqualTo("done");
+
+        assertThat(provider.tryAcquire(PAYMENT_ID, TTL).toCompletableFuture().join()).isPresent();
+    }
+
+    @Test
+    public void runExclusively_releasesLeaseIfActionFails() {
+        assertThatThrownBy(() -> leases.runExclusively(PAYMENT_ID, () -> {
+            throw new IllegalStateException("failed");
+        }, null)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(provider.tryAcquire(PAYMENT_ID, TTL).toCompletableFuture().join()).isPresent();
+    }
+
+    @Test
+    public void contender_handsOffToHolder_whichRunsOnceMore() {
+        final AtomicInteger holderRuns = new AtomicInteger();
+
+        final String result = leases.runExclusively(PAYMENT_ID, () -> {
+            if (holderRuns.incrementAndGet() == 1) {
+                // a concurrent request arrives while the holder works
+                assertThat(leases.runExclusively(PAYMENT_ID, () -> "contender", () -> "handed off"))
+                        .isEqualTo("handed off");
+            }
+            return "holder-" + holderRuns.get();
+        }, null);
+
+        assertThat(result).isEqualTo("holder-2");
+        assertThat(holderRuns).hasValue(2);
+    }
+
+    @Test
+    public void contender_withoutHandOff_waitsAndGivesUp() {
+        provider.tryAcquire(PAYMENT_ID, TTL).toCompletableFuture().join();
+
+        assertThatThrownBy(() -> leases.runExclusively(PAYMENT_ID, () -> "contender", null))
+                .isInstanceOf(LeaseUnavailableException.class)
+                .hasMessageContaining(PAYMENT_ID);
+    }
+
+    @Test
+    public void contender_withoutHandOff_getsExpiredLease() {
+        provider.tryAcquire(PAYMENT_ID, Duration.ofMillis(50)).toCompletableFuture().join();
+
+        assertThat(leases.runExclusively(PAYMENT_ID, () -> "contender", null)).isEqualTo("contender");
+    }
+
+    @Test
+    public void runExclusively_extendsLeaseWhileActionRuns() {
+        final Duration shortTtl = Duration.ofMillis(150);
+        final PaymentLeases shortLeases = new PaymentLeases(provider, "testTenant", shortTtl, Duration.ofMillis(50));
+
+        final Optional<Lease> contender = shortLeases.runExclusively(PAYMENT_ID, () -> {
+            sleep(500);
+            return provider.tryAcquire(PAYMENT_ID, shortTtl).toCompletableFuture().join();
+        }, null);
+
+        assertThat(contender).isEmpty();
+    }
+
+    @Test
+    public void runExclusively_tellsActionWhetherPaymentMayHaveChanged() {
+        assertThat(leases.runExclusively(PAYMENT_ID, mayHaveChanged -> mayHaveChanged, null)).isFalse();
+
+        provider.tryAcquire(PAYMENT_ID, Duration.ofMillis(50)).toCompletableFuture().join();
+        assertThat(leases.runExclusively(PAYMENT_ID, mayHaveChanged -> mayHaveChanged, null)).isTrue();
+    }
+
+    @Test
+    public void failingStore_runsWithoutLease() {
+        final LeaseProvider failing = mock(LeaseProvider.class);
+        final CompletableFuture<Optional<Lease>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("store unavailable"));
+        when(failing.tryAcquire(anyString(), any())).thenReturn(failed);
+
+        final PaymentLeases failingLeases = new PaymentLeases(failing, "testTenant", TTL, Duration.ofMillis(200));
+
+        assertThat(failingLeases.runExclusively(PAYMENT_ID, () -> "done", null)).isEqualTo("done");
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
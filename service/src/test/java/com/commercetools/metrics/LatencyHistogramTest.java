@@ -0,0 +1,59 @@
+package com.commercetools.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketIndex_isMonotonicAndCoversHighestEquivalentValue() {
+        int previous = -1;
+        for (long value = 0; value < 100_000; value++) {
+            final int index = LatencyHistogram.bucketIndex(value);
+            assertThat(index).isBetween(previous, previous + 1);
+            assertThat(LatencyHistogram.highestEquivalentValue(index)).isGreaterThanOrEqualTo(value);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void bucketIndex_clampsHugeValues() {
+        assertThat(LatencyHistogram.bucketIndex(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKET_COUNT - 1);
+    }
+
+    @Test
+    public void snapshot_withEmptyHistogram_returnsZeros() {
+        final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertThat(snapshot.getCount()).isZero();
+        assertThat(snapshot.getValueAtQuantile(0.99)).isZero();
+    }
+
+    @Test
+    public void getValueAtQuantile_isWithinPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(10_000);
+        assertThat(snapshot.getSum()).isEqualTo(50_005_000);
+        assertThat(snapshot.getMax()).isEqualTo(10_000);
+        assertThat((double) snapshot.getValueAtQuantile(0.5)).isCloseTo(5_000, within(5_000 * 0.07));
+        assertThat((double) snapshot.getValueAtQuantile(0.99)).isCloseTo(9_900, within(9_900 * 0.07));
+        assertThat(snapshot.getValueAtQuantile(1.0)).isEqualTo(10_000);
+    }
+
+    @Test
+    public void record_withNegativeValue_recordsZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertThat(histogram.snapshot().getValueAtQuantile(0.5)).isZero();
+        assertThat(histogram.snapshot().getCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,50 @@
+package com.commercetools.metrics;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PrometheusTextFormatTest {
+
+    @Test
+    public void render_withCounterGaugeAndSummary_writesTextFormat() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_retries_total", "Retries", "tenant").labels("t\"1").add(3);
+        registry.gauge("test_connections", "Connections").register(() -> 7L);
+        registry.histogram("test_duration_seconds", "Duration", "tenant", "method")
+                .labels("t1", "CREDIT_CARD").record(250_000);
+
+        final String text = PrometheusTextFormat.render(registry);
+
+        assertThat(text).contains(
+                "# HELP test_retries_total Retries\n",
+                "# TYPE test_retries_total counter\n",
+                "test_retries_total{tenant=\"t\\\"1\"} 3\n",
+                "# TYPE test_connections gauge\n",
+                "test_connections 7\n",
+                "# TYPE test_duration_seconds summary\n",
+                "test_duration_seconds_count{tenant=\"t1\",method=\"CREDIT_CARD\"} 1\n",
+                "test_duration_seconds_sum{tenant=\"t1\",method=\"CREDIT_CARD\"} 0.25\n");
+        assertThat(text).containsPattern(
+                "test_duration_seconds\\{tenant=\"t1\",method=\"CREDIT_CARD\",quantile=\"0.99\"} 0\\.25\\d*\n");
+    }
+
+    @Test
+    public void render_skipsFamiliesWithoutChildren() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_unused_total", "Unused");
+
+        assertThat(PrometheusTextFormat.render(registry)).isEmpty();
+    }
+
+    @Test
+    public void register_withSameNameAndDifferentLabels_throwsException() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_total", "Test", "a");
+
+        assertThat(registry.counter("test_total", "Test", "a")).isNotNull();
+        assertThatThrownBy(() -> registry.counter("test_total", "Test", "b"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
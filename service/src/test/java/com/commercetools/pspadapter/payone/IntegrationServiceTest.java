@@ -29,8 +29,12 @@ public class IntegrationServiceTest {
     private ServiceConfig serviceConfig = null;
 
     private static HealthResponse requestHealth(boolean isPretty) {
+        return requestUrl(format("/health%s", isPretty ? "?pretty" : ""));
+    }
+
+    private static HealthResponse requestUrl(String path) {
         try {
-            URL url = new URL(format("http://localhost:8080/health%s", isPretty ? "?pretty" : ""));
+            URL url = new URL("http://localhost:8080" + path);
             HttpURLConnection connection = (HttpURLConnection) url.openConnection();
             connection.setRequestMethod("GET");
             connection.setDoOutput(true);
@@ -100,6 +104,25 @@ public class IntegrationServiceTest {
         );
     }
 
+    @Test
+    public void healthReady_afterProbesRun_shouldReturnOkStatus() throws Exception {
+        integrationService = new IntegrationService(serviceConfig, Arrays.asList(
+                createMockTenantFactory(TENANTNAME1),
+                createMockTenantFactory(TENANTNAME2)));
+
+        integrationService.start();
+
+        HealthResponse result = requestUrl("/health/ready");
+        for (int i = 0; i < 50 && result.status != SUCCESS_STATUS; i++) {
+            Thread.sleep(100);
+            result = requestUrl("/health/ready");
+        }
+
+        assertThat(result.status).isEqualTo(SUCCESS_STATUS);
+        assertThat(result.body).contains("\"payone-connection-pool\"", "\"server-queue\"");
+        assertThat(requestUrl("/health/live").status).isEqualTo(SUCCESS_STATUS);
+    }
+
     private TenantFactory createMockTenantFactory(String tenantName) {
         TenantFactory tenantFactory = Mockito.mock(TenantFactory.class);
         when(tenantFactory.getTenantName()).thenReturn(tenantName);
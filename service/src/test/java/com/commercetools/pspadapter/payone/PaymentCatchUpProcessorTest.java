@@ -0,0 +1,160 @@
+package com.commercetools.pspadapter.payone;
+
+import com.commercetools.payments.TransactionStateResolver;
+import com.commercetools.pspadapter.payone.domain.ctp.CommercetoolsQueryExecutor;
+import com.commercetools.service.CheckpointService;
+import io.sphere.sdk.http.HttpStatusCode;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.PaymentMethodInfo;
+import io.sphere.sdk.payments.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PaymentCatchUpProcessorTest {
+
+    private static final Instant NOW = Instant.parse("2019-05-10T12:00:00Z");
+    private static final long DELAY_MILLIS = 60000;
+    private static final ZonedDateTime UNTIL = ZonedDateTime.ofInstant(NOW.minusMillis(DELAY_MILLIS), ZoneOffset.UTC);
+    private static final ZonedDateTime CHECKPOINT = UNTIL.minusMinutes(10);
+
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private CommercetoolsQueryExecutor commercetoolsQueryExecutor;
+
+    @Mock
+    private PaymentHandler paymentHandler;
+
+    @Mock
+    private TransactionStateResolver transactionStateResolver;
+
+    @Mock
+    private CheckpointService checkpointService;
+
+    private PaymentCatchUpProcessor testee;
+
+    @Before
+    public void setUp() {
+        testee = new PaymentCatchUpProcessor("testTenant", "PAYONE", commercetoolsQueryExecutor, paymentHandler,
+                transactionStateResolver, checkpointService, 1000, DELAY_MILLIS, 2, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        when(checkpointService.getCheckpoint(anyString())).thenReturn(completedFuture(Optional.of(CHECKPOINT)));
+        when(checkpointService.saveCheckpoint(anyString(), any())).thenAnswer(
+                invocation -> completedFuture(invocation.getArgument(1)));
+        when(paymentHandler.handlePayment(anyString())).thenReturn(new PaymentHandleResult(HttpStatusCode.OK_200));
+    }
+
+    @After
+    public void tearDown() {
+        testee.stop();
+    }
+
+    @Test
+    public void runOnce_handlesUnprocessedPayonePaymentsOnceAndSavesCheckpoint() throws Exception {
+        final Transaction initial = mock(Transaction.class);
+        when(transactionStateResolver.isNotCompletedTransaction(initial)).thenReturn(true);
+        final Payment payment = payment("1", "PAYONE", initial);
+        givenMessages(payment, payment,
+                payment("2", "PAYONE", mock(Transaction.class)),
+                payment("3", "OTHER", initial));
+
+        assertThat(testee.runOnce()).isEqualTo(1);
+
+        verify(commercetoolsQueryExecutor).consumePaymentTransactionAddedMessages(eq(CHECKPOINT), eq(UNTIL), any());
+        verify(paymentHandler, times(1)).handlePayment("1");
+        verify(paymentHandler, never()).handlePayment("2");
+        verify(paymentHandler, never()).handlePayment("3");
+        verify(checkpointService).saveCheckpoint("payment-catch-up-testTenant", UNTIL);
+        assertThat(testee.getLagMillis()).isEqualTo(DELAY_MILLIS);
+    }
+
+    @Test
+    public void runOnce_withoutSavedCheckpoint_startsNow() throws Exception {
+        when(checkpointService.getCheckpoint(anyString())).thenReturn(completedFuture(Optional.empty()));
+
+        assertThat(testee.runOnce()).isEqualTo(0);
+
+        verify(commercetoolsQueryExecutor, never()).consumePaymentTransactionAddedMessages(any(), any(), any());
+        verify(checkpointService, never()).saveCheckpoint(anyString(), any());
+    }
+
+    @Test
+    public void runOnce_withFailedPayment_retriesWindowUpToLimit() throws Exception {
+        final Transaction initial = mock(Transaction.class);
+        when(transactionStateResolver.isNotCompletedTransaction(initial)).thenReturn(true);
+        givenMessages(payment("1", "PAYONE", initial));
+        when(paymentHandler.handlePayment("1"))
+                .thenReturn(new PaymentHandleResult(HttpStatusCode.INTERNAL_SERVER_ERROR_500, "error"));
+
+        for (int attempt = 1; attempt < PaymentCatchUpProcessor.MAX_WINDOW_ATTEMPTS; attempt++) {
+            testee.runOnce();
+            verify(checkpointService, never()).saveCheckpoint(anyString(), any());
+        }
+        testee.runOnce();
+
+        verify(commercetoolsQueryExecutor, times(PaymentCatchUpProcessor.MAX_WINDOW_ATTEMPTS))
+                .consumePaymentTransactionAddedMessages(eq(CHECKPOINT), eq(UNTIL), any());
+        verify(checkpointService).saveCheckpoint("payment-catch-up-testTenant", UNTIL);
+    }
+
+    @Test
+    public void runOnce_withHandedOffPayment_savesCheckpoint() throws Exception {
+        final Transaction initial = mock(Transaction.class);
+        when(transactionStateResolver.isNotCompletedTransaction(initial)).thenReturn(true);
+        givenMessages(payment("1", "PAYONE", initial));
+        when(paymentHandler.handlePayment("1"))
+                .thenReturn(new PaymentHandleResult(HttpStatusCode.ACCEPTED_202, "handed off", true));
+
+        testee.runOnce();
+
+        verify(commercetoolsQueryExecutor, times(1))
+                .consumePaymentTransactionAddedMessages(eq(CHECKPOINT), eq(UNTIL), any());
+        verify(checkpointService).saveCheckpoint("payment-catch-up-testTenant", UNTIL);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenMessages(final Payment... payments) {
+        doAnswer(invocation -> {
+            final Consumer<Payment> consumer = invocation.getArgument(2);
+            Arrays.stream(payments).forEach(consumer);
+            return null;
+        }).when(commercetoolsQueryExecutor).consumePaymentTransactionAddedMessages(any(), any(), any(Consumer.class));
+    }
+
+    private static Payment payment(final String id, final String paymentInterface, final Transaction transaction) {
+        final Payment payment = mock(Payment.class);
+        final PaymentMethodInfo paymentMethodInfo = mock(PaymentMethodInfo.class);
+        when(paymentMethodInfo.getPaymentInterface()).thenReturn(paymentInterface);
+        when(payment.getId()).thenReturn(id);
+        when(payment.getPaymentMethodInfo()).thenReturn(paymentMethodInfo);
+        when(payment.getTransactions()).thenReturn(singletonList(transaction));
+        return payment;
+    }
+}
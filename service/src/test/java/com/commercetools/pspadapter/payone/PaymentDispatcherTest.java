@@ -16,8 +16,10 @@ import util.PaymentTestHelper;
 
 import javax.annotation.Nonnull;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.commercetools.pspadapter.payone.util.PayoneConstants.PAYONE;
 import static java.util.stream.Collectors.toList;
@@ -82,6 +84,25 @@ public class PaymentDispatcherTest {
                 payments.dummyPaymentTwoTransactionsSuccessPending());
     }
 
+    @Test
+    public void lazyDispatcher_createsMethodDispatcherOnFirstPaymentOfTheMethod() throws Exception {
+        final Map<PaymentMethod, Integer> created = new EnumMap<>(PaymentMethod.class);
+        final CountingPaymentMethodDispatcher creditCardDispatcher = new CountingPaymentMethodDispatcher();
+
+        PaymentDispatcher dispatcher = PaymentDispatcher.lazy(method -> {
+            created.merge(method, 1, Integer::sum);
+            return method == PaymentMethod.CREDIT_CARD ? creditCardDispatcher : null;
+        }, PAYONE);
+        assertThat(created).isEmpty();
+
+        dispatcher.dispatchPayment(new PaymentWithCartLike(payments.dummyPaymentTwoTransactionsSuccessPending(), null));
+        dispatcher.dispatchPayment(new PaymentWithCartLike(payments.dummyPaymentTwoTransactionsSuccessPending(), null));
+
+        assertThat(created).containsOnlyKeys(PaymentMethod.CREDIT_CARD);
+        assertThat(created.get(PaymentMethod.CREDIT_CARD)).isEqualTo(1);
+        assertThat(creditCardDispatcher.count).isEqualTo(2);
+    }
+
     private void verifyDispatchCallsProperMethods(Payment paymentPendingOrInitial, Payment paymentSuccess) throws Exception {
         final PaymentWithCartLike paymentPendingOrInitialWithCartLike = new PaymentWithCartLike(paymentPendingOrInitial, null);
         final PaymentWithCartLike paymentSuccessWithCartLike = new PaymentWithCartLike(paymentSuccess, null);
@@ -133,6 +133,7 @@ public class PaymentHandlerTest
 
         // assert
         assertThat(paymentHandleResult.statusCode()).isEqualTo(HttpStatusCode.ACCEPTED_202);
+        assertThat(paymentHandleResult.isHandedOff()).isFalse();
         assertThat(paymentHandleResult.body())
             .isEqualTo(format("The payment with id '%s' couldn't be processed after %s retries. " +
                     "One retry iteration here includes multiple payone/ctp service retries.", paymentId, 5));
@@ -1,5 +1,7 @@
 package com.commercetools.pspadapter.payone.config;
 
+import com.commercetools.util.spark.LaneConfig;
+import com.commercetools.util.spark.RequestLane;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Spy;
@@ -87,6 +89,63 @@ public class ServiceConfigTest {
                 .withMessageContaining(TENANTS);
     }
 
+    @Test
+    public void getsWarmUpSettings() {
+        when(propertyProvider.getProperty(TENANTS)).thenReturn(Optional.of("testTenantName"));
+        ServiceConfig defaults = new ServiceConfig(propertyProvider);
+        assertThat(defaults.getWarmUpPayoneConnections()).isEqualTo(4);
+        assertThat(defaults.getWarmUpTimeoutMillis()).isEqualTo(10000L);
+        assertThat(defaults.getKeepWarmIntervalMillis()).isEqualTo(0L);
+
+        when(propertyProvider.getProperty(WARM_UP_PAYONE_CONNECTIONS)).thenReturn(Optional.of(" 8 "));
+        when(propertyProvider.getProperty(WARM_UP_TIMEOUT_MILLIS)).thenReturn(Optional.of("3000"));
+        when(propertyProvider.getProperty(KEEP_WARM_INTERVAL_MILLIS)).thenReturn(Optional.of("25000"));
+        ServiceConfig serviceConfig = new ServiceConfig(propertyProvider);
+        assertThat(serviceConfig.getWarmUpPayoneConnections()).isEqualTo(8);
+        assertThat(serviceConfig.getWarmUpTimeoutMillis()).isEqualTo(3000L);
+        assertThat(serviceConfig.getKeepWarmIntervalMillis()).isEqualTo(25000L);
+    }
+
+    @Test
+    public void getsNotificationRetrySettings() {
+        when(propertyProvider.getProperty(TENANTS)).thenReturn(Optional.of("testTenantName"));
+        ServiceConfig defaults = new ServiceConfig(propertyProvider);
+        assertThat(defaults.getNotificationRetryMaxAttempts()).isEqualTo(0);
+        assertThat(defaults.getNotificationRetryInitialDelayMillis()).isEqualTo(10000L);
+        assertThat(defaults.getNotificationRetryMaxDelayMillis()).isEqualTo(600000L);
+        assertThat(defaults.getNotificationRetryParallelism()).isEqualTo(4);
+        assertThat(defaults.getNotificationDeadLetterDirectory()).isEqualTo("notification-dead-letters");
+        assertThat(defaults.getAdminApiToken()).isEmpty();
+
+        when(propertyProvider.getProperty(NOTIFICATION_RETRY_MAX_ATTEMPTS)).thenReturn(Optional.of(" 6 "));
+        when(propertyProvider.getProperty(NOTIFICATION_DEAD_LETTER_DIRECTORY)).thenReturn(Optional.of("/data/dlq"));
+        when(propertyProvider.getProperty(ADMIN_API_TOKEN)).thenReturn(Optional.of("secret"));
+        ServiceConfig serviceConfig = new ServiceConfig(propertyProvider);
+        assertThat(serviceConfig.getNotificationRetryMaxAttempts()).isEqualTo(6);
+        assertThat(serviceConfig.getNotificationDeadLetterDirectory()).isEqualTo("/data/dlq");
+        assertThat(serviceConfig.getAdminApiToken()).contains("secret");
+    }
+
+    @Test
+    public void getsLaneConfigs() {
+        when(propertyProvider.getProperty(TENANTS)).thenReturn(Optional.of("testTenantName"));
+        when(propertyProvider.getProperty("LANE_NOTIFICATION_THREADS")).thenReturn(Optional.of(" 4 "));
+        when(propertyProvider.getProperty("LANE_NOTIFICATION_QUEUE_CAPACITY")).thenReturn(Optional.of("1000"));
+        when(propertyProvider.getProperty("LANE_NOTIFICATION_TIMEOUT_MILLIS")).thenReturn(Optional.of("30000"));
+
+        final ServiceConfig serviceConfig = new ServiceConfig(propertyProvider);
+
+        final LaneConfig notification = serviceConfig.getLaneConfigs().get(RequestLane.NOTIFICATION);
+        assertThat(notification.getThreads()).isEqualTo(4);
+        assertThat(notification.getQueueCapacity()).isEqualTo(1000);
+        assertThat(notification.getTimeoutMillis()).isEqualTo(30000);
+
+        final LaneConfig checkout = serviceConfig.getLaneConfigs().get(RequestLane.CHECKOUT);
+        assertThat(checkout.getThreads()).isEqualTo(RequestLane.CHECKOUT.getDefaultThreads());
+        assertThat(checkout.getQueueCapacity()).isEqualTo(RequestLane.CHECKOUT.getDefaultQueueCapacity());
+        assertThat(checkout.getTimeoutMillis()).isEqualTo(RequestLane.CHECKOUT.getDefaultTimeoutMillis());
+    }
+
     private static void mockDummyDefault(PropertyProvider propertyProvider) {
         doReturn(Optional.of(dummyValue)).when(propertyProvider).getProperty(anyString());
     }
@@ -0,0 +1,126 @@
+package com.commercetools.pspadapter.payone.domain.ctp;
+
+import com.commercetools.service.InteractionPayloadService;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention.Mode.COMPRESS;
+import static com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention.Mode.OFFLOAD;
+import static com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention.Mode.SUMMARY;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class InteractionRetentionTest {
+
+    private static final String PAYMENT_ID = "payment-1";
+
+    private final InteractionPayloadService payloadService = mock(InteractionPayloadService.class);
+
+    @Test
+    public void full_keepsEveryPayload() {
+        final String payload = longPayload(10_000);
+
+        assertThat(InteractionRetention.FULL.retain(PAYMENT_ID, "request-tx", payload)).isSameAs(payload);
+        assertThat(InteractionRetention.FULL.retain(PAYMENT_ID, "request-tx", null)).isNull();
+    }
+
+    @Test
+    public void shortPayloads_areKeptInEveryMode() {
+        final String payload = longPayload(100);
+
+        assertThat(new InteractionRetention(SUMMARY, 100, null).retain(PAYMENT_ID, "request-tx", payload))
+                .isSameAs(payload);
+        assertThat(new InteractionRetention(COMPRESS, 100, null).retain(PAYMENT_ID, "request-tx", payload))
+                .isSameAs(payload);
+        assertThat(new InteractionRetention(OFFLOAD, 100, payloadService).retain(PAYMENT_ID, "request-tx", payload))
+                .isSameAs(payload);
+        verifyZeroInteractions(payloadService);
+    }
+
+    @Test
+    public void summary_keepsBeginningAndLength() {
+        final String payload = longPayload(500);
+
+        final String retained = new InteractionRetention(SUMMARY, 100, null).retain(PAYMENT_ID, "request-tx", payload);
+
+        assertThat(retained).isEqualTo(payload.substring(0, 100) + "... [500 characters, truncated]");
+    }
+
+    @Test
+    public void summary_doesNotSplitSurrogatePairs() {
+        final String payload = "abc😀def";
+
+        final String retained = new InteractionRetention(SUMMARY, 4, null).retain(PAYMENT_ID, "request-tx", payload);
+
+        assertThat(retained).startsWith("abc...");
+    }
+
+    @Test
+    public void compress_roundTrips() {
+        final String payload = longPayload(5_000);
+
+        final String retained = new InteractionRetention(COMPRESS, 100, null).retain(PAYMENT_ID, "request-tx", payload);
+
+        assertThat(retained).startsWith(InteractionRetention.GZIP_PREFIX);
+        assertThat(retained.length()).isLessThan(payload.length());
+        assertThat(InteractionRetention.decompress(retained)).isEqualTo(payload);
+    }
+
+    @Test
+    public void decompress_keepsUncompressedPayloads() {
+        assertThat(InteractionRetention.decompress("{status=APPROVED}")).isEqualTo("{status=APPROVED}");
+        assertThat(InteractionRetention.decompress(null)).isNull();
+    }
+
+    @Test
+    public void offload_storesPayloadAndKeepsReference() {
+        final String payload = longPayload(500);
+        when(payloadService.savePayload(anyString(), anyString())).thenReturn(completedFuture("reference"));
+
+        final String retained = new InteractionRetention(OFFLOAD, 100, payloadService)
+                .retain(PAYMENT_ID, "notification-2-paid", payload);
+
+        assertThat(retained).isEqualTo("reference");
+        verify(payloadService).savePayload("payment-1-notification-2-paid", payload);
+    }
+
+    @Test
+    public void offload_summarizesPayloadIfStoreFails() {
+        final String payload = longPayload(500);
+        final CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("store unavailable"));
+        when(payloadService.savePayload(anyString(), anyString())).thenReturn(failed);
+
+        final String retained = new InteractionRetention(OFFLOAD, 100, payloadService)
+                .retain(PAYMENT_ID, "response-tx", payload);
+
+        assertThat(retained).isEqualTo(payload.substring(0, 100) + "... [500 characters, truncated]");
+    }
+
+    @Test
+    public void offload_withoutService_isRejected() {
+        assertThatThrownBy(() -> new InteractionRetention(OFFLOAD, 100, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void toCustomObjectKey_replacesIllegalCharacters() {
+        assertThat(InteractionRetention.toCustomObjectKey("payment-1-request-a/b c:d_e~f.g"))
+                .isEqualTo("payment-1-request-a_b_c_d_e~f.g");
+    }
+
+    private static String longPayload(final int length) {
+        final StringBuilder payload = new StringBuilder(length);
+        while (payload.length() < length) {
+            payload.append("key").append(payload.length() % 10).append("=value&");
+        }
+        return payload.substring(0, length);
+    }
+}
@@ -0,0 +1,102 @@
+package com.commercetools.pspadapter.payone.domain.ctp;
+
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.client.SphereRequest;
+import io.sphere.sdk.messages.queries.MessageQuery;
+import io.sphere.sdk.payments.messages.PaymentTransactionAddedMessage;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static util.JvmSdkMockUtil.pagedQueryResultsMock;
+
+public class KeysetMessageIteratorTest {
+
+    private static final ZonedDateTime CREATED_AT = ZonedDateTime.parse("2019-05-10T12:00:00.123Z");
+
+    private final SphereClient client = mock(SphereClient.class);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void iteratesAllPages_requestingNextPageAfterLastKey() throws Exception {
+        final PaymentTransactionAddedMessage first = message("m1");
+        final PaymentTransactionAddedMessage second = message("m2");
+        final PaymentTransactionAddedMessage third = message("m3");
+        when(client.execute(any(SphereRequest.class)))
+                .thenReturn(completedFuture(pagedQueryResultsMock(first, second)))
+                .thenReturn(completedFuture(pagedQueryResultsMock(third)));
+
+        final List<PaymentTransactionAddedMessage> messages = new ArrayList<>();
+        try (KeysetMessageIterator<PaymentTransactionAddedMessage> iterator = new KeysetMessageIterator<>(client,
+                MessageQuery.of(), PaymentTransactionAddedMessage.MESSAGE_HINT, "correlationId", 2)) {
+            // the second page is requested as soon as the first one arrived
+            assertThat(iterator.hasNext()).isTrue();
+            verify(client, times(2)).execute(any(SphereRequest.class));
+
+            iterator.forEachRemaining(messages::add);
+        }
+
+        assertThat(messages).containsExactly(first, second, third);
+        final ArgumentCaptor<SphereRequest> requests = ArgumentCaptor.forClass(SphereRequest.class);
+        verify(client, times(2)).execute(requests.capture());
+        assertThat(decodedPath(requests.getAllValues().get(0))).doesNotContain("id >");
+        assertThat(decodedPath(requests.getAllValues().get(1)))
+                .contains("createdAt = \"2019-05-10T12:00:00.123Z\" and id > \"m2\"");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void fullLastPage_endsWithEmptyPage() {
+        when(client.execute(any(SphereRequest.class)))
+                .thenReturn(completedFuture(pagedQueryResultsMock(message("m1"))))
+                .thenReturn(completedFuture(pagedQueryResultsMock()));
+
+        final KeysetMessageIterator<PaymentTransactionAddedMessage> iterator = new KeysetMessageIterator<>(client,
+                MessageQuery.of(), PaymentTransactionAddedMessage.MESSAGE_HINT, "correlationId", 1);
+
+        assertThat(iterator.next().getId()).isEqualTo("m1");
+        assertThat(iterator.hasNext()).isFalse();
+        verify(client, times(2)).execute(any(SphereRequest.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void close_dropsPrefetchedPage() {
+        final CompletableFuture<Object> secondPage = new CompletableFuture<>();
+        when(client.execute(any(SphereRequest.class)))
+                .thenReturn(completedFuture(pagedQueryResultsMock(message("m1"))))
+                .thenReturn(secondPage);
+
+        final KeysetMessageIterator<PaymentTransactionAddedMessage> iterator = new KeysetMessageIterator<>(client,
+                MessageQuery.of(), PaymentTransactionAddedMessage.MESSAGE_HINT, "correlationId", 1);
+        iterator.next();
+        iterator.close();
+
+        // would block on the pending second page otherwise
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    private static PaymentTransactionAddedMessage message(final String id) {
+        final PaymentTransactionAddedMessage message = mock(PaymentTransactionAddedMessage.class);
+        when(message.getId()).thenReturn(id);
+        when(message.getCreatedAt()).thenReturn(CREATED_AT);
+        return message;
+    }
+
+    private static String decodedPath(final SphereRequest<?> request) throws UnsupportedEncodingException {
+        return URLDecoder.decode(request.httpRequestIntent().getPath(), "UTF-8");
+    }
+}
@@ -0,0 +1,249 @@
+package com.commercetools.pspadapter.payone.domain.ctp;
+
+import com.commercetools.pspadapter.payone.mapping.CustomFieldKeys;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.client.ConcurrentModificationException;
+import io.sphere.sdk.json.SphereJsonUtils;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.TransactionDraftBuilder;
+import io.sphere.sdk.payments.TransactionState;
+import io.sphere.sdk.payments.TransactionType;
+import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
+import io.sphere.sdk.payments.commands.updateactions.AddInterfaceInteraction;
+import io.sphere.sdk.payments.commands.updateactions.AddTransaction;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionInteractionId;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState;
+import io.sphere.sdk.payments.commands.updateactions.SetCustomer;
+import io.sphere.sdk.payments.commands.updateactions.SetStatusInterfaceCode;
+import io.sphere.sdk.payments.queries.PaymentByIdGet;
+import io.sphere.sdk.utils.MoneyImpl;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PaymentUpdateRebaserTest {
+
+    private static final String PAYMENT_ID = "payment-id";
+    private static final String TRANSACTION_ID = "transaction-id";
+
+    @Test
+    public void canRebase_notificationOnConcurrentlyAddedInteraction_isTrue() {
+        final Payment planned = payment(1, "Pending", "appointed", interaction("1", "appointed"));
+        final Payment current = payment(2, "Pending", "appointed", interaction("1", "appointed"),
+                interaction("2", "reminder"));
+
+        assertThat(PaymentUpdateRebaser.canRebase(planned, current, Arrays.asList(
+                addNotification("3", "paid"),
+                SetStatusInterfaceCode.of("paid"),
+                AddTransaction.of(TransactionDraftBuilder
+                        .of(TransactionType.CHARGE, MoneyImpl.ofCents(1_000, "EUR"), ZonedDateTime.now())
+                        .interactionId("3")
+                        .build())))).isTrue();
+    }
+
+    @Test
+    public void canRebase_sameNotificationAddedConcurrently_isFalse() {
+        final Payment planned = payment(1, "Pending", "appointed");
+        final Payment current = payment(2, "Pending", "paid", interaction("3", "paid"));
+
+        assertThat(PaymentUpdateRebaser.canRebase(planned, current, singletonList(addNotification("3", "paid"))))
+                .isFalse();
+    }
+
+    @Test
+    public void canRebase_statusCodeChangedConcurrently_isFalse() {
+        final Payment planned = payment(1, "Pending", "appointed");
+        final Payment current = payment(2, "Pending", "capture");
+
+        assertThat(PaymentUpdateRebaser.canRebase(planned, current, singletonList(SetStatusInterfaceCode.of("paid"))))
+                .isFalse();
+    }
+
+    @Test
+    public void canRebase_transactionChangedConcurrently_isFalse() {
+        final Payment planned = payment(1, "Pending", "appointed");
+        final Payment current = payment(2, "Success", "appointed");
+
+        assertThat(PaymentUpdateRebaser.canRebase(planned, current,
+                singletonList(ChangeTransactionState.of(TransactionState.SUCCESS, TRANSACTION_ID)))).isFalse();
+    }
+
+    @Test
+    public void canRebase_transactionUnchanged_isTrue() {
+        final Payment planned = payment(1, "Pending", "appointed");
+        final Payment current = payment(2, "Pending", "appointed", interaction("2", "reminder"));
+
+        assertThat(PaymentUpdateRebaser.canRebase(planned, current,
+                singletonList(ChangeTransactionState.of(TransactionState.SUCCESS, TRANSACTION_ID)))).isTrue();
+    }
+
+    @Test
+    public void canRebase_requestWithSequenceNumberRaisedConcurrently_isFalse() {
+        final Payment planned = payment(1, "Pending", "appointed");
+        final Payment current = payment(2, "Pending", "appointed", interaction("2", "reminder"));
+
+        // the request planned the sequence number 2, which the concurrent notification took
+        assertThat(PaymentUpdateRebaser.canRebase(planned, current,
+                singletonList(ChangeTransactionInteractionId.of("2", TRANSACTION_ID)))).isFalse();
+        assertThat(PaymentUpdateRebaser.canRebase(planned, current, singletonList(addRequest()))).isFalse();
+    }
+
+    @Test
+    public void canRebase_requestWithSequenceNumberUnchanged_isTrue() {
+        final Payment planned = payment(1, "Pending", "appointed");
+        final Payment current = payment(2, "Pending", "appointed", interaction("1", "appointed"));
+
+        assertThat(PaymentUpdateRebaser.canRebase(planned, current, Arrays.asList(
+                addRequest(),
+                ChangeTransactionInteractionId.of("2", TRANSACTION_ID)))).isTrue();
+    }
+
+    @Test
+    public void canRebase_transactionWithSameSequenceNumberAddedConcurrently_isFalse() {
+        final Payment planned = payment(1, "Pending", "appointed");
+
+        assertThat(PaymentUpdateRebaser.canRebase(planned, planned, singletonList(AddTransaction.of(
+                TransactionDraftBuilder
+                        .of(TransactionType.AUTHORIZATION, MoneyImpl.ofCents(1_000, "EUR"), ZonedDateTime.now())
+                        .interactionId("1")
+                        .build())))).isFalse();
+    }
+
+    @Test
+    public void canRebase_unknownActionOrDeletedPayment_isFalse() {
+        final Payment planned = payment(1, "Pending", "appointed");
+
+        assertThat(PaymentUpdateRebaser.canRebase(planned, planned, singletonList(SetCustomer.of(null)))).isFalse();
+        assertThat(PaymentUpdateRebaser.canRebase(planned, null, singletonList(SetStatusInterfaceCode.of("paid"))))
+                .isFalse();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void executeBlocking_withoutConflict_resubmitsActionsAgainstCurrentVersion() {
+        final Payment planned = payment(1, "Pending", "appointed");
+        final Payment current = payment(2, "Pending", "appointed", interaction("2", "reminder"));
+        final Payment updated = payment(3, "Pending", "paid", interaction("2", "reminder"), interaction("3", "paid"));
+        final BlockingSphereClient client = mock(BlockingSphereClient.class);
+        when(client.executeBlocking(any(PaymentUpdateCommand.class)))
+                .thenThrow(new ConcurrentModificationException())
+                .thenReturn(updated);
+        when(client.executeBlocking(any(PaymentByIdGet.class))).thenReturn(current);
+
+        final Payment result = PaymentUpdateRebaser.executeBlocking(client, planned,
+                Arrays.asList(addNotification("3", "paid"), SetStatusInterfaceCode.of("paid")));
+
+        assertThat(result).isSameAs(updated);
+        final ArgumentCaptor<PaymentUpdateCommand> commandCaptor = ArgumentCaptor.forClass(PaymentUpdateCommand.class);
+        verify(client, times(2)).executeBlocking(commandCaptor.capture());
+        assertThat(commandCaptor.getAllValues().get(1).getVersioned().getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    public void executeBlocking_withConflict_throwsConcurrentModificationException() {
+        final Payment planned = payment(1, "Pending", "appointed");
+        final Payment current = payment(2, "Success", "appointed");
+        final BlockingSphereClient client = mock(BlockingSphereClient.class);
+        final ConcurrentModificationException exception = new ConcurrentModificationException();
+        when(client.executeBlocking(any(PaymentUpdateCommand.class))).thenThrow(exception);
+        when(client.executeBlocking(any(PaymentByIdGet.class))).thenReturn(current);
+
+        final Throwable throwable = catchThrowable(() -> PaymentUpdateRebaser.executeBlocking(client, planned,
+                singletonList(ChangeTransactionState.of(TransactionState.SUCCESS, TRANSACTION_ID))));
+
+        assertThat(throwable).isSameAs(exception);
+        verify(client, times(1)).executeBlocking(any(PaymentUpdateCommand.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void recordBlocking_withConflict_recordsCommutingActionsOnCurrentVersion() {
+        final Payment planned = payment(1, "Pending", "appointed");
+        final Payment current = payment(2, "Success", "appointed", interaction("2", "paid"));
+        final Payment updated = payment(3, "Success", "APPROVED", interaction("2", "paid"));
+        final BlockingSphereClient client = mock(BlockingSphereClient.class);
+        when(client.executeBlocking(any(PaymentUpdateCommand.class)))
+                .thenThrow(new ConcurrentModificationException())
+                .thenReturn(updated);
+        when(client.executeBlocking(any(PaymentByIdGet.class))).thenReturn(current);
+
+        final Payment result = PaymentUpdateRebaser.recordBlocking(client, planned, Arrays.asList(
+                ChangeTransactionState.of(TransactionState.FAILURE, TRANSACTION_ID),
+                SetStatusInterfaceCode.of("APPROVED")));
+
+        // the notification which completed the transaction is newer than the planned state change
+        assertThat(result).isSameAs(updated);
+        final ArgumentCaptor<PaymentUpdateCommand> commandCaptor = ArgumentCaptor.forClass(PaymentUpdateCommand.class);
+        verify(client, times(2)).executeBlocking(commandCaptor.capture());
+        final PaymentUpdateCommand recorded = commandCaptor.getAllValues().get(1);
+        assertThat(recorded.getVersioned().getVersion()).isEqualTo(2L);
+        assertThat(recorded.getUpdateActions()).hasSize(1);
+        assertThat(recorded.getUpdateActions().get(0)).isInstanceOf(SetStatusInterfaceCode.class);
+    }
+
+    private static AddInterfaceInteraction addNotification(final String sequenceNumber, final String txAction) {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put(CustomFieldKeys.SEQUENCE_NUMBER_FIELD, sequenceNumber);
+        fields.put(CustomFieldKeys.TX_ACTION_FIELD, txAction);
+        fields.put(CustomFieldKeys.NOTIFICATION_FIELD, "txaction=" + txAction);
+        return AddInterfaceInteraction.ofTypeKeyAndObjects(CustomTypeBuilder.PAYONE_INTERACTION_NOTIFICATION, fields);
+    }
+
+    private static AddInterfaceInteraction addRequest() {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put(CustomFieldKeys.REQUEST_FIELD, "request=capture");
+        fields.put(CustomFieldKeys.TRANSACTION_ID_FIELD, "other-transaction-id");
+        return AddInterfaceInteraction.ofTypeKeyAndObjects(CustomTypeBuilder.PAYONE_INTERACTION_REQUEST, fields);
+    }
+
+    private static ObjectNode interaction(final String sequenceNumber, final String txAction) {
+        final ObjectNode interaction = JsonNodeFactory.instance.objectNode();
+        interaction.putObject("type").put("typeId", "type").put("id", "notification-type");
+        interaction.putObject("fields")
+                .put(CustomFieldKeys.SEQUENCE_NUMBER_FIELD, sequenceNumber)
+                .put(CustomFieldKeys.TX_ACTION_FIELD, txAction);
+        return interaction;
+    }
+
+    /**
+     * @return payment with one authorization with the interaction id 1
+     */
+    private static Payment payment(final long version, final String transactionState, final String statusCode,
+                                   final ObjectNode... interactions) {
+        final ObjectNode payment = JsonNodeFactory.instance.objectNode();
+        payment.put("id", PAYMENT_ID);
+        payment.put("version", version);
+        payment.set("amountPlanned", money());
+        payment.putObject("paymentMethodInfo").put("paymentInterface", "PAYONE").put("method", "CREDIT_CARD");
+        payment.putObject("paymentStatus").put("interfaceCode", statusCode).put("interfaceText", statusCode);
+        final ObjectNode transaction = payment.putArray("transactions").addObject();
+        transaction.put("id", TRANSACTION_ID);
+        transaction.put("type", TransactionType.AUTHORIZATION.toSphereName());
+        transaction.put("state", transactionState);
+        transaction.put("interactionId", "1");
+        transaction.set("amount", money());
+        final ArrayNode interfaceInteractions = payment.putArray("interfaceInteractions");
+        Arrays.stream(interactions).forEach(interfaceInteractions::add);
+        return SphereJsonUtils.readObject(SphereJsonUtils.toJsonString(payment), Payment.typeReference());
+    }
+
+    private static ObjectNode money() {
+        return JsonNodeFactory.instance.objectNode().put("currencyCode", "EUR").put("centAmount", 1_000);
+    }
+}
@@ -0,0 +1,33 @@
+package com.commercetools.pspadapter.payone.domain.payone.model.common;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ClearingTypeTest {
+
+    @Test
+    public void getClearingTypeByKey_matchesEveryKeyIgnoringCaseAndSuffix() {
+        for (final ClearingType clearingType : ClearingType.values()) {
+            assertThat(ClearingType.getClearingTypeByKey(clearingType.getKey())).isSameAs(clearingType);
+            assertThat(ClearingType.getClearingTypeByKey(clearingType.getKey().toLowerCase() + "-WITH-FEE"))
+                    .isSameAs(clearingType);
+        }
+    }
+
+    @Test
+    public void getClearingTypeByCode_matchesCodes() {
+        assertThat(ClearingType.getClearingTypeByCode("cc")).isSameAs(ClearingType.PAYONE_CC);
+        assertThat(ClearingType.getClearingTypeByCode("VOR")).isSameAs(ClearingType.PAYONE_VOR);
+        assertThat(ClearingType.getClearingTypeByCode("fnc")).isSameAs(ClearingType.PAYONE_KLV);
+    }
+
+    @Test
+    public void getClearingType_unknown_throwsException() {
+        assertThatThrownBy(() -> ClearingType.getClearingTypeByKey("DIRECT_DEBIT-SEPA"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ClearingType.getClearingTypeByCode(null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
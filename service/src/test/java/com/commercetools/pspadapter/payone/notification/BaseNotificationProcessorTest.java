@@ -2,6 +2,7 @@ package com.commercetools.pspadapter.payone.notification;
 
 import com.commercetools.payments.TransactionStateResolver;
 import com.commercetools.payments.TransactionStateResolverImpl;
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
 import com.commercetools.pspadapter.payone.mapping.order.PaymentToOrderStateMapper;
 import com.commercetools.pspadapter.tenant.TenantConfig;
@@ -71,6 +72,7 @@ public class BaseNotificationProcessorTest {
 
     @Before
     public void setUp() throws Exception {
+        when(tenantFactory.getInteractionRetention()).thenReturn(InteractionRetention.FULL);
         when(tenantFactory.getPaymentService()).thenReturn(paymentService);
         when(paymentService.updatePayment(any(Payment.class), anyObject()))
                 .then(answer -> CompletableFuture.completedFuture(answer.getArgument(0, Payment.class)));
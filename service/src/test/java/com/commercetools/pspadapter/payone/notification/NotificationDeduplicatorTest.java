@@ -0,0 +1,48 @@
+package com.commercetools.pspadapter.payone.notification;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NotificationDeduplicatorTest {
+
+    private static final String BODY = "txid=123&txaction=paid&sequencenumber=2&txtime=1450365542";
+
+    @Test
+    public void isDuplicate_afterNotificationWasHandled() {
+        final NotificationDeduplicator deduplicator = new NotificationDeduplicator("tenant1", Duration.ofHours(1), 100);
+
+        assertThat(deduplicator.isDuplicate(notification(BODY))).isFalse();
+
+        deduplicator.markHandled(notification(BODY));
+
+        assertThat(deduplicator.isDuplicate(notification(BODY))).isTrue();
+        assertThat(deduplicator.isDuplicate(notification(BODY.replace("txtime=1450365542", "txtime=1450365543"))))
+                .isFalse();
+        assertThat(deduplicator.isDuplicate(notification(BODY.replace("sequencenumber=2", "sequencenumber=3"))))
+                .isFalse();
+        assertThat(deduplicator.isDuplicate(notification(BODY.replace("txaction=paid", "txaction=capture"))))
+                .isFalse();
+    }
+
+    @Test
+    public void key_defaultsMissingSequenceNumber() {
+        assertThat(NotificationDeduplicator.key(notification("txid=123&txaction=paid&txtime=1450365542")))
+                .isEqualTo(NotificationDeduplicator.key(
+                        notification("txid=123&txaction=paid&sequencenumber=0&txtime=1450365542")));
+    }
+
+    @Test
+    public void disabled_neverFindsDuplicates() {
+        NotificationDeduplicator.DISABLED.markHandled(notification(BODY));
+
+        assertThat(NotificationDeduplicator.DISABLED.isDuplicate(notification(BODY))).isFalse();
+    }
+
+    private static Notification notification(final String body) {
+        return Notification.fromKeyValueString(body, Notification.KEY_VALUE_SEPARATOR_PATTERN);
+    }
+}
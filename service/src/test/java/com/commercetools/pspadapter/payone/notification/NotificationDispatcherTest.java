@@ -1,5 +1,7 @@
 package com.commercetools.pspadapter.payone.notification;
 
+import com.commercetools.lease.InMemoryLeaseProvider;
+import com.commercetools.lease.PaymentLeases;
 import com.commercetools.pspadapter.BaseTenantPropertyTest;
 import com.commercetools.pspadapter.payone.config.PayoneConfig;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
@@ -17,6 +19,7 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import util.PaymentTestHelper;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Map;
@@ -221,4 +224,83 @@ public class NotificationDispatcherTest extends BaseTenantPropertyTest {
         verify(specificNotificationProcessor).processTransactionStatusNotification(same(notification), any());
         verifyZeroInteractions(defaultNotificationProcessor);
     }
+
+    @Test
+    public void withLeases_readsPaymentOnce() {
+        final Notification notification = validNotification("123");
+        final NotificationDispatcher dispatcher = new NotificationDispatcher(defaultNotificationProcessor, processors,
+                tenantFactory, config, leases());
+
+        dispatcher.dispatchNotification(notification);
+
+        verify(specificNotificationProcessor).processTransactionStatusNotification(same(notification), any());
+        verify(paymentServiceImpl, times(1)).getByPaymentMethodAndInterfaceId(anyString(), anyString());
+    }
+
+    @Test
+    public void withLeases_createsMissingPaymentOnce() {
+        final Notification notification = validNotification("unknown");
+        final NotificationDispatcher dispatcher = new NotificationDispatcher(defaultNotificationProcessor, processors,
+                tenantFactory, config, leases());
+
+        dispatcher.dispatchNotification(notification);
+
+        verify(specificNotificationProcessor).processTransactionStatusNotification(same(notification), any());
+        verify(paymentServiceImpl, times(1)).getByPaymentMethodAndInterfaceId(anyString(), anyString());
+        verify(paymentServiceImpl, times(1)).createPayment(any());
+    }
+
+    @Test
+    public void answersRedeliveredNotificationWithoutHandlingItAgain() {
+        // arrange
+        final Notification notification = new Notification();
+        //txid = interfaceId -> must match the dummyPaymentQueryResult.json!
+        notification.setTxid("123");
+        notification.setSequencenumber("1");
+        notification.setClearingtype("cc");
+        notification.setPrice("200.00");
+        notification.setCurrency("EUR");
+        notification.setPortalid("dummyConfigValue");
+        notification.setAid("dummyConfigValue");
+        notification.setKey(PayoneHash.calculate("dummyConfigValue"));
+        notification.setMode("dummyConfigValue");
+        notification.setTxtime("1450365542");
+        notification.setTxaction(NotificationAction.APPOINTED);
+        notification.setTransactionStatus(TransactionStatus.COMPLETED);
+
+        final NotificationDispatcher dispatcher = new NotificationDispatcher(defaultNotificationProcessor, processors,
+                tenantFactory, config, PaymentLeases.DISABLED,
+                new NotificationDeduplicator("tenant1", Duration.ofHours(1), 100));
+
+        // act
+        dispatcher.dispatchNotification(notification);
+        dispatcher.dispatchNotification(notification);
+
+        // assert
+        verify(specificNotificationProcessor, times(1)).processTransactionStatusNotification(same(notification), any());
+        verify(paymentServiceImpl, times(1)).getByPaymentMethodAndInterfaceId(anyString(), anyString());
+        verifyZeroInteractions(defaultNotificationProcessor);
+    }
+
+    private static PaymentLeases leases() {
+        return new PaymentLeases(new InMemoryLeaseProvider(), "tenant1", Duration.ofSeconds(30),
+                Duration.ofSeconds(1));
+    }
+
+    private static Notification validNotification(final String txid) {
+        final Notification notification = new Notification();
+        notification.setTxid(txid);
+        notification.setSequencenumber("1");
+        notification.setClearingtype("cc");
+        notification.setPrice("200.00");
+        notification.setCurrency("EUR");
+        notification.setPortalid("dummyConfigValue");
+        notification.setAid("dummyConfigValue");
+        notification.setKey(PayoneHash.calculate("dummyConfigValue"));
+        notification.setMode("dummyConfigValue");
+        notification.setTxtime("1450365542");
+        notification.setTxaction(NotificationAction.APPOINTED);
+        notification.setTransactionStatus(TransactionStatus.COMPLETED);
+        return notification;
+    }
 }
@@ -18,6 +18,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -88,6 +90,36 @@ public class NotificationProcessorBaseTest extends BaseNotificationProcessorTest
                 .hasCause(sdkException);
     }
 
+    @Test(timeout = 5_000)
+    public void findsOrderWhilePaymentUpdateIsInFlight() {
+        final NotificationProcessorBase testee = new NotificationProcessorBase(tenantFactory, tenantConfig, transactionStateResolver) {
+            @Override
+            protected boolean canProcess(final Notification notification) {
+                return true;
+            }
+
+            @Override
+            protected List<UpdateAction<Payment>> createPaymentUpdates(final Payment aPayment,
+                                                                       final Notification aNotification) {
+                return Collections.emptyList();
+            }
+        };
+
+        // the payment update completes only after the order lookup has started
+        final CompletableFuture<Payment> paymentUpdate = new CompletableFuture<>();
+        when(payment.getId()).thenReturn("payment-id");
+        when(paymentService.updatePayment(any(), any())).thenReturn(paymentUpdate);
+        when(orderService.getOrderByPaymentId("payment-id")).then(answer -> {
+            paymentUpdate.complete(payment);
+            return CompletableFuture.completedFuture(Optional.of(orderToUpdate));
+        });
+
+        testee.processTransactionStatusNotification(new Notification(), payment);
+
+        verify(orderService).getOrderByPaymentId("payment-id");
+        assertThat(paymentUpdate).isCompletedWithValue(payment);
+    }
+
     @Test
     public void isNotCompletedTransaction_callsInjectedStateResolver() throws Exception {
         final NotificationProcessorBase testee = new NotificationProcessorBase(tenantFactory, tenantConfig, transactionStateResolver){
@@ -0,0 +1,70 @@
+package com.commercetools.pspadapter.payone.notification;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sphere.sdk.json.SphereJsonUtils;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.Transaction;
+import io.sphere.sdk.payments.TransactionType;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransactionIndexTest {
+
+    private final TransactionIndex index = TransactionIndex.of(payment(
+            transaction("t-1", TransactionType.AUTHORIZATION, "1"),
+            transaction("t-2", TransactionType.CHARGE, null),
+            transaction("t-3", TransactionType.CHARGE, "2"),
+            transaction("t-4", TransactionType.CHARGE, "2"),
+            transaction("t-5", TransactionType.AUTHORIZATION, "3")));
+
+    @Test
+    public void findByTypeAndInteractionId_returnsFirstMatch() {
+        assertThat(index.findByTypeAndInteractionId(TransactionType.CHARGE, "2").map(Transaction::getId))
+                .hasValue("t-3");
+        assertThat(index.findByTypeAndInteractionId(TransactionType.AUTHORIZATION, "2")).isEmpty();
+        assertThat(index.findByTypeAndInteractionId(TransactionType.REFUND, "1")).isEmpty();
+    }
+
+    @Test
+    public void findByTypeAndInteractionId_blankInteractionIdMatchesDefaultSequenceNumber() {
+        assertThat(index.findByTypeAndInteractionId(TransactionType.CHARGE, "0").map(Transaction::getId))
+                .hasValue("t-2");
+        assertThat(index.findByTypeAndInteractionId(TransactionType.CHARGE, " ").map(Transaction::getId))
+                .hasValue("t-2");
+    }
+
+    @Test
+    public void findFirstByType() {
+        assertThat(index.findFirstByType(TransactionType.AUTHORIZATION).map(Transaction::getId)).hasValue("t-1");
+        assertThat(index.findFirstByType(TransactionType.REFUND)).isEmpty();
+    }
+
+    private static Payment payment(final ObjectNode... transactions) {
+        final ObjectNode payment = JsonNodeFactory.instance.objectNode();
+        payment.put("id", "payment-id");
+        payment.put("version", 1);
+        payment.set("amountPlanned", money());
+        final ArrayNode transactionArray = payment.putArray("transactions");
+        for (final ObjectNode transaction : transactions) {
+            transactionArray.add(transaction);
+        }
+        return SphereJsonUtils.readObject(SphereJsonUtils.toJsonString(payment), Payment.typeReference());
+    }
+
+    private static ObjectNode transaction(final String id, final TransactionType type, final String interactionId) {
+        final ObjectNode transaction = JsonNodeFactory.instance.objectNode();
+        transaction.put("id", id);
+        transaction.put("type", type.toSphereName());
+        transaction.put("state", "Pending");
+        transaction.put("interactionId", interactionId);
+        transaction.set("amount", money());
+        return transaction;
+    }
+
+    private static ObjectNode money() {
+        return JsonNodeFactory.instance.objectNode().put("currencyCode", "EUR").put("centAmount", 1_000);
+    }
+}
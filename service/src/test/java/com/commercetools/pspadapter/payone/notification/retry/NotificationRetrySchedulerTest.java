@@ -0,0 +1,168 @@
+package com.commercetools.pspadapter.payone.notification.retry;
+
+import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
+import com.commercetools.pspadapter.payone.notification.NotificationDispatcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class NotificationRetrySchedulerTest {
+
+    private static final String TENANT = "tenant1";
+
+    private static final String BODY = "txid=123&txaction=appointed&sequencenumber=0";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<NotificationRetryScheduler> schedulers = new ArrayList<>();
+
+    private DeadLetterStore store;
+
+    private NotificationDispatcher dispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new DeadLetterStore(temporaryFolder.newFolder().toPath());
+        dispatcher = mock(NotificationDispatcher.class);
+    }
+
+    @After
+    public void tearDown() {
+        schedulers.forEach(NotificationRetryScheduler::stop);
+    }
+
+    @Test
+    public void submit_retriesUntilDispatchSucceeds_andRemovesNotificationFromStore() throws Exception {
+        final CountDownLatch dispatched = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            dispatched.countDown();
+            if (dispatched.getCount() > 0) {
+                throw new ConcurrentModificationException();
+            }
+            return null;
+        }).when(dispatcher).dispatchNotification(any(Notification.class));
+        final NotificationRetryScheduler scheduler = createScheduler(5);
+
+        final FailedNotification failed = scheduler.submit(TENANT, BODY, notification(), new IllegalStateException());
+
+        assertThat(dispatched.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitRemoval(failed.getId());
+        assertThat(store.find(failed.getId())).isEmpty();
+    }
+
+    @Test
+    public void attempt_lastAttemptFails_keepsNotificationAsDeadLetter() {
+        doThrow(new ConcurrentModificationException()).when(dispatcher).dispatchNotification(any(Notification.class));
+        final NotificationRetryScheduler scheduler = createScheduler(2);
+        final FailedNotification failed = FailedNotification.of(TENANT, BODY, notification(),
+                new IllegalStateException(), FailedNotification.State.RETRYING);
+        store.save(failed);
+
+        scheduler.attempt(failed, false);
+
+        final FailedNotification deadLetter = store.find(failed.getId()).orElseThrow(AssertionError::new);
+        assertThat(deadLetter.getState()).isEqualTo(FailedNotification.State.DEAD);
+        assertThat(deadLetter.getAttempts()).isEqualTo(2);
+        assertThat(deadLetter.getLastError()).contains("ConcurrentModificationException");
+        assertThat(deadLetter.getBody()).isEqualTo(BODY);
+    }
+
+    @Test
+    public void attempt_invalidNotification_isNotRetried() {
+        doThrow(new IllegalArgumentException("the value for 'key' is not valid"))
+                .when(dispatcher).dispatchNotification(any(Notification.class));
+        final NotificationRetryScheduler scheduler = createScheduler(5);
+        final FailedNotification failed = FailedNotification.of(TENANT, BODY, notification(),
+                new IllegalStateException(), FailedNotification.State.RETRYING);
+
+        scheduler.attempt(failed, false);
+
+        assertThat(store.find(failed.getId()).map(FailedNotification::getState))
+                .contains(FailedNotification.State.DEAD);
+    }
+
+    @Test
+    public void replay_dispatchesOnlyDeadLetters() throws Exception {
+        final CountDownLatch dispatched = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            dispatched.countDown();
+            return null;
+        }).when(dispatcher).dispatchNotification(any(Notification.class));
+        final NotificationRetryScheduler scheduler = createScheduler(1);
+        final FailedNotification deadLetter = scheduler.submit(TENANT, BODY, notification(),
+                new IllegalStateException());
+        final FailedNotification retrying = FailedNotification.of(TENANT, BODY, notification(),
+                new IllegalStateException(), FailedNotification.State.RETRYING);
+        store.save(retrying);
+
+        final List<String> queued = scheduler.replay(scheduler.find(notification -> true));
+
+        assertThat(queued).containsExactly(deadLetter.getId());
+        assertThat(dispatched.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitRemoval(deadLetter.getId());
+        assertThat(store.find(retrying.getId())).isPresent();
+        verify(dispatcher, times(1)).dispatchNotification(any(Notification.class));
+    }
+
+    @Test
+    public void backoff_growsExponentiallyUpToMaxDelay() {
+        final NotificationRetryScheduler scheduler = new NotificationRetryScheduler(store, tenant -> Optional.empty(),
+                10, 1_000, 5_000, 1);
+        schedulers.add(scheduler);
+
+        assertThat(scheduler.backoffMillis(1)).isBetween(500L, 1_000L);
+        assertThat(scheduler.backoffMillis(2)).isBetween(1_000L, 2_000L);
+        assertThat(scheduler.backoffMillis(3)).isBetween(2_000L, 4_000L);
+        assertThat(scheduler.backoffMillis(20)).isBetween(2_500L, 5_000L);
+    }
+
+    @Test
+    public void store_rejectsIdsOutsideOfItsDirectory() {
+        final FailedNotification failed = FailedNotification.of(TENANT, BODY, notification(),
+                new IllegalStateException(), FailedNotification.State.DEAD);
+        store.save(failed);
+
+        assertThat(store.findAll()).extracting(FailedNotification::getId).containsExactly(failed.getId());
+        assertThat(store.find("../" + failed.getId())).isEmpty();
+        assertThat(store.delete("../" + failed.getId())).isFalse();
+        assertThat(store.delete(failed.getId())).isTrue();
+        assertThat(store.findAll()).isEmpty();
+    }
+
+    private NotificationRetryScheduler createScheduler(final int maxAttempts) {
+        final NotificationRetryScheduler scheduler = new NotificationRetryScheduler(store,
+                tenant -> TENANT.equals(tenant) ? Optional.of(dispatcher) : Optional.empty(),
+                maxAttempts, 1, 10, 2);
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    private void awaitRemoval(final String id) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (store.find(id).isPresent() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Notification notification() {
+        return Notification.fromKeyValueString(BODY, Notification.KEY_VALUE_SEPARATOR_PATTERN);
+    }
+}
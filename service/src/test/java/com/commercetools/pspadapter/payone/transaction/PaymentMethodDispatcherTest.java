@@ -3,20 +3,33 @@ package com.commercetools.pspadapter.payone.transaction;
 import com.commercetools.payments.TransactionStateResolver;
 import com.commercetools.payments.TransactionStateResolverImpl;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
+import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.commands.UpdateAction;
 import io.sphere.sdk.payments.Payment;
 import io.sphere.sdk.payments.Transaction;
+import io.sphere.sdk.payments.TransactionState;
 import io.sphere.sdk.payments.TransactionType;
+import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import util.PaymentTestHelper;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.CompletionException;
 
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class PaymentMethodDispatcherTest {
     private final PaymentTestHelper payments = new PaymentTestHelper();
@@ -185,4 +198,63 @@ public class PaymentMethodDispatcherTest {
                             .isEqualTo(0);
                 });
     }
+
+    @Test
+    public void mergesPostUpdateOfCompletedTransactionIntoNextTransaction() throws Exception {
+        final Payment payment = payments.dummyPaymentTwoTransactionsInitial();
+        final BlockingSphereClient client = mock(BlockingSphereClient.class);
+        when(client.executeBlocking(any())).thenReturn(payment);
+        final MergingExecutor chargeExecutor = new MergingExecutor(client, TransactionState.SUCCESS);
+        final MergingExecutor refundExecutor = new MergingExecutor(client, TransactionState.PENDING);
+        final HashMap<TransactionType, TransactionExecutor> executors = new HashMap<>();
+        executors.put(TransactionType.CHARGE, chargeExecutor);
+        executors.put(TransactionType.REFUND, refundExecutor);
+        final PaymentMethodDispatcher dispatcher = new PaymentMethodDispatcher(
+                countingTransactionExecutor(),
+                executors,
+                transactionStateResolver);
+
+        dispatcher.dispatchPayment(new PaymentWithCartLike(payment, null));
+
+        final Transaction charge = payment.getTransactions().get(0);
+        final Transaction refund = payment.getTransactions().get(1);
+        assertThat(chargeExecutor.receivedPendingActions).containsExactly(Collections.emptyList());
+        assertThat(refundExecutor.receivedPendingActions)
+                .containsExactly(singletonList(ChangeTransactionState.of(TransactionState.SUCCESS, charge.getId())));
+
+        // the refund stays pending, so its post-update is executed on its own at the end
+        final ArgumentCaptor<PaymentUpdateCommand> updateCaptor = ArgumentCaptor.forClass(PaymentUpdateCommand.class);
+        verify(client).executeBlocking(updateCaptor.capture());
+        assertThat(updateCaptor.getValue().getUpdateActions())
+                .containsExactly(ChangeTransactionState.of(TransactionState.PENDING, refund.getId()));
+    }
+
+    /**
+     * Records the pending actions it gets and leaves the transaction in {@code newState} by a pending action.
+     */
+    private static class MergingExecutor implements MergingTransactionExecutor {
+        private final BlockingSphereClient client;
+        private final TransactionState newState;
+        private final List<List<UpdateAction<Payment>>> receivedPendingActions = new ArrayList<>();
+
+        private MergingExecutor(final BlockingSphereClient client, final TransactionState newState) {
+            this.client = client;
+            this.newState = newState;
+        }
+
+        @Override
+        @Nonnull
+        public TransactionStep executeStep(@Nonnull TransactionStep previous, @Nonnull Transaction transaction) {
+            receivedPendingActions.add(previous.getPendingActions());
+            return TransactionStep.ofPending(previous.getPaymentWithCartLike(),
+                    singletonList(ChangeTransactionState.of(newState, transaction.getId())), client);
+        }
+
+        @Override
+        @Nonnull
+        public PaymentWithCartLike executeTransaction(@Nonnull PaymentWithCartLike paymentWithCartLike,
+                                                      @Nonnull Transaction transaction) {
+            throw new UnsupportedOperationException("The dispatcher executes merging executors by steps");
+        }
+    }
 }
@@ -1,13 +1,43 @@
 package com.commercetools.pspadapter.payone.transaction;
 
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
+import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
+import com.commercetools.pspadapter.payone.mapping.CustomFieldKeys;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.sphere.sdk.client.BlockingSphereClient;
+import io.sphere.sdk.client.ConcurrentModificationException;
+import io.sphere.sdk.json.SphereJsonUtils;
+import io.sphere.sdk.payments.Payment;
+import io.sphere.sdk.payments.Transaction;
+import io.sphere.sdk.payments.TransactionState;
+import io.sphere.sdk.payments.TransactionType;
+import io.sphere.sdk.payments.commands.PaymentUpdateCommand;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionInteractionId;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionState;
+import io.sphere.sdk.payments.commands.updateactions.SetInterfaceId;
+import io.sphere.sdk.payments.commands.updateactions.SetStatusInterfaceCode;
+import io.sphere.sdk.payments.queries.PaymentByIdGet;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
+import javax.annotation.Nonnull;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import static com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields.*;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class TransactionBaseExecutorTest {
 
@@ -61,4 +91,112 @@ public class TransactionBaseExecutorTest {
 
     }
 
+    /**
+     * A notification completed the previous transaction while its Payone response was pending: the merged pre-update
+     * of the next transaction conflicts, so the response is recorded on its own and the next transaction is planned
+     * again.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void executeStep_withConflictingMergedPreUpdate_recordsPendingActionsOnTheirOwn() {
+        final Payment planned = payment(1, "Pending");
+        final Payment current = payment(2, "Success");
+        final BlockingSphereClient client = mock(BlockingSphereClient.class);
+        final ConcurrentModificationException conflict = new ConcurrentModificationException();
+        when(client.executeBlocking(any(PaymentUpdateCommand.class)))
+                .thenThrow(conflict)
+                .thenThrow(new ConcurrentModificationException())
+                .thenReturn(current);
+        when(client.executeBlocking(any(PaymentByIdGet.class))).thenReturn(current);
+
+        final TransactionStep previous = TransactionStep.ofPending(new PaymentWithCartLike(planned, null),
+                Arrays.asList(ChangeTransactionState.of(TransactionState.SUCCESS, "authorization-id"),
+                        SetStatusInterfaceCode.of("APPROVED"),
+                        SetInterfaceId.of("payone-txid")),
+                client);
+        final Transaction charge = planned.getTransactions().get(1);
+
+        final Throwable throwable = catchThrowable(() -> new PreUpdatingExecutor(client).executeStep(previous, charge));
+
+        assertThat(throwable).isSameAs(conflict);
+        final ArgumentCaptor<PaymentUpdateCommand> commandCaptor = ArgumentCaptor.forClass(PaymentUpdateCommand.class);
+        verify(client, times(3)).executeBlocking(commandCaptor.capture());
+        final PaymentUpdateCommand recorded = commandCaptor.getAllValues().get(2);
+        assertThat(recorded.getVersioned().getVersion()).isEqualTo(2L);
+        assertThat(recorded.getUpdateActions())
+                .hasSize(2)
+                .hasOnlyElementsOfTypes(SetStatusInterfaceCode.class, SetInterfaceId.class);
+    }
+
+    /**
+     * Executes a charge with a pre-update only.
+     */
+    private static final class PreUpdatingExecutor extends TransactionBaseExecutor {
+
+        @SuppressWarnings("unchecked")
+        private PreUpdatingExecutor(final BlockingSphereClient client) {
+            super(mock(LoadingCache.class), client, InteractionRetention.FULL);
+        }
+
+        @Nonnull
+        @Override
+        public TransactionType supportedTransactionType() {
+            return TransactionType.CHARGE;
+        }
+
+        @Override
+        protected boolean wasExecuted(final PaymentWithCartLike paymentWithCartLike, final Transaction transaction) {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        protected PaymentWithCartLike execute(final PaymentWithCartLike paymentWithCartLike,
+                                              final Transaction transaction) {
+            return execute(paymentWithCartLike, transaction, immediateUpdates());
+        }
+
+        @Nonnull
+        @Override
+        protected PaymentWithCartLike execute(final PaymentWithCartLike paymentWithCartLike,
+                                              final Transaction transaction, final PaymentUpdates updates) {
+            return paymentWithCartLike.withPayment(updates.preUpdate(paymentWithCartLike.getPayment(),
+                    singletonList(ChangeTransactionInteractionId.of("2", transaction.getId()))));
+        }
+    }
+
+    /**
+     * @return payment with an authorization in {@code authorizationState} and an initial charge
+     */
+    private static Payment payment(final long version, final String authorizationState) {
+        final ObjectNode payment = JsonNodeFactory.instance.objectNode();
+        payment.put("id", "payment-id");
+        payment.put("version", version);
+        payment.set("amountPlanned", money());
+        payment.putObject("paymentMethodInfo").put("paymentInterface", "PAYONE").put("method", "CREDIT_CARD");
+        payment.putObject("paymentStatus").put("interfaceCode", "appointed");
+        final ObjectNode custom = payment.putObject("custom");
+        custom.putObject("type").put("typeId", "type").put("id", "payment-type");
+        custom.putObject("fields").put(CustomFieldKeys.REFERENCE_FIELD, "reference");
+        final ArrayNode transactions = payment.putArray("transactions");
+        transactions.add(transaction("authorization-id", TransactionType.AUTHORIZATION, authorizationState, "1"));
+        transactions.add(transaction("charge-id", TransactionType.CHARGE, "Initial", null));
+        payment.putArray("interfaceInteractions");
+        return SphereJsonUtils.readObject(SphereJsonUtils.toJsonString(payment), Payment.typeReference());
+    }
+
+    private static ObjectNode transaction(final String id, final TransactionType type, final String state,
+                                          final String interactionId) {
+        final ObjectNode transaction = JsonNodeFactory.instance.objectNode();
+        transaction.put("id", id);
+        transaction.put("type", type.toSphereName());
+        transaction.put("state", state);
+        transaction.put("interactionId", interactionId);
+        transaction.set("amount", money());
+        return transaction;
+    }
+
+    private static ObjectNode money() {
+        return JsonNodeFactory.instance.objectNode().put("currencyCode", "EUR").put("centAmount", 1_000);
+    }
 }
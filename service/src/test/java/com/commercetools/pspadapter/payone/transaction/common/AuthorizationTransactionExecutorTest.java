@@ -1,6 +1,7 @@
 package com.commercetools.pspadapter.payone.transaction.common;
 
 import com.commercetools.pspadapter.payone.domain.ctp.CustomTypeBuilder;
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.domain.ctp.TypeCacheLoader;
 import com.commercetools.pspadapter.payone.domain.payone.PayonePostService;
@@ -72,7 +73,8 @@ public class AuthorizationTransactionExecutorTest {
                 Caffeine.newBuilder().build(new TypeCacheLoader(client)),
                 requestFactory,
                 postService,
-                client
+                client,
+                InteractionRetention.FULL
         );
     }
 
@@ -1,7 +1,14 @@
 package com.commercetools.pspadapter.payone.transaction.common;
 
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import com.commercetools.pspadapter.payone.domain.payone.model.common.AuthorizationRequest;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.PayoneResponseFields;
 import com.commercetools.pspadapter.payone.transaction.BaseTransaction_attemptExecutionTest;
+import com.commercetools.pspadapter.payone.transaction.TransactionStep;
+import io.sphere.sdk.payments.TransactionState;
+import io.sphere.sdk.payments.commands.updateactions.AddInterfaceInteraction;
+import io.sphere.sdk.payments.commands.updateactions.ChangeTransactionInteractionId;
+import io.sphere.sdk.payments.commands.updateactions.SetStatusInterfaceCode;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -10,7 +17,11 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.HashMap;
 
+import static com.commercetools.pspadapter.payone.domain.payone.model.common.ResponseStatus.APPROVED;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -26,7 +37,8 @@ public class ChargeTransaction_attemptExecutionTest extends BaseTransaction_atte
     public void setUp() {
         super.setUp();
 
-        executor = new ChargeTransactionExecutor(typeCache, requestFactory, payonePostService, client);
+        executor = new ChargeTransactionExecutor(typeCache, requestFactory, payonePostService, client,
+                InteractionRetention.FULL);
 
         final HashMap<String, Object> requestMap = new HashMap<>();
         requestMap.put("testRequestKey1", "testRequestValue2");
@@ -65,4 +77,28 @@ public class ChargeTransaction_attemptExecutionTest extends BaseTransaction_atte
     public void attemptExecution_withUnexpectedResponseStatus_throwsException() throws Exception {
         super.attemptExecution_withUnexpectedResponseStatus_throwsException(authorizationRequest, executor);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void executeStep_mergesPendingActionsIntoPreUpdate_andKeepsPostUpdatePending() throws Exception {
+        final HashMap<String, String> responseMap = new HashMap<>();
+        responseMap.put(PayoneResponseFields.STATUS, APPROVED.getStateCode());
+        responseMap.put(PayoneResponseFields.TXID, "responseTxid");
+        when(payonePostService.executePost(authorizationRequest)).thenReturn(responseMap);
+        final SetStatusInterfaceCode previousAction = SetStatusInterfaceCode.of("previous transaction");
+
+        final TransactionStep step = executor.executeStep(
+                TransactionStep.ofPending(paymentWithCartLike, singletonList(previousAction), client), transaction);
+
+        // one update only: the pending action with the request, the response stays pending
+        verify(client).executeBlocking(paymentUpdateCaptor.capture());
+        assertThat(paymentUpdateCaptor.getValue().getUpdateActions()).hasSize(3);
+        assertThat(paymentUpdateCaptor.getValue().getUpdateActions().get(0)).isEqualTo(previousAction);
+        assertThat(paymentUpdateCaptor.getValue().getUpdateActions().get(1)).isInstanceOf(AddInterfaceInteraction.class);
+        assertThat(paymentUpdateCaptor.getValue().getUpdateActions().get(2))
+                .isEqualTo(ChangeTransactionInteractionId.of("0", "transaction-mock-id"));
+
+        assertThat(step.getPaymentWithCartLike().getPayment()).isSameAs(updatedPayment);
+        assertThat(step.getPendingActions()).contains(SetStatusInterfaceCode.of(APPROVED.getStateCode()));
+        assertThat(step.getPendingState("transaction-mock-id")).contains(TransactionState.SUCCESS);
+    }
+}
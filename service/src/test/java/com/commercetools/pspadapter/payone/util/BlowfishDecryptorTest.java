@@ -0,0 +1,79 @@
+package com.commercetools.pspadapter.payone.util;
+
+import org.junit.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BlowfishDecryptorTest {
+
+    private static final String KEY = "qwertyuiopasdfgh";
+
+    private final BlowfishDecryptor decryptor = new BlowfishDecryptor(KEY);
+
+    @Test
+    public void decryptHexToString_decryptsLikeBlowfishUtil() throws Exception {
+        final String encrypted = encryptToHex("DE66778899");
+
+        assertThat(decryptor.decryptHexToString(encrypted)).isEqualTo("DE66778899");
+        assertThat(decryptor.decryptHexToString(encrypted.toLowerCase()))
+                .isEqualTo(BlowfishUtil.decryptHexToString(KEY, encrypted))
+                .isEqualTo("DE66778899");
+    }
+
+    @Test
+    public void decryptHexToStrings_decryptsInOrder() throws Exception {
+        assertThat(decryptor.decryptHexToStrings(asList(encryptToHex("DE66778899"), encryptToHex("BIC_TEST_TEST"))))
+                .containsExactly("DE66778899", "BIC_TEST_TEST");
+    }
+
+    @Test
+    public void decryptHexToString_inOtherThread_usesOwnCipher() throws Exception {
+        final String encrypted = encryptToHex("DE66778899");
+
+        assertThat(CompletableFuture.supplyAsync(() -> decryptor.decryptHexToString(encrypted)).get())
+                .isEqualTo(decryptor.decryptHexToString(encrypted));
+    }
+
+    @Test
+    public void decryptHexToString_withInvalidData_throwsIllegalArgumentException() {
+        assertThatThrownBy(() -> decryptor.decryptHexToString("ABC"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decryptor.decryptHexToString("XYZ0"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decryptor.decryptHexToString("ABCD"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void decryptHexToString_withInvalidKey_throwsIllegalArgumentException() throws Exception {
+        final String encrypted = encryptToHex("DE66778899");
+        final BlowfishDecryptor tooShortKey = new BlowfishDecryptor("abc");
+
+        assertThatThrownBy(() -> tooShortKey.decryptHexToString(encrypted))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Pads the value with spaces to the block size, like the shops do.
+     */
+    private static String encryptToHex(final String value) throws Exception {
+        final StringBuilder padded = new StringBuilder(value);
+        while (padded.length() % 8 != 0) {
+            padded.append(' ');
+        }
+        final Cipher cipher = Cipher.getInstance("Blowfish/ECB/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "Blowfish"));
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : cipher.doFinal(padded.toString().getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02X", b));
+        }
+        return hex.toString();
+    }
+}
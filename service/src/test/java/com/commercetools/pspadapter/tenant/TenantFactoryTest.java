@@ -1,10 +1,12 @@
 package com.commercetools.pspadapter.tenant;
 
+import com.commercetools.lease.PaymentLeases;
 import com.commercetools.payments.TransactionStateResolver;
 import com.commercetools.payments.TransactionStateResolverImpl;
 import com.commercetools.pspadapter.payone.PaymentDispatcher;
 import com.commercetools.pspadapter.payone.config.PayoneConfig;
 import com.commercetools.pspadapter.payone.domain.ctp.CustomTypeBuilder;
+import com.commercetools.pspadapter.payone.domain.ctp.InteractionRetention;
 import com.commercetools.pspadapter.payone.domain.ctp.PaymentWithCartLike;
 import com.commercetools.pspadapter.payone.domain.ctp.paymentmethods.PaymentMethod;
 import com.commercetools.pspadapter.payone.domain.payone.PayonePostService;
@@ -87,6 +89,8 @@ public class TenantFactoryTest {
         when(tenantConfig.getName()).thenReturn("testTenantName");
         when(tenantConfig.getSphereClientConfig())
                 .thenReturn(SphereClientConfig.of("test-key", "test-client-id", "test-client-secret"));
+        when(tenantConfig.getInteractionRetention()).thenReturn(InteractionRetention.Mode.FULL);
+        when(tenantConfig.getPaymentLeaseProvider()).thenReturn(PaymentLeases.Provider.NONE);
 
         factory = new TenantFactory("testPayoneInterfaceName", tenantConfig);
     }
@@ -317,6 +321,23 @@ public class TenantFactoryTest {
         }
     }
 
+    @Test
+    public void sharesStatelessComponentsBetweenTenants() throws Exception {
+        TenantFactory otherFactory = new TenantFactory("testPayoneInterfaceName", tenantConfig);
+
+        assertThat(otherFactory.createTransactionStateResolver()).isSameAs(factory.createTransactionStateResolver());
+        assertThat(otherFactory.getPaymentToOrderStateMapper()).isSameAs(factory.getPaymentToOrderStateMapper());
+        assertThat(otherFactory.createCountryToLanguageMapper()).isSameAs(factory.createCountryToLanguageMapper());
+        assertThat(otherFactory.getPayonePostService(tenantConfig)).isSameAs(factory.getPayonePostService(tenantConfig));
+    }
+
+    @Test
+    public void createsDispatchersOnce() throws Exception {
+        assertThat(factory.getPaymentDispatcher()).isSameAs(factory.getPaymentDispatcher());
+        assertThat(factory.getNotificationDispatcher()).isSameAs(factory.getNotificationDispatcher());
+        assertThat(factory.getPaymentHandler()).isSameAs(factory.getPaymentHandler());
+    }
+
     @Test
     public void createCountryToLanguageMapper() throws Exception {
         CountryToLanguageMapper paymentDispatcher = factory.createCountryToLanguageMapper();
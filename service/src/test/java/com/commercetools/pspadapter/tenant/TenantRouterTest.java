@@ -0,0 +1,69 @@
+package com.commercetools.pspadapter.tenant;
+
+import com.commercetools.pspadapter.payone.config.PayoneConfig;
+import com.commercetools.pspadapter.payone.domain.payone.model.common.Notification;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TenantRouterTest {
+
+    private final TenantFactory boots = tenant("BOOTS", "portal-1", "aid-1");
+
+    private final TenantFactory bikes = tenant("BIKES", "portal-1", "aid-2");
+
+    @Test
+    public void getTenant_resolvesTenantByName() {
+        final TenantRouter router = new TenantRouter(asList(boots, bikes));
+
+        assertThat(router.getTenant("BOOTS")).containsSame(boots);
+        assertThat(router.getTenant("BIKES")).containsSame(bikes);
+    }
+
+    @Test
+    public void getTenant_withUnknownName_isEmpty() {
+        final TenantRouter router = new TenantRouter(asList(boots, bikes));
+
+        assertThat(router.getTenant("CARS")).isEmpty();
+        assertThat(router.getTenant(null)).isEmpty();
+    }
+
+    @Test
+    public void getTenantForNotification_resolvesTenantByPayoneAccount() {
+        final TenantRouter router = new TenantRouter(asList(boots, bikes));
+
+        assertThat(router.getTenantForNotification(notification("portal-1", "aid-2"))).containsSame(bikes);
+        assertThat(router.getTenantForNotification(notification("portal-2", "aid-2"))).isEmpty();
+    }
+
+    @Test
+    public void getTenantForNotification_withSharedPayoneAccount_isEmpty() {
+        final TenantFactory cars = tenant("CARS", "portal-1", "aid-1");
+        final TenantRouter router = new TenantRouter(asList(boots, bikes, cars));
+
+        assertThat(router.getTenantForNotification(notification("portal-1", "aid-1"))).isEmpty();
+        assertThat(router.getTenant("CARS")).containsSame(cars);
+    }
+
+    private static TenantFactory tenant(final String name, final String portalId, final String subAccountId) {
+        final PayoneConfig payoneConfig = mock(PayoneConfig.class);
+        when(payoneConfig.getPortalId()).thenReturn(portalId);
+        when(payoneConfig.getSubAccountId()).thenReturn(subAccountId);
+        final TenantConfig tenantConfig = mock(TenantConfig.class);
+        when(tenantConfig.getPayoneConfig()).thenReturn(payoneConfig);
+        final TenantFactory tenantFactory = mock(TenantFactory.class);
+        when(tenantFactory.getTenantName()).thenReturn(name);
+        when(tenantFactory.getTenantConfig()).thenReturn(tenantConfig);
+        return tenantFactory;
+    }
+
+    private static Notification notification(final String portalId, final String subAccountId) {
+        final Notification notification = new Notification();
+        notification.setPortalid(portalId);
+        notification.setAid(subAccountId);
+        return notification;
+    }
+}
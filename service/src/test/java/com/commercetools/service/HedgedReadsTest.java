@@ -0,0 +1,190 @@
+package com.commercetools.service;
+
+import io.sphere.sdk.client.SphereClient;
+import io.sphere.sdk.client.SphereRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HedgedReadsTest {
+
+    private static final long DELAY_MILLIS = 20;
+
+    @Mock
+    private SphereClient client;
+
+    @Mock
+    private SphereRequest<String> request;
+
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void execute_withFastPrimary_sendsNoHedge() throws Exception {
+        when(client.execute(request)).thenReturn(CompletableFuture.completedFuture("primary"));
+
+        final CompletionStage<String> response = hedgedReads(100).execute(client, request);
+
+        assertThat(response.toCompletableFuture().get(1, TimeUnit.SECONDS)).isEqualTo("primary");
+        Thread.sleep(DELAY_MILLIS * 3);
+        verify(client, times(1)).execute(request);
+    }
+
+    @Test
+    public void execute_withSlowPrimary_returnsHedge() throws Exception {
+        when(client.execute(request))
+                .thenReturn(new CompletableFuture<>())
+                .thenReturn(CompletableFuture.completedFuture("hedge"));
+
+        final CompletionStage<String> response = hedgedReads(100).execute(client, request);
+
+        assertThat(response.toCompletableFuture().get(1, TimeUnit.SECONDS)).isEqualTo("hedge");
+        verify(client, times(2)).execute(request);
+    }
+
+    @Test
+    public void execute_withSlowPrimaryAndSlowerHedge_returnsPrimary() throws Exception {
+        final CompletableFuture<String> primary = new CompletableFuture<>();
+        when(client.execute(request))
+                .thenReturn(primary)
+                .thenReturn(new CompletableFuture<>());
+
+        final CompletionStage<String> response = hedgedReads(100).execute(client, request);
+        verify(client, timeout(1_000).times(2)).execute(request);
+        primary.complete("primary");
+
+        assertThat(response.toCompletableFuture().get(1, TimeUnit.SECONDS)).isEqualTo("primary");
+    }
+
+    @Test
+    public void execute_withPrimaryFailingAfterHedgeWasSent_returnsHedge() throws Exception {
+        final CompletableFuture<String> primary = new CompletableFuture<>();
+        final CompletableFuture<String> hedge = new CompletableFuture<>();
+        when(client.execute(request))
+                .thenReturn(primary)
+                .thenReturn(hedge);
+
+        final CompletionStage<String> response = hedgedReads(100).execute(client, request);
+        verify(client, timeout(1_000).times(2)).execute(request);
+        primary.completeExceptionally(new IllegalStateException("primary failed"));
+        hedge.complete("hedge");
+
+        assertThat(response.toCompletableFuture().get(1, TimeUnit.SECONDS)).isEqualTo("hedge");
+    }
+
+    @Test
+    public void execute_withBothFailing_returnsFailure() throws Exception {
+        final CompletableFuture<String> primary = new CompletableFuture<>();
+        final CompletableFuture<String> hedge = new CompletableFuture<>();
+        when(client.execute(request))
+                .thenReturn(primary)
+                .thenReturn(hedge);
+
+        final CompletionStage<String> response = hedgedReads(100).execute(client, request);
+        verify(client, timeout(1_000).times(2)).execute(request);
+        hedge.completeExceptionally(new IllegalStateException("hedge failed"));
+        primary.completeExceptionally(new IllegalStateException("primary failed"));
+
+        final Throwable throwable = catchThrowable(() -> response.toCompletableFuture().get(1, TimeUnit.SECONDS));
+        assertThat(throwable).isInstanceOf(ExecutionException.class);
+        assertThat(throwable.getCause()).hasMessage("primary failed");
+    }
+
+    @Test
+    public void execute_withExhaustedBudget_sendsNoHedge() throws Exception {
+        final CompletableFuture<String> primary = new CompletableFuture<>();
+        when(client.execute(request)).thenReturn(primary);
+        final HedgedReads hedgedReads = hedgedReads(0);
+
+        // the initial budget allows MAX_TOKENS hedges
+        for (int i = 0; i < HedgedReads.MAX_TOKENS; i++) {
+            hedgedReads.execute(client, request);
+        }
+        verify(client, timeout(1_000).times((int) (2 * HedgedReads.MAX_TOKENS))).execute(request);
+
+        hedgedReads.execute(client, request);
+        Thread.sleep(DELAY_MILLIS * 3);
+        verify(client, times((int) (2 * HedgedReads.MAX_TOKENS) + 1)).execute(request);
+    }
+
+    @Test
+    public void execute_disabled_sendsRequestOnce() throws Exception {
+        final CompletableFuture<String> primary = new CompletableFuture<>();
+        when(client.execute(request)).thenReturn(primary);
+
+        final CompletionStage<String> response = HedgedReads.DISABLED.execute(client, request);
+
+        assertThat(response).isSameAs(primary);
+        verify(client, times(1)).execute(request);
+    }
+
+    @Test
+    public void getDelayMillis_withoutFixedDelay_startsWithInitialDelay() {
+        final HedgedReads hedgedReads = new HedgedReads("test-tenant", 0, 5, scheduler);
+
+        assertThat(hedgedReads.getDelayMillis()).isEqualTo(HedgedReads.INITIAL_DELAY_MILLIS);
+    }
+
+    @Test
+    public void refreshDelay_withFailedReads_keepsDelay() {
+        final CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("read failed"));
+        when(client.execute(request)).thenReturn(failed);
+        final HedgedReads hedgedReads = new HedgedReads("test-tenant", 0, 5, scheduler);
+
+        for (int i = 0; i < HedgedReads.MIN_SAMPLES; i++) {
+            hedgedReads.execute(client, request);
+        }
+        hedgedReads.refreshDelay();
+
+        assertThat(hedgedReads.getDelayMillis()).isEqualTo(HedgedReads.INITIAL_DELAY_MILLIS);
+    }
+
+    @Test
+    public void refreshDelay_withFastReads_lowersDelayAndStartsNewWindow() {
+        when(client.execute(request)).thenReturn(CompletableFuture.completedFuture("primary"));
+        final HedgedReads hedgedReads = new HedgedReads("test-tenant", 0, 5, scheduler);
+
+        for (int i = 0; i < HedgedReads.MIN_SAMPLES; i++) {
+            hedgedReads.execute(client, request);
+        }
+        hedgedReads.refreshDelay();
+        assertThat(hedgedReads.getDelayMillis()).isEqualTo(HedgedReads.MIN_DELAY_MILLIS);
+
+        // the new window has too few samples yet, the delay stays
+        hedgedReads.execute(client, request);
+        hedgedReads.refreshDelay();
+        assertThat(hedgedReads.getDelayMillis()).isEqualTo(HedgedReads.MIN_DELAY_MILLIS);
+    }
+
+    private HedgedReads hedgedReads(final double budgetPercent) {
+        return new HedgedReads("test-tenant", DELAY_MILLIS, budgetPercent, scheduler);
+    }
+}
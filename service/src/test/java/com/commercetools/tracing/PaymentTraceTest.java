@@ -0,0 +1,67 @@
+package com.commercetools.tracing;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static com.commercetools.tracing.PaymentTrace.measure;
+import static com.commercetools.tracing.TracePhase.FETCH;
+import static com.commercetools.tracing.TracePhase.PAYONE_POST;
+import static com.commercetools.tracing.TracePhase.POST_UPDATE;
+import static io.sphere.sdk.payments.TransactionType.AUTHORIZATION;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PaymentTraceTest {
+
+    private PaymentTrace trace;
+
+    @After
+    public void tearDown() {
+        if (trace != null) {
+            trace.end(200, PaymentTraceSampler.DISABLED);
+        }
+    }
+
+    @Test
+    public void measure_withoutTrace_onlyCallsTheBlock() throws Exception {
+        assertThat(measure(FETCH, () -> "result")).isEqualTo("result");
+    }
+
+    @Test
+    public void measure_withTrace_addsSpansTaggedWithTransactionType() throws Exception {
+        trace = PaymentTrace.begin("testTenant", "testPaymentId");
+
+        measure(FETCH, () -> "payment");
+        PaymentTrace.setTransactionType(AUTHORIZATION);
+        measure(PAYONE_POST, () -> "response");
+
+        assertThat(trace.getSpans()).hasSize(2);
+        assertThat(trace.getSpans().get(0).phase).isEqualTo(FETCH);
+        assertThat(trace.getSpans().get(0).transactionType).isNull();
+        assertThat(trace.getSpans().get(1).phase).isEqualTo(PAYONE_POST);
+        assertThat(trace.getSpans().get(1).transactionType).isEqualTo(AUTHORIZATION);
+        assertThat(trace.getSpans().get(1).offsetNanos)
+                .isGreaterThanOrEqualTo(trace.getSpans().get(0).offsetNanos);
+    }
+
+    @Test
+    public void measure_whenBlockThrows_stillAddsSpan() {
+        trace = PaymentTrace.begin("testTenant", "testPaymentId");
+
+        assertThatThrownBy(() -> measure(POST_UPDATE, () -> {
+            throw new IllegalStateException("update failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(trace.getSpans()).extracting(span -> span.phase).containsExactly(POST_UPDATE);
+    }
+
+    @Test
+    public void end_unbindsTraceFromThread() throws Exception {
+        final PaymentTrace endedTrace = PaymentTrace.begin("testTenant", "testPaymentId");
+        endedTrace.end(200, new PaymentTraceSampler(1.0, 0));
+
+        measure(FETCH, () -> "payment");
+
+        assertThat(endedTrace.getSpans()).isEmpty();
+    }
+}
@@ -0,0 +1,52 @@
+package com.commercetools.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CaseInsensitiveTrieTest {
+
+    private final CaseInsensitiveTrie<Integer> trie = new CaseInsensitiveTrie<>(entries());
+
+    @Test
+    public void findIn_matchesPrefixAndInfixIgnoringCase() {
+        assertThat(trie.findIn("CREDIT_CARD")).isEqualTo(1);
+        assertThat(trie.findIn("credit_card-with-fee")).isEqualTo(1);
+        assertThat(trie.findIn("discounted-Credit_Card")).isEqualTo(1);
+        assertThat(trie.findIn("wlt")).isEqualTo(3);
+    }
+
+    @Test
+    public void findIn_prefersLowestPositionThenLongestKey() {
+        assertThat(trie.findIn("CREDIT")).isEqualTo(2);
+        assertThat(trie.findIn("CREDIT_CARD")).isEqualTo(1);
+        assertThat(trie.findIn("wlt-CREDIT_CARD")).isEqualTo(3);
+    }
+
+    @Test
+    public void findIn_withoutKey_returnsNull() {
+        assertThat(trie.findIn(null)).isNull();
+        assertThat(trie.findIn("")).isNull();
+        assertThat(trie.findIn("CREDI")).isNull();
+        assertThat(trie.findIn("w-l-t")).isNull();
+    }
+
+    @Test
+    public void constructor_withEmptyKey_throwsException() {
+        assertThatThrownBy(() -> new CaseInsensitiveTrie<>(singletonMap("", 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Map<String, Integer> entries() {
+        final Map<String, Integer> entries = new HashMap<>();
+        entries.put("CREDIT_CARD", 1);
+        entries.put("CREDIT", 2);
+        entries.put("wlt", 3);
+        return entries;
+    }
+}
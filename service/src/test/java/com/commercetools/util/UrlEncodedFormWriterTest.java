@@ -0,0 +1,73 @@
+package com.commercetools.util;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UrlEncodedFormWriterTest {
+
+    @Test
+    public void appendAll_encodesLikeUrlEncodedFormEntity() {
+        final Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("request", "preauthorization");
+        parameters.put("amount", 12999L);
+        parameters.put("lastname", "Müller-Lüdenscheidt & Söhne");
+        parameters.put("email", "max+test@example.com");
+        parameters.put("narrative_text", "a.b_c-d*e f/g");
+        parameters.put("nothing", null);
+
+        final String body = new UrlEncodedFormWriter(16).appendAll(parameters).toString();
+
+        assertThat(body).isEqualTo(URLEncodedUtils.format(asList(
+                new BasicNameValuePair("request", "preauthorization"),
+                new BasicNameValuePair("amount", "12999"),
+                new BasicNameValuePair("lastname", "Müller-Lüdenscheidt & Söhne"),
+                new BasicNameValuePair("email", "max+test@example.com"),
+                new BasicNameValuePair("narrative_text", "a.b_c-d*e f/g"),
+                new BasicNameValuePair("nothing", null)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void appendAll_expandsListsWithIndicesFromOne() {
+        final Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("pr", asList(-7575L, 495L));
+        parameters.put("de", asList("Schraube M8, 10 Stück", null));
+        parameters.put("va", emptyList());
+
+        final String body = new UrlEncodedFormWriter(16).appendAll(parameters).toString();
+
+        assertThat(body).isEqualTo(URLEncodedUtils.format(asList(
+                pair("pr[1]", "-7575"),
+                pair("pr[2]", "495"),
+                pair("de[1]", "Schraube M8, 10 Stück"),
+                pair("de[2]", null),
+                pair("va[]", "")), StandardCharsets.UTF_8));
+        assertThat(body).startsWith("pr%5B1%5D=-7575&pr%5B2%5D=495&");
+    }
+
+    @Test
+    public void appendIndexed_long_matchesStringValue() {
+        final UrlEncodedFormWriter numbers = new UrlEncodedFormWriter(16)
+                .appendIndexed("no", 1, 3L)
+                .appendIndexed("pr", 2, -12L);
+        final UrlEncodedFormWriter strings = new UrlEncodedFormWriter(16)
+                .appendIndexed("no", 1, "3")
+                .appendIndexed("pr", 2, "-12");
+
+        assertThat(numbers.toString()).isEqualTo(strings.toString()).isEqualTo("no%5B1%5D=3&pr%5B2%5D=-12");
+        assertThat(numbers.length()).isEqualTo(numbers.toString().length());
+    }
+
+    private static NameValuePair pair(final String name, final String value) {
+        return new BasicNameValuePair(name, value);
+    }
+}
@@ -0,0 +1,156 @@
+package com.commercetools.util.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.encoder.EncoderBase;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchingRingBufferAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    private final BatchingRingBufferAppender appender = new BatchingRingBufferAppender();
+
+    @After
+    public void tearDown() {
+        appender.stop();
+    }
+
+    @Test
+    public void writesEventsInOrder() {
+        start(new MessageEncoder(null), 16, DropPolicy.DROP_BELOW_WARN);
+
+        appender.doAppend(event(Level.INFO, "first"));
+        appender.doAppend(event(Level.ERROR, "second"));
+        appender.stop();
+
+        assertThat(written()).isEqualTo("first\nsecond\n");
+    }
+
+    @Test
+    public void startBuffering_writesBufferedEventsOnlyAfterStart() throws Exception {
+        start(new MessageEncoder(null), 16, DropPolicy.DROP_BELOW_WARN, false);
+
+        appender.doAppend(event(Level.INFO, "buffered"));
+        Thread.sleep(50);
+        assertThat(written()).isEmpty();
+
+        appender.start();
+        appender.doAppend(event(Level.INFO, "written"));
+        appender.stop();
+
+        assertThat(written()).isEqualTo("buffered\nwritten\n");
+    }
+
+    @Test
+    public void dropNewest_dropsEventsWhenFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final MessageEncoder encoder = new MessageEncoder(release);
+        start(encoder, 1, DropPolicy.DROP_NEWEST);
+
+        appender.doAppend(event(Level.INFO, "taken"));
+        assertThat(encoder.encoding.await(5, TimeUnit.SECONDS)).isTrue();
+        appender.doAppend(event(Level.INFO, "buffered"));
+        appender.doAppend(event(Level.ERROR, "dropped"));
+        release.countDown();
+        appender.stop();
+
+        assertThat(written()).isEqualTo("taken\nbuffered\n");
+    }
+
+    @Test
+    public void dropBelowWarn_keepsErrorsWhichFitInTime() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final MessageEncoder encoder = new MessageEncoder(release);
+        start(encoder, 1, DropPolicy.DROP_BELOW_WARN);
+
+        appender.doAppend(event(Level.INFO, "taken"));
+        assertThat(encoder.encoding.await(5, TimeUnit.SECONDS)).isTrue();
+        appender.doAppend(event(Level.INFO, "buffered"));
+        appender.doAppend(event(Level.INFO, "dropped"));
+        release.countDown();
+        appender.setAppendTimeoutMillis(5_000);
+        appender.doAppend(event(Level.ERROR, "error"));
+        appender.stop();
+
+        assertThat(written()).isEqualTo("taken\nbuffered\nerror\n");
+    }
+
+    private void start(final MessageEncoder encoder, final int ringBufferSize, final DropPolicy dropPolicy) {
+        start(encoder, ringBufferSize, dropPolicy, true);
+    }
+
+    private void start(final MessageEncoder encoder, final int ringBufferSize, final DropPolicy dropPolicy,
+                       final boolean writing) {
+        encoder.setContext(context);
+        encoder.start();
+        appender.setContext(context);
+        appender.setName("test");
+        appender.setEncoder(encoder);
+        appender.setOutputStream(output);
+        appender.setRingBufferSize(ringBufferSize);
+        appender.setBatchSize(1); // the blocked event is alone in its batch
+        appender.setDropPolicy(dropPolicy);
+        if (writing) {
+            appender.start();
+        } else {
+            appender.startBuffering();
+        }
+    }
+
+    private ILoggingEvent event(final Level level, final String message) {
+        return new LoggingEvent(getClass().getName(), context.getLogger("test"), level, message, null, null);
+    }
+
+    private String written() {
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the message per line. If a latch is given, the first event blocks the worker until it is released.
+     */
+    private static final class MessageEncoder extends EncoderBase<ILoggingEvent> {
+
+        private final CountDownLatch release;
+        private final CountDownLatch encoding = new CountDownLatch(1);
+
+        private MessageEncoder(final CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public byte[] headerBytes() {
+            return new byte[0];
+        }
+
+        @Override
+        public byte[] encode(final ILoggingEvent event) {
+            if (release != null && encoding.getCount() > 0) {
+                encoding.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return (event.getFormattedMessage() + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public byte[] footerBytes() {
+            return new byte[0];
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.commercetools.util.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RepeatedLogRateLimitFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    private final RepeatedLogRateLimitFilter filter = new RepeatedLogRateLimitFilter();
+
+    @Before
+    public void setUp() {
+        filter.setContext(context);
+        filter.setMaxPerInterval(2);
+        filter.setIntervalMillis(60_000);
+        filter.start();
+    }
+
+    @Test
+    public void deniesRepeatedErrorsOfLogger() {
+        final Logger logger = context.getLogger("notifications");
+
+        assertThat(decide(logger, Level.ERROR, "failed {}")).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(logger, Level.ERROR, "failed {}")).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(logger, Level.ERROR, "failed {}")).isEqualTo(FilterReply.DENY);
+
+        assertThat(decide(logger, Level.ERROR, "other {}")).isEqualTo(FilterReply.NEUTRAL);
+        assertThat(decide(context.getLogger("payments"), Level.ERROR, "failed {}")).isEqualTo(FilterReply.NEUTRAL);
+    }
+
+    @Test
+    public void ignoresInfoAndLevelChecks() {
+        final Logger logger = context.getLogger("notifications");
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(decide(logger, Level.INFO, "received {}")).isEqualTo(FilterReply.NEUTRAL);
+            assertThat(decide(logger, Level.ERROR, null)).isEqualTo(FilterReply.NEUTRAL);
+        }
+    }
+
+    private FilterReply decide(final Logger logger, final Level level, final String format) {
+        return filter.decide(null, logger, level, format, null, null);
+    }
+}
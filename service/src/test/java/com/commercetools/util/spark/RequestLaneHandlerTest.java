@@ -0,0 +1,191 @@
+package com.commercetools.util.spark;
+
+import com.commercetools.health.ProbeResult;
+import com.commercetools.health.ServerQueueProbe;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestLaneHandlerTest {
+
+    private static final String NOTIFICATION_PATH = "/tenant1/payone/notification";
+
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Server server;
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        clients.shutdownNow();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void handle_runsRequestOfLaneOnLaneThread() throws Exception {
+        startServer(new LaneExecutor(RequestLane.NOTIFICATION, 2, 10, 10_000), null);
+
+        final Response laneResponse = get(NOTIFICATION_PATH);
+        assertThat(laneResponse.status).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(laneResponse.body).startsWith("lane-notification-");
+
+        final Response serverThreadResponse = get("/unknown");
+        assertThat(serverThreadResponse.status).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(serverThreadResponse.body).doesNotStartWith("lane-");
+    }
+
+    @Test
+    public void handle_withFullLaneQueue_rejectsRequestAndFailsReadiness() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(RequestLane.NOTIFICATION, 1, 1, 10_000);
+        final CountDownLatch running = new CountDownLatch(1);
+        startServer(executor, running);
+        final ServerQueueProbe probe = new ServerQueueProbe(Optional::empty,
+                () -> Collections.singletonMap(RequestLane.NOTIFICATION, executor), 50);
+
+        // the first request holds the only thread of the lane, the second one waits in its queue
+        final Future<Response> running1 = clients.submit(() -> get(NOTIFICATION_PATH));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        final Future<Response> queued = clients.submit(() -> get(NOTIFICATION_PATH));
+        awaitQueueDepth(executor, 1);
+
+        final Response rejected = get(NOTIFICATION_PATH);
+        assertThat(rejected.status).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(rejected.retryAfter).isEqualTo("1");
+
+        final ProbeResult result = probe.probe(1000);
+        assertThat(result.isHealthy()).isFalse();
+        assertThat(result.getDetails()).contains("lane notification queued 1 of 1");
+
+        release.countDown();
+        assertThat(running1.get(5, TimeUnit.SECONDS).status).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(queued.get(5, TimeUnit.SECONDS).status).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(probe.probe(1000).isHealthy()).isTrue();
+    }
+
+    @Test
+    public void handle_withRequestQueuedLongerThanLaneTimeout_answersUnavailable() throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        startServer(new LaneExecutor(RequestLane.NOTIFICATION, 1, 1, 200), running);
+
+        final Future<Response> running1 = clients.submit(() -> get(NOTIFICATION_PATH));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        final Response timedOut = get(NOTIFICATION_PATH);
+        assertThat(timedOut.status).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(timedOut.retryAfter).isEqualTo("1");
+
+        // the running request is not cut off by the timeout
+        release.countDown();
+        assertThat(running1.get(5, TimeUnit.SECONDS).status).isEqualTo(HttpServletResponse.SC_OK);
+    }
+
+    @Test
+    public void handle_withRouteStillWritingWhenLaneTimeoutFires_answersRouteResponse() throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        startServer(new LaneExecutor(RequestLane.NOTIFICATION, 1, 1, 100), running);
+
+        final Future<Response> response = clients.submit(() -> get(NOTIFICATION_PATH));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(300);
+        release.countDown();
+
+        final Response written = response.get(5, TimeUnit.SECONDS);
+        assertThat(written.status).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(written.body).startsWith("lane-notification-");
+        assertThat(written.retryAfter).isNull();
+    }
+
+    /**
+     * @param running if not null - the requests count it down and block until the test ends
+     */
+    private void startServer(final LaneExecutor executor, final CountDownLatch running) throws Exception {
+        final Map<RequestLane, LaneExecutor> lanes = Collections.singletonMap(executor.getLane(), executor);
+        final RequestLaneHandler laneHandler = new RequestLaneHandler(lanes);
+        laneHandler.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+                               final HttpServletResponse response) throws IOException {
+                if (running != null) {
+                    running.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                baseRequest.setHandled(true);
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.getWriter().print(Thread.currentThread().getName());
+            }
+        });
+        server = new Server(0);
+        server.setHandler(laneHandler);
+        server.start();
+    }
+
+    private Response get(final String path) throws IOException {
+        final int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+        final HttpURLConnection connection =
+                (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        try {
+            final int status = connection.getResponseCode();
+            final InputStream stream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            final String body = stream == null ? "" : read(stream);
+            return new Response(status, body, connection.getHeaderField("Retry-After"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static String read(final InputStream stream) {
+        try (Scanner scanner = new Scanner(stream, StandardCharsets.UTF_8.name()).useDelimiter("\\A")) {
+            return scanner.hasNext() ? scanner.next() : "";
+        }
+    }
+
+    private static void awaitQueueDepth(final LaneExecutor executor, final long queueDepth)
+            throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (executor.getQueueDepth() < queueDepth && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+        private final String retryAfter;
+
+        private Response(final int status, final String body, final String retryAfter) {
+            this.status = status;
+            this.body = body;
+            this.retryAfter = retryAfter;
+        }
+    }
+}
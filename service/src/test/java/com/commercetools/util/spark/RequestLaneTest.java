@@ -0,0 +1,47 @@
+package com.commercetools.util.spark;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestLaneTest {
+
+    @Test
+    public void forPath_mapsRoutesToLanes() {
+        assertThat(RequestLane.forPath("/tenant1/commercetools/handle/payments/123")).isEqualTo(RequestLane.CHECKOUT);
+        assertThat(RequestLane.forPath("/tenant1/payone/notification")).isEqualTo(RequestLane.NOTIFICATION);
+        assertThat(RequestLane.forPath("/health")).isEqualTo(RequestLane.ADMIN);
+        assertThat(RequestLane.forPath("/health/ready")).isEqualTo(RequestLane.ADMIN);
+        assertThat(RequestLane.forPath("/metrics")).isEqualTo(RequestLane.ADMIN);
+        assertThat(RequestLane.forPath("/admin/notifications/dead-letters")).isEqualTo(RequestLane.ADMIN);
+        assertThat(RequestLane.forPath("/unknown")).isNull();
+        assertThat(RequestLane.forPath("/healthy")).isNull();
+    }
+
+    @Test
+    public void laneExecutor_rejectsRequestsBeyondQueueCapacity() throws Exception {
+        final LaneExecutor executor = new LaneExecutor(RequestLane.NOTIFICATION, 1, 1, 10_000);
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Runnable blocking = () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        assertThat(executor.tryExecute(blocking)).isTrue();
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.tryExecute(blocking)).isTrue();
+        assertThat(executor.getQueueDepth()).isEqualTo(1);
+
+        assertThat(executor.tryExecute(blocking)).isFalse();
+
+        release.countDown();
+    }
+}